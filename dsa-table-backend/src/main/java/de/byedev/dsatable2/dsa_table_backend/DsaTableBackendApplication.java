@@ -6,6 +6,7 @@ import de.byedev.dsatable2.dsa_table_backend.model.User;
 import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
 import de.byedev.dsatable2.dsa_table_backend.repository.GameSessionRepository;
 import de.byedev.dsatable2.dsa_table_backend.repository.UserRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.ContentBlobService;
 import de.byedev.dsatable2.dsa_table_backend.util.HeroXMLParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +17,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +26,7 @@ import java.util.Optional;
 
 @SpringBootApplication
 @EnableCaching
+@EnableScheduling
 public class DsaTableBackendApplication {
 
 	private static final Logger LOG = LoggerFactory.getLogger(DsaTableBackendApplication.class);
@@ -37,6 +40,7 @@ public class DsaTableBackendApplication {
 	CommandLineRunner initData(UserRepository userRepository,
 							   GameSessionRepository gameSessionRepository,
 							   CharacterRepository characterRepository,
+							   ContentBlobService contentBlobService,
 							   PasswordEncoder passwordEncoder) {
 		return args -> {
 			// Check if data already exists - if so, skip initialization
@@ -148,6 +152,8 @@ public class DsaTableBackendApplication {
 					String xml = new String(bytes, StandardCharsets.UTF_8);
 
 					Character c = HeroXMLParser.fromXmlData(xml);
+					c.setRawData(contentBlobService.store(xml));
+					c.markParsed();
 					c.setOwnerId(user.getId());
 					c.setSessionId(null); // GM's character should NOT be in session
 					// Initialize current resources based on calculated totals
@@ -183,6 +189,8 @@ public class DsaTableBackendApplication {
 					String xml = new String(bytes, StandardCharsets.UTF_8);
 
 					Character c = HeroXMLParser.fromXmlData(xml);
+					c.setRawData(contentBlobService.store(xml));
+					c.markParsed();
 					c.setOwnerId(user2.getId());
 					c.setSessionId(session.getId()); // Player's character should be in session
 					// Initialize current resources based on calculated totals
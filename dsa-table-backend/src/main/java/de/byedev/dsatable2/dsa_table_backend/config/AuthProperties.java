@@ -0,0 +1,84 @@
+package de.byedev.dsatable2.dsa_table_backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Limits of login and registration, bound from {@code app.auth.*}.
+ * <p>
+ * Example:
+ * <pre>
+ * app.auth.hashing-threads=2
+ * app.auth.attempts-per-username=5
+ * app.auth.attempt-window=1m
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "app.auth")
+public class AuthProperties {
+
+    /**
+     * Number of passwords hashed at the same time, shared by all logins and registrations
+     */
+    private int hashingThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * Number of hashing requests waiting for a thread; further requests are rejected
+     */
+    private int hashingQueueCapacity = 32;
+
+    /**
+     * Login attempts per username within {@link #attemptWindow}
+     */
+    private int attemptsPerUsername = 5;
+
+    /**
+     * Login and registration attempts per client IP within {@link #attemptWindow}
+     */
+    private int attemptsPerIp = 20;
+
+    /**
+     * Time in which the attempts are replenished; bursts up to the full number of attempts are allowed
+     */
+    private Duration attemptWindow = Duration.ofMinutes(1);
+
+    public int getHashingThreads() {
+        return hashingThreads;
+    }
+
+    public void setHashingThreads(int hashingThreads) {
+        this.hashingThreads = hashingThreads;
+    }
+
+    public int getHashingQueueCapacity() {
+        return hashingQueueCapacity;
+    }
+
+    public void setHashingQueueCapacity(int hashingQueueCapacity) {
+        this.hashingQueueCapacity = hashingQueueCapacity;
+    }
+
+    public int getAttemptsPerUsername() {
+        return attemptsPerUsername;
+    }
+
+    public void setAttemptsPerUsername(int attemptsPerUsername) {
+        this.attemptsPerUsername = attemptsPerUsername;
+    }
+
+    public int getAttemptsPerIp() {
+        return attemptsPerIp;
+    }
+
+    public void setAttemptsPerIp(int attemptsPerIp) {
+        this.attemptsPerIp = attemptsPerIp;
+    }
+
+    public Duration getAttemptWindow() {
+        return attemptWindow;
+    }
+
+    public void setAttemptWindow(Duration attemptWindow) {
+        this.attemptWindow = attemptWindow;
+    }
+}
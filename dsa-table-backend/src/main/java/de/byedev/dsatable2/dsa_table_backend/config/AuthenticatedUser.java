@@ -0,0 +1,15 @@
+package de.byedev.dsatable2.dsa_table_backend.config;
+
+import java.security.Principal;
+
+/**
+ * Principal of a request authenticated by {@link JwtAuthenticationFilter}. Resolved once per request, controllers
+ * receive it as a {@link de.byedev.dsatable2.dsa_table_backend.web.CurrentUser} parameter.
+ */
+public record AuthenticatedUser(Long id, String username) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -1,36 +1,67 @@
 package de.byedev.dsatable2.dsa_table_backend.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
 import java.util.Arrays;
+import java.util.List;
 
 @Configuration
+@EnableConfigurationProperties(CacheTuningProperties.class)
 public class CacheConfig {
 
+    private static final Logger LOG = LoggerFactory.getLogger(CacheConfig.class);
+
+    public static final List<String> CACHE_NAMES = Arrays.asList(
+            "users",           // Cache for User entities
+            "usersByUsername", // Cache for User lookups by username
+            "userDtos",        // Cache for UserDto objects
+            "chatMessages",    // Cache for chat messages by session ID
+            "characters",      // Cache for serialized Character responses by ID and list key
+            "gameSessions",   // Cache for serialized GameSession responses by ID and session DTO lists
+            "battlemaps"      // Cache for Battlemap entities by session ID
+    );
+
     /**
-     * Configure cache manager for user caching.
-     * Uses ConcurrentMapCacheManager for simple in-memory caching.
-     * For production, consider using Caffeine or Redis cache.
+     * Configure cache manager for application caching.
+     * Every cache is a Caffeine cache bounded by the estimated size of its entries
+     * (see {@link CacheWeigher}) with its own expiry, configured via {@link CacheTuningProperties}.
+     * Caffeine's admission policy keeps frequently used entries over one-off reads,
+     * and statistics are recorded so hits, misses and evictions are exported as cache metrics.
      */
     @Bean
     @Primary
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        cacheManager.setCacheNames(Arrays.asList(
-                "users",           // Cache for User entities
-                "usersByUsername", // Cache for User lookups by username
-                "userDtos",        // Cache for UserDto objects
-                "chatMessages",    // Cache for chat messages by session ID
-                "characters",      // Cache for Character entities by ID
-                "gameSessions",   // Cache for GameSession entities by ID
-                "battlemaps"      // Cache for Battlemap entities by session ID
-        ));
+    public CacheManager cacheManager(CacheTuningProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
         // Allow null values to handle Optional.empty() cases gracefully
         cacheManager.setAllowNullValues(true);
+        for (String cacheName : CACHE_NAMES) {
+            CacheTuningProperties.CacheSpec spec = properties.getSpec(cacheName);
+            cacheManager.registerCustomCache(cacheName, buildCache(spec).build());
+            LOG.debug("Configured cache '{}' with maximum weight {}, expire after write {}, expire after access {}",
+                    cacheName, spec.getMaximumWeight(), spec.getExpireAfterWrite(), spec.getExpireAfterAccess());
+        }
         return cacheManager;
     }
+
+    private Caffeine<Object, Object> buildCache(CacheTuningProperties.CacheSpec spec) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumWeight(spec.getMaximumWeight().toBytes())
+                .weigher(new CacheWeigher())
+                .recordStats();
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        return builder;
+    }
 }
@@ -0,0 +1,107 @@
+package de.byedev.dsatable2.dsa_table_backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-cache size and expiry settings, bound from {@code app.cache.*}.
+ * <p>
+ * Example:
+ * <pre>
+ * app.cache.specs.characters.maximum-weight=64MB
+ * app.cache.specs.characters.expire-after-access=10m
+ * </pre>
+ * Caches without an explicit entry use {@link #getDefaults()}.
+ */
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheTuningProperties {
+
+    private CacheSpec defaults = new CacheSpec(DataSize.ofMegabytes(16), null, Duration.ofMinutes(30));
+
+    private Map<String, CacheSpec> specs = new LinkedHashMap<>();
+
+    public CacheSpec getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(CacheSpec defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, CacheSpec> getSpecs() {
+        return specs;
+    }
+
+    public void setSpecs(Map<String, CacheSpec> specs) {
+        this.specs = specs;
+    }
+
+    /**
+     * Get the settings for a cache, falling back to the defaults for unset values
+     */
+    public CacheSpec getSpec(String cacheName) {
+        CacheSpec spec = specs.get(cacheName);
+        if (spec == null) {
+            return defaults;
+        }
+        return new CacheSpec(
+                spec.getMaximumWeight() != null ? spec.getMaximumWeight() : defaults.getMaximumWeight(),
+                spec.getExpireAfterWrite() != null ? spec.getExpireAfterWrite() : defaults.getExpireAfterWrite(),
+                spec.getExpireAfterAccess() != null ? spec.getExpireAfterAccess() : defaults.getExpireAfterAccess());
+    }
+
+    public static class CacheSpec {
+
+        /**
+         * Maximum estimated size of all entries in the cache.
+         */
+        private DataSize maximumWeight;
+
+        /**
+         * Time after which an entry expires, counted from its creation. Unset means no limit.
+         */
+        private Duration expireAfterWrite;
+
+        /**
+         * Time after which an entry expires, counted from its last read or write. Unset means no limit.
+         */
+        private Duration expireAfterAccess;
+
+        public CacheSpec() {
+        }
+
+        public CacheSpec(DataSize maximumWeight, Duration expireAfterWrite, Duration expireAfterAccess) {
+            this.maximumWeight = maximumWeight;
+            this.expireAfterWrite = expireAfterWrite;
+            this.expireAfterAccess = expireAfterAccess;
+        }
+
+        public DataSize getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        public void setMaximumWeight(DataSize maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+
+        public Duration getExpireAfterAccess() {
+            return expireAfterAccess;
+        }
+
+        public void setExpireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package de.byedev.dsatable2.dsa_table_backend.config;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.model.User;
+import de.byedev.dsatable2.dsa_table_backend.service.SerializedResponseCache.SerializedResponse;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.BattlemapDto;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.ChatMessageDto;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.GameSessionDto;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.UserDto;
+import org.springframework.http.HttpEntity;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Estimates the heap size of cached values in bytes, so caches can be bounded by memory
+ * instead of entry count. The estimates are deliberately rough - they only need to be in the
+ * right order of magnitude to keep a single large hero sheet from weighing the same as a user.
+ */
+public class CacheWeigher implements Weigher<Object, Object> {
+
+    private static final int OBJECT_OVERHEAD = 16;
+    private static final int DEFAULT_WEIGHT = 256;
+    private static final int USER_WEIGHT = 160;
+    private static final int CHARACTER_BASE_WEIGHT = 512;
+    private static final int CHARACTER_CHILD_WEIGHT = 128;
+    private static final int TOKEN_WEIGHT = 192;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        long estimate = estimate(key) + estimate(value);
+        return (int) Math.min(Integer.MAX_VALUE, estimate);
+    }
+
+    static long estimate(Object value) {
+        if (value == null) {
+            return OBJECT_OVERHEAD;
+        }
+        if (value instanceof String string) {
+            return 40 + 2L * string.length();
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return OBJECT_OVERHEAD;
+        }
+        if (value instanceof HttpEntity<?> entity) {
+            return 64 + estimate(entity.getBody());
+        }
+        if (value instanceof Optional<?> optional) {
+            return OBJECT_OVERHEAD + estimate(optional.orElse(null));
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = 32;
+            for (Object element : collection) {
+                size += 8 + estimate(element);
+            }
+            return size;
+        }
+        if (value instanceof SerializedResponse response) {
+            return 64 + response.size();
+        }
+        if (value instanceof Character character) {
+            return estimateCharacter(character);
+        }
+        if (value instanceof GameSessionDto session) {
+            long size = DEFAULT_WEIGHT + estimate(session.getDescription());
+            if (session.getPlayers() != null) {
+                size += (long) session.getPlayers().size() * USER_WEIGHT;
+            }
+            if (session.getBattlemap() != null) {
+                size += estimate(session.getBattlemap());
+            }
+            return size;
+        }
+        if (value instanceof BattlemapDto battlemap) {
+            long size = DEFAULT_WEIGHT + estimate(battlemap.getMapImageUrl());
+            if (battlemap.getTokens() != null) {
+                size += (long) battlemap.getTokens().size() * TOKEN_WEIGHT;
+            }
+            size += estimate(battlemap.getFog());
+            return size;
+        }
+        if (value instanceof ChatMessageDto message) {
+            return USER_WEIGHT + estimate(message.getMessage());
+        }
+        if (value instanceof User || value instanceof UserDto) {
+            return USER_WEIGHT;
+        }
+        return DEFAULT_WEIGHT;
+    }
+
+    private static long estimateCharacter(Character character) {
+        long size = CHARACTER_BASE_WEIGHT;
+        size += estimate(character.getNotes());
+        long children = character.getProperties().size()
+                + character.getTalents().size()
+                + character.getSpells().size()
+                + character.getCombatTalents().size()
+                + character.getAdvantages().size()
+                + character.getSpecialities().size()
+                + character.getWeapons().size();
+        return size + children * CHARACTER_CHILD_WEIGHT;
+    }
+}
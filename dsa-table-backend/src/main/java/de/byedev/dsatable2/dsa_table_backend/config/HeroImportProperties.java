@@ -0,0 +1,83 @@
+package de.byedev.dsatable2.dsa_table_backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Limits of bulk hero imports, bound from {@code app.import.*}.
+ * <p>
+ * Example:
+ * <pre>
+ * app.import.parallelism=4
+ * app.import.memory-budget=64MB
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "app.import")
+public class HeroImportProperties {
+
+    /**
+     * Number of hero files parsed at the same time, shared by all imports
+     */
+    private int parallelism = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Number of heroes saved per transaction
+     */
+    private int chunkSize = 25;
+
+    /**
+     * Maximum number of files in one archive
+     */
+    private int maxFiles = 500;
+
+    /**
+     * Maximum size of a single (uncompressed) hero file, at most half of the memory budget
+     */
+    private DataSize maxFileSize = DataSize.ofMegabytes(4);
+
+    /**
+     * Maximum memory of hero files and their parsed heroes held by all imports together, until they are saved. Each
+     * file is charged twice its size.
+     */
+    private DataSize memoryBudget = DataSize.ofMegabytes(64);
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    public void setMaxFiles(int maxFiles) {
+        this.maxFiles = maxFiles;
+    }
+
+    public DataSize getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public void setMaxFileSize(DataSize maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public DataSize getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public void setMemoryBudget(DataSize memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+}
@@ -1,5 +1,6 @@
 package de.byedev.dsatable2.dsa_table_backend.config;
 
+import de.byedev.dsatable2.dsa_table_backend.repository.UserRepository;
 import de.byedev.dsatable2.dsa_table_backend.util.JwtUtil;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
@@ -16,13 +17,19 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.Collections;
 
+/**
+ * Authenticates requests with a bearer token. The principal is an {@link AuthenticatedUser}, so controllers get
+ * the user without parsing the token or looking up the user again.
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final UserRepository userRepository;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserRepository userRepository) {
         this.jwtUtil = jwtUtil;
+        this.userRepository = userRepository;
     }
 
     @Override
@@ -41,9 +48,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             final String username = jwtUtil.extractUsername(jwt);
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                if (jwtUtil.validateToken(jwt, username)) {
+                // Cached lookup; tokens of deleted users do not authenticate
+                AuthenticatedUser user = jwtUtil.validateToken(jwt, username)
+                        ? userRepository.findByUsername(username)
+                                .map(u -> new AuthenticatedUser(u.getId(), u.getUsername()))
+                                .orElse(null)
+                        : null;
+                if (user != null) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            username,
+                            user,
                             null,
                             Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
                     );
@@ -1,15 +1,22 @@
 package de.byedev.dsatable2.dsa_table_backend.config;
 
+import de.byedev.dsatable2.dsa_table_backend.web.CurrentUser;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Contact;
 import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.info.License;
+import org.springdoc.core.utils.SpringDocUtils;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class OpenApiConfig {
 
+    static {
+        // Resolved from the bearer token, not a request parameter
+        SpringDocUtils.getConfig().addAnnotationsToIgnore(CurrentUser.class);
+    }
+
     @Bean
     public OpenAPI dsaTableOpenAPI() {
         return new OpenAPI()
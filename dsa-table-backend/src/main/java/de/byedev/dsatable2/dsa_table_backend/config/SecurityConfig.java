@@ -2,6 +2,7 @@ package de.byedev.dsatable2.dsa_table_backend.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.ErrorResponse;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
@@ -50,12 +51,18 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 // Configure authorization
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatches (e.g. completing an SSE stream) belong to an already authorized request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
+                        // The live battlemap socket authenticates with a token query parameter on handshake
+                        .requestMatchers("/api/sessions/*/battlemap/live").permitAll()
                         .requestMatchers("/api/char", "/api/char/**").permitAll()
                         .requestMatchers("/api/env-object", "/api/env-object/**").permitAll()
                         .requestMatchers("/api/battlemap-image", "/api/battlemap-image/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/api-docs/**", "/v3/api-docs/**").permitAll()
                         .requestMatchers("/h2-console/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").authenticated()
                         .requestMatchers("/static/**", "/favicon.ico").permitAll()
                         .requestMatchers("/api/**").authenticated()
                         .anyRequest().permitAll()
@@ -0,0 +1,33 @@
+package de.byedev.dsatable2.dsa_table_backend.config;
+
+import de.byedev.dsatable2.dsa_table_backend.web.BattlemapHandshakeInterceptor;
+import de.byedev.dsatable2.dsa_table_backend.web.BattlemapSocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    public static final String LIVE_BATTLEMAP_PATH = "/api/sessions/{sessionId}/battlemap/live";
+
+    private final BattlemapSocketHandler battlemapSocketHandler;
+    private final BattlemapHandshakeInterceptor battlemapHandshakeInterceptor;
+
+    public WebSocketConfig(BattlemapSocketHandler battlemapSocketHandler,
+                           BattlemapHandshakeInterceptor battlemapHandshakeInterceptor) {
+        this.battlemapSocketHandler = battlemapSocketHandler;
+        this.battlemapHandshakeInterceptor = battlemapHandshakeInterceptor;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // Same origin policy as the REST controllers (@CrossOrigin(origins = "*")); the handshake redeems a
+        // single-use ticket issued by an authenticated REST call
+        registry.addHandler(battlemapSocketHandler, LIVE_BATTLEMAP_PATH)
+                .addInterceptors(battlemapHandshakeInterceptor)
+                .setAllowedOriginPatterns("*");
+    }
+}
@@ -1,6 +1,7 @@
 package de.byedev.dsatable2.dsa_table_backend.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import de.byedev.dsatable2.dsa_table_backend.service.CacheEvictionListener;
 import jakarta.persistence.*;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
@@ -9,9 +10,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(CacheEvictionListener.class)
 @Table(name = "advantages")
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class Advantage {
+public class Advantage implements CharacterChild {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "advantage_seq")
@@ -1,10 +1,17 @@
 package de.byedev.dsatable2.dsa_table_backend.model;
 
+import de.byedev.dsatable2.dsa_table_backend.service.CacheEvictionListener;
+import de.byedev.dsatable2.dsa_table_backend.util.FogBitmap;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+// Fog changes only write the fog columns
+@DynamicUpdate
+@EntityListeners(CacheEvictionListener.class)
 @Table(name = "battlemaps")
 public class Battlemap {
 
@@ -31,9 +38,18 @@ public class Battlemap {
     @OneToMany(mappedBy = "battlemap", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<BattlemapToken> tokens = new ArrayList<>();
 
-    @ElementCollection
-    @CollectionTable(name = "battlemap_fog_revealed_areas", joinColumns = @JoinColumn(name = "battlemap_id"))
-    private List<FogRevealedArea> fogRevealedAreas = new ArrayList<>();
+    /**
+     * Revealed fog cells as compressed {@link FogBitmap}, null if nothing was revealed yet
+     */
+    @Lob
+    @Column(name = "fog")
+    private byte[] fog;
+
+    @Column(name = "fog_columns")
+    private Integer fogColumns;
+
+    @Column(name = "fog_rows")
+    private Integer fogRows;
 
     public Battlemap() {
     }
@@ -94,11 +110,37 @@ public class Battlemap {
         this.tokens = tokens;
     }
 
-    public List<FogRevealedArea> getFogRevealedAreas() {
-        return fogRevealedAreas;
-    }
-
-    public void setFogRevealedAreas(List<FogRevealedArea> fogRevealedAreas) {
-        this.fogRevealedAreas = fogRevealedAreas;
+    /**
+     * @return the fog of war, or null if nothing was revealed yet
+     */
+    public FogBitmap getFog() {
+        if (fog == null || fogColumns == null || fogRows == null) {
+            return null;
+        }
+        return FogBitmap.decompress(fogColumns, fogRows, fog);
+    }
+
+    /**
+     * @return the fog of war, with all cells hidden if nothing was revealed yet
+     */
+    public FogBitmap getFogOrDefault() {
+        FogBitmap current = getFog();
+        if (current != null) {
+            return current;
+        }
+        int size = gridSize != null && gridSize > 0 ? gridSize : 10;
+        return new FogBitmap(size, size);
+    }
+
+    public void setFog(FogBitmap fog) {
+        if (fog == null) {
+            this.fog = null;
+            this.fogColumns = null;
+            this.fogRows = null;
+        } else {
+            this.fog = fog.compress();
+            this.fogColumns = fog.getColumns();
+            this.fogRows = fog.getRows();
+        }
     }
 }
@@ -1,8 +1,13 @@
 package de.byedev.dsatable2.dsa_table_backend.model;
 
+import de.byedev.dsatable2.dsa_table_backend.service.CacheEvictionListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
+@EntityListeners(CacheEvictionListener.class)
+// Patching a token only writes the changed columns
+@DynamicUpdate
 @Table(name = "battlemap_tokens")
 public class BattlemapToken {
 
@@ -3,6 +3,7 @@ package de.byedev.dsatable2.dsa_table_backend.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import de.byedev.dsatable2.dsa_table_backend.service.CacheEvictionListener;
 import de.byedev.dsatable2.dsa_table_backend.util.HeroXMLParser;
 import jakarta.persistence.*;
 import org.hibernate.annotations.Fetch;
@@ -18,6 +19,7 @@ import java.util.Random;
 import static de.byedev.dsatable2.dsa_table_backend.model.PropertyName.*;
 
 @Entity
+@EntityListeners(CacheEvictionListener.class)
 @Table(name = "characters")
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @JsonPropertyOrder({
@@ -87,11 +89,25 @@ public class Character {
     private String avatarUrl;
 
     /**
-     * Optional raw hero data (e.g. imported XML from external tools).
+     * Optional raw hero data (e.g. imported XML from external tools). Kept compressed in a separate table
+     * and loaded only when needed ({@link #reparse()}, download), characters imported from the same XML share it.
      */
-    @Lob
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "raw_data_id")
+    @JsonIgnore
+    private ContentBlob rawData;
+
+    /**
+     * Content hash of the raw data and {@link HeroXMLParser#VERSION} this character was last parsed with, see
+     * {@link #markParsed()}
+     */
+    @Column(name = "parsed_hash", length = 64)
+    @JsonIgnore
+    private String parsedHash;
+
+    @Column(name = "parser_version")
     @JsonIgnore
-    private String rawData;
+    private Integer parserVersion;
 
     @Column(name = "owner_id")
     private Long ownerId;
@@ -282,14 +298,37 @@ public class Character {
         return "/api/char";
     }
 
-    public String getRawData() {
+    public ContentBlob getRawData() {
         return rawData;
     }
 
-    public void setRawData(String rawData) {
+    public void setRawData(ContentBlob rawData) {
         this.rawData = rawData;
     }
 
+    public String getParsedHash() {
+        return parsedHash;
+    }
+
+    public Integer getParserVersion() {
+        return parserVersion;
+    }
+
+    /**
+     * Record that the current state was parsed from {@link #rawData} with the current parser version
+     */
+    public void markParsed() {
+        markParsed(rawData != null ? rawData.getContentHash() : null);
+    }
+
+    /**
+     * Like {@link #markParsed()}, with the content hash of the raw data already known (does not load it)
+     */
+    public void markParsed(String contentHash) {
+        this.parsedHash = contentHash;
+        this.parserVersion = HeroXMLParser.VERSION;
+    }
+
     public Long getOwnerId() {
         return ownerId;
     }
@@ -552,8 +591,14 @@ public class Character {
 
     @com.fasterxml.jackson.annotation.JsonGetter("totalLife")
     public int getTotalLife() {
-        return getPropertyValue(LIFE)
-                + Math.round((getPropertyValue(CONSTITUTION) * 2 + getPropertyValue(STRENGTH)) / 2.0f);
+        return totalLife(getPropertyValue(LIFE), getPropertyValue(CONSTITUTION), getPropertyValue(STRENGTH));
+    }
+
+    /**
+     * Total life from the LeP, KO and KK property values
+     */
+    public static int totalLife(int life, int constitution, int strength) {
+        return life + Math.round((constitution * 2 + strength) / 2.0f);
     }
 
     public int getMagicResistance() {
@@ -728,18 +773,18 @@ public class Character {
             return;
         }
         try {
-            Character parsed = HeroXMLParser.fromXmlData(getRawData());
+            Character parsed = HeroXMLParser.fromXmlData(rawData.getText());
             updateFrom(parsed);
+            markParsed();
         } catch (Exception e) {
             LOG.warn("Error while reparsing the hero: {}", e.getMessage());
         }
     }
 
     /**
-     * Copy over most state from another character (used by reparse).
+     * Copy over most state from another character (used by reparse). The raw data is kept.
      */
     public void updateFrom(Character other) {
-        this.rawData = other.rawData;
         this.name = other.name;
         this.race = other.race;
         this.profession = other.profession;
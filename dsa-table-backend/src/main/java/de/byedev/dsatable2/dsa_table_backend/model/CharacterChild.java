@@ -0,0 +1,9 @@
+package de.byedev.dsatable2.dsa_table_backend.model;
+
+/**
+ * An entity stored as part of a {@link Character} (property, talent, weapon, ...).
+ */
+public interface CharacterChild {
+
+    Long getCharacterId();
+}
@@ -1,11 +1,16 @@
 package de.byedev.dsatable2.dsa_table_backend.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import de.byedev.dsatable2.dsa_table_backend.service.CacheEvictionListener;
 import jakarta.persistence.*;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+@EntityListeners(CacheEvictionListener.class)
+@Table(name = "chat_messages", indexes = {
+        // Keyset pagination: WHERE session_id = ? AND id > ? ORDER BY id
+        @Index(name = "idx_chat_messages_session_id_id", columnList = "session_id, id")
+})
 public class ChatMessage {
 
     @Id
@@ -1,12 +1,14 @@
 package de.byedev.dsatable2.dsa_table_backend.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import de.byedev.dsatable2.dsa_table_backend.service.CacheEvictionListener;
 import jakarta.persistence.*;
 
 @Entity
+@EntityListeners(CacheEvictionListener.class)
 @Table(name = "combat_talents")
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class CombatTalent {
+public class CombatTalent implements CharacterChild {
 
     public static final String BASE_TALENT_NAME = "Basis";
 
@@ -0,0 +1,179 @@
+package de.byedev.dsatable2.dsa_table_backend.model;
+
+import jakarta.persistence.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Large, rarely read content (e.g. imported hero XML, saved battlemaps), stored gzip-compressed and identified
+ * by the SHA-256 hash of its uncompressed bytes (UTF-8 for text), so identical content is stored only once.
+ * <p>
+ * Blobs are immutable and may be shared by several entities, which reference them lazily; they are
+ * created and released through {@code ContentBlobService}.
+ */
+@Entity
+@Table(name = "content_blobs")
+public class ContentBlob {
+
+    /**
+     * Maximum size of uncompressed content, which also bounds decompressing untrusted data
+     */
+    public static final int MAX_CONTENT_LENGTH = 16 * 1024 * 1024;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "content_blob_seq")
+    @SequenceGenerator(name = "content_blob_seq", sequenceName = "content_blob_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * Hex-encoded SHA-256 of the uncompressed content
+     */
+    @Column(name = "content_hash", nullable = false, unique = true, length = 64, updatable = false)
+    private String contentHash;
+
+    /**
+     * Gzip-compressed content
+     */
+    @Lob
+    @Column(nullable = false, updatable = false)
+    private byte[] data;
+
+    /**
+     * Size of the uncompressed content in bytes
+     */
+    @Column(name = "content_length", nullable = false, updatable = false)
+    private int contentLength;
+
+    protected ContentBlob() {
+    }
+
+    private ContentBlob(String contentHash, byte[] data, int contentLength) {
+        this.contentHash = contentHash;
+        this.data = data;
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * Create a (not yet persisted) blob for the given text
+     */
+    public static ContentBlob of(String text) {
+        return of(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Create a (not yet persisted) blob for the given content
+     *
+     * @throws IllegalArgumentException if the content exceeds {@link #MAX_CONTENT_LENGTH}
+     */
+    public static ContentBlob of(byte[] content) {
+        checkLength(content.length);
+        return new ContentBlob(hash(content), gzip(content), content.length);
+    }
+
+    /**
+     * Create a (not yet persisted) blob for content that is already gzip-compressed; the compressed data is
+     * stored as is
+     *
+     * @throws IllegalArgumentException if the data is not valid gzip or its content exceeds {@link #MAX_CONTENT_LENGTH}
+     */
+    public static ContentBlob ofGzipped(byte[] gzipped) {
+        byte[] content;
+        try {
+            content = gunzip(gzipped, MAX_CONTENT_LENGTH + 1);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid gzip data: " + e.getMessage(), e);
+        }
+        checkLength(content.length);
+        return new ContentBlob(hash(content), gzipped, content.length);
+    }
+
+    /**
+     * @return whether the data starts with the gzip magic number
+     */
+    public static boolean isGzipped(byte[] data) {
+        return data.length >= 2 && data[0] == (byte) 0x1f && data[1] == (byte) 0x8b;
+    }
+
+    /**
+     * @return the hex-encoded SHA-256 of the UTF-8 bytes of the text, as stored in {@link #getContentHash()}
+     */
+    public static String hash(String text) {
+        return hash(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void checkLength(int length) {
+        if (length > MAX_CONTENT_LENGTH) {
+            throw new IllegalArgumentException("Content exceeds " + MAX_CONTENT_LENGTH + " bytes");
+        }
+    }
+
+    private static byte[] gunzip(byte[] data, int maxLength) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzip.readNBytes(maxLength);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compress content", e);
+        }
+        return out.toByteArray();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * @return the gzip-compressed content, e.g. to send it as is to clients accepting gzip
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * @return the decompressed content
+     */
+    public byte[] getContent() {
+        try {
+            return gunzip(data, contentLength);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt content blob " + id, e);
+        }
+    }
+
+    /**
+     * @return the decompressed content as UTF-8 text
+     */
+    public String getText() {
+        return new String(getContent(), StandardCharsets.UTF_8);
+    }
+}
@@ -1,11 +1,13 @@
 package de.byedev.dsatable2.dsa_table_backend.model;
 
+import de.byedev.dsatable2.dsa_table_backend.service.CacheEvictionListener;
 import jakarta.persistence.*;
 import java.time.OffsetDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@EntityListeners(CacheEvictionListener.class)
 @Table(name = "game_sessions")
 public class GameSession {
 
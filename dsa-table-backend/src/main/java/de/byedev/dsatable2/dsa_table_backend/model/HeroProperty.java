@@ -3,12 +3,14 @@ package de.byedev.dsatable2.dsa_table_backend.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import de.byedev.dsatable2.dsa_table_backend.service.CacheEvictionListener;
 import jakarta.persistence.*;
 
 @Entity
+@EntityListeners(CacheEvictionListener.class)
 @Table(name = "hero_properties")
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class HeroProperty {
+public class HeroProperty implements CharacterChild {
 
     public static final transient HeroProperty NONE = new HeroProperty(PropertyName.NONE, 0);
 
@@ -18,8 +18,13 @@ public class SavedMap {
     @Column(name = "name", nullable = false, length = 255)
     private String name;
 
-    @Column(name = "data_param", nullable = false, columnDefinition = "TEXT")
-    private String dataParam;
+    /**
+     * The map data (battlemap editor JSON), shared between identical maps. Always set; the column is nullable
+     * only so schema updates can add it to existing tables.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "data_id")
+    private ContentBlob data;
 
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
@@ -30,10 +35,10 @@ public class SavedMap {
     public SavedMap() {
     }
 
-    public SavedMap(Long userId, String name, String dataParam) {
+    public SavedMap(Long userId, String name, ContentBlob data) {
         this.userId = userId;
         this.name = name;
-        this.dataParam = dataParam;
+        this.data = data;
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
     }
@@ -67,12 +72,12 @@ public class SavedMap {
         this.name = name;
     }
 
-    public String getDataParam() {
-        return dataParam;
+    public ContentBlob getData() {
+        return data;
     }
 
-    public void setDataParam(String dataParam) {
-        this.dataParam = dataParam;
+    public void setData(ContentBlob data) {
+        this.data = data;
     }
 
     public LocalDateTime getCreatedAt() {
@@ -1,12 +1,14 @@
 package de.byedev.dsatable2.dsa_table_backend.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import de.byedev.dsatable2.dsa_table_backend.service.CacheEvictionListener;
 import jakarta.persistence.*;
 
 @Entity
+@EntityListeners(CacheEvictionListener.class)
 @Table(name = "specialities")
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class Speciality {
+public class Speciality implements CharacterChild {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "speciality_seq")
@@ -1,12 +1,14 @@
 package de.byedev.dsatable2.dsa_table_backend.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import de.byedev.dsatable2.dsa_table_backend.service.CacheEvictionListener;
 import jakarta.persistence.*;
 
 @Entity
+@EntityListeners(CacheEvictionListener.class)
 @Table(name = "spells")
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class Spell extends Ability {
+public class Spell extends Ability implements CharacterChild {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "spell_seq")
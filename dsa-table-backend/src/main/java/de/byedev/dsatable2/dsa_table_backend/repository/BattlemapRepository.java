@@ -2,11 +2,21 @@ package de.byedev.dsatable2.dsa_table_backend.repository;
 
 import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BattlemapRepository extends JpaRepository<Battlemap, Long> {
     Optional<Battlemap> findBySessionId(Long sessionId);
+
+    /**
+     * Load the battlemaps of several sessions together with their tokens in one query
+     */
+    @Query("SELECT DISTINCT b FROM Battlemap b LEFT JOIN FETCH b.tokens WHERE b.sessionId IN :sessionIds")
+    List<Battlemap> findBySessionIdIn(@Param("sessionIds") Collection<Long> sessionIds);
 }
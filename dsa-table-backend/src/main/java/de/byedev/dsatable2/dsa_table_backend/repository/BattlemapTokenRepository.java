@@ -0,0 +1,37 @@
+package de.byedev.dsatable2.dsa_table_backend.repository;
+
+import de.byedev.dsatable2.dsa_table_backend.model.BattlemapToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface BattlemapTokenRepository extends JpaRepository<BattlemapToken, Long> {
+
+    /**
+     * Move a token without loading it. Returns the number of updated rows (0 if the token does not exist).
+     * Bypasses the entity listeners, so callers have to evict the battlemap caches themselves.
+     */
+    @Modifying
+    @Query("UPDATE BattlemapToken t SET t.x = :x, t.y = :y " +
+           "WHERE t.battlemap.id = :battlemapId AND t.tokenId = :tokenId")
+    int updatePosition(@Param("battlemapId") Long battlemapId, @Param("tokenId") Long tokenId,
+                       @Param("x") Double x, @Param("y") Double y);
+
+    /**
+     * Delete tokens by their client token IDs without loading them.
+     * Bypasses the entity listeners, so callers have to evict the battlemap caches themselves.
+     */
+    @Modifying
+    @Query("DELETE FROM BattlemapToken t WHERE t.battlemap.id = :battlemapId AND t.tokenId IN :tokenIds")
+    int deleteByTokenIds(@Param("battlemapId") Long battlemapId, @Param("tokenIds") Collection<Long> tokenIds);
+
+    /**
+     * Load only the given tokens of a battlemap, without its token collection
+     */
+    @Query("SELECT t FROM BattlemapToken t WHERE t.battlemap.id = :battlemapId AND t.tokenId IN :tokenIds")
+    List<BattlemapToken> findByTokenIds(@Param("battlemapId") Long battlemapId, @Param("tokenIds") Collection<Long> tokenIds);
+}
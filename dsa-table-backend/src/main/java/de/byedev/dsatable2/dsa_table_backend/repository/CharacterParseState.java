@@ -0,0 +1,21 @@
+package de.byedev.dsatable2.dsa_table_backend.repository;
+
+import de.byedev.dsatable2.dsa_table_backend.util.HeroXMLParser;
+
+/**
+ * What a character was last parsed from, compared with its current raw data
+ *
+ * @param rawDataId   current raw data
+ * @param contentHash content hash of the current raw data
+ * @param parsedHash  content hash of the raw data the character was last parsed from, null if unknown
+ */
+public record CharacterParseState(Long id, Long rawDataId, String contentHash, String parsedHash,
+                                  Integer parserVersion) {
+
+    /**
+     * Whether parsing the current raw data with the current parser would not change the character
+     */
+    public boolean isCurrent() {
+        return contentHash.equals(parsedHash) && parserVersion != null && parserVersion == HeroXMLParser.VERSION;
+    }
+}
@@ -1,18 +1,63 @@
 package de.byedev.dsatable2.dsa_table_backend.repository;
 
 import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.CharacterSummary;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Loading a {@link Character} loads the whole hero sheet (all its collections). List views and lookups use the
+ * {@link CharacterSummary} projections instead, which read a single row per character.
+ */
 public interface CharacterRepository extends JpaRepository<Character, Long> {
 
+    String PROPERTY_VALUE = "(SELECT MAX(p.value) FROM HeroProperty p WHERE p.characterId = c.id " +
+            "AND p.name = de.byedev.dsatable2.dsa_table_backend.model.PropertyName.";
+
+    String SUMMARY_PROJECTION = "SELECT new de.byedev.dsatable2.dsa_table_backend.web.dto.CharacterSummary(" +
+            "c.id, c.name, c.race, c.culture, c.profession, c.gender, c.xp, c.currentLife, c.currentAsp, " +
+            "c.currentKarma, c.initiative, c.wounds, c.avatarUrl, c.ownerId, c.sessionId, " +
+            PROPERTY_VALUE + "LIFE), " + PROPERTY_VALUE + "CONSTITUTION), " + PROPERTY_VALUE + "STRENGTH)) " +
+            "FROM Character c ";
+
     List<Character> findByOwnerId(Long ownerId);
 
     List<Character> findBySessionId(Long sessionId);
 
     Optional<Character> findByName(String name);
-}
 
+    @Query(SUMMARY_PROJECTION + "ORDER BY c.id")
+    List<CharacterSummary> findAllSummaries();
+
+    @Query(SUMMARY_PROJECTION + "WHERE c.ownerId = :ownerId ORDER BY c.id")
+    List<CharacterSummary> findSummariesByOwnerId(@Param("ownerId") Long ownerId);
+
+    @Query(SUMMARY_PROJECTION + "WHERE c.sessionId = :sessionId ORDER BY c.id")
+    List<CharacterSummary> findSummariesBySessionId(@Param("sessionId") Long sessionId);
 
+    @Query(SUMMARY_PROJECTION + "WHERE c.id IN :ids ORDER BY c.id")
+    List<CharacterSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Load only the raw data of a character, empty if the character does not exist or has none
+     */
+    @Query("SELECT c.rawData FROM Character c WHERE c.id = :id")
+    Optional<ContentBlob> findRawDataById(@Param("id") Long id);
+
+    /**
+     * Parse state of the characters with raw data after the given id (keyset pagination), ordered by id
+     */
+    @Query("SELECT new de.byedev.dsatable2.dsa_table_backend.repository.CharacterParseState(" +
+            "c.id, d.id, d.contentHash, c.parsedHash, c.parserVersion) " +
+            "FROM Character c JOIN c.rawData d WHERE c.id > :afterId ORDER BY c.id")
+    List<CharacterParseState> findParseStatesAfter(@Param("afterId") long afterId, Limit limit);
+
+    long countByIdGreaterThanAndRawDataIsNotNull(Long id);
+}
@@ -1,6 +1,8 @@
 package de.byedev.dsatable2.dsa_table_backend.repository;
 
 import de.byedev.dsatable2.dsa_table_backend.model.ChatMessage;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.ChatMessageDto;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,30 +10,42 @@ import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Message lists are read as {@link ChatMessageDto} projections with keyset pagination on the message ID,
+ * backed by the {@code (session_id, id)} index, so only the requested page is read no matter how long the chat is.
+ */
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
-    
+
+    String DTO_PROJECTION = "SELECT new de.byedev.dsatable2.dsa_table_backend.web.dto.ChatMessageDto(" +
+            "cm.id, cm.session.id, a.id, a.username, a.displayName, cm.message, cm.createdAt) " +
+            "FROM ChatMessage cm JOIN cm.author a ";
+
     /**
-     * Find all messages for a session, eagerly loading author and session to avoid N+1 queries.
-     * Uses JOIN FETCH to load relationships in a single query.
+     * Find the most recent messages of a session, newest first
      */
-    @Query("SELECT DISTINCT cm FROM ChatMessage cm " +
-           "LEFT JOIN FETCH cm.author " +
-           "LEFT JOIN FETCH cm.session " +
+    @Query(DTO_PROJECTION +
            "WHERE cm.session.id = :sessionId " +
-           "ORDER BY cm.createdAt ASC")
-    List<ChatMessage> findBySession_IdOrderByCreatedAtAsc(@Param("sessionId") Long sessionId);
-    
+           "ORDER BY cm.id DESC")
+    List<ChatMessageDto> findRecentMessages(@Param("sessionId") Long sessionId, Limit limit);
+
     /**
-     * Find recent messages for a session, eagerly loading author and session to avoid N+1 queries.
-     * Uses JOIN FETCH to load relationships in a single query.
+     * Find the messages of a session written after the given message, oldest first.
+     * Used for incremental fetches and to replay missed messages when a chat stream resumes.
      */
-    @Query("SELECT DISTINCT cm FROM ChatMessage cm " +
-           "LEFT JOIN FETCH cm.author " +
-           "LEFT JOIN FETCH cm.session " +
-           "WHERE cm.session.id = :sessionId " +
-           "ORDER BY cm.createdAt DESC")
-    List<ChatMessage> findRecentMessages(@Param("sessionId") Long sessionId);
-    
+    @Query(DTO_PROJECTION +
+           "WHERE cm.session.id = :sessionId AND cm.id > :afterId " +
+           "ORDER BY cm.id ASC")
+    List<ChatMessageDto> findBySessionIdAfter(@Param("sessionId") Long sessionId, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Find the messages of a session written before the given message, newest first.
+     * Used to page backwards through the history.
+     */
+    @Query(DTO_PROJECTION +
+           "WHERE cm.session.id = :sessionId AND cm.id < :beforeId " +
+           "ORDER BY cm.id DESC")
+    List<ChatMessageDto> findBySessionIdBefore(@Param("sessionId") Long sessionId, @Param("beforeId") Long beforeId, Limit limit);
+
     /**
      * Find a message by ID, eagerly loading author and session to avoid lazy loading issues.
      * Uses JOIN FETCH to load relationships in a single query.
@@ -42,4 +56,3 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
            "WHERE cm.id = :id")
     Optional<ChatMessage> findByIdWithRelations(@Param("id") Long id);
 }
-
@@ -0,0 +1,23 @@
+package de.byedev.dsatable2.dsa_table_backend.repository;
+
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface ContentBlobRepository extends JpaRepository<ContentBlob, Long> {
+
+    Optional<ContentBlob> findByContentHash(String contentHash);
+
+    /**
+     * Delete a blob unless it is still referenced. Returns the number of deleted rows.
+     */
+    @Modifying
+    @Query("DELETE FROM ContentBlob b WHERE b.id = :id " +
+           "AND NOT EXISTS (SELECT c.id FROM Character c WHERE c.rawData.id = :id) " +
+           "AND NOT EXISTS (SELECT m.id FROM SavedMap m WHERE m.data.id = :id)")
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
@@ -1,15 +1,31 @@
 package de.byedev.dsatable2.dsa_table_backend.repository;
 
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
 import de.byedev.dsatable2.dsa_table_backend.model.SavedMap;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.SavedMapDto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface SavedMapRepository extends JpaRepository<SavedMap, Long> {
-    
-    List<SavedMap> findByUserIdOrderByUpdatedAtDesc(Long userId);
-    
+
+    /**
+     * Metadata of the maps of a user, newest first, without reading the map data
+     */
+    @Query("SELECT new de.byedev.dsatable2.dsa_table_backend.web.dto.SavedMapDto(" +
+           "m.id, m.name, m.createdAt, m.updatedAt, d.contentHash, d.contentLength) " +
+           "FROM SavedMap m JOIN m.data d WHERE m.userId = :userId ORDER BY m.updatedAt DESC")
+    List<SavedMapDto> findSummariesByUserId(@Param("userId") Long userId);
+
     Optional<SavedMap> findByIdAndUserId(Long id, Long userId);
-}
 
+    /**
+     * @return the data of a saved map by its content hash; blobs not belonging to a saved map are not found
+     */
+    @Query("SELECT b FROM ContentBlob b WHERE b.contentHash = :contentHash " +
+           "AND EXISTS (SELECT m.id FROM SavedMap m WHERE m.data = b)")
+    Optional<ContentBlob> findMapDataByContentHash(@Param("contentHash") String contentHash);
+}
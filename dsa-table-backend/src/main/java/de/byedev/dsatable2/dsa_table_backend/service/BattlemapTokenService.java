@@ -0,0 +1,195 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
+import de.byedev.dsatable2.dsa_table_backend.model.BattlemapToken;
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapTokenRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.BattlemapTokenDto;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.CharacterSummary;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.ResourceNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Changes single tokens of a battlemap without replacing its token collection.
+ * <p>
+ * Only the affected rows are written: moves are plain position updates without loading the token, other
+ * changes load just the patched tokens and update their changed columns, deletes are one bulk statement.
+ * Every change bumps the battlemap version, so caches, ETags and the session change feed see it. Pending
+ * live (WebSocket) changes are persisted first, and live clients reload after commit.
+ */
+@Service
+public class BattlemapTokenService {
+
+    private static final String NPC_PLAYER_NAME = "npc";
+
+    private final BattlemapRepository battlemapRepository;
+    private final BattlemapTokenRepository battlemapTokenRepository;
+    private final CharacterRepository characterRepository;
+    private final CacheEvictionService cacheEvictionService;
+    private final LiveBattlemapService liveBattlemapService;
+
+    public BattlemapTokenService(BattlemapRepository battlemapRepository,
+                                 BattlemapTokenRepository battlemapTokenRepository,
+                                 CharacterRepository characterRepository,
+                                 CacheEvictionService cacheEvictionService,
+                                 LiveBattlemapService liveBattlemapService) {
+        this.battlemapRepository = battlemapRepository;
+        this.battlemapTokenRepository = battlemapTokenRepository;
+        this.characterRepository = characterRepository;
+        this.cacheEvictionService = cacheEvictionService;
+        this.liveBattlemapService = liveBattlemapService;
+    }
+
+    /**
+     * Apply partial token updates: only the non-null fields of every patch are changed, tokens are identified
+     * by {@code tokenId} (required). A {@code playerName} of {@code "npc"} turns the token into a non-player token.
+     *
+     * @throws ResourceNotFoundException if the battlemap or one of the tokens does not exist (nothing is changed)
+     */
+    @Transactional
+    public void patchTokens(Long sessionId, List<BattlemapTokenDto> patches) {
+        Map<Long, BattlemapTokenDto> byTokenId = new LinkedHashMap<>();
+        for (BattlemapTokenDto patch : patches) {
+            byTokenId.merge(patch.getTokenId(), patch, BattlemapTokenService::merge);
+        }
+        if (byTokenId.isEmpty()) {
+            return;
+        }
+        Battlemap battlemap = prepare(sessionId);
+
+        Map<Long, BattlemapTokenDto> moves = new LinkedHashMap<>();
+        Map<Long, BattlemapTokenDto> others = new LinkedHashMap<>();
+        byTokenId.forEach((tokenId, patch) -> (isMoveOnly(patch) ? moves : others).put(tokenId, patch));
+
+        moves.forEach((tokenId, patch) -> {
+            if (battlemapTokenRepository.updatePosition(battlemap.getId(), tokenId, patch.getX(), patch.getY()) == 0) {
+                throw new ResourceNotFoundException("BattlemapToken", "tokenId", tokenId);
+            }
+        });
+
+        if (!others.isEmpty()) {
+            Map<Long, BattlemapToken> tokens = battlemapTokenRepository.findByTokenIds(battlemap.getId(), others.keySet())
+                    .stream()
+                    .collect(Collectors.toMap(BattlemapToken::getTokenId, Function.identity(), (a, b) -> a));
+            Map<String, Long> characterIds = characterIdsByName(sessionId, others.values());
+            others.forEach((tokenId, patch) -> {
+                BattlemapToken token = tokens.get(tokenId);
+                if (token == null) {
+                    throw new ResourceNotFoundException("BattlemapToken", "tokenId", tokenId);
+                }
+                apply(token, patch, characterIds);
+            });
+        }
+        // Bulk updates bypass the entity listeners
+        cacheEvictionService.battlemapChanged(sessionId);
+    }
+
+    /**
+     * Delete tokens by their token IDs. Unknown IDs are ignored.
+     *
+     * @return the number of deleted tokens
+     * @throws ResourceNotFoundException if the battlemap does not exist
+     */
+    @Transactional
+    public int deleteTokens(Long sessionId, Collection<Long> tokenIds) {
+        if (tokenIds.isEmpty()) {
+            return 0;
+        }
+        Battlemap battlemap = prepare(sessionId);
+        int deleted = battlemapTokenRepository.deleteByTokenIds(battlemap.getId(), Set.copyOf(tokenIds));
+        if (deleted > 0) {
+            // Bulk deletes bypass the entity listeners
+            cacheEvictionService.battlemapChanged(sessionId);
+        }
+        return deleted;
+    }
+
+    private Battlemap prepare(Long sessionId) {
+        Battlemap battlemap = battlemapRepository.findBySessionId(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Battlemap", "sessionId", sessionId));
+        // Persist pending live token deltas first; the live state is dropped after commit
+        liveBattlemapService.flush(sessionId);
+        liveBattlemapService.invalidate(sessionId);
+        return battlemap;
+    }
+
+    private static boolean isMoveOnly(BattlemapTokenDto patch) {
+        return patch.getX() != null && patch.getY() != null
+                && patch.getIsGmOnly() == null && patch.getColor() == null && patch.getAvatarUrl() == null
+                && patch.getBorderColor() == null && patch.getName() == null && patch.getPlayerName() == null;
+    }
+
+    /**
+     * Combine two patches of the same token, the later one winning per field
+     */
+    private static BattlemapTokenDto merge(BattlemapTokenDto earlier, BattlemapTokenDto later) {
+        BattlemapTokenDto merged = new BattlemapTokenDto(null, later.getTokenId(),
+                later.getX() != null ? later.getX() : earlier.getX(),
+                later.getY() != null ? later.getY() : earlier.getY(),
+                later.getIsGmOnly() != null ? later.getIsGmOnly() : earlier.getIsGmOnly());
+        merged.setColor(later.getColor() != null ? later.getColor() : earlier.getColor());
+        merged.setAvatarUrl(later.getAvatarUrl() != null ? later.getAvatarUrl() : earlier.getAvatarUrl());
+        merged.setBorderColor(later.getBorderColor() != null ? later.getBorderColor() : earlier.getBorderColor());
+        merged.setName(later.getName() != null ? later.getName() : earlier.getName());
+        merged.setPlayerName(later.getPlayerName() != null ? later.getPlayerName() : earlier.getPlayerName());
+        return merged;
+    }
+
+    private static void apply(BattlemapToken token, BattlemapTokenDto patch, Map<String, Long> characterIds) {
+        if (patch.getX() != null) {
+            token.setX(patch.getX());
+        }
+        if (patch.getY() != null) {
+            token.setY(patch.getY());
+        }
+        if (patch.getIsGmOnly() != null) {
+            token.setIsGmOnly(patch.getIsGmOnly());
+        }
+        if (patch.getColor() != null) {
+            token.setColor(patch.getColor());
+        }
+        if (patch.getAvatarUrl() != null) {
+            token.setAvatarUrl(patch.getAvatarUrl());
+        }
+        if (patch.getBorderColor() != null) {
+            token.setBorderColor(patch.getBorderColor());
+        }
+        if (patch.getName() != null) {
+            token.setName(patch.getName());
+        }
+        if (patch.getPlayerName() != null) {
+            // Unknown character names keep the current assignment
+            if (NPC_PLAYER_NAME.equals(patch.getPlayerName())) {
+                token.setCharacterId(null);
+            } else if (characterIds.containsKey(patch.getPlayerName())) {
+                token.setCharacterId(characterIds.get(patch.getPlayerName()));
+            }
+        }
+    }
+
+    private Map<String, Long> characterIdsByName(Long sessionId, Collection<BattlemapTokenDto> patches) {
+        boolean hasPlayerTokens = patches.stream()
+                .anyMatch(patch -> patch.getPlayerName() != null && !NPC_PLAYER_NAME.equals(patch.getPlayerName()));
+        if (!hasPlayerTokens) {
+            return Map.of();
+        }
+        Map<String, Long> characterIds = new HashMap<>();
+        for (CharacterSummary character : characterRepository.findSummariesBySessionId(sessionId)) {
+            if (character.getId() != null && character.getName() != null) {
+                characterIds.putIfAbsent(character.getName(), character.getId());
+            }
+        }
+        return characterIds;
+    }
+}
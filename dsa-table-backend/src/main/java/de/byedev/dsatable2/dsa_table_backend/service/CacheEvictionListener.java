@@ -0,0 +1,69 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
+import de.byedev.dsatable2.dsa_table_backend.model.BattlemapToken;
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.model.CharacterChild;
+import de.byedev.dsatable2.dsa_table_backend.model.ChatMessage;
+import de.byedev.dsatable2.dsa_table_backend.model.GameSession;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener forwarding entity changes to the {@link CacheEvictionService}.
+ * Instantiated by Hibernate through the Spring bean container, so dependencies are injected.
+ */
+public class CacheEvictionListener {
+
+    private final CacheEvictionService cacheEvictionService;
+
+    public CacheEvictionListener(CacheEvictionService cacheEvictionService) {
+        this.cacheEvictionService = cacheEvictionService;
+    }
+
+    @PostLoad
+    public void onLoad(Object entity) {
+        if (entity instanceof Character character) {
+            cacheEvictionService.characterLoaded(character);
+        }
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onChange(Object entity) {
+        if (entity instanceof Character character) {
+            cacheEvictionService.characterChanged(character);
+        } else if (entity instanceof CharacterChild child) {
+            cacheEvictionService.characterChildChanged(child.getCharacterId());
+        } else if (entity instanceof GameSession session) {
+            cacheEvictionService.sessionChanged(session);
+        } else {
+            onOtherChange(entity);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Character character) {
+            cacheEvictionService.characterRemoved(character);
+        } else if (entity instanceof CharacterChild child) {
+            cacheEvictionService.characterChildChanged(child.getCharacterId());
+        } else if (entity instanceof GameSession session) {
+            cacheEvictionService.sessionRemoved(session);
+        } else {
+            onOtherChange(entity);
+        }
+    }
+
+    private void onOtherChange(Object entity) {
+        if (entity instanceof Battlemap battlemap) {
+            cacheEvictionService.battlemapChanged(battlemap.getSessionId());
+        } else if (entity instanceof BattlemapToken token && token.getBattlemap() != null) {
+            cacheEvictionService.battlemapChanged(token.getBattlemap().getSessionId());
+        } else if (entity instanceof ChatMessage message && message.getSession() != null) {
+            cacheEvictionService.chatChanged(message.getSession().getId(), message.getId());
+        }
+    }
+}
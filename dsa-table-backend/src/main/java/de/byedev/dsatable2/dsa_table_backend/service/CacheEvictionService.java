@@ -0,0 +1,265 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.model.GameSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evicts exactly the cache entries affected by an entity change instead of wiping whole caches.
+ * <p>
+ * The {@code characters} cache holds entries by character ID plus list entries
+ * ({@code list:owner:<id>}, {@code list:session:<id>}, {@code list:all}); the {@code gameSessions}
+ * cache holds entries by session ID plus {@code list:gm:<id>}, {@code list:player:<id>} and {@code list:all};
+ * the {@code battlemaps} and {@code chatMessages} caches are keyed by session ID.
+ * To also evict the lists an entity belonged to <i>before</i> a change (e.g. when a character leaves a session),
+ * the last known owner/session and GM/players are remembered per entity ID.
+ * <p>
+ * Evictions happen immediately and once more after commit, so a concurrent read between flush and commit
+ * cannot leave the old state in the cache. Every eviction also bumps the entry's version in the
+ * {@link ResourceVersionService}, which the controllers use for ETags, and changes belonging to a session
+ * are recorded in the {@link SessionChangeLog} for the session change feed.
+ */
+@Service
+public class CacheEvictionService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheEvictionService.class);
+
+    public static final String CHARACTERS_CACHE = "characters";
+    public static final String GAME_SESSIONS_CACHE = "gameSessions";
+    public static final String BATTLEMAPS_CACHE = "battlemaps";
+    public static final String CHAT_MESSAGES_CACHE = "chatMessages";
+    public static final String LIST_ALL_KEY = "list:all";
+
+    private final CacheManager cacheManager;
+    private final ResourceVersionService resourceVersions;
+    private final SessionChangeLog sessionChangeLog;
+
+    private final Map<Long, CharacterKeys> characterKeys = new ConcurrentHashMap<>();
+    private final Map<Long, SessionKeys> sessionKeys = new ConcurrentHashMap<>();
+
+    public CacheEvictionService(CacheManager cacheManager, ResourceVersionService resourceVersions,
+                                SessionChangeLog sessionChangeLog) {
+        this.cacheManager = cacheManager;
+        this.resourceVersions = resourceVersions;
+        this.sessionChangeLog = sessionChangeLog;
+    }
+
+    // ---- Characters ----
+
+    public void characterLoaded(Character character) {
+        if (character.getId() != null) {
+            characterKeys.put(character.getId(), new CharacterKeys(character.getOwnerId(), character.getSessionId()));
+        }
+    }
+
+    public void characterChanged(Character character) {
+        if (character.getId() == null) {
+            return;
+        }
+        CharacterKeys current = new CharacterKeys(character.getOwnerId(), character.getSessionId());
+        CharacterKeys previous = characterKeys.put(character.getId(), current);
+        evictCharacter(character.getId(), current, previous);
+    }
+
+    public void characterRemoved(Character character) {
+        if (character.getId() == null) {
+            return;
+        }
+        CharacterKeys current = new CharacterKeys(character.getOwnerId(), character.getSessionId());
+        CharacterKeys previous = characterKeys.remove(character.getId());
+        evictCharacter(character.getId(), current, previous);
+    }
+
+    /**
+     * A child row (property, talent, weapon, ...) of the given character was inserted, updated or deleted
+     */
+    public void characterChildChanged(Long characterId) {
+        if (characterId == null) {
+            return;
+        }
+        CharacterKeys keys = characterKeys.get(characterId);
+        if (keys == null) {
+            // Owner and session unknown: evict the entry itself and every character list
+            LOG.debug("No cached keys known for character {}, evicting all character lists", characterId);
+            evict(CHARACTERS_CACHE, Set.of(characterId));
+            evictListEntries(CHARACTERS_CACHE);
+            return;
+        }
+        evictCharacter(characterId, keys, null);
+    }
+
+    private void evictCharacter(Long characterId, CharacterKeys current, CharacterKeys previous) {
+        Set<Object> keys = new HashSet<>();
+        keys.add(characterId);
+        keys.add(LIST_ALL_KEY);
+        current.addListKeys(keys);
+        if (previous != null) {
+            previous.addListKeys(keys);
+        }
+        evict(CHARACTERS_CACHE, keys);
+
+        // Battlemap tokens show the names of the characters in the session
+        Set<Object> battlemapKeys = new HashSet<>();
+        if (current.sessionId() != null) {
+            battlemapKeys.add(current.sessionId());
+        }
+        if (previous != null && previous.sessionId() != null) {
+            battlemapKeys.add(previous.sessionId());
+        }
+        if (!battlemapKeys.isEmpty()) {
+            evict(BATTLEMAPS_CACHE, battlemapKeys);
+        }
+        // Both sessions see the change: the new one gets the character, the previous one loses it
+        battlemapKeys.forEach(sessionId ->
+                sessionChangeLog.record((Long) sessionId, SessionChangeLog.ChangeType.CHARACTER, characterId));
+    }
+
+    // ---- Game sessions ----
+
+    public void sessionChanged(GameSession session) {
+        if (session.getId() == null) {
+            return;
+        }
+        SessionKeys current = new SessionKeys(session.getGameMasterId(),
+                session.getPlayerIds() != null ? Set.copyOf(session.getPlayerIds()) : Set.of());
+        SessionKeys previous = sessionKeys.put(session.getId(), current);
+        evictSession(session.getId(), current, previous);
+        sessionChangeLog.record(session.getId(), SessionChangeLog.ChangeType.SESSION, session.getId());
+    }
+
+    public void sessionRemoved(GameSession session) {
+        if (session.getId() == null) {
+            return;
+        }
+        SessionKeys previous = sessionKeys.remove(session.getId());
+        SessionKeys current = new SessionKeys(session.getGameMasterId(),
+                previous != null ? previous.playerIds() : Set.of());
+        evictSession(session.getId(), current, previous);
+        sessionChangeLog.record(session.getId(), SessionChangeLog.ChangeType.SESSION, session.getId());
+    }
+
+    /**
+     * Something embedded into the session DTO (e.g. its battlemap) changed
+     */
+    public void sessionContentChanged(Long sessionId) {
+        SessionKeys keys = sessionKeys.get(sessionId);
+        if (keys == null) {
+            evict(GAME_SESSIONS_CACHE, Set.of(sessionId));
+            evictListEntries(GAME_SESSIONS_CACHE);
+            return;
+        }
+        evictSession(sessionId, keys, keys);
+    }
+
+    private void evictSession(Long sessionId, SessionKeys current, SessionKeys previous) {
+        if (previous == null && !current.playerIds().isEmpty()) {
+            // Former players unknown (first change since startup): players may have been removed
+            evictListEntries(GAME_SESSIONS_CACHE);
+        }
+        Set<Object> keys = new HashSet<>();
+        keys.add(sessionId);
+        keys.add(LIST_ALL_KEY);
+        current.addListKeys(keys);
+        if (previous != null) {
+            previous.addListKeys(keys);
+        }
+        evict(GAME_SESSIONS_CACHE, keys);
+    }
+
+    // ---- Battlemaps and chat ----
+
+    public void battlemapChanged(Long sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        evict(BATTLEMAPS_CACHE, Set.of(sessionId));
+        // The session DTO embeds the battlemap
+        sessionContentChanged(sessionId);
+        sessionChangeLog.record(sessionId, SessionChangeLog.ChangeType.BATTLEMAP, sessionId);
+    }
+
+    public void chatChanged(Long sessionId, Long messageId) {
+        if (sessionId != null) {
+            evict(CHAT_MESSAGES_CACHE, Set.of(sessionId));
+            sessionChangeLog.record(sessionId, SessionChangeLog.ChangeType.CHAT, messageId);
+        }
+    }
+
+    // ---- Eviction ----
+
+    private void evict(String cacheName, Set<Object> keys) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        Runnable eviction = () -> keys.forEach(key -> {
+            resourceVersions.bump(cacheName, key);
+            cache.evict(key);
+        });
+        eviction.run();
+        runAfterCommit(eviction);
+        LOG.debug("Evicted {} from cache '{}'", keys, cacheName);
+    }
+
+    /**
+     * Evict all list entries ({@code list:*} keys) of a cache while keeping the per-entity entries
+     */
+    private void evictListEntries(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        Runnable eviction = () -> {
+            resourceVersions.bump(cacheName, ResourceVersionService.ALL_LISTS_KEY);
+            if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+                nativeCache.asMap().keySet().removeIf(key -> key instanceof String s && s.startsWith("list:"));
+            } else {
+                cache.clear();
+            }
+        };
+        eviction.run();
+        runAfterCommit(eviction);
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private record CharacterKeys(Long ownerId, Long sessionId) {
+        void addListKeys(Set<Object> keys) {
+            if (ownerId != null) {
+                keys.add("list:owner:" + ownerId);
+            }
+            if (sessionId != null) {
+                keys.add("list:session:" + sessionId);
+            }
+        }
+    }
+
+    private record SessionKeys(Long gameMasterId, Set<Long> playerIds) {
+        void addListKeys(Set<Object> keys) {
+            if (gameMasterId != null) {
+                keys.add("list:gm:" + gameMasterId);
+            }
+            playerIds.forEach(playerId -> keys.add("list:player:" + playerId));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterParseState;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.ContentBlobRepository;
+import de.byedev.dsatable2.dsa_table_backend.util.HeroXMLParser;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.ReparseStatus;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.ReparseStatus.State;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Re-derives the stored characters from their raw hero XML, e.g. after the parser or the calculated values changed
+ * (see {@link HeroXMLParser#VERSION}).
+ * <p>
+ * One job runs in the background at a time. It walks the characters in id order in chunks (keyset pagination),
+ * skips those already parsed from the same raw data with the current parser version, parses the others in parallel
+ * and writes each chunk back in one transaction. A cancelled or failed job is resumed after its last finished
+ * chunk; since finished characters are marked, even a job started over only reads their parse state again.
+ */
+@Service
+public class CharacterReparseService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CharacterReparseService.class);
+
+    private final CharacterRepository characterRepository;
+    private final ContentBlobRepository contentBlobRepository;
+    private final TransactionTemplate transaction;
+    private final int parallelism;
+    private final int chunkSize;
+
+    /**
+     * Current or last job, guarded by this
+     */
+    private Job job;
+
+    public CharacterReparseService(CharacterRepository characterRepository,
+                                   ContentBlobRepository contentBlobRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.reparse.parallelism:4}") int parallelism,
+                                   @Value("${app.reparse.chunk-size:50}") int chunkSize) {
+        this.characterRepository = characterRepository;
+        this.contentBlobRepository = contentBlobRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Start a job, unless one is running already.
+     *
+     * @param afterId start after this character id; if null, a cancelled or failed job is resumed, otherwise all
+     *                characters are checked
+     * @return status of the started or the already running job
+     */
+    public synchronized ReparseStatus start(Long afterId) {
+        if (job != null && job.state == State.RUNNING) {
+            return job.status();
+        }
+        long startAfter;
+        if (afterId != null) {
+            startAfter = afterId;
+        } else if (job != null && (job.state == State.CANCELLED || job.state == State.FAILED)) {
+            startAfter = job.lastId;
+        } else {
+            startAfter = 0;
+        }
+
+        Job started = new Job(startAfter, characterRepository.countByIdGreaterThanAndRawDataIsNotNull(startAfter));
+        job = started;
+        Thread thread = new Thread(() -> run(started), "character-reparse");
+        thread.setDaemon(true);
+        thread.start();
+        LOG.info("Reparsing {} characters after id {}", started.total, startAfter);
+        return started.status();
+    }
+
+    /**
+     * Stop the running job after its current chunk
+     */
+    public synchronized ReparseStatus cancel() {
+        if (job == null) {
+            return ReparseStatus.idle();
+        }
+        job.cancelled = true;
+        return job.status();
+    }
+
+    public synchronized ReparseStatus status() {
+        return job != null ? job.status() : ReparseStatus.idle();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        cancel();
+    }
+
+    private void run(Job job) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService parser = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "character-reparse-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            long afterId = job.lastId;
+            while (!job.cancelled) {
+                List<CharacterParseState> states = characterRepository.findParseStatesAfter(afterId, Limit.of(chunkSize));
+                if (states.isEmpty()) {
+                    break;
+                }
+                List<CharacterParseState> outdated = states.stream().filter(state -> !state.isCurrent()).toList();
+                job.skipped += states.size() - outdated.size();
+                if (!outdated.isEmpty()) {
+                    reparse(outdated, parser, job);
+                }
+                afterId = states.getLast().id();
+                job.lastId = afterId;
+            }
+            job.finish(job.cancelled ? State.CANCELLED : State.COMPLETED, null);
+            LOG.info("Reparse job {}: {} reparsed, {} skipped, {} failed", job.state, job.reparsed, job.skipped,
+                    job.failed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(State.CANCELLED, null);
+        } catch (RuntimeException e) {
+            LOG.error("Reparse job failed after character {}", job.lastId, e);
+            job.finish(State.FAILED, e.getMessage());
+        } finally {
+            parser.shutdownNow();
+        }
+    }
+
+    /**
+     * Parse a chunk of characters in parallel and write them back in one transaction
+     */
+    private void reparse(List<CharacterParseState> chunk, ExecutorService parser, Job job)
+            throws InterruptedException {
+        Map<Long, ContentBlob> rawData = new HashMap<>();
+        contentBlobRepository.findAllById(chunk.stream().map(CharacterParseState::rawDataId).distinct().toList())
+                .forEach(blob -> rawData.put(blob.getId(), blob));
+
+        Map<CharacterParseState, Future<Character>> parsing = new LinkedHashMap<>();
+        for (CharacterParseState state : chunk) {
+            ContentBlob blob = rawData.get(state.rawDataId());
+            parsing.put(state, parser.submit(() -> HeroXMLParser.fromXmlData(blob.getText())));
+        }
+        Map<Long, CharacterParseState> states = new HashMap<>();
+        Map<Long, Character> parsed = new HashMap<>();
+        for (Map.Entry<CharacterParseState, Future<Character>> entry : parsing.entrySet()) {
+            try {
+                parsed.put(entry.getKey().id(), entry.getValue().get());
+                states.put(entry.getKey().id(), entry.getKey());
+            } catch (ExecutionException e) {
+                job.failed++;
+                LOG.warn("Failed to reparse character {}: {}", entry.getKey().id(), e.getCause().getMessage());
+            }
+        }
+        if (parsed.isEmpty()) {
+            return;
+        }
+
+        int updated = transaction.execute(status -> {
+            int count = 0;
+            for (Character character : characterRepository.findAllById(parsed.keySet())) {
+                CharacterParseState state = states.get(character.getId());
+                // Replaced in the meantime, the next job picks it up
+                if (character.getRawData() == null
+                        || !Objects.equals(character.getRawData().getId(), state.rawDataId())) {
+                    continue;
+                }
+                character.updateFrom(parsed.get(character.getId()));
+                character.markParsed(state.contentHash());
+                count++;
+            }
+            return count;
+        });
+        job.reparsed += updated;
+        job.skipped += parsed.size() - updated;
+    }
+
+    /**
+     * Progress of a job; written by the job thread only
+     */
+    private static final class Job {
+        private final long total;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private volatile State state = State.RUNNING;
+        private volatile boolean cancelled;
+        private volatile long lastId;
+        private volatile long reparsed;
+        private volatile long skipped;
+        private volatile long failed;
+        private volatile long finishedNanos;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        private Job(long startAfter, long total) {
+            this.lastId = startAfter;
+            this.total = total;
+        }
+
+        private void finish(State state, String error) {
+            this.finishedNanos = System.nanoTime();
+            this.finishedAt = LocalDateTime.now();
+            this.error = error;
+            this.state = state;
+        }
+
+        private ReparseStatus status() {
+            State current = state;
+            long elapsed = (current == State.RUNNING ? System.nanoTime() : finishedNanos) - startNanos;
+            long processed = reparsed + skipped + failed;
+            double perSecond = elapsed > 0 ? processed * 1_000_000_000.0 / elapsed : 0;
+            return new ReparseStatus(current, total, reparsed, skipped, failed, lastId, perSecond, startedAt,
+                    finishedAt, error);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.repository.ChatMessageRepository;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.ChatMessageDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pushes new chat messages to the Server-Sent Events subscribers of a session.
+ * <p>
+ * Every event carries the message ID as event ID, so a reconnecting client sends it back as
+ * {@code Last-Event-ID} and receives the messages it missed. Messages published while the missed ones are replayed
+ * are held back until the replay is done, so a stream never goes back in IDs. A replay that hits {@link #MAX_REPLAY}
+ * completes the stream, and the client resumes from the last replayed message. Idle streams get a heartbeat comment
+ * so proxies do not close them; streams time out after {@link #STREAM_TIMEOUT} and the client reconnects.
+ * <p>
+ * Fan-out goes through a {@link SessionBroadcaster}, so a slow client never delays the request that wrote
+ * the message. A client that falls more than {@link #BUFFER_SIZE} messages behind has its stream completed;
+ * it reconnects with its {@code Last-Event-ID} and catches up from the database.
+ */
+@Service
+public class ChatStreamService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChatStreamService.class);
+
+    static final Duration STREAM_TIMEOUT = Duration.ofMinutes(30);
+    static final long HEARTBEAT_INTERVAL_MS = 15_000;
+    static final long RECONNECT_DELAY_MS = 3_000;
+
+    /**
+     * Maximum number of missed messages replayed on resume
+     */
+    static final int MAX_REPLAY = 500;
+
+    /**
+     * Number of messages buffered per session for streams that are behind
+     */
+    static final int BUFFER_SIZE = 256;
+
+    private static final String MESSAGE_EVENT = "message";
+
+    private final ChatMessageRepository chatMessageRepository;
+
+    private final SessionBroadcaster<ChatMessageDto> broadcaster;
+
+    public ChatStreamService(ChatMessageRepository chatMessageRepository, MeterRegistry meterRegistry) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.broadcaster = new SessionBroadcaster<>("chat", BUFFER_SIZE, meterRegistry);
+    }
+
+    /**
+     * Open a stream for a session, replaying the messages after {@code lastEventId} if given.
+     */
+    @Transactional(readOnly = true)
+    public SseEmitter subscribe(Long sessionId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT.toMillis());
+        // Register before replaying, so no message committed in between is lost; the subscriber holds back
+        // live messages until the replay is done and skips those that were replayed already
+        SseSubscriber subscriber = new SseSubscriber(emitter, lastEventId != null ? lastEventId : 0);
+        SessionBroadcaster<ChatMessageDto>.Subscription subscription = broadcaster.subscribe(sessionId, subscriber);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+
+        try {
+            emitter.send(SseEmitter.event().reconnectTime(RECONNECT_DELAY_MS).comment("connected"));
+            if (lastEventId != null) {
+                List<ChatMessageDto> missed = chatMessageRepository
+                        .findBySessionIdAfter(sessionId, lastEventId, Limit.of(MAX_REPLAY));
+                for (ChatMessageDto message : missed) {
+                    subscriber.send(message);
+                }
+                if (missed.size() >= MAX_REPLAY) {
+                    // Going live now would skip the messages after the replayed ones
+                    subscription.close();
+                    emitter.complete();
+                    return emitter;
+                }
+            }
+            subscriber.goLive();
+        } catch (IOException e) {
+            LOG.debug("Chat stream for session {} closed while connecting", sessionId);
+            subscription.close();
+            emitter.completeWithError(e);
+        } catch (IllegalStateException e) {
+            // Completed during the replay, because live messages piled up
+            subscription.close();
+        }
+        return emitter;
+    }
+
+    /**
+     * Push a message to all subscribers of its session once the current transaction commits
+     */
+    public void publishAfterCommit(ChatMessageDto message) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(message);
+                }
+            });
+        } else {
+            publish(message);
+        }
+    }
+
+    void publish(ChatMessageDto message) {
+        broadcaster.publish(message.getSessionId(), message);
+    }
+
+    @Scheduled(fixedRate = HEARTBEAT_INTERVAL_MS)
+    public void sendHeartbeats() {
+        broadcaster.heartbeat();
+    }
+
+    /**
+     * @return the number of open streams of a session
+     */
+    public int getSubscriberCount(Long sessionId) {
+        return broadcaster.getSubscriberCount(sessionId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        broadcaster.close();
+    }
+
+    private static SseEmitter.SseEventBuilder toEvent(ChatMessageDto message) {
+        return SseEmitter.event()
+                .id(String.valueOf(message.getId()))
+                .name(MESSAGE_EVENT)
+                .data(message, MediaType.APPLICATION_JSON);
+    }
+
+    private static final class SseSubscriber implements SessionBroadcaster.Subscriber<ChatMessageDto> {
+        private final SseEmitter emitter;
+        /**
+         * Live messages published during the replay, or {@code null} once the stream is live
+         */
+        private List<ChatMessageDto> held = new ArrayList<>();
+        /**
+         * ID of the last message sent; written by the replaying thread until the stream is live
+         */
+        private long lastSentId;
+
+        private SseSubscriber(SseEmitter emitter, long lastSentId) {
+            this.emitter = emitter;
+            this.lastSentId = lastSentId;
+        }
+
+        @Override
+        public synchronized void onEvent(ChatMessageDto message) throws IOException {
+            if (held == null) {
+                send(message);
+            } else if (held.size() < BUFFER_SIZE) {
+                held.add(message);
+            } else {
+                // The replay is too slow to keep up; the client resumes from the last replayed message
+                emitter.complete();
+                throw new IOException("Too many messages published during the replay");
+            }
+        }
+
+        @Override
+        public synchronized void onHeartbeat() throws IOException {
+            if (held == null) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        }
+
+        @Override
+        public void onOverflow() {
+            // The client reconnects with its Last-Event-ID and replays the missed messages
+            emitter.complete();
+        }
+
+        /**
+         * Send a message unless one with the same or a later ID was sent already
+         */
+        void send(ChatMessageDto message) throws IOException {
+            if (message.getId() > lastSentId) {
+                emitter.send(toEvent(message));
+                lastSentId = message.getId();
+            }
+        }
+
+        /**
+         * End the replay: send the held back messages and everything published from now on
+         */
+        synchronized void goLive() throws IOException {
+            List<ChatMessageDto> pending = held;
+            held = null;
+            for (ChatMessageDto message : pending) {
+                send(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Ability;
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.model.HeroProperty;
+import de.byedev.dsatable2.dsa_table_backend.model.PropertyName;
+import de.byedev.dsatable2.dsa_table_backend.model.Spell;
+import de.byedev.dsatable2.dsa_table_backend.model.Talent;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.CheckOdds;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact chances of talent and spell checks (3W20), rolled as at the table: the ability value minus the modifier
+ * is the pool of points that makes up for dice rolled above their attribute. If the modifier exceeds the value,
+ * there are no points and the rest is taken off every attribute instead.
+ * <p>
+ * So a check succeeds if the dice together overshoot their (lowered) attributes by at most the remaining points.
+ * The number of successful rolls out of all 8000 is precomputed for every combination of attributes from 0 to 20
+ * and every number of points; other attributes reduce to these, so a check is a table lookup.
+ */
+@Service
+public class CheckProbabilityService {
+
+    private static final int SIDES = 20;
+    private static final int OUTCOMES = SIDES * SIDES * SIDES;
+    private static final int MAX_OVERSHOOT = 3 * SIDES;
+
+    /**
+     * Indexed by the three attributes (0..20); the entry at n is the number of rolls overshooting by at most n.
+     * Permutations of the attributes share one table.
+     */
+    private final int[][][][] successfulRolls = new int[SIDES + 1][SIDES + 1][SIDES + 1][];
+
+    public CheckProbabilityService() {
+        // Rolls per overshoot of a single die
+        int[][] overshoot = new int[SIDES + 1][];
+        for (int attribute = 0; attribute <= SIDES; attribute++) {
+            overshoot[attribute] = new int[SIDES + 1];
+            for (int roll = 1; roll <= SIDES; roll++) {
+                overshoot[attribute][Math.max(roll - attribute, 0)]++;
+            }
+        }
+        for (int a = 0; a <= SIDES; a++) {
+            for (int b = a; b <= SIDES; b++) {
+                int[] twoDice = convolve(overshoot[a], overshoot[b]);
+                for (int c = b; c <= SIDES; c++) {
+                    int[] table = convolve(twoDice, overshoot[c]);
+                    for (int n = 1; n < table.length; n++) {
+                        table[n] += table[n - 1];
+                    }
+                    successfulRolls[a][b][c] = successfulRolls[a][c][b] = successfulRolls[b][a][c]
+                            = successfulRolls[b][c][a] = successfulRolls[c][a][b] = successfulRolls[c][b][a] = table;
+                }
+            }
+        }
+    }
+
+    private static int[] convolve(int[] first, int[] second) {
+        int[] sum = new int[first.length + second.length - 1];
+        for (int i = 0; i < first.length; i++) {
+            if (first[i] == 0) {
+                continue;
+            }
+            for (int j = 0; j < second.length; j++) {
+                sum[i + j] += first[i] * second[j];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Chance to pass a check
+     *
+     * @param attributes the three attributes checked against
+     * @param value      ability value (TaW/ZfW)
+     * @param modifier   total modifier, positive makes the check harder
+     * @return probability between 0 and 1
+     */
+    public double successProbability(int[] attributes, int value, int modifier) {
+        return (double) successfulRolls(attributes[0], attributes[1], attributes[2], value, modifier) / OUTCOMES;
+    }
+
+    /**
+     * Number of the 8000 rolls of three D20 that pass the check
+     */
+    int successfulRolls(int first, int second, int third, int value, int modifier) {
+        int points = value - modifier;
+        int lowered = Math.max(-points, 0);
+        points = Math.max(points, 0);
+
+        // An attribute below 0 overshoots on every roll by as much as at 0, plus its distance from 0
+        int[] attributes = {first - lowered, second - lowered, third - lowered};
+        for (int i = 0; i < attributes.length; i++) {
+            if (attributes[i] < 0) {
+                points += attributes[i];
+                attributes[i] = 0;
+            } else if (attributes[i] > SIDES) {
+                attributes[i] = SIDES;
+            }
+        }
+        if (points < 0) {
+            return 0;
+        }
+        return successfulRolls[attributes[0]][attributes[1]][attributes[2]][Math.min(points, MAX_OVERSHOOT)];
+    }
+
+    /**
+     * Chances of all talents and spells of a character, with wounds and the handicap of worn armour added to the
+     * given modifier
+     */
+    public List<CheckOdds> forCharacter(Character character, int modifier) {
+        Map<PropertyName, Integer> properties = new EnumMap<>(PropertyName.class);
+        for (HeroProperty property : character.getProperties()) {
+            if (property.getNameEnum() != null) {
+                properties.put(property.getNameEnum(), property.getValue());
+            }
+        }
+        int armourBe = character.isWearingArmour() ? character.getArmourBe() : 0;
+        int baseModifier = modifier + character.getWounds() * 2;
+
+        List<CheckOdds> odds = new ArrayList<>(character.getTalents().size() + character.getSpells().size());
+        for (Talent talent : character.getTalents()) {
+            odds.add(odds(talent, talent.getId(), false, properties, baseModifier, armourBe));
+        }
+        for (Spell spell : character.getSpells()) {
+            odds.add(odds(spell, spell.getId(), true, properties, baseModifier, armourBe));
+        }
+        return odds;
+    }
+
+    private CheckOdds odds(Ability ability, Long id, boolean spell, Map<PropertyName, Integer> properties,
+                           int baseModifier, int armourBe) {
+        int modifier = baseModifier + ability.getBe().apply(armourBe);
+        int[] attributes = new int[3];
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = properties.getOrDefault(ability.getProp(i), 0);
+        }
+        return new CheckOdds(id, ability.getName(), ability.getCheck(), spell, ability.getValue(), modifier,
+                successProbability(attributes, ability.getValue(), modifier));
+    }
+}
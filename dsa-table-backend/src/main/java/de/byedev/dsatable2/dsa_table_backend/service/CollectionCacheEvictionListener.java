@@ -0,0 +1,61 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
+import de.byedev.dsatable2.dsa_table_backend.model.GameSession;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts cached game sessions and battlemaps when only their player or fog collection changes.
+ * Element collection changes are flushed without an entity update, so JPA's {@code @PostUpdate}
+ * (and with it {@link CacheEvictionListener}) is not triggered for them.
+ */
+@Component
+public class CollectionCacheEvictionListener implements PostCollectionUpdateEventListener,
+        PostCollectionRecreateEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheEvictionService cacheEvictionService;
+
+    public CollectionCacheEvictionListener(EntityManagerFactory entityManagerFactory,
+                                           CacheEvictionService cacheEvictionService) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheEvictionService = cacheEvictionService;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        onCollectionChange(event);
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        onCollectionChange(event);
+    }
+
+    private void onCollectionChange(AbstractCollectionEvent event) {
+        if (event.getAffectedOwnerOrNull() instanceof GameSession session) {
+            cacheEvictionService.sessionChanged(session);
+        } else if (event.getAffectedOwnerOrNull() instanceof Battlemap battlemap) {
+            cacheEvictionService.battlemapChanged(battlemap.getSessionId());
+        }
+    }
+}
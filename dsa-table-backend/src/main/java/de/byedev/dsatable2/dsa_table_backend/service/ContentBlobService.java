@@ -0,0 +1,73 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
+import de.byedev.dsatable2.dsa_table_backend.repository.ContentBlobRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stores and releases {@link ContentBlob}s. Content is deduplicated by hash: storing content that already exists
+ * returns the existing blob, releasing a blob deletes it once nothing references it anymore.
+ * <p>
+ * New blobs are inserted in a transaction of their own. When the same content is uploaded concurrently, one insert
+ * fails on the unique hash; that failure does not spoil the transaction of the caller, which then uses the blob of
+ * the other request.
+ */
+@Service
+public class ContentBlobService {
+
+    private final ContentBlobRepository contentBlobRepository;
+    private final TransactionTemplate insertTransaction;
+
+    public ContentBlobService(ContentBlobRepository contentBlobRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.contentBlobRepository = contentBlobRepository;
+        this.insertTransaction = new TransactionTemplate(transactionManager);
+        this.insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @return the blob with the given text, stored if it does not exist yet
+     */
+    @Transactional
+    public ContentBlob store(String text) {
+        return contentBlobRepository.findByContentHash(ContentBlob.hash(text))
+                .orElseGet(() -> insert(ContentBlob.of(text)));
+    }
+
+    /**
+     * Store binary content, which may already be gzip-compressed (then it is stored as is)
+     *
+     * @return the blob with the given content, stored if it does not exist yet
+     * @throws IllegalArgumentException if the content is too large or the gzip data is corrupt
+     */
+    @Transactional
+    public ContentBlob store(byte[] content) {
+        ContentBlob blob = ContentBlob.isGzipped(content) ? ContentBlob.ofGzipped(content) : ContentBlob.of(content);
+        return contentBlobRepository.findByContentHash(blob.getContentHash())
+                .orElseGet(() -> insert(blob));
+    }
+
+    private ContentBlob insert(ContentBlob blob) {
+        try {
+            return insertTransaction.execute(status -> contentBlobRepository.saveAndFlush(blob));
+        } catch (DataIntegrityViolationException e) {
+            // Stored by a concurrent request in the meantime
+            return contentBlobRepository.findByContentHash(blob.getContentHash()).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Delete the blob if it is no longer referenced. Call after the reference was removed and flushed.
+     */
+    @Transactional
+    public void release(ContentBlob blob) {
+        if (blob != null && blob.getId() != null) {
+            contentBlobRepository.deleteIfUnreferenced(blob.getId());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.util.SVGUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Service holding the SVG sources of all environment objects (trees, rocks, houses).
+ * All sources are loaded once at startup, rendered variants are kept in a bounded LRU cache
+ * keyed by (type, size) together with their ETag. The sources carry their own colors, so the requested color
+ * does not change the output and is not part of the key.
+ */
+@Service
+public class EnvironmentObjectService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvironmentObjectService.class);
+
+    /**
+     * Maximum number of rendered variants kept in memory.
+     */
+    static final int MAX_CACHED_VARIANTS = 1024;
+
+    private static final String DEFAULT_TYPE = "tree1";
+    private static final String FALLBACK_TREE = "<circle cx='40' cy='50' r='20' fill='#228B22'/>";
+    private static final String FALLBACK_HOUSE = "<rect x='0' y='0' width='80' height='80' fill='#8B4513'/>" +
+            "<polygon points='0,0 80,0 60,40 20,40' fill='#654321'/>";
+
+    private final Map<String, String> sources = new HashMap<>();
+
+    private final Map<VariantKey, RenderedObject> renderCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<VariantKey, RenderedObject> eldest) {
+                    return size() > MAX_CACHED_VARIANTS;
+                }
+            });
+
+    @PostConstruct
+    public void initialize() {
+        for (int variant = 1; variant <= 8; variant++) {
+            String type = "tree" + variant;
+            sources.put(type, loadSource(type, null));
+        }
+        // Missing tree variants fall back to tree1, tree1 itself to a plain circle
+        String tree1 = sources.get(DEFAULT_TYPE) != null ? sources.get(DEFAULT_TYPE) : FALLBACK_TREE;
+        sources.replaceAll((type, source) -> source != null ? source : tree1);
+        sources.put("stone", loadSource("rock", null));
+        sources.put("house", loadSource("house", FALLBACK_HOUSE));
+
+        logger.info("Preloaded {} environment object sources: {}", sources.size(), sources.keySet());
+    }
+
+    private String loadSource(String filename, String fallback) {
+        try {
+            return SVGUtil.getSvgFromFile(filename);
+        } catch (RuntimeException e) {
+            logger.error("Failed to load {} SVG, using fallback", filename, e);
+            return fallback;
+        }
+    }
+
+    /**
+     * Render an environment object, returning a cached variant if available.
+     * Unknown types are rendered as the default tree.
+     */
+    public RenderedObject render(String type, int size) {
+        VariantKey key = new VariantKey(type, size);
+        RenderedObject cached = renderCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        RenderedObject rendered = doRender(type, size);
+        renderCache.put(key, rendered);
+        return rendered;
+    }
+
+    private RenderedObject doRender(String type, int size) {
+        String source = sources.containsKey(type) ? sources.get(type) : sources.get(DEFAULT_TYPE);
+        if (source == null) {
+            throw new IllegalStateException("No SVG source available for type: " + type);
+        }
+
+        String svg = SVGUtil.DOCTYPE +
+                "<svg xmlns='http://www.w3.org/2000/svg' xmlns:xlink='http://www.w3.org/1999/xlink' " +
+                "width='" + size + "' height='" + size + "' " +
+                "viewBox='0 0 32 32'>" +
+                source +
+                SVGUtil.SVG_CLOSE;
+        String etag = "\"" + DigestUtils.md5DigestAsHex(svg.getBytes(StandardCharsets.UTF_8)) + "\"";
+        return new RenderedObject(svg, etag);
+    }
+
+    private record VariantKey(String type, int size) {
+    }
+
+    /**
+     * A rendered SVG together with its (strong) ETag
+     */
+    public static class RenderedObject {
+        private final String svg;
+        private final String etag;
+
+        public RenderedObject(String svg, String etag) {
+            this.svg = svg;
+            this.etag = etag;
+        }
+
+        public String getSvg() {
+            return svg;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
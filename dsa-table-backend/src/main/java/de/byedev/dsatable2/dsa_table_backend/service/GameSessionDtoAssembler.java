@@ -0,0 +1,80 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
+import de.byedev.dsatable2.dsa_table_backend.model.GameSession;
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.UserRepository;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.BattlemapDto;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.GameSessionDto;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.GameSessionDto.Expansion;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.UserDto;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Builds {@link GameSessionDto}s for any number of sessions with a constant number of queries: the game masters
+ * and (if expanded) players of all sessions are loaded with one query, their battlemaps including tokens with
+ * another if expanded. The player ID collections are fetched in batches (see
+ * {@code hibernate.default_batch_fetch_size}).
+ * <p>
+ * Must be called within a transaction, the sessions are read lazily.
+ */
+@Service
+public class GameSessionDtoAssembler {
+
+    private final UserRepository userRepository;
+    private final BattlemapRepository battlemapRepository;
+
+    public GameSessionDtoAssembler(UserRepository userRepository, BattlemapRepository battlemapRepository) {
+        this.userRepository = userRepository;
+        this.battlemapRepository = battlemapRepository;
+    }
+
+    public GameSessionDto toDto(GameSession session, Set<Expansion> expand) {
+        return toDtos(List.of(session), expand).getFirst();
+    }
+
+    /**
+     * @param expand the optional parts to include
+     * @return the DTOs in the order of the sessions
+     */
+    public List<GameSessionDto> toDtos(Collection<GameSession> sessions, Set<Expansion> expand) {
+        if (sessions.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> userIds = new HashSet<>();
+        for (GameSession session : sessions) {
+            Hibernate.initialize(session.getPlayerIds());
+            if (session.getGameMasterId() != null) {
+                userIds.add(session.getGameMasterId());
+            }
+            if (expand.contains(Expansion.PLAYERS) && session.getPlayerIds() != null) {
+                userIds.addAll(session.getPlayerIds());
+            }
+        }
+        Map<Long, UserDto> users = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            userRepository.findAllById(userIds).forEach(user -> users.put(user.getId(), new UserDto(user)));
+        }
+
+        Map<Long, BattlemapDto> battlemaps = new HashMap<>();
+        if (expand.contains(Expansion.BATTLEMAP)) {
+            Set<Long> sessionIds = sessions.stream().map(GameSession::getId).collect(Collectors.toSet());
+            for (Battlemap battlemap : battlemapRepository.findBySessionIdIn(sessionIds)) {
+                battlemaps.put(battlemap.getSessionId(), new BattlemapDto(battlemap));
+            }
+        }
+
+        return sessions.stream()
+                .map(session -> new GameSessionDto(session, users, expand, battlemaps.get(session.getId())))
+                .collect(Collectors.toList());
+    }
+}
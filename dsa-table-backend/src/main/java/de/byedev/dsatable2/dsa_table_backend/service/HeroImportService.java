@@ -0,0 +1,257 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.config.HeroImportProperties;
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.util.HeroXMLParser;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.HeroImportResult;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.HeroImportResult.FileResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Imports heroes from hero XML, one at a time or in bulk from a ZIP archive.
+ * <p>
+ * Bulk imports read the archive sequentially, parse the files in parallel on a bounded pool shared by all imports
+ * and save them in one transaction per chunk, so a broken file or chunk does not roll back the rest. Files are
+ * held in memory from reading until their chunk is saved, only as bytes, which are decoded while parsing. Each file
+ * is charged {@link #MEMORY_PER_XML_BYTE} times its size for its bytes and its parsed hero; all imports together
+ * stay within {@link HeroImportProperties#getMemoryBudget()}, an import that exceeds it saves its pending chunk
+ * early and otherwise waits for others.
+ */
+@Service
+@EnableConfigurationProperties(HeroImportProperties.class)
+public class HeroImportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HeroImportService.class);
+
+    /**
+     * Memory charged per byte of a pending file: the bytes, and the parsed hero, which takes half to about as much
+     * again as its XML
+     */
+    private static final int MEMORY_PER_XML_BYTE = 2;
+
+    private final CharacterRepository characterRepository;
+    private final ContentBlobService contentBlobService;
+    private final TransactionTemplate transaction;
+    private final HeroImportProperties properties;
+    private final ExecutorService parser;
+    private final Semaphore memoryBudget;
+    private final int maxFileSize;
+
+    public HeroImportService(CharacterRepository characterRepository,
+                             ContentBlobService contentBlobService,
+                             PlatformTransactionManager transactionManager,
+                             HeroImportProperties properties) {
+        this.characterRepository = characterRepository;
+        this.contentBlobService = contentBlobService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        int budget = (int) Math.min(Integer.MAX_VALUE, properties.getMemoryBudget().toBytes());
+        this.memoryBudget = new Semaphore(budget, true);
+        // A file of the maximum size must fit into the budget on its own
+        this.maxFileSize = (int) Math.min(budget / MEMORY_PER_XML_BYTE, properties.getMaxFileSize().toBytes());
+
+        int parallelism = Math.max(1, properties.getParallelism());
+        AtomicInteger threadNumber = new AtomicInteger();
+        // When all parsers are busy and the queue is full, the importing thread parses itself
+        this.parser = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism * 4),
+                task -> {
+                    Thread thread = new Thread(task, "hero-import-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        parser.shutdownNow();
+    }
+
+    /**
+     * Parse and save a single hero. Must be called in a transaction.
+     *
+     * @throws Exception if the XML cannot be parsed
+     */
+    public Character importXml(String xml, Long ownerId, Long sessionId) throws Exception {
+        Character character = HeroXMLParser.fromXmlData(xml);
+        prepare(character, contentBlobService.store(xml), ownerId, sessionId);
+        return characterRepository.save(character);
+    }
+
+    /**
+     * Import all {@code .xml} files of a ZIP archive; other files are skipped. Not transactional itself, every
+     * chunk is saved in its own transaction.
+     *
+     * @throws IllegalArgumentException if the stream is not a ZIP archive or contains no files
+     */
+    public HeroImportResult importZip(InputStream zip, Long ownerId, Long sessionId) throws IOException {
+        HeroImportResult result = new HeroImportResult();
+        List<PendingFile> chunk = new ArrayList<>();
+        int files = 0;
+        try (ZipInputStream in = new ZipInputStream(zip, StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                FileResult file = result.add(entry.getName());
+                if (!isHeroFile(entry.getName())) {
+                    file.skipped("Not an XML file");
+                    continue;
+                }
+                if (++files > properties.getMaxFiles()) {
+                    file.skipped("More than " + properties.getMaxFiles() + " files in the archive");
+                    continue;
+                }
+
+                // Reserve for the maximum before reading, the unused part is returned right after
+                int reserved = maxFileSize * MEMORY_PER_XML_BYTE;
+                if (!memoryBudget.tryAcquire(reserved)) {
+                    save(chunk, ownerId, sessionId);
+                    memoryBudget.acquire(reserved);
+                }
+                byte[] data;
+                try {
+                    data = in.readNBytes(maxFileSize + 1);
+                } catch (IOException e) {
+                    memoryBudget.release(reserved);
+                    throw e;
+                }
+                if (data.length > maxFileSize) {
+                    memoryBudget.release(reserved);
+                    file.failed("File exceeds " + maxFileSize + " bytes");
+                    continue;
+                }
+                int charged = data.length * MEMORY_PER_XML_BYTE;
+                memoryBudget.release(reserved - charged);
+
+                chunk.add(new PendingFile(file, data, charged, parser.submit(() -> HeroXMLParser.fromXml(
+                        new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8)))));
+                if (chunk.size() >= properties.getChunkSize()) {
+                    save(chunk, ownerId, sessionId);
+                }
+            }
+            save(chunk, ownerId, sessionId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } finally {
+            // Only left over if the import failed
+            for (PendingFile pending : chunk) {
+                pending.parsed().cancel(true);
+                memoryBudget.release(pending.charged());
+            }
+        }
+        if (result.getFiles().isEmpty()) {
+            throw new IllegalArgumentException("Not a ZIP archive or the archive is empty");
+        }
+        LOG.info("Imported {} heroes from an archive of {} files, {} failed", result.getImported(),
+                result.getFiles().size(), result.getFailed());
+        return result;
+    }
+
+    private static boolean isHeroFile(String entryName) {
+        String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+        // Skip metadata like __MACOSX/._Fenia.xml
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".xml") && !fileName.startsWith(".");
+    }
+
+    /**
+     * Save the parsed heroes of a chunk in one transaction and release their memory
+     */
+    private void save(List<PendingFile> chunk, Long ownerId, Long sessionId) throws InterruptedException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            List<PendingFile> parsed = new ArrayList<>(chunk.size());
+            List<Character> characters = new ArrayList<>(chunk.size());
+            for (PendingFile pending : chunk) {
+                try {
+                    characters.add(pending.parsed().get());
+                    parsed.add(pending);
+                } catch (ExecutionException e) {
+                    pending.file().failed("Failed to parse XML: " + e.getCause().getMessage());
+                }
+            }
+            if (parsed.isEmpty()) {
+                return;
+            }
+            try {
+                transaction.executeWithoutResult(status -> {
+                    for (int i = 0; i < parsed.size(); i++) {
+                        prepare(characters.get(i), contentBlobService.store(parsed.get(i).data()), ownerId,
+                                sessionId);
+                    }
+                    characterRepository.saveAll(characters);
+                    characterRepository.flush();
+                });
+                for (int i = 0; i < parsed.size(); i++) {
+                    parsed.get(i).file().imported(characters.get(i).getId(), characters.get(i).getName());
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to save a chunk of {} imported heroes", parsed.size(), e);
+                for (PendingFile pending : parsed) {
+                    pending.file().failed("Failed to save: " + e.getMessage());
+                }
+            }
+        } finally {
+            for (PendingFile pending : chunk) {
+                memoryBudget.release(pending.charged());
+            }
+            chunk.clear();
+        }
+    }
+
+    /**
+     * Attach owner, session and raw data and initialize the current resources of a parsed hero
+     */
+    private void prepare(Character character, ContentBlob rawData, Long ownerId, Long sessionId) {
+        character.setRawData(rawData);
+        character.markParsed();
+        character.setOwnerId(ownerId);
+        if (sessionId != null) {
+            character.setSessionId(sessionId);
+        }
+
+        // Initialize current resources based on calculated totals
+        character.updateCalculated();
+        character.setCurrentLife(character.getTotalLife());
+        character.setCurrentAsp(character.getMagicEnergy());
+
+        if (character.getAvatarUrl() == null || character.getAvatarUrl().trim().isEmpty()) {
+            character.setAvatarUrl("/api/char");
+        }
+    }
+
+    private record PendingFile(FileResult file, byte[] data, int charged, Future<Character> parsed) {
+    }
+}
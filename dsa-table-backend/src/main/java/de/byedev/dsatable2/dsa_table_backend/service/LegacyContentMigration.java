@@ -0,0 +1,215 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapRepository;
+import de.byedev.dsatable2.dsa_table_backend.util.FogBitmap;
+import de.byedev.dsatable2.dsa_table_backend.util.HeroXMLParser;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.SavedMapDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.xml.stream.XMLStreamException;
+import java.sql.Clob;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Moves content from former storage into its current form:
+ * <ul>
+ *     <li>hero XML from {@code characters.raw_data} into {@link ContentBlob}s</li>
+ *     <li>map data (base64 of gzip-compressed JSON) from {@code saved_maps.data_param} into {@link ContentBlob}s</li>
+ *     <li>revealed fog cells from the {@code battlemap_fog_revealed_areas} table (one row per cell) into the
+ *     {@link FogBitmap} of each battlemap</li>
+ * </ul>
+ * Schema updates ({@code ddl-auto=update}) add the new columns but keep the old ones, so databases created before
+ * the content was moved still have them. Every row is migrated in its own transaction, so an interrupted migration
+ * continues on the next start. {@code saved_maps.data_param} is dropped afterwards, as its not-null constraint would
+ * reject new maps, and so is the fog table, which is no longer mapped. Databases without the old columns are left
+ * alone.
+ */
+@Component
+public class LegacyContentMigration implements CommandLineRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LegacyContentMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentBlobService contentBlobService;
+    private final BattlemapRepository battlemapRepository;
+    private final TransactionTemplate transaction;
+
+    public LegacyContentMigration(JdbcTemplate jdbcTemplate,
+                                  ContentBlobService contentBlobService,
+                                  BattlemapRepository battlemapRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.contentBlobService = contentBlobService;
+        this.battlemapRepository = battlemapRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(String... args) {
+        migrateCharacterRawData();
+        migrateSavedMapData();
+        migrateFogRevealedAreas();
+    }
+
+    private void migrateCharacterRawData() {
+        if (!hasColumn("characters", "raw_data")) {
+            return;
+        }
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM characters WHERE raw_data IS NOT NULL AND raw_data_id IS NULL", Long.class);
+        int moved = 0;
+        for (Long id : ids) {
+            Boolean done = transaction.execute(status -> {
+                String xml = readRawData(id);
+                if (!isHero(id, xml)) {
+                    return false;
+                }
+                ContentBlob blob = contentBlobService.store(xml);
+                jdbcTemplate.update("UPDATE characters SET raw_data_id = ?, raw_data = NULL WHERE id = ?", blob.getId(), id);
+                return true;
+            });
+            moved += Boolean.TRUE.equals(done) ? 1 : 0;
+        }
+        if (!ids.isEmpty()) {
+            LOG.info("Moved the raw data of {} of {} characters to content blobs", moved, ids.size());
+        }
+    }
+
+    /**
+     * The column was a {@code @Lob String}: a CLOB on H2, but an oid referencing a large object on PostgreSQL, where
+     * reading it as string returns the oid. Reading it as {@link Clob} works for both.
+     */
+    private String readRawData(Long id) {
+        return jdbcTemplate.query("SELECT raw_data FROM characters WHERE id = ?", rs -> {
+            if (!rs.next()) {
+                return null;
+            }
+            Clob clob = rs.getClob(1);
+            if (clob == null) {
+                return null;
+            }
+            try {
+                return clob.getSubString(1, Math.toIntExact(clob.length()));
+            } finally {
+                clob.free();
+            }
+        }, id);
+    }
+
+    /**
+     * The old column is only cleared if its content really is the hero, so a misread value never replaces it
+     */
+    private static boolean isHero(Long id, String xml) {
+        if (xml == null) {
+            return false;
+        }
+        try {
+            HeroXMLParser.fromXmlData(xml);
+            return true;
+        } catch (XMLStreamException | IllegalArgumentException e) {
+            LOG.warn("Raw data of character {} is no hero XML, keeping it as is: {}", id, e.getMessage());
+            return false;
+        }
+    }
+
+    private void migrateSavedMapData() {
+        if (!hasColumn("saved_maps", "data_param")) {
+            return;
+        }
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM saved_maps WHERE data_id IS NULL", Long.class);
+        for (Long id : ids) {
+            transaction.executeWithoutResult(status -> {
+                String dataParam = jdbcTemplate.queryForObject("SELECT data_param FROM saved_maps WHERE id = ?", String.class, id);
+                ContentBlob blob = storeMapData(id, dataParam);
+                jdbcTemplate.update("UPDATE saved_maps SET data_id = ? WHERE id = ?", blob.getId(), id);
+            });
+        }
+        jdbcTemplate.execute("ALTER TABLE saved_maps DROP COLUMN data_param");
+        LOG.info("Moved the data of {} saved maps to content blobs", ids.size());
+    }
+
+    private ContentBlob storeMapData(Long id, String dataParam) {
+        try {
+            return contentBlobService.store(SavedMapDto.decodeDataParam(dataParam));
+        } catch (IllegalArgumentException e) {
+            // Keep what was there; the map was unusable before as well
+            LOG.warn("Saved map {} has invalid data, keeping it as is: {}", id, e.getMessage());
+            return contentBlobService.store(dataParam);
+        }
+    }
+
+    private void migrateFogRevealedAreas() {
+        if (!hasColumn("battlemap_fog_revealed_areas", "grid_x")) {
+            return;
+        }
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT DISTINCT battlemap_id FROM battlemap_fog_revealed_areas", Long.class);
+        for (Long id : ids) {
+            transaction.executeWithoutResult(status -> {
+                List<int[]> cells = jdbcTemplate.query(
+                        "SELECT grid_x, grid_y FROM battlemap_fog_revealed_areas"
+                                + " WHERE battlemap_id = ? AND grid_x >= 0 AND grid_y >= 0",
+                        (rs, rowNum) -> new int[]{rs.getInt(1), rs.getInt(2)}, id);
+                // The fog is a lob, written through the entity so it is stored the way Hibernate reads it
+                battlemapRepository.findById(id).ifPresent(battlemap -> battlemap.setFog(toFog(battlemap, cells)));
+                jdbcTemplate.update("DELETE FROM battlemap_fog_revealed_areas WHERE battlemap_id = ?", id);
+            });
+        }
+        jdbcTemplate.execute("DROP TABLE battlemap_fog_revealed_areas");
+        LOG.info("Moved the revealed fog of {} battlemaps to fog bitmaps", ids.size());
+    }
+
+    /**
+     * The cells were relative to the grid of the battlemap; the fog grid is enlarged if cells lie outside of it
+     */
+    private static FogBitmap toFog(Battlemap battlemap, List<int[]> cells) {
+        FogBitmap fog = battlemap.getFog();
+        if (fog == null) {
+            int size = battlemap.getGridSize() != null && battlemap.getGridSize() > 0 ? battlemap.getGridSize() : 10;
+            int columns = size;
+            int rows = size;
+            for (int[] cell : cells) {
+                columns = Math.max(columns, cell[0] + 1);
+                rows = Math.max(rows, cell[1] + 1);
+            }
+            // Cells far outside of the grid are dropped rather than blowing up the fog
+            fog = (long) columns * rows <= FogBitmap.MAX_CELLS
+                    ? new FogBitmap(columns, rows)
+                    : new FogBitmap(size, size);
+        }
+        for (int[] cell : cells) {
+            fog.set(cell[0], cell[1], true);
+        }
+        return fog;
+    }
+
+    private boolean hasColumn(String tableName, String columnName) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // Identifier case depends on the database
+            for (String table : List.of(tableName, tableName.toUpperCase(Locale.ROOT))) {
+                try (ResultSet columns = metaData.getColumns(null, null, table, null)) {
+                    while (columns.next()) {
+                        if (columnName.equals(columns.getString("COLUMN_NAME").toLowerCase(Locale.ROOT))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
@@ -0,0 +1,438 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
+import de.byedev.dsatable2.dsa_table_backend.model.BattlemapToken;
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapTokenRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.BattlemapTokenDto;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.CharacterSummary;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.TokenDelta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Holds the authoritative token positions of battlemaps that are open in a live WebSocket channel.
+ * <p>
+ * Token deltas (move, add, remove) are applied to the in-memory state and broadcast to the other
+ * sockets of the session immediately. The database is only written every {@link #FLUSH_INTERVAL_MS}:
+ * moves become a single targeted {@code UPDATE} per token, removes one {@code DELETE}, so a drag never
+ * rewrites the whole token table like the full battlemap {@code PUT} does. Several moves of the same
+ * token between two flushes are coalesced into one update.
+ * <p>
+ * A full battlemap update via REST flushes pending deltas first and afterwards drops the live state,
+ * telling all clients to reload. The state of a session is also dropped once its last socket is gone.
+ */
+@Service
+public class LiveBattlemapService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LiveBattlemapService.class);
+
+    static final long FLUSH_INTERVAL_MS = 1_000;
+    static final int SEND_TIME_LIMIT_MS = 5_000;
+    static final int SEND_BUFFER_SIZE_LIMIT = 64 * 1024;
+
+    private static final String NPC_PLAYER_NAME = "npc";
+
+    private final BattlemapRepository battlemapRepository;
+    private final BattlemapTokenRepository battlemapTokenRepository;
+    private final CharacterRepository characterRepository;
+    private final CacheEvictionService cacheEvictionService;
+    private final JsonMapper jsonMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, LiveBattlemap> battlemaps = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, WebSocketSession>> sockets = new ConcurrentHashMap<>();
+
+    public LiveBattlemapService(BattlemapRepository battlemapRepository,
+                                BattlemapTokenRepository battlemapTokenRepository,
+                                CharacterRepository characterRepository,
+                                CacheEvictionService cacheEvictionService,
+                                JsonMapper jsonMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.battlemapRepository = battlemapRepository;
+        this.battlemapTokenRepository = battlemapTokenRepository;
+        this.characterRepository = characterRepository;
+        this.cacheEvictionService = cacheEvictionService;
+        this.jsonMapper = jsonMapper;
+        // Flushes always commit on their own, even when triggered from within a REST request
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // ---- Sockets ----
+
+    public void join(Long sessionId, WebSocketSession socket) {
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(socket, SEND_TIME_LIMIT_MS, SEND_BUFFER_SIZE_LIMIT);
+        sockets.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(socket.getId(), decorated);
+        LOG.debug("Socket {} joined live battlemap of session {}", socket.getId(), sessionId);
+    }
+
+    public void leave(Long sessionId, WebSocketSession socket) {
+        sockets.computeIfPresent(sessionId, (id, sessionSockets) -> {
+            sessionSockets.remove(socket.getId());
+            return sessionSockets.isEmpty() ? null : sessionSockets;
+        });
+    }
+
+    public int getSocketCount(Long sessionId) {
+        Map<String, WebSocketSession> sessionSockets = sockets.get(sessionId);
+        return sessionSockets != null ? sessionSockets.size() : 0;
+    }
+
+    // ---- Deltas ----
+
+    /**
+     * Apply a delta sent by a socket and broadcast it to the other sockets of the session.
+     * Deltas that do not match the current state (e.g. moving a token that was removed meanwhile)
+     * are rejected and the sender is told to reload.
+     *
+     * @return whether the delta was applied
+     */
+    public boolean submit(Long sessionId, TokenDelta delta, String senderSocketId) {
+        LiveBattlemap battlemap = battlemaps.get(sessionId);
+        if (battlemap == null) {
+            // Loaded outside the map, so no transaction runs while a map bin is locked; a concurrent load may win
+            LiveBattlemap loaded = load(sessionId);
+            battlemap = battlemaps.putIfAbsent(sessionId, loaded);
+            if (battlemap == null) {
+                battlemap = loaded;
+            }
+        }
+        TokenDelta applied = battlemap.apply(delta);
+        if (applied == null) {
+            LOG.debug("Rejected token delta '{}' for token {} in session {}", delta.getOp(), delta.getTid(), sessionId);
+            send(sessionId, TokenDelta.reload(), socketId -> socketId.equals(senderSocketId));
+            return false;
+        }
+        send(sessionId, applied, socketId -> !socketId.equals(senderSocketId));
+        return true;
+    }
+
+    /**
+     * The battlemap was replaced as a whole (REST update): drop the live state after commit
+     * and tell all clients to reload.
+     */
+    public void invalidate(Long sessionId) {
+        Runnable invalidation = () -> {
+            battlemaps.remove(sessionId);
+            send(sessionId, TokenDelta.reload(), socketId -> true);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        } else {
+            invalidation.run();
+        }
+    }
+
+    private void send(Long sessionId, TokenDelta delta, Predicate<String> recipients) {
+        Map<String, WebSocketSession> sessionSockets = sockets.get(sessionId);
+        if (sessionSockets == null || sessionSockets.isEmpty()) {
+            return;
+        }
+        TextMessage message;
+        try {
+            message = new TextMessage(jsonMapper.writeValueAsString(delta));
+        } catch (JacksonException e) {
+            LOG.error("Failed to serialize token delta for session {}", sessionId, e);
+            return;
+        }
+        sessionSockets.forEach((socketId, socket) -> {
+            if (!recipients.test(socketId)) {
+                return;
+            }
+            try {
+                socket.sendMessage(message);
+            } catch (IOException | RuntimeException e) {
+                // Closed, or too slow to keep up (send buffer or time limit exceeded): it reloads on reconnect
+                LOG.debug("Dropping socket {} of session {}: {}", socketId, sessionId, e.getMessage());
+                sessionSockets.remove(socketId);
+                closeQuietly(socket);
+            }
+        });
+    }
+
+    private static void closeQuietly(WebSocketSession socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    // ---- Persistence ----
+
+    private LiveBattlemap load(Long sessionId) {
+        try {
+            return transactionTemplate.execute(status -> read(sessionId));
+        } catch (DataIntegrityViolationException e) {
+            // The battlemap was created by a concurrent load in the meantime
+            return transactionTemplate.execute(status -> read(sessionId));
+        }
+    }
+
+    private LiveBattlemap read(Long sessionId) {
+        Battlemap battlemap = battlemapRepository.findBySessionId(sessionId)
+                .orElseGet(() -> battlemapRepository.save(new Battlemap(sessionId)));
+        Map<Long, BattlemapTokenDto> tokens = new LinkedHashMap<>();
+        for (BattlemapToken token : battlemap.getTokens()) {
+            BattlemapTokenDto dto = new BattlemapTokenDto(token.getId(), token.getTokenId(), token.getX(), token.getY(), token.getIsGmOnly());
+            dto.setCharacterId(token.getCharacterId());
+            tokens.put(token.getTokenId(), dto);
+        }
+        return new LiveBattlemap(sessionId, battlemap.getId(), tokens);
+    }
+
+    /**
+     * Write the pending deltas of all live battlemaps, and drop battlemaps nobody is connected to anymore
+     */
+    @Scheduled(fixedDelay = FLUSH_INTERVAL_MS)
+    public void flushAll() {
+        battlemaps.forEach((sessionId, battlemap) -> {
+            flush(battlemap);
+            if (getSocketCount(sessionId) == 0 && !battlemap.hasPendingChanges()) {
+                battlemaps.remove(sessionId, battlemap);
+            }
+        });
+    }
+
+    /**
+     * Write the pending deltas of a session's live battlemap, if any
+     */
+    public void flush(Long sessionId) {
+        LiveBattlemap battlemap = battlemaps.get(sessionId);
+        if (battlemap != null) {
+            flush(battlemap);
+        }
+    }
+
+    private void flush(LiveBattlemap battlemap) {
+        // The scheduled flush and REST callers must not overlap: an older batch committing after a newer one
+        // would persist a stale position
+        synchronized (battlemap.flushLock) {
+            flushChanges(battlemap);
+        }
+    }
+
+    private void flushChanges(LiveBattlemap battlemap) {
+        PendingChanges changes = battlemap.drainChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!changes.removed().isEmpty()) {
+                    battlemapTokenRepository.deleteByTokenIds(battlemap.battlemapId, changes.removed());
+                }
+                if (!changes.added().isEmpty()) {
+                    Battlemap reference = battlemapRepository.getReferenceById(battlemap.battlemapId);
+                    Map<String, Long> characterIds = characterIdsByName(battlemap.sessionId, changes.added());
+                    for (BattlemapTokenDto dto : changes.added()) {
+                        battlemapTokenRepository.save(toEntity(reference, dto, characterIds));
+                    }
+                }
+                changes.moved().forEach((tokenId, position) ->
+                        battlemapTokenRepository.updatePosition(battlemap.battlemapId, tokenId, position[0], position[1]));
+                // Bulk statements bypass the entity listeners
+                cacheEvictionService.battlemapChanged(battlemap.sessionId);
+            });
+            LOG.debug("Flushed {} moved, {} added and {} removed tokens of session {}",
+                    changes.moved().size(), changes.added().size(), changes.removed().size(), battlemap.sessionId);
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to persist live battlemap of session {}, retrying with the next flush", battlemap.sessionId, e);
+            battlemap.requeue(changes);
+        }
+    }
+
+    private Map<String, Long> characterIdsByName(Long sessionId, List<BattlemapTokenDto> tokens) {
+        boolean hasPlayerTokens = tokens.stream()
+                .anyMatch(token -> token.getPlayerName() != null && !NPC_PLAYER_NAME.equals(token.getPlayerName()));
+        if (!hasPlayerTokens) {
+            return Map.of();
+        }
+        Map<String, Long> characterIds = new HashMap<>();
+        for (CharacterSummary character : characterRepository.findSummariesBySessionId(sessionId)) {
+            if (character.getId() != null && character.getName() != null) {
+                characterIds.putIfAbsent(character.getName(), character.getId());
+            }
+        }
+        return characterIds;
+    }
+
+    private static BattlemapToken toEntity(Battlemap battlemap, BattlemapTokenDto dto, Map<String, Long> characterIds) {
+        BattlemapToken token = new BattlemapToken(battlemap, dto.getTokenId(), dto.getX(), dto.getY(), dto.getIsGmOnly());
+        token.setColor(dto.getColor());
+        token.setAvatarUrl(dto.getAvatarUrl());
+        token.setBorderColor(dto.getBorderColor());
+        token.setName(dto.getName());
+        // "npc" or no player name means non-player token (characterId = null)
+        if (dto.getPlayerName() != null && !NPC_PLAYER_NAME.equals(dto.getPlayerName())) {
+            token.setCharacterId(characterIds.get(dto.getPlayerName()));
+        }
+        return token;
+    }
+
+    /**
+     * Changes drained from a live battlemap for one flush: removed token IDs, copies of added tokens
+     * and the latest position ({x, y}) of moved tokens that were already persisted
+     */
+    private record PendingChanges(Set<Long> removed, List<BattlemapTokenDto> added, Map<Long, Double[]> moved) {
+        boolean isEmpty() {
+            return removed.isEmpty() && added.isEmpty() && moved.isEmpty();
+        }
+    }
+
+    /**
+     * In-memory state of one battlemap: tokens by client token ID plus the IDs changed since the last flush
+     */
+    private static final class LiveBattlemap {
+        private final Long sessionId;
+        private final Long battlemapId;
+        private final Map<Long, BattlemapTokenDto> tokens;
+        private final Set<Long> moved = new LinkedHashSet<>();
+        private final Set<Long> added = new LinkedHashSet<>();
+        private final Set<Long> removed = new LinkedHashSet<>();
+        /**
+         * Held while changes are drained and written; separate from the instance lock, so deltas are applied
+         * meanwhile
+         */
+        private final Object flushLock = new Object();
+
+        private LiveBattlemap(Long sessionId, Long battlemapId, Map<Long, BattlemapTokenDto> tokens) {
+            this.sessionId = sessionId;
+            this.battlemapId = battlemapId;
+            this.tokens = tokens;
+        }
+
+        /**
+         * @return the delta to broadcast, or {@code null} if it does not apply to the current state
+         */
+        synchronized TokenDelta apply(TokenDelta delta) {
+            if (delta.getOp() == null) {
+                return null;
+            }
+            switch (delta.getOp()) {
+                case TokenDelta.MOVE -> {
+                    BattlemapTokenDto token = tokens.get(delta.getTid());
+                    if (token == null || delta.getX() == null || delta.getY() == null) {
+                        return null;
+                    }
+                    token.setX(delta.getX());
+                    token.setY(delta.getY());
+                    if (!added.contains(token.getTokenId())) {
+                        moved.add(token.getTokenId());
+                    }
+                    return TokenDelta.move(token.getTokenId(), token.getX(), token.getY());
+                }
+                case TokenDelta.ADD -> {
+                    BattlemapTokenDto token = delta.getToken();
+                    if (token == null || token.getTokenId() == null || tokens.containsKey(token.getTokenId())) {
+                        return null;
+                    }
+                    token.setId(null);
+                    token.setCharacterId(null);
+                    if (token.getX() == null) {
+                        token.setX(0.0);
+                    }
+                    if (token.getY() == null) {
+                        token.setY(0.0);
+                    }
+                    if (token.getIsGmOnly() == null) {
+                        token.setIsGmOnly(false);
+                    }
+                    tokens.put(token.getTokenId(), token);
+                    added.add(token.getTokenId());
+                    return TokenDelta.add(token);
+                }
+                case TokenDelta.REMOVE -> {
+                    BattlemapTokenDto token = tokens.remove(delta.getTid());
+                    if (token == null) {
+                        return null;
+                    }
+                    moved.remove(token.getTokenId());
+                    // A token added since the last flush was never written, nothing to delete
+                    if (!added.remove(token.getTokenId())) {
+                        removed.add(token.getTokenId());
+                    }
+                    return TokenDelta.remove(token.getTokenId());
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+
+        synchronized boolean hasPendingChanges() {
+            return !moved.isEmpty() || !added.isEmpty() || !removed.isEmpty();
+        }
+
+        synchronized PendingChanges drainChanges() {
+            List<BattlemapTokenDto> addedTokens = new ArrayList<>();
+            for (Long tokenId : added) {
+                addedTokens.add(copy(tokens.get(tokenId)));
+            }
+            Map<Long, Double[]> movedPositions = new LinkedHashMap<>();
+            for (Long tokenId : moved) {
+                BattlemapTokenDto token = tokens.get(tokenId);
+                movedPositions.put(tokenId, new Double[]{token.getX(), token.getY()});
+            }
+            PendingChanges changes = new PendingChanges(new HashSet<>(removed), addedTokens, movedPositions);
+            moved.clear();
+            added.clear();
+            removed.clear();
+            return changes;
+        }
+
+        /**
+         * Put back changes that failed to persist, unless newer deltas superseded them
+         */
+        synchronized void requeue(PendingChanges changes) {
+            // Deletes run before inserts, so a token removed and added again is still written correctly
+            removed.addAll(changes.removed());
+            changes.added().stream().map(BattlemapTokenDto::getTokenId).filter(tokens::containsKey).forEach(added::add);
+            changes.moved().keySet().stream()
+                    .filter(tokenId -> tokens.containsKey(tokenId) && !added.contains(tokenId))
+                    .forEach(moved::add);
+        }
+
+        private static BattlemapTokenDto copy(BattlemapTokenDto token) {
+            BattlemapTokenDto copy = new BattlemapTokenDto(null, token.getTokenId(), token.getX(), token.getY(), token.getIsGmOnly());
+            copy.setColor(token.getColor());
+            copy.setAvatarUrl(token.getAvatarUrl());
+            copy.setBorderColor(token.getBorderColor());
+            copy.setName(token.getName());
+            copy.setPlayerName(token.getPlayerName());
+            return copy;
+        }
+    }
+}
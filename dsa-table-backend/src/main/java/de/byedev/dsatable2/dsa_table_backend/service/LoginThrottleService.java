@@ -0,0 +1,120 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import de.byedev.dsatable2.dsa_table_backend.config.AuthProperties;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Throttles logins and registrations with token buckets per username and per client IP, before any password is
+ * hashed. Each bucket holds up to the configured number of attempts and is refilled evenly over
+ * {@link AuthProperties#getAttemptWindow()}; buckets unused for a whole window are full again and dropped.
+ */
+@Service
+@EnableConfigurationProperties(AuthProperties.class)
+public class LoginThrottleService {
+
+    private static final int MAX_BUCKETS = 100_000;
+
+    private final Ticker ticker;
+    private final AuthProperties properties;
+    private final Cache<String, TokenBucket> usernameBuckets;
+    private final Cache<String, TokenBucket> ipBuckets;
+    private final Counter throttledUsername;
+    private final Counter throttledIp;
+
+    @Autowired
+    public LoginThrottleService(AuthProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Ticker.systemTicker());
+    }
+
+    LoginThrottleService(AuthProperties properties, MeterRegistry meterRegistry, Ticker ticker) {
+        this.ticker = ticker;
+        this.properties = properties;
+        this.usernameBuckets = newBuckets(properties.getAttemptWindow(), ticker);
+        this.ipBuckets = newBuckets(properties.getAttemptWindow(), ticker);
+        this.throttledUsername = Counter.builder("auth.throttled").tag("reason", "username").register(meterRegistry);
+        this.throttledIp = Counter.builder("auth.throttled").tag("reason", "ip").register(meterRegistry);
+    }
+
+    private static Cache<String, TokenBucket> newBuckets(Duration window, Ticker ticker) {
+        return Caffeine.newBuilder()
+                .maximumSize(MAX_BUCKETS)
+                .expireAfterAccess(window)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Take an attempt for a login
+     *
+     * @throws TooManyRequestsException if the username or the IP has no attempts left
+     */
+    public void acquireLogin(String username, String ip) {
+        acquire(ipBuckets, ip, properties.getAttemptsPerIp(), throttledIp);
+        if (username != null) {
+            acquire(usernameBuckets, username.toLowerCase(Locale.ROOT), properties.getAttemptsPerUsername(),
+                    throttledUsername);
+        }
+    }
+
+    /**
+     * Take an attempt for a registration
+     *
+     * @throws TooManyRequestsException if the IP has no attempts left
+     */
+    public void acquireRegistration(String ip) {
+        acquire(ipBuckets, ip, properties.getAttemptsPerIp(), throttledIp);
+    }
+
+    private void acquire(Cache<String, TokenBucket> buckets, String key, int attempts, Counter throttled) {
+        long nanosPerAttempt = properties.getAttemptWindow().toNanos() / Math.max(1, attempts);
+        TokenBucket bucket = buckets.get(key != null ? key : "", k -> new TokenBucket(attempts, nanosPerAttempt,
+                ticker.read()));
+        long waitNanos = bucket.tryAcquire(ticker.read());
+        if (waitNanos > 0) {
+            throttled.increment();
+            throw new TooManyRequestsException("Too many login attempts, please try again later",
+                    Duration.ofNanos(waitNanos));
+        }
+    }
+
+    /**
+     * Holds up to {@code capacity} attempts, one is added every {@code nanosPerToken}
+     */
+    static final class TokenBucket {
+        private final int capacity;
+        private final long nanosPerToken;
+        private double tokens;
+        private long updatedNanos;
+
+        TokenBucket(int capacity, long nanosPerToken, long now) {
+            this.capacity = capacity;
+            this.nanosPerToken = Math.max(1, nanosPerToken);
+            this.tokens = capacity;
+            this.updatedNanos = now;
+        }
+
+        /**
+         * @return 0 if an attempt was taken, otherwise the nanoseconds until the next one is available
+         */
+        synchronized long tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (double) (now - updatedNanos) / nanosPerToken);
+            updatedNanos = now;
+            if (tokens >= 1) {
+                tokens--;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * nanosPerToken);
+        }
+    }
+}
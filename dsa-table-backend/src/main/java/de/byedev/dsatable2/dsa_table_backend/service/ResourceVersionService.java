@@ -0,0 +1,73 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks a version and last-modified time for every cache entry key (e.g. {@code characters} / {@code 5}
+ * or {@code characters} / {@code list:session:3}). Versions are bumped by {@link CacheEvictionService}
+ * whenever the entry is evicted because of an entity change, so they can be turned into ETags and
+ * answered with 304 Not Modified without loading any entities.
+ * <p>
+ * Versions live in memory only. Every ETag contains the startup time, so tags handed out before a
+ * restart never match again; entries that have not changed since startup report the startup time
+ * as their last modification.
+ */
+@Service
+public class ResourceVersionService {
+
+    /**
+     * Key bumped whenever all list entries of a cache are invalidated at once
+     */
+    public static final String ALL_LISTS_KEY = "list:*";
+
+    private final long startedAt = System.currentTimeMillis();
+    private final String epoch = Long.toString(startedAt, 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Stamp> stamps = new ConcurrentHashMap<>();
+
+    public void bump(String cacheName, Object key) {
+        stamps.put(cacheName + ':' + key, new Stamp(sequence.incrementAndGet(), System.currentTimeMillis()));
+    }
+
+    /**
+     * Current version of a single cache entry
+     */
+    public ResourceVersion of(String cacheName, Object key) {
+        Stamp stamp = stamps.get(cacheName + ':' + key);
+        if (stamp == null) {
+            return new ResourceVersion(epoch, "0", startedAt);
+        }
+        return new ResourceVersion(epoch, Long.toString(stamp.version(), 36), stamp.modifiedAt());
+    }
+
+    /**
+     * Current version of a list entry, which also changes when all lists of the cache were invalidated
+     */
+    public ResourceVersion ofList(String cacheName, String listKey) {
+        return of(cacheName, listKey).and(of(cacheName, ALL_LISTS_KEY));
+    }
+
+    private record Stamp(long version, long modifiedAt) {
+    }
+
+    /**
+     * Version of a resource, possibly combined from several cache entries
+     */
+    public record ResourceVersion(String epoch, String tag, long lastModified) {
+
+        public ResourceVersion and(ResourceVersion other) {
+            return new ResourceVersion(epoch, tag + '.' + other.tag, Math.max(lastModified, other.lastModified));
+        }
+
+        /**
+         * Weak ETag, as the same version is served both plain and gzip-encoded
+         */
+        public String etag() {
+            return "W/\"" + epoch + '-' + tag + "\"";
+        }
+    }
+}
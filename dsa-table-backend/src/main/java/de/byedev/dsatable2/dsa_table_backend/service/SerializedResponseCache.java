@@ -0,0 +1,114 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService.ResourceVersion;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches responses as ready-to-send JSON bytes (plus a gzipped copy for larger payloads) instead of
+ * live entities, so a cache hit involves neither object graph traversal nor serialization.
+ * <p>
+ * Entries are stored under the same cache names and keys that {@link CacheEvictionService} evicts,
+ * and remember the version they were serialized for: an entry is only served while its version is current.
+ */
+@Service
+public class SerializedResponseCache {
+
+    /**
+     * Payloads smaller than this are not worth compressing
+     */
+    static final int GZIP_THRESHOLD = 1024;
+
+    private final CacheManager cacheManager;
+    private final JsonMapper jsonMapper;
+
+    public SerializedResponseCache(CacheManager cacheManager, JsonMapper jsonMapper) {
+        this.cacheManager = cacheManager;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * Return the cached response for the given key and version, loading and serializing the body on a miss.
+     *
+     * @return the serialized response, or empty if the loader found nothing (not cached)
+     */
+    public Optional<SerializedResponse> get(String cacheName, Object key, ResourceVersion version,
+                                            Supplier<Optional<?>> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        Cache.ValueWrapper entry = cache != null ? cache.get(key) : null;
+        if (entry != null && entry.get() instanceof SerializedResponse cached && cached.getEtag().equals(version.etag())) {
+            return Optional.of(cached);
+        }
+
+        Optional<SerializedResponse> loaded = loader.get().map(body -> serialize(body, version));
+        if (cache != null) {
+            loaded.ifPresent(response -> cache.put(key, response));
+        }
+        return loaded;
+    }
+
+    private SerializedResponse serialize(Object body, ResourceVersion version) {
+        byte[] json = jsonMapper.writeValueAsBytes(body);
+        byte[] gzipped = json.length >= GZIP_THRESHOLD ? gzip(json) : null;
+        return new SerializedResponse(json, gzipped, version.etag(), version.lastModified());
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compress response", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A serialized JSON body with its version headers
+     */
+    public static class SerializedResponse {
+        private final byte[] json;
+        private final byte[] gzipped;
+        private final String etag;
+        private final long lastModified;
+
+        public SerializedResponse(byte[] json, byte[] gzipped, String etag, long lastModified) {
+            this.json = json;
+            this.gzipped = gzipped;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * @return the gzipped JSON, or null if the body is too small to be compressed
+         */
+        public byte[] getGzipped() {
+            return gzipped;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long size() {
+            return json.length + (gzipped != null ? gzipped.length : 0);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fans events out to the subscribers of a session.
+ * <p>
+ * Every session with subscribers has a ring buffer of its latest events, and every subscriber reads from it with its
+ * own cursor. Publishing only appends to the buffer and wakes up the subscribers, so publishers never wait for
+ * subscribers. Delivery runs on virtual threads, and only while a subscriber has something to deliver - idle
+ * subscribers cost a buffer cursor, not a thread. A subscriber that falls behind by more than the buffer holds
+ * (a slow or stuck client) is told to resync and dropped.
+ * <p>
+ * Exported metrics (tagged with the stream name): {@code session.broadcast.subscribers},
+ * {@code session.broadcast.published}, {@code session.broadcast.lag} (events a subscriber was behind when
+ * delivering) and {@code session.broadcast.dropped} (by reason {@code overflow} or {@code error}).
+ *
+ * @param <E> the event type
+ */
+public class SessionBroadcaster<E> implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SessionBroadcaster.class);
+
+    /**
+     * Maximum number of events delivered to a subscriber before the buffer is read again
+     */
+    static final int MAX_BATCH = 64;
+
+    /**
+     * Receives the events of a session. The methods of one subscriber are never called concurrently.
+     */
+    public interface Subscriber<E> {
+        void onEvent(E event) throws IOException;
+
+        /**
+         * Called instead of the next event when nothing was delivered since the last heartbeat
+         */
+        default void onHeartbeat() throws IOException {
+        }
+
+        /**
+         * The subscriber fell behind too far and missed events; it is unsubscribed afterwards
+         */
+        void onOverflow();
+    }
+
+    private final String name;
+    private final int capacity;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<Long, Topic> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final Counter published;
+    private final Counter droppedOverflow;
+    private final Counter droppedError;
+    private final DistributionSummary lag;
+
+    /**
+     * @param name     name of the stream, used in logs and as metric tag
+     * @param capacity number of events buffered per session
+     */
+    public SessionBroadcaster(String name, int capacity, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.capacity = capacity;
+        Gauge.builder("session.broadcast.subscribers", subscriberCount, AtomicInteger::get)
+                .tag("stream", name).register(meterRegistry);
+        this.published = Counter.builder("session.broadcast.published").tag("stream", name).register(meterRegistry);
+        this.droppedOverflow = Counter.builder("session.broadcast.dropped")
+                .tag("stream", name).tag("reason", "overflow").register(meterRegistry);
+        this.droppedError = Counter.builder("session.broadcast.dropped")
+                .tag("stream", name).tag("reason", "error").register(meterRegistry);
+        this.lag = DistributionSummary.builder("session.broadcast.lag").tag("stream", name)
+                .baseUnit("events").register(meterRegistry);
+    }
+
+    /**
+     * Subscribe to the events of a session published from now on
+     */
+    public Subscription subscribe(Long sessionId, Subscriber<E> subscriber) {
+        AtomicReference<Subscription> created = new AtomicReference<>();
+        topics.compute(sessionId, (id, topic) -> {
+            Topic sessionTopic = topic != null ? topic : new Topic(id);
+            Subscription subscription = new Subscription(sessionTopic, subscriber, sessionTopic.head());
+            sessionTopic.subscriptions.add(subscription);
+            created.set(subscription);
+            return sessionTopic;
+        });
+        subscriberCount.incrementAndGet();
+        return created.get();
+    }
+
+    /**
+     * Append an event to the buffer of a session and wake up its subscribers. Never blocks on subscribers;
+     * without subscribers the event is discarded.
+     */
+    public void publish(Long sessionId, E event) {
+        Topic topic = topics.get(sessionId);
+        if (topic == null) {
+            return;
+        }
+        topic.append(event);
+        published.increment();
+        topic.subscriptions.forEach(Subscription::signal);
+    }
+
+    /**
+     * Request a heartbeat for every subscriber that has nothing else to deliver
+     */
+    public void heartbeat() {
+        topics.values().forEach(topic -> topic.subscriptions.forEach(subscription -> {
+            subscription.heartbeatDue = true;
+            subscription.signal();
+        }));
+    }
+
+    /**
+     * @return the number of subscribers of a session
+     */
+    public int getSubscriberCount(Long sessionId) {
+        Topic topic = topics.get(sessionId);
+        return topic != null ? topic.subscriptions.size() : 0;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        topics.clear();
+    }
+
+    private void remove(Subscription subscription) {
+        topics.computeIfPresent(subscription.topic.sessionId, (id, topic) -> {
+            if (topic.subscriptions.remove(subscription)) {
+                subscriberCount.decrementAndGet();
+            }
+            return topic.subscriptions.isEmpty() ? null : topic;
+        });
+    }
+
+    private final class Topic {
+        private final Long sessionId;
+        private final Object[] ring = new Object[capacity];
+        /**
+         * Sequence number of the next event
+         */
+        private long head;
+        private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+        private Topic(Long sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        synchronized long head() {
+            return head;
+        }
+
+        synchronized void append(E event) {
+            ring[(int) (head % capacity)] = event;
+            head++;
+        }
+
+        /**
+         * @return up to {@link #MAX_BATCH} events starting at the given sequence number,
+         * or {@code null} if some of them were overwritten already
+         */
+        @SuppressWarnings("unchecked")
+        synchronized List<E> read(long from) {
+            if (head - from > capacity) {
+                return null;
+            }
+            long to = Math.min(head, from + MAX_BATCH);
+            List<E> events = new ArrayList<>((int) (to - from));
+            for (long sequence = from; sequence < to; sequence++) {
+                events.add((E) ring[(int) (sequence % capacity)]);
+            }
+            return events;
+        }
+    }
+
+    /**
+     * A subscriber with its cursor into the buffer of its session
+     */
+    public final class Subscription implements AutoCloseable {
+        private final Topic topic;
+        private final Subscriber<E> subscriber;
+        /**
+         * Sequence number of the next event to deliver; only changed by the delivering thread
+         */
+        private long next;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+        private volatile boolean closed;
+
+        private Subscription(Topic topic, Subscriber<E> subscriber, long next) {
+            this.topic = topic;
+            this.subscriber = subscriber;
+            this.next = next;
+        }
+
+        /**
+         * Unsubscribe; an ongoing delivery stops after the current event
+         */
+        @Override
+        public void close() {
+            closed = true;
+            remove(this);
+        }
+
+        private void signal() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RuntimeException e) {
+                    // Shutting down
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    List<E> events = topic.read(next);
+                    if (events == null) {
+                        overflow();
+                        return;
+                    }
+                    if (events.isEmpty()) {
+                        if (heartbeatDue) {
+                            heartbeatDue = false;
+                            subscriber.onHeartbeat();
+                        }
+                        scheduled.set(false);
+                        // An event appended before the flag was reset did not schedule another run
+                        if ((topic.head() == next && !heartbeatDue) || !scheduled.compareAndSet(false, true)) {
+                            return;
+                        }
+                        continue;
+                    }
+                    lag.record(topic.head() - next);
+                    for (E event : events) {
+                        if (closed) {
+                            return;
+                        }
+                        subscriber.onEvent(event);
+                        next++;
+                    }
+                    heartbeatDue = false;
+                }
+            } catch (IOException | RuntimeException e) {
+                LOG.debug("Dropping {} subscriber of session {}: {}", name, topic.sessionId, e.getMessage());
+                droppedError.increment();
+                close();
+            }
+        }
+
+        private void overflow() {
+            LOG.debug("{} subscriber of session {} fell behind more than {} events, requesting resync",
+                    name, topic.sessionId, capacity);
+            droppedOverflow.increment();
+            close();
+            subscriber.onOverflow();
+        }
+    }
+}
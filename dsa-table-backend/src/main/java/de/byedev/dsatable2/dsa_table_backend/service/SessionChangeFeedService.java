@@ -0,0 +1,157 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.ChatMessageRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.GameSessionRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.SessionChangeLog.Change;
+import de.byedev.dsatable2.dsa_table_backend.service.SessionChangeLog.Changes;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.CharacterSummary;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.ChatMessageDto;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.GameSessionDto.Expansion;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.SessionChangesDto;
+import jakarta.annotation.PreDestroy;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the session change feed from the {@link SessionChangeLog}: only the characters, chat messages and
+ * session data that changed after the client's cursor are read, so the cost of a poll is proportional to the
+ * activity in the session instead of its size.
+ * <p>
+ * Long polls park on the change log without holding a thread or a connection; once something changes
+ * (or the wait times out) the feed is read on a virtual thread.
+ */
+@Service
+public class SessionChangeFeedService {
+
+    /**
+     * Maximum number of chat messages returned by one feed response; if more were written, the client has to resync
+     */
+    static final int MAX_CHAT_MESSAGES = 500;
+
+    private final SessionChangeLog sessionChangeLog;
+    private final GameSessionRepository gameSessionRepository;
+    private final CharacterRepository characterRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final GameSessionDtoAssembler gameSessionDtoAssembler;
+    private final ResourceVersionService resourceVersions;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public SessionChangeFeedService(SessionChangeLog sessionChangeLog,
+                                    GameSessionRepository gameSessionRepository,
+                                    CharacterRepository characterRepository,
+                                    ChatMessageRepository chatMessageRepository,
+                                    GameSessionDtoAssembler gameSessionDtoAssembler,
+                                    ResourceVersionService resourceVersions,
+                                    PlatformTransactionManager transactionManager) {
+        this.sessionChangeLog = sessionChangeLog;
+        this.gameSessionRepository = gameSessionRepository;
+        this.characterRepository = characterRepository;
+        this.chatMessageRepository = chatMessageRepository;
+        this.gameSessionDtoAssembler = gameSessionDtoAssembler;
+        this.resourceVersions = resourceVersions;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Wait up to {@code maxWait} for changes after the cursor, then read them.
+     * Completes immediately if there already are changes (or the client has to resync).
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public CompletableFuture<SessionChangesDto> awaitChanges(Long sessionId, String cursor, Duration maxWait) {
+        return sessionChangeLog.awaitChanges(sessionId, cursor)
+                .completeOnTimeout(null, maxWait.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApplyAsync(ignored -> readChanges(sessionId, cursor), executor);
+    }
+
+    /**
+     * The cursor pointing at the latest change; clients load the full state once and follow the feed from there
+     */
+    public SessionChangesDto start(Long sessionId) {
+        return new SessionChangesDto(currentCursor(sessionId), true);
+    }
+
+    /**
+     * The cursor pointing at the latest change of a session; read it before the state the client follows from it
+     */
+    public String currentCursor(Long sessionId) {
+        return sessionChangeLog.currentCursor(sessionId);
+    }
+
+    /**
+     * Read everything that changed after the cursor
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public SessionChangesDto readChanges(Long sessionId, String cursor) {
+        Changes changes = sessionChangeLog.since(sessionId, cursor);
+        if (changes.resync()) {
+            return new SessionChangesDto(changes.cursor(), true);
+        }
+        return readOnlyTransaction.execute(status -> read(sessionId, changes));
+    }
+
+    private SessionChangesDto read(Long sessionId, Changes changes) {
+        SessionChangesDto dto = new SessionChangesDto(changes.cursor(), false);
+
+        Set<Long> characterIds = new HashSet<>();
+        Long firstMessageId = null;
+        for (Change change : changes.changes()) {
+            switch (change.type()) {
+                case SESSION -> gameSessionRepository.findById(sessionId).ifPresentOrElse(
+                        session -> dto.setSession(gameSessionDtoAssembler.toDto(session, Set.of(Expansion.PLAYERS))),
+                        () -> dto.setSessionDeleted(true));
+                case CHARACTER -> characterIds.add(change.id());
+                case BATTLEMAP -> dto.setBattlemapVersion(
+                        resourceVersions.of(CacheEvictionService.BATTLEMAPS_CACHE, sessionId).etag());
+                case CHAT -> {
+                    if (change.id() != null && (firstMessageId == null || change.id() < firstMessageId)) {
+                        firstMessageId = change.id();
+                    }
+                }
+            }
+        }
+
+        if (!characterIds.isEmpty()) {
+            List<CharacterSummary> characters = characterRepository.findSummariesByIds(characterIds);
+            // Characters that were deleted or moved to another session left this one
+            characters.stream()
+                    .filter(character -> Objects.equals(character.getSessionId(), sessionId))
+                    .forEach(dto.getCharacters()::add);
+            characterIds.stream()
+                    .filter(id -> dto.getCharacters().stream().noneMatch(character -> id.equals(character.getId())))
+                    .forEach(dto.getRemovedCharacterIds()::add);
+        }
+        if (firstMessageId != null) {
+            List<ChatMessageDto> messages = chatMessageRepository.findBySessionIdAfter(sessionId, firstMessageId - 1,
+                    Limit.of(MAX_CHAT_MESSAGES));
+            if (messages.size() >= MAX_CHAT_MESSAGES) {
+                // The cursor points past all of them, so the ones left out would never be delivered
+                return new SessionChangesDto(changes.cursor(), true);
+            }
+            dto.setChatMessages(messages);
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,200 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-session log of what changed, used by the session change feed.
+ * <p>
+ * Every session has its own monotonic sequence number; a client's cursor is the sequence number it has seen,
+ * prefixed with the startup epoch so cursors of a previous run are recognized. Repeated changes of the same
+ * thing (e.g. a character edited ten times) are coalesced into one entry with the latest sequence number, and
+ * only the latest {@link #MAX_ENTRIES_PER_SESSION} entries are kept. Clients whose cursor is older than
+ * the retained entries (or from another epoch) are told to resync, i.e. to reload the full state.
+ * <p>
+ * Changes are recorded after commit, so a client woken up by a change always reads the committed state.
+ */
+@Service
+public class SessionChangeLog {
+
+    static final int MAX_ENTRIES_PER_SESSION = 1024;
+
+    public enum ChangeType {
+        /**
+         * The session itself (title, players) changed or was deleted; the ID is the session ID
+         */
+        SESSION,
+        /**
+         * A character of the session changed, joined, left or was deleted
+         */
+        CHARACTER,
+        /**
+         * The battlemap changed; the ID is the session ID
+         */
+        BATTLEMAP,
+        /**
+         * A chat message was written
+         */
+        CHAT
+    }
+
+    public record Change(long sequence, ChangeType type, Long id) {
+    }
+
+    /**
+     * Changes after a cursor. If {@code resync} is set, the changes are incomplete and the full state has to be reloaded.
+     */
+    public record Changes(String cursor, boolean resync, List<Change> changes) {
+        public boolean isEmpty() {
+            return !resync && changes.isEmpty();
+        }
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<Long, SessionLog> logs = new ConcurrentHashMap<>();
+
+    /**
+     * Record a change of a session, once the current transaction commits (immediately without transaction)
+     */
+    public void record(Long sessionId, ChangeType type, Long id) {
+        if (sessionId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    log(sessionId).append(type, id);
+                }
+            });
+        } else {
+            log(sessionId).append(type, id);
+        }
+    }
+
+    /**
+     * The cursor pointing at the latest change of a session
+     */
+    public String currentCursor(Long sessionId) {
+        return toCursor(log(sessionId).currentSequence());
+    }
+
+    /**
+     * The changes of a session after the given cursor, oldest first
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Changes since(Long sessionId, String cursor) {
+        Long sequence = parseCursor(cursor);
+        return log(sessionId).since(sequence);
+    }
+
+    /**
+     * A future completed as soon as there are changes after the cursor - immediately if there already are.
+     * The caller is expected to bound the wait, e.g. with {@link CompletableFuture#completeOnTimeout}.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public CompletableFuture<Void> awaitChanges(Long sessionId, String cursor) {
+        Long sequence = parseCursor(cursor);
+        return log(sessionId).await(sequence);
+    }
+
+    private SessionLog log(Long sessionId) {
+        return logs.computeIfAbsent(sessionId, id -> new SessionLog());
+    }
+
+    private String toCursor(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * @return the sequence number of the cursor, or {@code null} if it is from another epoch
+     */
+    private Long parseCursor(String cursor) {
+        int separator = cursor.lastIndexOf('-');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor);
+        }
+        long sequence;
+        try {
+            sequence = Long.parseLong(cursor.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor, e);
+        }
+        return epoch.equals(cursor.substring(0, separator)) ? sequence : null;
+    }
+
+    private record ChangeKey(ChangeType type, Long id) {
+    }
+
+    private final class SessionLog {
+        private long sequence;
+        /**
+         * Sequence number of the newest entry dropped because of the size limit
+         */
+        private long truncatedSequence;
+        private final LinkedHashMap<ChangeKey, Long> entries = new LinkedHashMap<>();
+        private final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+
+        void append(ChangeType type, Long id) {
+            List<CompletableFuture<Void>> toWake;
+            synchronized (this) {
+                ChangeKey key = new ChangeKey(type, id);
+                // Re-insert to move the entry to the end
+                entries.remove(key);
+                entries.put(key, ++sequence);
+                if (entries.size() > MAX_ENTRIES_PER_SESSION) {
+                    Iterator<Map.Entry<ChangeKey, Long>> eldest = entries.entrySet().iterator();
+                    truncatedSequence = eldest.next().getValue();
+                    eldest.remove();
+                }
+                toWake = new ArrayList<>(waiters);
+                waiters.clear();
+            }
+            toWake.forEach(waiter -> waiter.complete(null));
+        }
+
+        synchronized long currentSequence() {
+            return sequence;
+        }
+
+        synchronized Changes since(Long cursorSequence) {
+            if (cursorSequence == null || cursorSequence < truncatedSequence || cursorSequence > sequence) {
+                return new Changes(toCursor(sequence), true, List.of());
+            }
+            List<Change> changes = new ArrayList<>();
+            entries.forEach((key, entrySequence) -> {
+                if (entrySequence > cursorSequence) {
+                    changes.add(new Change(entrySequence, key.type(), key.id()));
+                }
+            });
+            return new Changes(toCursor(sequence), false, changes);
+        }
+
+        synchronized CompletableFuture<Void> await(Long cursorSequence) {
+            if (cursorSequence == null || cursorSequence != sequence) {
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            // Timed out or cancelled waiters must not pile up in idle sessions
+            waiter.whenComplete((result, error) -> {
+                synchronized (this) {
+                    waiters.remove(waiter);
+                }
+            });
+            return waiter;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Short-lived, single-use tickets for opening a live battlemap socket. Browsers cannot set an Authorization
+ * header on a WebSocket handshake, and a JWT in the query string ends up in proxy access logs; a ticket is
+ * issued by an authenticated REST call instead, is bound to one session and is gone after the first handshake.
+ */
+@Service
+public class SocketTicketService {
+
+    public static final Duration TICKET_LIFETIME = Duration.ofSeconds(30);
+    private static final int MAX_TICKETS = 10_000;
+    private static final int TICKET_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Cache<String, Ticket> tickets;
+
+    @Autowired
+    public SocketTicketService() {
+        this(Ticker.systemTicker());
+    }
+
+    SocketTicketService(Ticker ticker) {
+        this.tickets = Caffeine.newBuilder()
+                .maximumSize(MAX_TICKETS)
+                .expireAfterWrite(TICKET_LIFETIME)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Issue a ticket for the live battlemap of a session
+     */
+    public String issue(String username, Long sessionId) {
+        byte[] bytes = new byte[TICKET_BYTES];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new Ticket(username, sessionId));
+        return ticket;
+    }
+
+    /**
+     * Use up a ticket
+     *
+     * @return the username the ticket was issued to, or null if it is unknown, expired, already used or was issued
+     * for another session
+     */
+    public String redeem(String ticket, Long sessionId) {
+        if (ticket == null) {
+            return null;
+        }
+        Ticket redeemed = tickets.asMap().remove(ticket);
+        return redeemed != null && redeemed.sessionId().equals(sessionId) ? redeemed.username() : null;
+    }
+
+    private record Ticket(String username, Long sessionId) {
+    }
+}
@@ -0,0 +1,160 @@
+package de.byedev.dsatable2.dsa_table_backend.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.BitSet;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Revealed cells of the fog of war of a battlemap as a bitset, one bit per grid cell.
+ * <p>
+ * Cell {@code (x, y)} is bit {@code y * columns + x}; a set bit means the cell is revealed. The raw encoding
+ * ({@link #toBytes()}) is little-endian like {@link BitSet#toByteArray()}: bit {@code i} is bit {@code i % 8}
+ * of byte {@code i / 8}, trailing zero bytes are omitted. For storage the raw bytes are deflated
+ * ({@link #compress()}), which shrinks the usual large revealed or hidden regions to a few bytes.
+ */
+public final class FogBitmap {
+
+    /**
+     * Maximum number of cells of a fog grid
+     */
+    public static final int MAX_CELLS = 1 << 20;
+
+    private final int columns;
+    private final int rows;
+    private final BitSet revealed;
+
+    /**
+     * Create a fog grid with every cell hidden
+     *
+     * @throws IllegalArgumentException if the size is not positive or exceeds {@link #MAX_CELLS}
+     */
+    public FogBitmap(int columns, int rows) {
+        this(columns, rows, new BitSet());
+    }
+
+    private FogBitmap(int columns, int rows, BitSet revealed) {
+        if (columns <= 0 || rows <= 0 || (long) columns * rows > MAX_CELLS) {
+            throw new IllegalArgumentException("Invalid fog grid size " + columns + "x" + rows);
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.revealed = revealed;
+    }
+
+    /**
+     * Read a raw bitset as written by {@link #toBytes()}
+     *
+     * @throws IllegalArgumentException if the bitset has bits outside of the grid
+     */
+    public static FogBitmap fromBytes(int columns, int rows, byte[] bytes) {
+        BitSet bits = BitSet.valueOf(bytes);
+        FogBitmap fog = new FogBitmap(columns, rows, bits);
+        if (bits.length() > columns * rows) {
+            throw new IllegalArgumentException("Fog bitset exceeds the " + columns + "x" + rows + " grid");
+        }
+        return fog;
+    }
+
+    /**
+     * Read a bitset as written by {@link #compress()}
+     *
+     * @throws IllegalArgumentException if the data is corrupt or has bits outside of the grid
+     */
+    public static FogBitmap decompress(int columns, int rows, byte[] compressed) {
+        int maxLength = (columns * rows + 7) / 8;
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(maxLength, 1024));
+            byte[] buffer = new byte[Math.min(Math.max(maxLength, 1), 8192)];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated fog data");
+                }
+                out.write(buffer, 0, count);
+                if (out.size() > maxLength) {
+                    throw new IllegalArgumentException("Fog bitset exceeds the " + columns + "x" + rows + " grid");
+                }
+            }
+            return fromBytes(columns, rows, out.toByteArray());
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt fog data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the number of revealed cells
+     */
+    public int getRevealedCount() {
+        return revealed.cardinality();
+    }
+
+    public boolean isRevealed(int x, int y) {
+        return contains(x, y) && revealed.get(y * columns + x);
+    }
+
+    /**
+     * Reveal or hide a single cell; cells outside of the grid are ignored
+     */
+    public void set(int x, int y, boolean reveal) {
+        if (contains(x, y)) {
+            revealed.set(y * columns + x, reveal);
+        }
+    }
+
+    /**
+     * Reveal or hide all cells of a rectangle. The rectangle is clipped to the grid.
+     */
+    public void setRectangle(int x, int y, int width, int height, boolean reveal) {
+        int fromX = Math.max(x, 0);
+        int toX = (int) Math.min((long) x + width, columns);
+        int fromY = Math.max(y, 0);
+        int toY = (int) Math.min((long) y + height, rows);
+        for (int row = fromY; row < toY && fromX < toX; row++) {
+            revealed.set(row * columns + fromX, row * columns + toX, reveal);
+        }
+    }
+
+    /**
+     * @return the raw bitset, see the class comment
+     */
+    public byte[] toBytes() {
+        return revealed.toByteArray();
+    }
+
+    /**
+     * @return the deflated raw bitset
+     */
+    public byte[] compress() {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(toBytes());
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private boolean contains(int x, int y) {
+        return x >= 0 && x < columns && y >= 0 && y < rows;
+    }
+}
@@ -8,206 +8,355 @@ import de.byedev.dsatable2.dsa_table_backend.model.PropertyName;
 import de.byedev.dsatable2.dsa_table_backend.model.Speciality;
 import de.byedev.dsatable2.dsa_table_backend.model.Spell;
 import de.byedev.dsatable2.dsa_table_backend.model.Talent;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * Parser for DSA hero XML (e.g. from Heldenbogen tools) into our {@link Character} model.
+ * <p>
+ * The document is streamed once with StAX, without building a DOM, so parsing needs memory for the resulting
+ * character only. Only the first {@code <held>} is read, the rest of the document is ignored.
  */
 public class HeroXMLParser {
 
-    public static Character fromXmlData(String rawData)
-            throws ParserConfigurationException, IOException, SAXException {
+    /**
+     * Version of the parsed and derived hero data. Increase it whenever parsing or derived values (e.g.
+     * {@link Character#updateCalculated()}) change, the reparse job then updates all stored characters.
+     */
+    public static final int VERSION = 1;
 
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.parse(new ByteArrayInputStream(rawData.getBytes()));
-        doc.getDocumentElement().normalize();
+    /**
+     * Thread-safe once configured; DTDs and external entities are not supported
+     */
+    private static final XMLInputFactory XML_INPUT = createInputFactory();
 
-        Node heroRoot = doc.getDocumentElement().getElementsByTagName("held").item(0);
-        if (heroRoot == null || heroRoot.getNodeType() != Node.ELEMENT_NODE) {
-            throw new IllegalArgumentException("No <held> element found in hero XML");
-        }
-        Element hero = (Element) heroRoot;
+    private HeroXMLParser() {
+    }
 
-        String name = hero.getAttribute("name");
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newDefaultFactory();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
 
-        Element basis = null;
-        Element property = null;
-        Element talent = null;
-        Element spell = null;
-        Element combat = null;
-        Element vt = null;
-        Element sf = null;
+    /**
+     * Parse a hero. The XML itself is not attached to the character, callers store it as raw data if needed.
+     *
+     * @throws XMLStreamException       if the XML is malformed
+     * @throws IllegalArgumentException if the XML is no hero document
+     */
+    public static Character fromXmlData(String rawData) throws XMLStreamException {
+        return fromXml(new StringReader(rawData));
+    }
 
-        NodeList heroNodes = hero.getChildNodes();
-        for (int i = 0; i < heroNodes.getLength(); i++) {
-            Node n = heroNodes.item(i);
-            if (n.getNodeType() != Node.ELEMENT_NODE) {
-                continue;
-            }
-            switch (n.getNodeName()) {
-                case "basis" -> basis = (Element) n;
-                case "eigenschaften" -> property = (Element) n;
-                case "talentliste" -> talent = (Element) n;
-                case "zauberliste" -> spell = (Element) n;
-                case "kampf" -> combat = (Element) n;
-                case "vt" -> vt = (Element) n;
-                case "sf" -> sf = (Element) n;
+    /**
+     * Parse a hero from already decoded characters, see {@link #fromXmlData(String)}
+     */
+    public static Character fromXml(Reader reader) throws XMLStreamException {
+        XMLStreamReader xml = XML_INPUT.createXMLStreamReader(reader);
+        try {
+            // The document element, then the first <held> anywhere below it
+            if (!nextElement(xml) || !findElement(xml, "held")) {
+                throw new IllegalArgumentException("No <held> element found in hero XML");
             }
+            return readHero(xml);
+        } finally {
+            xml.close();
         }
+    }
 
+    private static Character readHero(XMLStreamReader xml) throws XMLStreamException {
         Character character = new Character();
-        character.setRawData(rawData);
-        character.setName(name);
+        character.setName(attribute(xml, "name"));
 
-        if (basis != null) {
-            character.setCulture(((Element) basis.getElementsByTagName("kultur").item(0)).getAttribute("string"));
-            character.setRace(((Element) basis.getElementsByTagName("rasse").item(0)).getAttribute("string"));
-            character.setGender(((Element) basis.getElementsByTagName("geschlecht").item(0)).getAttribute("name"));
+        // A section that occurs more than once is read from its last occurrence
+        Basis basis = null;
+        List<HeroProperty> properties = null;
+        List<Talent> talents = null;
+        List<Spell> spells = null;
+        List<CombatTalent> combats = null;
+        List<Advantage> advantages = null;
+        List<Speciality> specialities = null;
+
+        while (nextChild(xml)) {
+            switch (xml.getLocalName()) {
+                case "basis" -> basis = readBasis(xml);
+                case "eigenschaften" -> properties = readProperties(xml);
+                case "talentliste" -> talents = readTalents(xml);
+                case "zauberliste" -> spells = readSpells(xml);
+                case "kampf" -> combats = readCombatTalents(xml);
+                case "vt" -> advantages = readAdvantages(xml);
+                case "sf" -> specialities = readSpecialities(xml);
+                default -> skipElement(xml);
+            }
+        }
 
-            String ap = ((Element) basis.getElementsByTagName("abenteuerpunkte").item(0)).getAttribute("value");
+        if (basis != null) {
+            character.setCulture(basis.required("kultur", basis.culture));
+            character.setRace(basis.required("rasse", basis.race));
+            character.setGender(basis.required("geschlecht", basis.gender));
             try {
-                character.setXp(Integer.parseInt(ap));
+                character.setXp(Integer.parseInt(basis.required("abenteuerpunkte", basis.xp)));
             } catch (NumberFormatException ignored) {
             }
+            if (!basis.hasProfessions) {
+                throw new IllegalArgumentException("No <ausbildungen> element found in <basis>");
+            }
+            if (basis.profession != null) {
+                character.setProfession(basis.profession);
+            }
+        }
+        if (properties != null) {
+            character.setProperties(properties);
+        }
+        if (talents != null) {
+            character.setTalents(talents);
+        }
+        if (spells != null) {
+            character.setSpells(spells);
+        }
+        if (combats != null) {
+            character.setCombatTalents(combats);
+        }
+        if (advantages != null) {
+            character.setAdvantages(advantages);
+        }
+        if (specialities != null) {
+            character.setSpecialities(specialities);
+        }
+        return character;
+    }
 
-            NodeList professions = basis.getElementsByTagName("ausbildungen").item(0).getChildNodes();
-            for (int i = 0; i < professions.getLength(); i++) {
-                Node n = professions.item(i);
-                if (n instanceof Element) {
-                    character.setProfession(((Element) n).getAttribute("string"));
-                }
+    /**
+     * Values of {@code <basis>}; the elements are searched at any depth and the first occurrence counts
+     */
+    private static final class Basis {
+        String culture;
+        String race;
+        String gender;
+        String xp;
+        boolean hasProfessions;
+        // The last direct child of <ausbildungen>
+        String profession;
+
+        String required(String element, String value) {
+            if (value == null) {
+                throw new IllegalArgumentException("No <" + element + "> element found in <basis>");
             }
+            return value;
         }
+    }
 
-        // Properties
-        if (property != null) {
-            NodeList propNodes = property.getChildNodes();
-            List<HeroProperty> properties = new ArrayList<>();
-            for (int i = 0; i < propNodes.getLength(); i++) {
-                Node n = propNodes.item(i);
-                if (n.getNodeType() == Node.ELEMENT_NODE && n.getNodeName().equals("eigenschaft")) {
-                    Element prop = (Element) n;
-                    Optional<PropertyName> propName = PropertyName.getByName(prop.getAttribute("name"));
-                    if (propName.isPresent()) {
-                        int value = parseIntSafe(prop.getAttribute("value"));
-                        int mod = parseIntSafe(prop.getAttribute("mod"));
-                        HeroProperty heroProperty = new HeroProperty(propName.get(), value + mod);
-                        properties.add(heroProperty);
+    private static Basis readBasis(XMLStreamReader xml) throws XMLStreamException {
+        Basis basis = new Basis();
+        int depth = 0;
+        // Depth of the first <ausbildungen>, its direct children are the professions
+        int professionsDepth = -1;
+        while (depth >= 0) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (depth == professionsDepth + 1) {
+                    basis.profession = attribute(xml, "string");
+                }
+                switch (xml.getLocalName()) {
+                    case "kultur" -> basis.culture = first(basis.culture, xml, "string");
+                    case "rasse" -> basis.race = first(basis.race, xml, "string");
+                    case "geschlecht" -> basis.gender = first(basis.gender, xml, "name");
+                    case "abenteuerpunkte" -> basis.xp = first(basis.xp, xml, "value");
+                    case "ausbildungen" -> {
+                        if (!basis.hasProfessions) {
+                            basis.hasProfessions = true;
+                            professionsDepth = depth;
+                        }
                     }
+                    default -> {
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == professionsDepth) {
+                    professionsDepth = -1;
                 }
+                depth--;
             }
-            character.setProperties(properties);
         }
+        return basis;
+    }
 
-        // Talents
-        if (talent != null) {
-            NodeList talentList = talent.getChildNodes();
-            List<Talent> talents = new ArrayList<>();
-            for (int i = 0; i < talentList.getLength(); i++) {
-                Node n = talentList.item(i);
-                if (n.getNodeType() == Node.ELEMENT_NODE && n.getNodeName().equals("talent")) {
-                    Element prop = (Element) n;
-                    Talent talentV = new Talent(
-                            prop.getAttribute("name"),
-                            prop.getAttribute("probe"),
-                            parseIntSafe(prop.getAttribute("value"))
-                    );
-                    talentV.setHandicap(getCombatTalentBe(prop.getAttribute("name"), prop.getAttribute("be")));
-                    talents.add(talentV);
+    private static String first(String current, XMLStreamReader xml, String attribute) {
+        return current != null ? current : attribute(xml, attribute);
+    }
+
+    private static List<HeroProperty> readProperties(XMLStreamReader xml) throws XMLStreamException {
+        List<HeroProperty> properties = new ArrayList<>();
+        while (nextChild(xml)) {
+            if (xml.getLocalName().equals("eigenschaft")) {
+                Optional<PropertyName> propName = PropertyName.getByName(attribute(xml, "name"));
+                if (propName.isPresent()) {
+                    int value = parseIntSafe(attribute(xml, "value"));
+                    int mod = parseIntSafe(attribute(xml, "mod"));
+                    properties.add(new HeroProperty(propName.get(), value + mod));
                 }
             }
-            character.setTalents(talents);
+            skipElement(xml);
         }
+        return properties;
+    }
 
-        // Spells
-        if (spell != null) {
-            NodeList spellList = spell.getChildNodes();
-            List<Spell> spells = new ArrayList<>();
-            for (int i = 0; i < spellList.getLength(); i++) {
-                Node n = spellList.item(i);
-                if (n.getNodeType() == Node.ELEMENT_NODE && n.getNodeName().equals("zauber")) {
-                    Element prop = (Element) n;
-                    spells.add(new Spell(
-                            prop.getAttribute("name"),
-                            prop.getAttribute("probe"),
-                            parseIntSafe(prop.getAttribute("value"))
-                    ));
-                }
+    private static List<Talent> readTalents(XMLStreamReader xml) throws XMLStreamException {
+        List<Talent> talents = new ArrayList<>();
+        while (nextChild(xml)) {
+            if (xml.getLocalName().equals("talent")) {
+                String name = attribute(xml, "name");
+                Talent talent = new Talent(name, attribute(xml, "probe"), parseIntSafe(attribute(xml, "value")));
+                talent.setHandicap(getCombatTalentBe(name, attribute(xml, "be")));
+                talents.add(talent);
             }
-            character.setSpells(spells);
+            skipElement(xml);
         }
+        return talents;
+    }
 
-        // Combat talents
-        if (combat != null) {
-            NodeList combatTalentList = combat.getChildNodes();
-            List<CombatTalent> combats = new ArrayList<>();
-            for (int i = 0; i < combatTalentList.getLength(); i++) {
-                Node n = combatTalentList.item(i);
-                if (n.getNodeType() == Node.ELEMENT_NODE && n.getNodeName().equals("kampfwerte")) {
-                    Element prop = (Element) n;
-                    int at = parseIntSafe(((Element) prop.getChildNodes().item(0)).getAttribute("value"));
-                    int pa = parseIntSafe(((Element) prop.getChildNodes().item(1)).getAttribute("value"));
-                    combats.add(new CombatTalent(at, pa, prop.getAttribute("name")));
-                }
+    private static List<Spell> readSpells(XMLStreamReader xml) throws XMLStreamException {
+        List<Spell> spells = new ArrayList<>();
+        while (nextChild(xml)) {
+            if (xml.getLocalName().equals("zauber")) {
+                spells.add(new Spell(attribute(xml, "name"), attribute(xml, "probe"),
+                        parseIntSafe(attribute(xml, "value"))));
             }
-            character.setCombatTalents(combats);
+            skipElement(xml);
         }
+        return spells;
+    }
 
-        // Advantages
-        if (vt != null) {
-            NodeList advantageList = vt.getChildNodes();
-            List<Advantage> advantages = new ArrayList<>();
-            for (int i = 0; i < advantageList.getLength(); i++) {
-                Node n = advantageList.item(i);
-                if (n.getNodeType() == Node.ELEMENT_NODE && n.getNodeName().equals("vorteil")) {
-                    Element prop = (Element) n;
-                    Advantage advantage = new Advantage(
-                            prop.getAttribute("name"),
-                            prop.getAttribute("value")
-                    );
-                    NodeList childNodes = prop.getChildNodes();
-                    for (int j = 0; j < childNodes.getLength(); j++) {
-                        if (Element.class.isAssignableFrom(childNodes.item(j).getClass())) {
-                            Element child = (Element) childNodes.item(j);
-                            advantage.getAdditionalText().add(child.getAttribute("value"));
-                        }
-                    }
-                    advantages.add(advantage);
-                }
+    private static List<CombatTalent> readCombatTalents(XMLStreamReader xml) throws XMLStreamException {
+        List<CombatTalent> combats = new ArrayList<>();
+        while (nextChild(xml)) {
+            if (!xml.getLocalName().equals("kampfwerte")) {
+                skipElement(xml);
+                continue;
             }
-            character.setAdvantages(advantages);
+            String name = attribute(xml, "name");
+            // Attack and parade are the first and second child
+            List<String> values = new ArrayList<>(2);
+            while (nextChild(xml)) {
+                values.add(attribute(xml, "value"));
+                skipElement(xml);
+            }
+            if (values.size() < 2) {
+                throw new IllegalArgumentException("Incomplete <kampfwerte> for " + name);
+            }
+            combats.add(new CombatTalent(parseIntSafe(values.get(0)), parseIntSafe(values.get(1)), name));
         }
+        return combats;
+    }
 
-        // Specialities
-        if (sf != null) {
-            NodeList specialityList = sf.getChildNodes();
-            List<Speciality> specialities = new ArrayList<>();
-            for (int i = 0; i < specialityList.getLength(); i++) {
-                Node n = specialityList.item(i);
-                if (n.getNodeType() == Node.ELEMENT_NODE && n.getNodeName().equals("sonderfertigkeit")) {
-                    Element prop = (Element) n;
-                    String vtname = prop.getAttribute("name");
-                    specialities.add(new Speciality(vtname));
-                }
+    private static List<Advantage> readAdvantages(XMLStreamReader xml) throws XMLStreamException {
+        List<Advantage> advantages = new ArrayList<>();
+        while (nextChild(xml)) {
+            if (!xml.getLocalName().equals("vorteil")) {
+                skipElement(xml);
+                continue;
             }
-            character.setSpecialities(specialities);
+            Advantage advantage = new Advantage(attribute(xml, "name"), attribute(xml, "value"));
+            while (nextChild(xml)) {
+                advantage.getAdditionalText().add(attribute(xml, "value"));
+                skipElement(xml);
+            }
+            advantages.add(advantage);
         }
+        return advantages;
+    }
 
-        return character;
+    private static List<Speciality> readSpecialities(XMLStreamReader xml) throws XMLStreamException {
+        List<Speciality> specialities = new ArrayList<>();
+        while (nextChild(xml)) {
+            if (xml.getLocalName().equals("sonderfertigkeit")) {
+                specialities.add(new Speciality(attribute(xml, "name")));
+            }
+            skipElement(xml);
+        }
+        return specialities;
+    }
+
+    // ---- Stream helpers ----
+
+    /**
+     * @return the attribute of the current element, or an empty string if it is missing (like DOM)
+     */
+    private static String attribute(XMLStreamReader xml, String name) {
+        String value = xml.getAttributeValue(null, name);
+        return value != null ? value : "";
+    }
+
+    /**
+     * Move to the next start element anywhere in the document
+     *
+     * @return false at the end of the document
+     */
+    private static boolean nextElement(XMLStreamReader xml) throws XMLStreamException {
+        while (xml.hasNext()) {
+            if (xml.next() == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Move to the next start element with the given name below the current position
+     *
+     * @return false at the end of the document
+     */
+    private static boolean findElement(XMLStreamReader xml, String name) throws XMLStreamException {
+        while (nextElement(xml)) {
+            if (xml.getLocalName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Move to the next child element of the current element, skipping text and comments
+     *
+     * @return false if the current element ends instead, then positioned on its end
+     */
+    private static boolean nextChild(XMLStreamReader xml) throws XMLStreamException {
+        while (true) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Skip the rest of the current element including its children, positioned on its end afterwards
+     */
+    private static void skipElement(XMLStreamReader xml) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
     }
 
     private static int parseIntSafe(String value) {
@@ -1,6 +1,10 @@
 package de.byedev.dsatable2.dsa_table_backend.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,21 +14,46 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.function.Function;
 
+/**
+ * Creates and verifies JWTs. Verified claims are cached for up to {@link #VERIFIED_CLAIMS_TTL} (never beyond the
+ * expiration of the token), so a token is verified at most once per minute rather than on every call.
+ */
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret:mySecretKeyForJWTTokenGenerationThatShouldBeAtLeast512BitsLongForHS512AlgorithmPleaseUseASecureRandomKeyInProduction}")
-    private String secret;
+    static final Duration VERIFIED_CLAIMS_TTL = Duration.ofMinutes(1);
+    private static final int MAX_VERIFIED_TOKENS = 10_000;
 
-    @Value("${jwt.expiration:86400000}") // 24 hours default
-    private Long expiration;
+    private final Long expiration;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
 
-    private SecretKey getSigningKey() {
+    /**
+     * Keyed by the SHA-256 of the token, so the tokens themselves are not kept
+     */
+    private final Cache<String, Claims> verifiedClaims = Caffeine.newBuilder()
+            .maximumSize(MAX_VERIFIED_TOKENS)
+            .expireAfter(Expiry.<String, Claims>creating((tokenHash, claims) -> verifiedClaimsTtl(claims)))
+            .build();
+
+    public JwtUtil(
+            @Value("${jwt.secret:mySecretKeyForJWTTokenGenerationThatShouldBeAtLeast512BitsLongForHS512AlgorithmPleaseUseASecureRandomKeyInProduction}") String secret,
+            @Value("${jwt.expiration:86400000}") Long expiration) { // 24 hours default
+        this.expiration = expiration;
+        this.signingKey = createSigningKey(secret);
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+
+    private static SecretKey createSigningKey(String secret) {
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         // HS512 requires at least 64 bytes (512 bits)
         if (keyBytes.length < 64) {
@@ -40,6 +69,26 @@ public class JwtUtil {
         return Keys.hmacShaKeyFor(keyBytes);
     }
 
+    private static Duration verifiedClaimsTtl(Claims claims) {
+        if (claims.getExpiration() == null) {
+            return VERIFIED_CLAIMS_TTL;
+        }
+        Duration untilExpiration = Duration.ofMillis(claims.getExpiration().getTime() - System.currentTimeMillis());
+        if (untilExpiration.isNegative()) {
+            return Duration.ZERO;
+        }
+        return untilExpiration.compareTo(VERIFIED_CLAIMS_TTL) < 0 ? untilExpiration : VERIFIED_CLAIMS_TTL;
+    }
+
+    private static String tokenHash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 algorithm not available", e);
+        }
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -53,12 +102,20 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Claims of a valid token, from the cache if it was verified recently
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        String tokenHash = tokenHash(token);
+        Claims claims = verifiedClaims.getIfPresent(tokenHash);
+        if (claims == null) {
+            // Not cached if verification fails
+            claims = parser.parseSignedClaims(token).getPayload();
+            verifiedClaims.put(tokenHash, claims);
+        }
+        return claims;
     }
 
     private Boolean isTokenExpired(String token) {
@@ -76,7 +133,7 @@ public class JwtUtil {
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -85,4 +142,3 @@ public class JwtUtil {
         return (extractedUsername.equals(username) && !isTokenExpired(token));
     }
 }
-
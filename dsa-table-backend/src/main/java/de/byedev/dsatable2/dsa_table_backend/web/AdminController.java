@@ -0,0 +1,63 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.config.AuthenticatedUser;
+import de.byedev.dsatable2.dsa_table_backend.service.CharacterReparseService;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.ReparseStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Maintenance jobs, only for the users listed in {@code app.admin.usernames}
+ */
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = "*")
+public class AdminController {
+
+    private final CharacterReparseService reparseService;
+    private final List<String> adminUsernames;
+
+    public AdminController(CharacterReparseService reparseService,
+                           @Value("${app.admin.usernames:}") List<String> adminUsernames) {
+        this.reparseService = reparseService;
+        this.adminUsernames = adminUsernames;
+    }
+
+    private void requireAdmin(AuthenticatedUser user) {
+        if (!adminUsernames.contains(user.username())) {
+            throw new AccessDeniedException("Admin rights required");
+        }
+    }
+
+    /**
+     * Reparse all characters from their raw data in the background. Without {@code afterId}, a cancelled or failed
+     * job is resumed.
+     */
+    @PostMapping("/characters/reparse")
+    public ReparseStatus startReparse(
+            @RequestParam(required = false) Long afterId,
+            @CurrentUser AuthenticatedUser user) {
+        requireAdmin(user);
+        return reparseService.start(afterId);
+    }
+
+    @GetMapping("/characters/reparse")
+    public ReparseStatus getReparseStatus(
+            @CurrentUser AuthenticatedUser user) {
+        requireAdmin(user);
+        return reparseService.status();
+    }
+
+    /**
+     * Stop the reparse job after its current chunk, it can be resumed later
+     */
+    @DeleteMapping("/characters/reparse")
+    public ReparseStatus cancelReparse(
+            @CurrentUser AuthenticatedUser user) {
+        requireAdmin(user);
+        return reparseService.cancel();
+    }
+}
@@ -1,90 +1,114 @@
 package de.byedev.dsatable2.dsa_table_backend.web;
 
+import de.byedev.dsatable2.dsa_table_backend.config.AuthenticatedUser;
 import de.byedev.dsatable2.dsa_table_backend.model.User;
 import de.byedev.dsatable2.dsa_table_backend.repository.UserRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.LoginThrottleService;
+import de.byedev.dsatable2.dsa_table_backend.service.PasswordHashingService;
 import de.byedev.dsatable2.dsa_table_backend.util.JwtUtil;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.AuthResponse;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.LoginRequest;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.RegisterRequest;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.UserDto;
-import org.springframework.cache.annotation.CacheEvict;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Login and registration are throttled per client and hash passwords on a bounded pool
+ * ({@link PasswordHashingService}); they complete asynchronously, so request threads do not wait for hashing. The
+ * rest of the work continues on virtual threads, so the hashing pool is never held up by the database.
+ */
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "*")
 public class AuthController {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashing;
+    private final LoginThrottleService loginThrottle;
     private final JwtUtil jwtUtil;
 
-    public AuthController(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AuthController(UserRepository userRepository, PasswordHashingService passwordHashing,
+                          LoginThrottleService loginThrottle, JwtUtil jwtUtil) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashing = passwordHashing;
+        this.loginThrottle = loginThrottle;
         this.jwtUtil = jwtUtil;
     }
 
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
     @PostMapping("/register")
-    @Transactional
-    @CacheEvict(value = {"users", "usersByUsername", "userDtos"}, allEntries = true)
-    public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest request,
+                                                         HttpServletRequest httpRequest) {
+        loginThrottle.acquireRegistration(httpRequest.getRemoteAddr());
+
         // Check if username already exists
         if (userRepository.findByUsername(request.getUsername()).isPresent()) {
-            return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body(Map.of("error", "Username already exists"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Username already exists")));
         }
 
-        // Create new user
-        User user = new User(
-                request.getUsername(),
-                request.getDisplayName(),
-                passwordEncoder.encode(request.getPassword())
-        );
-        User savedUser = userRepository.save(user);
+        return passwordHashing.encode(request.getPassword()).thenApplyAsync(encodedPassword -> {
+            // Create new user; saving evicts the user caches
+            User savedUser = userRepository.save(new User(
+                    request.getUsername(),
+                    request.getDisplayName(),
+                    encodedPassword
+            ));
 
-        // Generate JWT token
-        String token = jwtUtil.generateToken(savedUser.getUsername());
+            // Generate JWT token
+            String token = jwtUtil.generateToken(savedUser.getUsername());
 
-        // Return response using DTO to avoid lazy loading issues
-        return ResponseEntity.ok(new AuthResponse(token, savedUser));
+            // Return response using DTO to avoid lazy loading issues
+            return ResponseEntity.ok(new AuthResponse(token, savedUser));
+        }, executor);
     }
 
     @PostMapping("/login")
-    @Transactional(readOnly = true)
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
-        return userRepository.findByUsername(request.getUsername())
-                .map(user -> {
-                    if (passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-                        String token = jwtUtil.generateToken(user.getUsername());
-                        // Use DTO to avoid lazy loading issues
-                        return ResponseEntity.ok(new AuthResponse(token, user));
-                    } else {
-                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                                .body(Map.of("error", "Invalid credentials"));
-                    }
-                })
-                .orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(Map.of("error", "Invalid credentials")));
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request,
+                                                      HttpServletRequest httpRequest) {
+        loginThrottle.acquireLogin(request.getUsername(), httpRequest.getRemoteAddr());
+
+        User user = userRepository.findByUsername(request.getUsername()).orElse(null);
+        if (user == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Invalid credentials")));
+        }
+        return passwordHashing.matches(request.getPassword(), user.getPassword()).thenApplyAsync(matches -> {
+            if (!matches) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(Map.of("error", "Invalid credentials"));
+            }
+            String token = jwtUtil.generateToken(user.getUsername());
+            // Use DTO to avoid lazy loading issues
+            return ResponseEntity.ok(new AuthResponse(token, user));
+        }, executor);
     }
 
     @GetMapping("/me")
     @Transactional(readOnly = true)
-    public ResponseEntity<UserDto> getCurrentUser(@RequestHeader("Authorization") String authHeader) {
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            String username = jwtUtil.extractUsername(token);
-            return userRepository.findByUsername(username)
-                    .map(user -> ResponseEntity.ok(new UserDto(user)))
-                    .orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+    public ResponseEntity<UserDto> getCurrentUser(@CurrentUser(required = false) AuthenticatedUser currentUser) {
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return userRepository.findById(currentUser.id())
+                .map(user -> ResponseEntity.ok(new UserDto(user)))
+                .orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
     }
 }
 
@@ -0,0 +1,86 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.repository.GameSessionRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.SocketTicketService;
+import de.byedev.dsatable2.dsa_table_backend.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Authenticates live battlemap sockets. Browsers cannot set an Authorization header on a WebSocket
+ * handshake, so they pass a single-use {@code ticket} query parameter from
+ * {@code POST /api/sessions/{id}/battlemap/live/ticket} instead; the JWT itself never appears in a URL.
+ * Other clients may still send the JWT as Bearer token in the Authorization header.
+ */
+@Component
+public class BattlemapHandshakeInterceptor implements HandshakeInterceptor {
+
+    private static final Pattern SESSION_PATH = Pattern.compile("/sessions/(\\d+)/battlemap/live$");
+
+    private final SocketTicketService socketTicketService;
+    private final JwtUtil jwtUtil;
+    private final GameSessionRepository gameSessionRepository;
+
+    public BattlemapHandshakeInterceptor(SocketTicketService socketTicketService, JwtUtil jwtUtil,
+                                         GameSessionRepository gameSessionRepository) {
+        this.socketTicketService = socketTicketService;
+        this.jwtUtil = jwtUtil;
+        this.gameSessionRepository = gameSessionRepository;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        Matcher matcher = SESSION_PATH.matcher(request.getURI().getPath());
+        if (!matcher.find()) {
+            response.setStatusCode(HttpStatus.NOT_FOUND);
+            return false;
+        }
+        Long sessionId = Long.valueOf(matcher.group(1));
+        String username = authenticate(request, sessionId);
+        if (username == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        if (!gameSessionRepository.existsById(sessionId)) {
+            response.setStatusCode(HttpStatus.NOT_FOUND);
+            return false;
+        }
+        attributes.put(BattlemapSocketHandler.SESSION_ID_ATTRIBUTE, sessionId);
+        attributes.put(BattlemapSocketHandler.USERNAME_ATTRIBUTE, username);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private String authenticate(ServerHttpRequest request, Long sessionId) {
+        String ticket = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("ticket");
+        if (ticket != null) {
+            return socketTicketService.redeem(ticket, sessionId);
+        }
+        String authHeader = request.getHeaders().getFirst("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        String token = authHeader.substring(7);
+        try {
+            String username = jwtUtil.extractUsername(token);
+            return username != null && jwtUtil.validateToken(token, username) ? username : null;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package de.byedev.dsatable2.dsa_table_backend.web;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
+import de.byedev.dsatable2.dsa_table_backend.repository.SavedMapRepository;
 import de.byedev.dsatable2.dsa_table_backend.service.BackgroundTextureService;
 import de.byedev.dsatable2.dsa_table_backend.util.SVGUtil;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.BattlemapImageRequest;
@@ -13,12 +15,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
@@ -36,7 +40,25 @@ public class BattlemapImageController {
     @Autowired
     private BackgroundTextureService textureService;
 
+    @Autowired
+    private SavedMapRepository savedMapRepository;
+
     public static final String PARAM_DATA = "data";
+    public static final String PARAM_MAX_SIZE = "maxSize";
+
+    /**
+     * Maximum width and height of saved map thumbnails in pixels
+     */
+    public static final int THUMBNAIL_SIZE = 256;
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * @return the path (relative to the API base URL) of the thumbnail of the saved map data with the given hash
+     */
+    public static String thumbnailPath(String contentHash) {
+        return "/battlemap-image/maps/" + contentHash + "?" + PARAM_MAX_SIZE + "=" + THUMBNAIL_SIZE;
+    }
 
     /**
      * Get list of available background texture options
@@ -151,6 +173,58 @@ public class BattlemapImageController {
         }
     }
 
+    /**
+     * Render the data of a saved map, optionally scaled down to fit into {@code maxSize} pixels (e.g. for
+     * thumbnails). Map data is addressed by its content hash and therefore never changes.
+     */
+    @GetMapping(value = "/maps/{contentHash}", produces = "image/svg+xml")
+    public ResponseEntity<String> renderSavedMap(
+            @PathVariable String contentHash,
+            @RequestParam(value = PARAM_MAX_SIZE, required = false) Integer maxSize,
+            WebRequest request) throws Exception {
+        if (!CONTENT_HASH.matcher(contentHash).matches()) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = "\"" + contentHash + (maxSize != null ? "-" + maxSize : "") + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        Optional<ContentBlob> data = savedMapRepository.findMapDataByContentHash(contentHash);
+        if (data.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        BattlemapImageRequest imageRequest = objectMapper.readValue(data.get().getContent(), BattlemapImageRequest.class);
+        String svgContent = generateSVG(imageRequest, apiBaseUrl);
+        if (maxSize != null && maxSize > 0) {
+            svgContent = scaleSVG(svgContent, imageRequest.getPixelWidth(), imageRequest.getPixelHeight(), maxSize);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("image/svg+xml"))
+                .header("Cache-Control", "public, max-age=31536000, immutable")
+                .eTag(etag)
+                .body(svgContent);
+    }
+
+    /**
+     * Shrink an SVG generated by {@link #generateSVG} to fit into maxSize pixels, keeping its aspect ratio
+     */
+    private String scaleSVG(String svg, int width, int height, int maxSize) {
+        double scale = Math.min(1.0, (double) maxSize / Math.max(1, Math.max(width, height)));
+        if (scale >= 1.0) {
+            return svg;
+        }
+        long scaledWidth = Math.max(1, Math.round(width * scale));
+        long scaledHeight = Math.max(1, Math.round(height * scale));
+        String size = "width='" + width + "' height='" + height + "'>";
+        int sizeIndex = svg.indexOf(size);
+        if (sizeIndex < 0) {
+            return svg;
+        }
+        return svg.substring(0, sizeIndex)
+                + "width='" + scaledWidth + "' height='" + scaledHeight + "' viewBox='0 0 " + width + " " + height + "'>"
+                + svg.substring(sizeIndex + size.length());
+    }
 
     private String generateSVG(BattlemapImageRequest request, String baseUrl) {
         // Get pixel dimensions from grid or fallback to canvas dimensions
@@ -0,0 +1,60 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.service.LiveBattlemapService;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.TokenDelta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * WebSocket endpoint of the live battlemap channel ({@code /api/sessions/{id}/battlemap/live}).
+ * Clients send {@link TokenDelta}s as JSON text frames and receive the deltas of the other clients.
+ */
+@Component
+public class BattlemapSocketHandler extends TextWebSocketHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BattlemapSocketHandler.class);
+
+    static final String SESSION_ID_ATTRIBUTE = "sessionId";
+    static final String USERNAME_ATTRIBUTE = "username";
+
+    private final LiveBattlemapService liveBattlemapService;
+    private final JsonMapper jsonMapper;
+
+    public BattlemapSocketHandler(LiveBattlemapService liveBattlemapService, JsonMapper jsonMapper) {
+        this.liveBattlemapService = liveBattlemapService;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession socket) {
+        liveBattlemapService.join(sessionId(socket), socket);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession socket, TextMessage message) {
+        TokenDelta delta;
+        try {
+            delta = jsonMapper.readValue(message.getPayload(), TokenDelta.class);
+        } catch (JacksonException e) {
+            LOG.debug("Ignoring malformed token delta from {}: {}", socket.getAttributes().get(USERNAME_ATTRIBUTE), e.getMessage());
+            return;
+        }
+        liveBattlemapService.submit(sessionId(socket), delta, socket.getId());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession socket, CloseStatus status) {
+        liveBattlemapService.leave(sessionId(socket), socket);
+    }
+
+    private static Long sessionId(WebSocketSession socket) {
+        return (Long) socket.getAttributes().get(SESSION_ID_ATTRIBUTE);
+    }
+}
@@ -1,33 +1,46 @@
 package de.byedev.dsatable2.dsa_table_backend.web;
 
+import de.byedev.dsatable2.dsa_table_backend.config.AuthenticatedUser;
 import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
 import de.byedev.dsatable2.dsa_table_backend.model.HeroProperty;
 import de.byedev.dsatable2.dsa_table_backend.model.PropertyName;
-import de.byedev.dsatable2.dsa_table_backend.model.User;
 import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
 import de.byedev.dsatable2.dsa_table_backend.repository.HeroPropertyRepository;
-import de.byedev.dsatable2.dsa_table_backend.repository.UserRepository;
-import de.byedev.dsatable2.dsa_table_backend.util.HeroXMLParser;
-import de.byedev.dsatable2.dsa_table_backend.util.JwtUtil;
+import de.byedev.dsatable2.dsa_table_backend.service.CheckProbabilityService;
+import de.byedev.dsatable2.dsa_table_backend.service.ContentBlobService;
+import de.byedev.dsatable2.dsa_table_backend.service.HeroImportService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService.ResourceVersion;
+import de.byedev.dsatable2.dsa_table_backend.service.SerializedResponseCache;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.CharacterSummary;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.CheckOdds;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.HeroImportResult;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.BadRequestException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipException;
 
 @RestController
 @RequestMapping("/api/characters")
@@ -35,61 +48,123 @@ import java.util.Map;
 @Tag(name = "Characters", description = "API for managing DSA characters (heroes)")
 public class CharacterController {
 
-    private static final Logger LOG = LoggerFactory.getLogger(CharacterController.class);
-
     private final CharacterRepository characterRepository;
-    private final UserRepository userRepository;
     private final HeroPropertyRepository heroPropertyRepository;
-    private final JwtUtil jwtUtil;
+    private final ResourceVersionService resourceVersions;
+    private final SerializedResponseCache serializedResponses;
+    private final ContentBlobService contentBlobService;
+    private final HeroImportService heroImportService;
+    private final CheckProbabilityService checkProbabilities;
 
     public CharacterController(CharacterRepository characterRepository,
-                               UserRepository userRepository,
                                HeroPropertyRepository heroPropertyRepository,
-                               JwtUtil jwtUtil) {
+                               ResourceVersionService resourceVersions,
+                               SerializedResponseCache serializedResponses,
+                               ContentBlobService contentBlobService,
+                               HeroImportService heroImportService,
+                               CheckProbabilityService checkProbabilities) {
         this.characterRepository = characterRepository;
-        this.userRepository = userRepository;
         this.heroPropertyRepository = heroPropertyRepository;
-        this.jwtUtil = jwtUtil;
+        this.resourceVersions = resourceVersions;
+        this.serializedResponses = serializedResponses;
+        this.contentBlobService = contentBlobService;
+        this.heroImportService = heroImportService;
+        this.checkProbabilities = checkProbabilities;
     }
 
+    // Responses are cached as serialized JSON per version, see SerializedResponseCache
     @GetMapping
     @Transactional(readOnly = true)
-    @Cacheable(value = "characters", key = "'list:' + (#ownerId != null ? 'owner:' + #ownerId : (#sessionId != null ? 'session:' + #sessionId : 'all'))")
     @Operation(summary = "Get all characters", description = "Retrieve all characters, optionally filtered by owner or session")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved characters")
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved characters",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Character.class)))),
+            @ApiResponse(responseCode = "304", description = "Characters unchanged since the version in If-None-Match")
     })
-    public List<Character> getAll(
+    public ResponseEntity<byte[]> getAll(
             @Parameter(description = "Filter by owner user ID") @RequestParam(name = "ownerId", required = false) Long ownerId,
-            @Parameter(description = "Filter by game session ID") @RequestParam(name = "sessionId", required = false) Long sessionId
+            @Parameter(description = "Filter by game session ID") @RequestParam(name = "sessionId", required = false) Long sessionId,
+            HttpServletRequest request
     ) {
-        if (ownerId != null) {
-            return characterRepository.findByOwnerId(ownerId);
+        String listKey = ownerId != null ? "list:owner:" + ownerId
+                : (sessionId != null ? "list:session:" + sessionId : "list:all");
+        ResourceVersion version = resourceVersions.ofList("characters", listKey);
+        if (ConditionalResponses.isNotModified(request, version)) {
+            return ConditionalResponses.notModified(version);
         }
-        if (sessionId != null) {
-            return characterRepository.findBySessionId(sessionId);
+
+        return serializedResponses.get("characters", listKey, version, () -> {
+                    if (ownerId != null) {
+                        return Optional.of(characterRepository.findByOwnerId(ownerId));
+                    }
+                    if (sessionId != null) {
+                        return Optional.of(characterRepository.findBySessionId(sessionId));
+                    }
+                    return Optional.of(characterRepository.findAll());
+                })
+                .map(response -> ConditionalResponses.serialized(response, request))
+                .orElseThrow();
+    }
+
+    @GetMapping("/summaries")
+    @Transactional(readOnly = true)
+    @Operation(summary = "Get character summaries",
+            description = "Retrieve name, owner, avatar and resource counters of all characters, optionally filtered "
+                    + "by owner or session. Much cheaper than the full characters; use for lists and lookups.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved character summaries",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = CharacterSummary.class)))),
+            @ApiResponse(responseCode = "304", description = "Characters unchanged since the version in If-None-Match")
+    })
+    public ResponseEntity<byte[]> getSummaries(
+            @Parameter(description = "Filter by owner user ID") @RequestParam(name = "ownerId", required = false) Long ownerId,
+            @Parameter(description = "Filter by game session ID") @RequestParam(name = "sessionId", required = false) Long sessionId,
+            HttpServletRequest request
+    ) {
+        String listKey = ownerId != null ? "list:owner:" + ownerId
+                : (sessionId != null ? "list:session:" + sessionId : "list:all");
+        // Summaries change together with the full list, so they share its version
+        ResourceVersion version = resourceVersions.ofList("characters", listKey);
+        if (ConditionalResponses.isNotModified(request, version)) {
+            return ConditionalResponses.notModified(version);
         }
-        return characterRepository.findAll();
+
+        return serializedResponses.get("characters", listKey.replace("list:", "list:summary:"), version, () -> {
+                    if (ownerId != null) {
+                        return Optional.of(characterRepository.findSummariesByOwnerId(ownerId));
+                    }
+                    if (sessionId != null) {
+                        return Optional.of(characterRepository.findSummariesBySessionId(sessionId));
+                    }
+                    return Optional.of(characterRepository.findAllSummaries());
+                })
+                .map(response -> ConditionalResponses.serialized(response, request))
+                .orElseThrow();
     }
 
     @GetMapping("/{id}")
     @Transactional(readOnly = true)
-    @Cacheable(value = "characters", key = "#id")
     @Operation(summary = "Get character by ID", description = "Retrieve a specific character by its ID")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Character found"),
+            @ApiResponse(responseCode = "200", description = "Character found",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Character.class))),
+            @ApiResponse(responseCode = "304", description = "Character unchanged since the version in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Character not found")
     })
-    public ResponseEntity<Character> getById(
-            @Parameter(description = "Character ID") @PathVariable Long id) {
-        return characterRepository.findById(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> getById(
+            @Parameter(description = "Character ID") @PathVariable Long id,
+            HttpServletRequest request) {
+        ResourceVersion version = resourceVersions.of("characters", id);
+        if (ConditionalResponses.isNotModified(request, version)) {
+            return ConditionalResponses.notModified(version);
+        }
+        return serializedResponses.get("characters", id, version, () -> characterRepository.findById(id))
+                .map(response -> ConditionalResponses.serialized(response, request))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
     @Transactional
-    @CacheEvict(value = "characters", allEntries = true)
     @Operation(summary = "Create a new character", description = "Create a new DSA character")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Character created successfully"),
@@ -115,7 +190,6 @@ public class CharacterController {
 
     @PutMapping("/{id}")
     @Transactional
-    @CacheEvict(value = "characters", allEntries = true)
     public ResponseEntity<Character> update(@PathVariable Long id, @RequestBody Character updated) {
         return characterRepository.findById(id)
                 .map(existing -> {
@@ -133,7 +207,6 @@ public class CharacterController {
                     existing.setArmourBe(updated.getArmourBe());
                     existing.setWounds(updated.getWounds());
                     existing.setNotes(updated.getNotes());
-                    existing.setRawData(updated.getRawData());
                     // Set avatar URL, default to /api/char if not provided
                     if (updated.getAvatarUrl() != null && !updated.getAvatarUrl().trim().isEmpty()) {
                         existing.setAvatarUrl(updated.getAvatarUrl());
@@ -181,20 +254,54 @@ public class CharacterController {
     }
 
     @DeleteMapping("/{id}")
-    @CacheEvict(value = "characters", allEntries = true)
+    @Transactional
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         if (!characterRepository.existsById(id)) {
             return ResponseEntity.notFound().build();
         }
+        Optional<ContentBlob> rawData = characterRepository.findRawDataById(id);
         characterRepository.deleteById(id);
+        characterRepository.flush();
+        rawData.ifPresent(contentBlobService::release);
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/{id}/raw-data")
+    @Transactional(readOnly = true)
+    @Operation(summary = "Download the imported hero XML", description = "The XML file the character was imported from")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Hero XML", content = @Content(mediaType = "application/xml")),
+            @ApiResponse(responseCode = "304", description = "XML unchanged since the version in If-None-Match"),
+            @ApiResponse(responseCode = "404", description = "Character not found or not imported from XML")
+    })
+    public ResponseEntity<byte[]> downloadRawData(@PathVariable Long id, HttpServletRequest request) {
+        return characterRepository.findRawDataById(id)
+                .map(rawData -> ConditionalResponses.blob(rawData, MediaType.APPLICATION_XML, "hero-" + id + ".xml", request))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/check-odds")
+    @Transactional(readOnly = true)
+    @Operation(summary = "Chances of talent and spell checks",
+            description = "Exact probability to pass each talent and spell check of the character with the given " +
+                    "modifier; wounds and the handicap of worn armour are added")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One entry per talent and spell"),
+            @ApiResponse(responseCode = "404", description = "Character not found")
+    })
+    public ResponseEntity<List<CheckOdds>> getCheckOdds(
+            @PathVariable Long id,
+            @Parameter(description = "Modifier of the checks, positive makes them harder")
+            @RequestParam(defaultValue = "0") int modifier) {
+        return characterRepository.findById(id)
+                .map(character -> ResponseEntity.ok(checkProbabilities.forCharacter(character, modifier)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     // ---- Property helpers ----
 
     @PutMapping("/{id}/properties")
     @Transactional
-    @CacheEvict(value = "characters", allEntries = true)
     public ResponseEntity<List<HeroProperty>> replaceProperties(@PathVariable Long id,
                                                                 @RequestBody List<HeroProperty> properties) {
         return characterRepository.findById(id)
@@ -208,7 +315,6 @@ public class CharacterController {
 
     @PutMapping("/{id}/properties/{propertyName}")
     @Transactional
-    @CacheEvict(value = "characters", allEntries = true)
     public ResponseEntity<HeroProperty> upsertSingleProperty(@PathVariable Long id,
                                                              @PathVariable PropertyName propertyName,
                                                              @RequestBody HeroProperty body) {
@@ -236,7 +342,6 @@ public class CharacterController {
 
     @PostMapping("/upload-xml")
     @Transactional
-    @CacheEvict(value = "characters", allEntries = true)
     @Operation(summary = "Upload character from XML file", description = "Upload a DSA hero XML file to create a new character")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Character created successfully from XML"),
@@ -246,73 +351,16 @@ public class CharacterController {
     public ResponseEntity<?> uploadFromXml(
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "sessionId", required = false) Long sessionId,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("error", "Authentication required"));
-        }
-
+            @CurrentUser AuthenticatedUser user) {
         try {
-            String token = authHeader.substring(7);
-            
-            // Validate token first
-            String username;
-            try {
-                username = jwtUtil.extractUsername(token);
-                if (username == null) {
-                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                            .body(Map.of("error", "Invalid token: username not found"));
-                }
-                
-                // Validate token is not expired
-                if (!jwtUtil.validateToken(token, username)) {
-                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                            .body(Map.of("error", "Token expired or invalid"));
-                }
-            } catch (Exception e) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(Map.of("error", "Invalid token: " + e.getMessage()));
-            }
-            
-            User owner = userRepository.findByUsername(username).orElse(null);
-            if (owner == null) {
-                LOG.error("User not found for username: {}", username);
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(Map.of("error", "User not found: " + username));
-            }
-
             if (file.isEmpty()) {
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "File is empty"));
             }
 
             String xmlContent = new String(file.getBytes(), StandardCharsets.UTF_8);
-            Character character = HeroXMLParser.fromXmlData(xmlContent);
-            
-            // Set owner ID
-            character.setOwnerId(owner.getId());
-            
-            // Set session ID if provided
-            if (sessionId != null) {
-                character.setSessionId(sessionId);
-            }
-            
-            // Initialize current resources based on calculated totals
-            character.updateCalculated();
-            character.setCurrentLife(character.getTotalLife());
-            character.setCurrentAsp(character.getMagicEnergy());
-            
-            // Set default avatar URL if not provided
-            if (character.getAvatarUrl() == null || character.getAvatarUrl().trim().isEmpty()) {
-                character.setAvatarUrl("/api/char");
-            }
-            
-            // Note: Bidirectional mappings are already handled by the setter methods
-            // (setTalents, setSpells, etc. use addTalent, addSpell which set the character reference)
             // Batch inserts will be used automatically due to Hibernate batch configuration
-
-            Character saved = characterRepository.save(character);
+            Character saved = heroImportService.importXml(xmlContent, user.id(), sessionId);
             return ResponseEntity
                     .created(URI.create("/api/characters/" + saved.getId()))
                     .body(saved);
@@ -323,9 +371,33 @@ public class CharacterController {
         }
     }
 
+    @PostMapping("/upload-zip")
+    @Operation(summary = "Upload characters from a ZIP archive of hero XML files",
+            description = "Import every .xml file of the archive as a new character. Files are imported independently; "
+                    + "the result lists the outcome of every file.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Archive processed, see the per-file results",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = HeroImportResult.class))),
+            @ApiResponse(responseCode = "400", description = "Not a ZIP archive or empty"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<HeroImportResult> uploadFromZip(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "sessionId", required = false) Long sessionId,
+            @CurrentUser AuthenticatedUser user) throws IOException {
+        if (file.isEmpty()) {
+            throw new BadRequestException("File is empty");
+        }
+
+        try (InputStream zip = file.getInputStream()) {
+            return ResponseEntity.ok(heroImportService.importZip(zip, user.id(), sessionId));
+        } catch (IllegalArgumentException | ZipException e) {
+            throw new BadRequestException("Invalid archive: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/{id}/rest")
     @Transactional
-    @CacheEvict(value = "characters", allEntries = true)
     @Operation(summary = "Perform rest for character", description = "Restore life and ASP based on character stats")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Rest performed successfully"),
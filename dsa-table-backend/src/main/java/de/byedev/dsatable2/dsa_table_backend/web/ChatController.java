@@ -1,24 +1,31 @@
 package de.byedev.dsatable2.dsa_table_backend.web;
 
+import de.byedev.dsatable2.dsa_table_backend.config.AuthenticatedUser;
 import de.byedev.dsatable2.dsa_table_backend.model.ChatMessage;
 import de.byedev.dsatable2.dsa_table_backend.model.GameSession;
 import de.byedev.dsatable2.dsa_table_backend.model.User;
 import de.byedev.dsatable2.dsa_table_backend.repository.ChatMessageRepository;
 import de.byedev.dsatable2.dsa_table_backend.repository.GameSessionRepository;
 import de.byedev.dsatable2.dsa_table_backend.repository.UserRepository;
-import de.byedev.dsatable2.dsa_table_backend.util.JwtUtil;
+import de.byedev.dsatable2.dsa_table_backend.service.ChatStreamService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService.ResourceVersion;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.ChatMessageDto;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.ChatMessageRequest;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.BadRequestException;
 import de.byedev.dsatable2.dsa_table_backend.web.exception.ResourceNotFoundException;
-import de.byedev.dsatable2.dsa_table_backend.web.exception.UnauthorizedException;
-import org.springframework.cache.annotation.CacheEvict;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/sessions/{sessionId}/chat")
@@ -28,46 +35,98 @@ public class ChatController {
     private final ChatMessageRepository chatMessageRepository;
     private final GameSessionRepository gameSessionRepository;
     private final UserRepository userRepository;
-    private final JwtUtil jwtUtil;
+    private final ResourceVersionService resourceVersions;
+    private final ChatStreamService chatStreamService;
 
     public ChatController(
             ChatMessageRepository chatMessageRepository,
             GameSessionRepository gameSessionRepository,
             UserRepository userRepository,
-            JwtUtil jwtUtil) {
+            ResourceVersionService resourceVersions,
+            ChatStreamService chatStreamService) {
         this.chatMessageRepository = chatMessageRepository;
         this.gameSessionRepository = gameSessionRepository;
         this.userRepository = userRepository;
-        this.jwtUtil = jwtUtil;
+        this.resourceVersions = resourceVersions;
+        this.chatStreamService = chatStreamService;
     }
 
+    /**
+     * Default number of messages returned per request
+     */
+    static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * Maximum number of messages returned per request
+     */
+    static final int MAX_LIMIT = 500;
+
+    /**
+     * Get the messages of a session, oldest first, using keyset pagination on the message ID:
+     * without cursor the latest {@code limit} messages, with {@code after} the messages following that message
+     * (incremental fetch), with {@code before} the messages preceding it (scrolling back through the history).
+     */
     @GetMapping
     @Transactional(readOnly = true)
-    @Cacheable(value = "chatMessages", key = "#sessionId")
-    public List<ChatMessageDto> getMessages(@PathVariable Long sessionId) {
-        return chatMessageRepository.findBySession_IdOrderByCreatedAtAsc(sessionId).stream()
-                .map(ChatMessageDto::new)
-                .collect(Collectors.toList());
+    @Cacheable(value = "chatMessages", key = "#sessionId",
+            condition = "#after == null && #before == null && #limit == null",
+            unless = "#result.statusCode.value() == 304")
+    public ResponseEntity<List<ChatMessageDto>> getMessages(
+            @PathVariable Long sessionId,
+            @RequestParam(name = "after", required = false) Long after,
+            @RequestParam(name = "before", required = false) Long before,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            HttpServletRequest request) {
+        if (after != null && before != null) {
+            throw new BadRequestException("Only one of 'after' and 'before' can be given");
+        }
+        int pageSize = limit != null ? limit : DEFAULT_LIMIT;
+        if (pageSize < 1 || pageSize > MAX_LIMIT) {
+            throw new BadRequestException("'limit' must be between 1 and " + MAX_LIMIT);
+        }
+        ResourceVersion version = resourceVersions.of("chatMessages", sessionId);
+        if (ConditionalResponses.isNotModified(request, version)) {
+            return ConditionalResponses.notModified(version);
+        }
+        List<ChatMessageDto> messages;
+        if (after != null) {
+            messages = chatMessageRepository.findBySessionIdAfter(sessionId, after, Limit.of(pageSize));
+        } else if (before != null) {
+            messages = new ArrayList<>(chatMessageRepository.findBySessionIdBefore(sessionId, before, Limit.of(pageSize)));
+            Collections.reverse(messages);
+        } else {
+            messages = new ArrayList<>(chatMessageRepository.findRecentMessages(sessionId, Limit.of(pageSize)));
+            Collections.reverse(messages);
+        }
+        return ConditionalResponses.ok(version, messages);
+    }
+
+    /**
+     * Server-Sent Events stream of new messages. Reconnecting clients send the ID of the last message
+     * they received as {@code Last-Event-ID} and get the messages they missed first.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamMessages(
+            @PathVariable Long sessionId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        // Plain 404 - a JSON error body is not acceptable for an event stream request
+        if (!gameSessionRepository.existsById(sessionId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                // Keep nginx-style reverse proxies from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(chatStreamService.subscribe(sessionId, lastEventId));
     }
 
     @PostMapping
     @Transactional
-    @CacheEvict(value = "chatMessages", key = "#sessionId")
     public ResponseEntity<ChatMessageDto> sendMessage(
             @PathVariable Long sessionId,
             @RequestBody ChatMessageRequest request,
-            @RequestHeader("Authorization") String authHeader) {
-        
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new UnauthorizedException("Authentication required. Please provide a valid Bearer token.");
-        }
-
-        String token = authHeader.substring(7);
-        String username = jwtUtil.extractUsername(token);
-        
-        User author = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
-        
+            @CurrentUser AuthenticatedUser user) {
+        // Only the reference is needed to save the message
+        User author = userRepository.getReferenceById(user.id());
         GameSession session = gameSessionRepository.findById(sessionId)
                 .orElseThrow(() -> new ResourceNotFoundException("GameSession", "id", sessionId));
 
@@ -78,7 +137,9 @@ public class ChatController {
         ChatMessage loaded = chatMessageRepository.findByIdWithRelations(saved.getId())
                 .orElse(saved);
         
-        return ResponseEntity.ok(new ChatMessageDto(loaded));
+        ChatMessageDto dto = new ChatMessageDto(loaded);
+        chatStreamService.publishAfterCommit(dto);
+        return ResponseEntity.ok(dto);
     }
 }
 
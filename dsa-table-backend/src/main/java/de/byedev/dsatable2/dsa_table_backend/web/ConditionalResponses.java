@@ -0,0 +1,139 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService.ResourceVersion;
+import de.byedev.dsatable2.dsa_table_backend.service.SerializedResponseCache.SerializedResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Helpers for conditional GET on polled resources.
+ * The version is looked up <i>before</i> loading anything, so an unchanged resource is answered
+ * with 304 Not Modified without touching the database.
+ */
+final class ConditionalResponses {
+
+    /**
+     * Clients may keep a copy but must revalidate it on every request
+     */
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalResponses() {
+    }
+
+    /**
+     * Check If-None-Match / If-Modified-Since of the request against the given version
+     */
+    static boolean isNotModified(HttpServletRequest request, ResourceVersion version) {
+        // Without a response the check only evaluates the request headers
+        return new ServletWebRequest(request).checkNotModified(version.etag(), version.lastModified());
+    }
+
+    static <T> ResponseEntity<T> notModified(ResourceVersion version) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(REVALIDATE)
+                .eTag(version.etag())
+                .lastModified(version.lastModified())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .build();
+    }
+
+    static <T> ResponseEntity<T> ok(ResourceVersion version, T body) {
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .eTag(version.etag())
+                .lastModified(version.lastModified())
+                .body(body);
+    }
+
+    /**
+     * Write a pre-serialized JSON body as is, gzip-encoded if the client accepts it and a compressed copy exists
+     */
+    static ResponseEntity<byte[]> serialized(SerializedResponse response, HttpServletRequest request) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(REVALIDATE)
+                .eTag(response.getEtag())
+                .lastModified(response.getLastModified())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (response.getGzipped() != null && acceptsGzip(request)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.getGzipped());
+        }
+        return builder.body(response.getJson());
+    }
+
+    /**
+     * Send a content blob as file download. The compressed data is sent as is if the client accepts gzip. The
+     * content hash is a weak ETag, as the gzip and the identity representation are not byte-identical.
+     */
+    static ResponseEntity<byte[]> blob(ContentBlob blob, MediaType contentType, String filename,
+                                       HttpServletRequest request) {
+        String etag = "W/\"" + blob.getContentHash() + '"';
+        if (new ServletWebRequest(request).checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(REVALIDATE)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .cacheControl(REVALIDATE)
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(request)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(blob.getData());
+        }
+        return builder.body(blob.getText().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Whether Accept-Encoding allows gzip with a quality above 0, e.g. not for {@code gzip;q=0} or
+     * {@code *;q=0}. An explicit gzip (or x-gzip) entry wins over {@code *}.
+     */
+    static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipQuality = Math.max(gzipQuality != null ? gzipQuality : 0, quality(parts));
+            } else if (name.equals("*")) {
+                wildcardQuality = quality(parts);
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+
+    private static double quality(String[] codingParts) {
+        for (int i = 1; i < codingParts.length; i++) {
+            String parameter = codingParts[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,22 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds an {@link de.byedev.dsatable2.dsa_table_backend.config.AuthenticatedUser} parameter to the user
+ * authenticated by the bearer token of the request, see {@link CurrentUserArgumentResolver}
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+
+    /**
+     * Whether the request fails with 401 without an authenticated user; otherwise the parameter is {@code null}
+     */
+    boolean required() default true;
+}
@@ -0,0 +1,40 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.config.AuthenticatedUser;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.UnauthorizedException;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.security.Principal;
+
+/**
+ * Resolves {@link CurrentUser} parameters from the principal set by the JWT filter, without parsing the token or
+ * looking up the user again
+ */
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && parameter.getParameterType().equals(AuthenticatedUser.class);
+    }
+
+    @Override
+    public AuthenticatedUser resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                             NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Principal principal = webRequest.getUserPrincipal();
+        if (principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user;
+        }
+        CurrentUser annotation = parameter.getParameterAnnotation(CurrentUser.class);
+        if (annotation != null && annotation.required()) {
+            throw new UnauthorizedException("Authentication required");
+        }
+        return null;
+    }
+}
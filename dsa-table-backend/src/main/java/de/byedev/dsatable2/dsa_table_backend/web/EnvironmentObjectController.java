@@ -1,13 +1,18 @@
 package de.byedev.dsatable2.dsa_table_backend.web;
 
+import de.byedev.dsatable2.dsa_table_backend.service.EnvironmentObjectService;
 import de.byedev.dsatable2.dsa_table_backend.util.SVGUtil;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.EnvironmentObjectRequest;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.EnvironmentObjectTypeDto;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.EnvironmentObjectVariantDto;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.BadRequestException;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.awt.*;
 import java.net.URLDecoder;
@@ -45,86 +50,39 @@ public class EnvironmentObjectController {
     public static final String HOUSE_COLOR_DEFAULT = "#D2691E"; // Chocolate
     public static final String HOUSE_ROOF_COLOR_DEFAULT = "#8B4513"; // Saddle brown
 
+    public static final int DEFAULT_SIZE = 80;
+    public static final int MIN_SIZE = 20;
+    public static final int MAX_BATCH_SIZE = 256;
+
+    private final EnvironmentObjectService environmentObjectService;
+
+    public EnvironmentObjectController(EnvironmentObjectService environmentObjectService) {
+        this.environmentObjectService = environmentObjectService;
+    }
+
     @GetMapping(produces = "image/svg+xml")
     public ResponseEntity<String> generateEnvironmentObject(
             @RequestParam(value = PARAM_TYPE, required = false) String type,
             @RequestParam(value = PARAM_COLOR, required = false) String color,
-            @RequestParam(value = PARAM_SIZE, required = false) Integer size) {
+            @RequestParam(value = PARAM_SIZE, required = false) Integer size,
+            WebRequest request) {
 
         try {
-            // Set defaults
-            if (StringUtils.isEmpty(type)) {
-                type = TYPE_TREE1;
-            }
-            if (StringUtils.isEmpty(color)) {
-                color = getDefaultColor(type);
-            } else {
-                // Ensure color is properly decoded (Spring should do this, but be defensive)
-                try {
-                    color = URLDecoder.decode(color, StandardCharsets.UTF_8);
-                } catch (Exception e) {
-                    // If decoding fails, use as-is
-                }
-                // Ensure color starts with #
-                if (!color.startsWith("#")) {
-                    color = getDefaultColor(type);
-                }
-            }
-            if (size == null || size < 20) {
-                size = 80; // Default size
-            }
-
-            StringBuilder builder = new StringBuilder();
-
-            // SVG opening with dynamic size
-            builder.append("<svg xmlns='http://www.w3.org/2000/svg' xmlns:xlink='http://www.w3.org/1999/xlink' ");
-            builder.append("width='").append(size).append("' height='").append(size).append("' ");
-            builder.append("viewBox='0 0 32 32'>");
-
-            // Generate object based on type
-            switch (type) {
-                case TYPE_TREE1:
-                    builder.append(addTree(1));
-                    break;
-                case TYPE_TREE2:
-                    builder.append(addTree(2));
-                    break;
-                case TYPE_TREE3:
-                    builder.append(addTree(3));
-                    break;
-                case TYPE_TREE4:
-                    builder.append(addTree(4));
-                    break;
-                case TYPE_TREE5:
-                    builder.append(addTree(5));
-                    break;
-                case TYPE_TREE6:
-                    builder.append(addTree(6));
-                    break;
-                case TYPE_TREE7:
-                    builder.append(addTree(7));
-                    break;
-                case TYPE_TREE8:
-                    builder.append(addTree(8));
-                    break;
-                case TYPE_STONE:
-                    builder.append(addStone(color));
-                    break;
-                case TYPE_HOUSE:
-                    builder.append(addHouse());
-                    break;
-                default:
-                    builder.append(addTree(1)); // Default to tree
+            type = resolveType(type);
+            // The color is accepted for compatibility, but the sources carry their own colors
+            EnvironmentObjectService.RenderedObject rendered = environmentObjectService.render(type, resolveSize(size));
+
+            // Rendered variants never change for the lifetime of the application, so the
+            // ETag lets browsers revalidate without transferring the SVG again
+            if (request.checkNotModified(rendered.getEtag())) {
+                return null;
             }
 
-            builder.append(SVGUtil.SVG_CLOSE);
-
-            String svgContent = SVGUtil.DOCTYPE + builder.toString();
-
             return ResponseEntity.ok()
                     .contentType(MediaType.parseMediaType("image/svg+xml"))
                     .header("Cache-Control", "public, max-age=604800") // Cache for 7 days
-                    .body(svgContent);
+                    .eTag(rendered.getEtag())
+                    .body(rendered.getSvg());
         } catch (Exception e) {
             // Return error as SVG
             String errorSvg = SVGUtil.DOCTYPE +
@@ -140,38 +98,59 @@ public class EnvironmentObjectController {
         }
     }
 
-    private String addTree(int variant) {
-        try {
-            return SVGUtil.getSvgFromFile("tree"+variant);
-        } catch (RuntimeException e) {
-            logger.error("Failed to load tree{} SVG, falling back to tree1", variant, e);
-            // Fallback to tree1 if variant not found
-            if (variant != 1) {
-                try {
-                    return SVGUtil.getSvgFromFile("tree1");
-                } catch (RuntimeException e2) {
-                    logger.error("Failed to load fallback tree1 SVG", e2);
-                    // Return empty SVG if all fails
-                    return "<circle cx='40' cy='50' r='20' fill='#228B22'/>";
-                }
-            }
-            throw e;
+    /**
+     * Render many environment object variants in one request.
+     * Used by the battlemap to preload all objects of a map instead of issuing one request per object.
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<EnvironmentObjectVariantDto>> generateEnvironmentObjects(
+            @RequestBody List<EnvironmentObjectRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new BadRequestException("At least one environment object must be requested");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("At most " + MAX_BATCH_SIZE + " environment objects can be requested at once");
+        }
+
+        List<EnvironmentObjectVariantDto> variants = new ArrayList<>(requests.size());
+        for (EnvironmentObjectRequest objectRequest : requests) {
+            String type = resolveType(objectRequest.getType());
+            String color = resolveColor(type, objectRequest.getColor());
+            int size = resolveSize(objectRequest.getSize());
+            EnvironmentObjectService.RenderedObject rendered = environmentObjectService.render(type, size);
+            variants.add(new EnvironmentObjectVariantDto(type, color, size, rendered.getEtag(), rendered.getSvg()));
         }
+        return ResponseEntity.ok(variants);
     }
 
-    private String addStone(String color) {
-        return SVGUtil.getSvgFromFile("rock");
+    private String resolveType(String type) {
+        return StringUtils.isEmpty(type) ? TYPE_TREE1 : type;
     }
 
-    private String addHouse() {
-        try {
-            return SVGUtil.getSvgFromFile("house");
-        } catch (RuntimeException e) {
-            logger.error("Failed to load house SVG, using fallback", e);
-            // Return fallback SVG
-            return "<rect x='0' y='0' width='80' height='80' fill='#8B4513'/>" +
-                   "<polygon points='0,0 80,0 60,40 20,40' fill='#654321'/>";
+    private String resolveColor(String type, String color) {
+        if (StringUtils.isEmpty(color)) {
+            return getDefaultColor(type);
+        }
+        // Spring already decodes request parameters, only double-encoded values still need decoding
+        if (color.indexOf('%') >= 0) {
+            try {
+                color = URLDecoder.decode(color, StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                // If decoding fails, use as-is
+            }
+        }
+        // Ensure color starts with #
+        if (!color.startsWith("#")) {
+            return getDefaultColor(type);
+        }
+        return color;
+    }
+
+    private int resolveSize(Integer size) {
+        if (size == null || size < MIN_SIZE) {
+            return DEFAULT_SIZE;
         }
+        return size;
     }
 
     private Color parseColor(String colorString, String defaultColor) {
@@ -242,7 +221,7 @@ public class EnvironmentObjectController {
                 type,
                 getTypeLabel(type),
                 getDefaultColor(type),
-                80 // Default size
+                DEFAULT_SIZE
             ));
         }
         
@@ -1,30 +1,52 @@
 package de.byedev.dsatable2.dsa_table_backend.web;
 
+import de.byedev.dsatable2.dsa_table_backend.config.AuthenticatedUser;
 import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
 import de.byedev.dsatable2.dsa_table_backend.model.BattlemapToken;
 import de.byedev.dsatable2.dsa_table_backend.model.Character;
-import de.byedev.dsatable2.dsa_table_backend.model.FogRevealedArea;
 import de.byedev.dsatable2.dsa_table_backend.model.GameSession;
-import de.byedev.dsatable2.dsa_table_backend.model.User;
 import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapRepository;
 import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.ChatMessageRepository;
 import de.byedev.dsatable2.dsa_table_backend.repository.GameSessionRepository;
-import de.byedev.dsatable2.dsa_table_backend.repository.UserRepository;
-import de.byedev.dsatable2.dsa_table_backend.util.JwtUtil;
+import de.byedev.dsatable2.dsa_table_backend.service.BattlemapTokenService;
+import de.byedev.dsatable2.dsa_table_backend.service.GameSessionDtoAssembler;
+import de.byedev.dsatable2.dsa_table_backend.service.LiveBattlemapService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService;
+import de.byedev.dsatable2.dsa_table_backend.service.SessionChangeFeedService;
+import de.byedev.dsatable2.dsa_table_backend.service.SocketTicketService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService.ResourceVersion;
+import de.byedev.dsatable2.dsa_table_backend.service.SerializedResponseCache;
+import de.byedev.dsatable2.dsa_table_backend.util.FogBitmap;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.BattlemapDto;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.BattlemapTokenDto;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.FogRectangleDto;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.FogRevealedAreaDto;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.CharacterSummary;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.ChatMessageDto;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.GameSessionDto;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.GameSessionDto.Expansion;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.SessionBootstrapDto;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.SessionChangesDto;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.BadRequestException;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.ResourceNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
 import org.hibernate.Hibernate;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/sessions")
@@ -32,29 +54,51 @@ import java.util.stream.Collectors;
 public class GameSessionController {
 
     private final GameSessionRepository gameSessionRepository;
-    private final UserRepository userRepository;
     private final CharacterRepository characterRepository;
     private final BattlemapRepository battlemapRepository;
-    private final JwtUtil jwtUtil;
+    private final ChatMessageRepository chatMessageRepository;
+    private final ResourceVersionService resourceVersions;
+    private final SerializedResponseCache serializedResponses;
+    private final LiveBattlemapService liveBattlemapService;
+    private final SessionChangeFeedService sessionChangeFeedService;
+    private final BattlemapTokenService battlemapTokenService;
+    private final GameSessionDtoAssembler gameSessionDtoAssembler;
+    private final SocketTicketService socketTicketService;
 
     public GameSessionController(GameSessionRepository gameSessionRepository,
-                                 UserRepository userRepository,
                                  CharacterRepository characterRepository,
                                  BattlemapRepository battlemapRepository,
-                                 JwtUtil jwtUtil) {
+                                 ChatMessageRepository chatMessageRepository,
+                                 ResourceVersionService resourceVersions,
+                                 SerializedResponseCache serializedResponses,
+                                 LiveBattlemapService liveBattlemapService,
+                                 SessionChangeFeedService sessionChangeFeedService,
+                                 BattlemapTokenService battlemapTokenService,
+                                 GameSessionDtoAssembler gameSessionDtoAssembler,
+                                 SocketTicketService socketTicketService) {
         this.gameSessionRepository = gameSessionRepository;
-        this.userRepository = userRepository;
         this.characterRepository = characterRepository;
         this.battlemapRepository = battlemapRepository;
-        this.jwtUtil = jwtUtil;
+        this.chatMessageRepository = chatMessageRepository;
+        this.resourceVersions = resourceVersions;
+        this.serializedResponses = serializedResponses;
+        this.liveBattlemapService = liveBattlemapService;
+        this.sessionChangeFeedService = sessionChangeFeedService;
+        this.battlemapTokenService = battlemapTokenService;
+        this.gameSessionDtoAssembler = gameSessionDtoAssembler;
+        this.socketTicketService = socketTicketService;
     }
 
+    // Cache entries are evicted per key by CacheEvictionService whenever a session or its battlemap changes
+    // (the key prefix is what gets evicted, the expansions only distinguish variants of the same list)
     @GetMapping
     @Transactional(readOnly = true)
-    @Cacheable(value = "gameSessions", key = "'list:' + (#gmId != null ? 'gm:' + #gmId : (#playerId != null ? 'player:' + #playerId : 'all'))")
+    @Cacheable(value = "gameSessions", key = "'list:' + (#gmId != null ? 'gm:' + #gmId : (#playerId != null ? 'player:' + #playerId : 'all'))"
+            + " + ':' + T(de.byedev.dsatable2.dsa_table_backend.web.dto.GameSessionDto$Expansion).parse(#expand)")
     public List<GameSessionDto> getAll(
             @RequestParam(name = "gmId", required = false) Long gmId,
-            @RequestParam(name = "playerId", required = false) Long playerId
+            @RequestParam(name = "playerId", required = false) Long playerId,
+            @RequestParam(name = "expand", required = false) String expand
     ) {
         List<GameSession> sessions;
         if (gmId != null) {
@@ -64,68 +108,50 @@ public class GameSessionController {
         } else {
             sessions = gameSessionRepository.findAll();
         }
-        // Initialize playerIds collections before creating DTOs
-        sessions.forEach(session -> Hibernate.initialize(session.getPlayerIds()));
-        return sessions.stream()
-                .map(session -> new GameSessionDto(session, userRepository, battlemapRepository))
-                .collect(Collectors.toList());
+        return gameSessionDtoAssembler.toDtos(sessions, Expansion.parse(expand));
     }
 
     @GetMapping("/{id}")
     @Transactional(readOnly = true)
-    @Cacheable(value = "gameSessions", key = "#id")
-    public ResponseEntity<GameSessionDto> getById(@PathVariable Long id) {
-        return gameSessionRepository.findById(id)
-                .map(session -> {
-                    // Initialize playerIds collection before creating DTO
-                    Hibernate.initialize(session.getPlayerIds());
-                    return new GameSessionDto(session, userRepository, battlemapRepository);
-                })
-                .map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> getById(@PathVariable Long id,
+                                          @RequestParam(name = "expand", required = false) String expand,
+                                          HttpServletRequest request) {
+        Set<Expansion> expansions = Expansion.parse(expand);
+        ResourceVersion version = resourceVersions.of("gameSessions", id);
+        if (ConditionalResponses.isNotModified(request, version)) {
+            return ConditionalResponses.notModified(version);
+        }
+        // Expanded variants are cached next to the plain entry; they share its version, so they are never served stale
+        Object key = expansions.isEmpty() ? id : id + "?expand=" + expansions;
+        return serializedResponses.get("gameSessions", key, version, () -> gameSessionRepository.findById(id)
+                        .map(session -> gameSessionDtoAssembler.toDto(session, expansions)))
+                .map(response -> ConditionalResponses.serialized(response, request))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
     @Transactional
-    @CacheEvict(value = "gameSessions", allEntries = true)
     public ResponseEntity<GameSessionDto> create(
             @RequestBody GameSession session,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+            @CurrentUser AuthenticatedUser user) {
         
         if (session.getId() != null) {
             return ResponseEntity.badRequest().build();
         }
 
-        // Extract authenticated user and set as GM
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(401).build();
-        }
-
-        String token = authHeader.substring(7);
-        String username = jwtUtil.extractUsername(token);
-        if (username == null) {
-            return ResponseEntity.status(401).build();
-        }
-
-        User user = userRepository.findByUsername(username).orElse(null);
-        if (user == null) {
-            return ResponseEntity.status(401).build();
-        }
-
         // Set the creator as the game master (ignore any gameMasterId from request)
-        session.setGameMasterId(user.getId());
+        session.setGameMasterId(user.id());
         // Ensure no players are set during creation
         session.setPlayerIds(new java.util.HashSet<>());
 
         GameSession created = gameSessionRepository.save(session);
         return ResponseEntity
                 .created(URI.create("/api/sessions/" + created.getId()))
-                .body(new GameSessionDto(created, userRepository, battlemapRepository));
+                .body(gameSessionDtoAssembler.toDto(created, Expansion.NONE));
     }
 
     @PutMapping("/{id}")
     @Transactional
-    @CacheEvict(value = "gameSessions", allEntries = true)
     public ResponseEntity<GameSessionDto> update(@PathVariable Long id, @RequestBody GameSession updated) {
         return gameSessionRepository.findById(id)
                 .map(existing -> {
@@ -140,15 +166,12 @@ public class GameSessionController {
                         existing.setPlayerIds(updated.getPlayerIds());
                     }
                     GameSession saved = gameSessionRepository.save(existing);
-                    // Initialize collection in saved entity before creating DTO
-                    Hibernate.initialize(saved.getPlayerIds());
-                    return ResponseEntity.ok(new GameSessionDto(saved, userRepository, battlemapRepository));
+                    return ResponseEntity.ok(gameSessionDtoAssembler.toDto(saved, Set.of(Expansion.PLAYERS)));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
-    @CacheEvict(value = "gameSessions", allEntries = true)
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         if (!gameSessionRepository.existsById(id)) {
             return ResponseEntity.notFound().build();
@@ -159,28 +182,11 @@ public class GameSessionController {
 
     @PostMapping("/{id}/join")
     @Transactional
-    @CacheEvict(value = {"gameSessions", "characters"}, allEntries = true)
     public ResponseEntity<GameSessionDto> joinSession(
             @PathVariable Long id,
             @RequestParam Long characterId,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(401).build();
-        }
-
-        String token = authHeader.substring(7);
-        String username = jwtUtil.extractUsername(token);
-        if (username == null) {
-            return ResponseEntity.status(401).build();
-        }
-
-        User user = userRepository.findByUsername(username).orElse(null);
-        if (user == null) {
-            return ResponseEntity.status(401).build();
-        }
-
-        Long userId = user.getId();
+            @CurrentUser AuthenticatedUser user) {
+        Long userId = user.id();
 
         GameSession session = gameSessionRepository.findById(id).orElse(null);
         if (session == null) {
@@ -206,8 +212,7 @@ public class GameSessionController {
         }
 
         // Check if user already has a character in this session
-        List<Character> userCharacters = characterRepository.findByOwnerId(userId);
-        Character existingCharacter = userCharacters.stream()
+        CharacterSummary existingCharacter = characterRepository.findSummariesByOwnerId(userId).stream()
                 .filter(c -> c.getSessionId() != null && c.getSessionId().equals(session.getId()))
                 .findFirst()
                 .orElse(null);
@@ -222,12 +227,14 @@ public class GameSessionController {
                     playerIds.add(userId);
                     gameSessionRepository.save(session);
                 }
-                return ResponseEntity.ok(new GameSessionDto(session, userRepository, battlemapRepository));
+                return ResponseEntity.ok(gameSessionDtoAssembler.toDto(session, Set.of(Expansion.PLAYERS)));
             } else {
                 // User is trying to assign a different character
                 // Reassign: remove sessionId from old character, assign to new one
-                existingCharacter.setSessionId(null);
-                characterRepository.save(existingCharacter);
+                characterRepository.findById(existingCharacter.getId()).ifPresent(previous -> {
+                    previous.setSessionId(null);
+                    characterRepository.save(previous);
+                });
             }
         }
 
@@ -242,13 +249,102 @@ public class GameSessionController {
             gameSessionRepository.save(session);
         }
 
-        return ResponseEntity.ok(new GameSessionDto(session, userRepository, battlemapRepository));
+        return ResponseEntity.ok(gameSessionDtoAssembler.toDto(session, Set.of(Expansion.PLAYERS)));
+    }
+
+    /**
+     * Maximum time a change feed request waits for a change (long polling)
+     */
+    static final int MAX_CHANGES_WAIT_SECONDS = 30;
+
+    /**
+     * Change feed of a session: changed characters, the new battlemap version, new chat messages and
+     * session/membership changes after the {@code since} cursor. Without cursor, only the current cursor is
+     * returned ({@code resync}: load the full state once, then follow the feed). If nothing changed yet,
+     * the request waits up to {@code wait} seconds for a change.
+     */
+    @GetMapping("/{id}/changes")
+    public CompletableFuture<SessionChangesDto> getChanges(
+            @PathVariable Long id,
+            @RequestParam(name = "since", required = false) String since,
+            @RequestParam(name = "wait", defaultValue = "25") int waitSeconds) {
+        if (!gameSessionRepository.existsById(id)) {
+            throw new ResourceNotFoundException("GameSession", "id", id);
+        }
+        if (since == null) {
+            return CompletableFuture.completedFuture(sessionChangeFeedService.start(id));
+        }
+        Duration maxWait = Duration.ofSeconds(Math.clamp(waitSeconds, 0, MAX_CHANGES_WAIT_SECONDS));
+        return sessionChangeFeedService.awaitChanges(id, since, maxWait);
+    }
+
+    /**
+     * Maximum number of chat messages in the bootstrap document
+     */
+    static final int MAX_BOOTSTRAP_CHAT_MESSAGES = ChatController.MAX_LIMIT;
+
+    /**
+     * Everything needed to open a session in one read-only transaction: the session, its battlemap and characters,
+     * the character of the current user, the latest {@code chatLimit} chat messages (oldest first) and the cursor
+     * to follow the change feed from. Replaces the separate session, battlemap, character, my-character and chat
+     * requests when a session is opened.
+     */
+    @GetMapping("/{id}/bootstrap")
+    @Transactional(readOnly = true)
+    public SessionBootstrapDto getBootstrap(
+            @PathVariable Long id,
+            @RequestParam(name = "chatLimit", defaultValue = "" + ChatController.DEFAULT_LIMIT) int chatLimit,
+            @CurrentUser(required = false) AuthenticatedUser user) {
+        if (chatLimit < 0 || chatLimit > MAX_BOOTSTRAP_CHAT_MESSAGES) {
+            throw new BadRequestException("'chatLimit' must be between 0 and " + MAX_BOOTSTRAP_CHAT_MESSAGES);
+        }
+        // Read the cursor first: changes committed while reading are delivered by the feed again
+        String changesCursor = sessionChangeFeedService.currentCursor(id);
+        GameSession session = gameSessionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("GameSession", "id", id));
+
+        SessionBootstrapDto bootstrap = new SessionBootstrapDto();
+        bootstrap.setChangesCursor(changesCursor);
+
+        bootstrap.setSession(gameSessionDtoAssembler.toDto(session, Set.of(Expansion.PLAYERS)));
+
+        // Summaries for the character list, only my character is loaded as full hero sheet
+        List<CharacterSummary> characters = characterRepository.findSummariesBySessionId(id);
+        bootstrap.setCharacters(characters);
+
+        battlemapRepository.findBySessionId(id).ifPresent(battlemap -> {
+            BattlemapDto dto = new BattlemapDto(battlemap);
+            mapCharacterIdToPlayerName(dto, characters);
+            bootstrap.setBattlemap(dto);
+        });
+
+        Long userId = user != null ? user.id() : null;
+        if (userId != null) {
+            characters.stream()
+                    .filter(c -> userId.equals(c.getOwnerId()))
+                    .findFirst()
+                    .flatMap(summary -> characterRepository.findById(summary.getId()))
+                    .ifPresent(bootstrap::setMyCharacter);
+        }
+
+        if (chatLimit > 0) {
+            List<ChatMessageDto> messages = new ArrayList<>(
+                    chatMessageRepository.findRecentMessages(id, Limit.of(chatLimit)));
+            Collections.reverse(messages);
+            bootstrap.setChatMessages(messages);
+        }
+        return bootstrap;
     }
 
     @GetMapping("/{id}/battlemap")
     @Transactional(readOnly = true)
-    @Cacheable(value = "battlemaps", key = "#id")
-    public ResponseEntity<BattlemapDto> getBattlemap(@PathVariable Long id) {
+    @Cacheable(value = "battlemaps", key = "#id", unless = "#result.statusCode.value() == 304")
+    public ResponseEntity<BattlemapDto> getBattlemap(@PathVariable Long id, HttpServletRequest request) {
+        ResourceVersion version = resourceVersions.of("battlemaps", id);
+        if (ConditionalResponses.isNotModified(request, version)) {
+            return ConditionalResponses.notModified(version);
+        }
+
         // Verify session exists
         if (!gameSessionRepository.existsById(id)) {
             return ResponseEntity.notFound().build();
@@ -264,15 +360,17 @@ public class GameSessionController {
         BattlemapDto dto = new BattlemapDto(battlemap);
         // Map characterId to playerName for all tokens
         mapCharacterIdToPlayerName(dto, id);
-        return ResponseEntity.ok(dto);
+        return ConditionalResponses.ok(version, dto);
     }
 
     @PutMapping("/{id}/battlemap")
     @Transactional
-    @CacheEvict(value = {"battlemaps", "gameSessions"}, key = "#id")
     public ResponseEntity<BattlemapDto> updateBattlemap(@PathVariable Long id, @RequestBody BattlemapDto battlemapDto) {
         return gameSessionRepository.findById(id)
                 .map(session -> {
+                    // Persist pending live token deltas first; the live state is dropped after commit
+                    liveBattlemapService.flush(id);
+                    liveBattlemapService.invalidate(id);
                     Battlemap battlemap = battlemapRepository.findBySessionId(id)
                             .orElseGet(() -> {
                                 Battlemap newBattlemap = new Battlemap(id);
@@ -300,7 +398,7 @@ public class GameSessionController {
                         
                         // Add new tokens
                         // Load all characters for this session to map playerName to characterId
-                        List<Character> sessionCharacters = characterRepository.findBySessionId(id);
+                        List<CharacterSummary> sessionCharacters = characterRepository.findSummariesBySessionId(id);
                         for (BattlemapTokenDto tokenDto : battlemapDto.getTokens()) {
                             BattlemapToken token = new BattlemapToken(
                                     battlemap,
@@ -318,7 +416,7 @@ public class GameSessionController {
                             // "npc" means non-player token (characterId = null)
                             if (tokenDto.getPlayerName() != null && !tokenDto.getPlayerName().equals("npc")) {
                                 // Find character by name in this session
-                                Character character = sessionCharacters.stream()
+                                CharacterSummary character = sessionCharacters.stream()
                                         .filter(c -> tokenDto.getPlayerName().equals(c.getName()))
                                         .findFirst()
                                         .orElse(null);
@@ -332,19 +430,10 @@ public class GameSessionController {
                         }
                     }
 
-                    // Update fog revealed areas
-                    if (battlemapDto.getFogRevealedAreas() != null) {
-                        // Clear existing fog areas
-                        battlemap.getFogRevealedAreas().clear();
-                        
-                        // Add new fog areas
-                        for (FogRevealedAreaDto fogDto : battlemapDto.getFogRevealedAreas()) {
-                            FogRevealedArea fogArea = new FogRevealedArea(
-                                    fogDto.getGridX(),
-                                    fogDto.getGridY()
-                            );
-                            battlemap.getFogRevealedAreas().add(fogArea);
-                        }
+                    // Update fog of war (one column, not a row per revealed cell)
+                    FogBitmap fog = readFog(battlemapDto, battlemap.getGridSize());
+                    if (fog != null) {
+                        battlemap.setFog(fog);
                     }
 
                     Battlemap saved = battlemapRepository.save(battlemap);
@@ -356,39 +445,147 @@ public class GameSessionController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    @GetMapping("/{id}/my-character")
-    @Transactional(readOnly = true)
-    public ResponseEntity<Character> getMyCharacter(
-            @PathVariable Long id,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(401).build();
+    /**
+     * Reveal all fog of war cells of a rectangle
+     */
+    @PostMapping("/{id}/battlemap/fog/reveal")
+    @Transactional
+    public ResponseEntity<Void> revealFog(@PathVariable Long id, @RequestBody FogRectangleDto rectangle) {
+        updateFog(id, rectangle, true);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Hide all fog of war cells of a rectangle
+     */
+    @PostMapping("/{id}/battlemap/fog/hide")
+    @Transactional
+    public ResponseEntity<Void> hideFog(@PathVariable Long id, @RequestBody FogRectangleDto rectangle) {
+        updateFog(id, rectangle, false);
+        return ResponseEntity.noContent().build();
+    }
+
+    private void updateFog(Long id, FogRectangleDto rectangle, boolean reveal) {
+        if (rectangle.getX() == null || rectangle.getY() == null
+                || rectangle.getWidth() == null || rectangle.getHeight() == null) {
+            throw new BadRequestException("'x', 'y', 'width' and 'height' are required");
         }
+        if (rectangle.getWidth() < 0 || rectangle.getHeight() < 0) {
+            throw new BadRequestException("'width' and 'height' must not be negative");
+        }
+        Battlemap battlemap = battlemapRepository.findBySessionId(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Battlemap", "sessionId", id));
+        FogBitmap fog = battlemap.getFogOrDefault();
+        fog.setRectangle(rectangle.getX(), rectangle.getY(), rectangle.getWidth(), rectangle.getHeight(), reveal);
+        battlemap.setFog(fog);
+        battlemapRepository.save(battlemap);
+    }
 
-        String token = authHeader.substring(7);
-        String username = jwtUtil.extractUsername(token);
-        if (username == null) {
-            return ResponseEntity.status(401).build();
+    /**
+     * Read the fog of an update: the bitset ({@code fog}) if given, else the legacy cell list.
+     * The grid defaults to the grid size of the battlemap.
+     *
+     * @return the new fog, or null to keep the current one
+     */
+    private static FogBitmap readFog(BattlemapDto battlemapDto, Integer gridSize) {
+        int columns = battlemapDto.getFogColumns() != null ? battlemapDto.getFogColumns() : gridSize;
+        int rows = battlemapDto.getFogRows() != null ? battlemapDto.getFogRows() : gridSize;
+        if (battlemapDto.getFog() != null) {
+            byte[] bits;
+            try {
+                bits = Base64.getDecoder().decode(battlemapDto.getFog());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("'fog' is not valid base64");
+            }
+            return FogBitmap.fromBytes(columns, rows, bits);
+        }
+        if (battlemapDto.getFogRevealedAreas() != null) {
+            FogBitmap fog = new FogBitmap(columns, rows);
+            for (FogRevealedAreaDto area : battlemapDto.getFogRevealedAreas()) {
+                if (area.getGridX() != null && area.getGridY() != null) {
+                    fog.set(area.getGridX(), area.getGridY(), true);
+                }
+            }
+            return fog;
         }
+        return null;
+    }
 
-        User user = userRepository.findByUsername(username).orElse(null);
-        if (user == null) {
-            return ResponseEntity.status(401).build();
+    /**
+     * Change one token; only the fields set in the body are changed. Use instead of saving the whole battlemap.
+     */
+    @PatchMapping("/{id}/battlemap/tokens/{tokenId}")
+    public ResponseEntity<Void> patchToken(@PathVariable Long id, @PathVariable Long tokenId,
+                                           @RequestBody BattlemapTokenDto patch) {
+        if (patch.getTokenId() != null && !patch.getTokenId().equals(tokenId)) {
+            throw new BadRequestException("'tokenId' of the body does not match the path");
         }
-        
-        Long userId = user.getId();
+        patch.setTokenId(tokenId);
+        battlemapTokenService.patchTokens(id, List.of(patch));
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Change several tokens at once, each identified by its {@code tokenId}; all or none are changed
+     */
+    @PatchMapping("/{id}/battlemap/tokens")
+    public ResponseEntity<Void> patchTokens(@PathVariable Long id, @RequestBody List<BattlemapTokenDto> patches) {
+        if (patches.stream().anyMatch(patch -> patch == null || patch.getTokenId() == null)) {
+            throw new BadRequestException("Every token patch needs a 'tokenId'");
+        }
+        battlemapTokenService.patchTokens(id, patches);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{id}/battlemap/tokens/{tokenId}")
+    public ResponseEntity<Void> deleteToken(@PathVariable Long id, @PathVariable Long tokenId) {
+        if (battlemapTokenService.deleteTokens(id, List.of(tokenId)) == 0) {
+            throw new ResourceNotFoundException("BattlemapToken", "tokenId", tokenId);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Delete several tokens at once; unknown token IDs are ignored
+     */
+    @DeleteMapping("/{id}/battlemap/tokens")
+    public ResponseEntity<Void> deleteTokens(@PathVariable Long id, @RequestParam("tokenIds") List<Long> tokenIds) {
+        battlemapTokenService.deleteTokens(id, tokenIds);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Issue a single-use ticket for opening the live battlemap socket of a session; it is passed as {@code ticket}
+     * query parameter of the handshake and expires after {@code expiresIn} seconds
+     */
+    @PostMapping("/{id}/battlemap/live/ticket")
+    public ResponseEntity<Map<String, Object>> issueLiveTicket(@PathVariable Long id,
+                                                               @CurrentUser AuthenticatedUser user) {
+        if (!gameSessionRepository.existsById(id)) {
+            throw new ResourceNotFoundException("GameSession", "id", id);
+        }
+        return ResponseEntity.ok(Map.of(
+                "ticket", socketTicketService.issue(user.username(), id),
+                "expiresIn", SocketTicketService.TICKET_LIFETIME.toSeconds()));
+    }
+
+    @GetMapping("/{id}/my-character")
+    @Transactional(readOnly = true)
+    public ResponseEntity<Character> getMyCharacter(
+            @PathVariable Long id,
+            @CurrentUser AuthenticatedUser user) {
+        Long userId = user.id();
 
         GameSession session = gameSessionRepository.findById(id).orElse(null);
         if (session == null) {
             return ResponseEntity.notFound().build();
         }
 
-        // Find character owned by user and assigned to this session
-        List<Character> characters = characterRepository.findByOwnerId(userId);
-        Character myCharacter = characters.stream()
+        // Find character owned by user and assigned to this session; only that one is loaded fully
+        Character myCharacter = characterRepository.findSummariesByOwnerId(userId).stream()
                 .filter(c -> c.getSessionId() != null && c.getSessionId().equals(id))
                 .findFirst()
+                .flatMap(summary -> characterRepository.findById(summary.getId()))
                 .orElse(null);
 
         if (myCharacter == null) {
@@ -406,11 +603,21 @@ public class GameSessionController {
             return;
         }
         
-        // Load all characters for this session to create ID -> name mapping
-        List<Character> sessionCharacters = characterRepository.findBySessionId(sessionId);
+        // Load the names of all characters of this session to create ID -> name mapping
+        mapCharacterIdToPlayerName(dto, characterRepository.findSummariesBySessionId(sessionId));
+    }
+
+    /**
+     * Map characterId to playerName for all tokens in the DTO, using the already loaded characters of the session
+     */
+    private void mapCharacterIdToPlayerName(BattlemapDto dto, List<CharacterSummary> sessionCharacters) {
+        if (dto.getTokens() == null || dto.getTokens().isEmpty()) {
+            return;
+        }
+
         java.util.Map<Long, String> characterIdToName = sessionCharacters.stream()
                 .filter(c -> c.getId() != null)
-                .collect(java.util.stream.Collectors.toMap(Character::getId, Character::getName));
+                .collect(java.util.stream.Collectors.toMap(CharacterSummary::getId, CharacterSummary::getName));
         
         // Map characterId to playerName for each token
         for (BattlemapTokenDto tokenDto : dto.getTokens()) {
@@ -427,5 +634,3 @@ public class GameSessionController {
         }
     }
 }
-
-
@@ -1,23 +1,24 @@
 package de.byedev.dsatable2.dsa_table_backend.web;
 
+import de.byedev.dsatable2.dsa_table_backend.config.AuthenticatedUser;
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
 import de.byedev.dsatable2.dsa_table_backend.model.SavedMap;
-import de.byedev.dsatable2.dsa_table_backend.model.User;
 import de.byedev.dsatable2.dsa_table_backend.repository.SavedMapRepository;
-import de.byedev.dsatable2.dsa_table_backend.repository.UserRepository;
-import de.byedev.dsatable2.dsa_table_backend.util.JwtUtil;
+import de.byedev.dsatable2.dsa_table_backend.service.ContentBlobService;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.SavedMapDto;
 import de.byedev.dsatable2.dsa_table_backend.web.dto.SavedMapRequest;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.BadRequestException;
 import de.byedev.dsatable2.dsa_table_backend.web.exception.ResourceNotFoundException;
-import de.byedev.dsatable2.dsa_table_backend.web.exception.UnauthorizedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/saved-maps")
@@ -27,36 +28,50 @@ public class SavedMapController {
     private static final Logger logger = LoggerFactory.getLogger(SavedMapController.class);
 
     private final SavedMapRepository savedMapRepository;
-    private final UserRepository userRepository;
-    private final JwtUtil jwtUtil;
+    private final ContentBlobService contentBlobService;
+    private final String apiBaseUrl;
 
     public SavedMapController(SavedMapRepository savedMapRepository,
-                              UserRepository userRepository,
-                              JwtUtil jwtUtil) {
+                              ContentBlobService contentBlobService,
+                              @Value("${app.api.base-url:http://localhost:8080/api}") String apiBaseUrl) {
         this.savedMapRepository = savedMapRepository;
-        this.userRepository = userRepository;
-        this.jwtUtil = jwtUtil;
+        this.contentBlobService = contentBlobService;
+        this.apiBaseUrl = apiBaseUrl;
     }
 
-    private Long getUserIdFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new UnauthorizedException("Missing or invalid authorization header");
+    /**
+     * Decode the map data of a request: base64 (standard or URL-safe, padding optional) of gzip-compressed or
+     * plain map JSON
+     */
+    private ContentBlob storeData(String dataParam) {
+        byte[] data;
+        try {
+            data = SavedMapDto.decodeDataParam(dataParam);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid map data: " + e.getMessage());
         }
-        String token = authHeader.substring(7);
-        String username = jwtUtil.extractUsername(token);
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UnauthorizedException("User not found"));
-        return user.getId();
+        if (data.length == 0) {
+            throw new BadRequestException("Map data is empty");
+        }
+        try {
+            return contentBlobService.store(data);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid map data: " + e.getMessage());
+        }
+    }
+
+    private SavedMapDto withThumbnail(SavedMapDto dto) {
+        dto.setThumbnailUrl(apiBaseUrl + BattlemapImageController.thumbnailPath(dto.getDataHash()));
+        return dto;
     }
 
     @GetMapping
     @Transactional(readOnly = true)
-    public ResponseEntity<List<SavedMapDto>> getAllMaps(@RequestHeader("Authorization") String authHeader) {
-        Long userId = getUserIdFromToken(authHeader);
-        List<SavedMap> maps = savedMapRepository.findByUserIdOrderByUpdatedAtDesc(userId);
-        List<SavedMapDto> dtos = maps.stream()
-                .map(SavedMapDto::new)
-                .collect(Collectors.toList());
+    public ResponseEntity<List<SavedMapDto>> getAllMaps(@CurrentUser AuthenticatedUser user) {
+        Long userId = user.id();
+        List<SavedMapDto> dtos = savedMapRepository.findSummariesByUserId(userId).stream()
+                .map(this::withThumbnail)
+                .toList();
         return ResponseEntity.ok(dtos);
     }
 
@@ -64,19 +79,19 @@ public class SavedMapController {
     @Transactional(readOnly = true)
     public ResponseEntity<SavedMapDto> getMapById(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String authHeader) {
-        Long userId = getUserIdFromToken(authHeader);
+            @CurrentUser AuthenticatedUser user) {
+        Long userId = user.id();
         SavedMap map = savedMapRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Map not found"));
-        return ResponseEntity.ok(new SavedMapDto(map));
+        return ResponseEntity.ok(withThumbnail(new SavedMapDto(map, true)));
     }
 
     @PostMapping
     @Transactional
     public ResponseEntity<SavedMapDto> saveMap(
             @RequestBody SavedMapRequest request,
-            @RequestHeader("Authorization") String authHeader) {
-        Long userId = getUserIdFromToken(authHeader);
+            @CurrentUser AuthenticatedUser user) {
+        Long userId = user.id();
         
         if (request.getName() == null || request.getName().trim().isEmpty()) {
             return ResponseEntity.badRequest().build();
@@ -86,10 +101,10 @@ public class SavedMapController {
             return ResponseEntity.badRequest().build();
         }
 
-        SavedMap savedMap = new SavedMap(userId, request.getName().trim(), request.getDataParam());
+        SavedMap savedMap = new SavedMap(userId, request.getName().trim(), storeData(request.getDataParam()));
         SavedMap saved = savedMapRepository.save(savedMap);
         logger.info("Saved map '{}' for user {}", saved.getName(), userId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(new SavedMapDto(saved));
+        return ResponseEntity.status(HttpStatus.CREATED).body(withThumbnail(new SavedMapDto(saved, false)));
     }
 
     @PutMapping("/{id}")
@@ -97,8 +112,8 @@ public class SavedMapController {
     public ResponseEntity<SavedMapDto> updateMap(
             @PathVariable Long id,
             @RequestBody SavedMapRequest request,
-            @RequestHeader("Authorization") String authHeader) {
-        Long userId = getUserIdFromToken(authHeader);
+            @CurrentUser AuthenticatedUser user) {
+        Long userId = user.id();
         
         SavedMap map = savedMapRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Map not found"));
@@ -107,26 +122,34 @@ public class SavedMapController {
             map.setName(request.getName().trim());
         }
         
+        ContentBlob replacedData = null;
         if (request.getDataParam() != null && !request.getDataParam().trim().isEmpty()) {
-            map.setDataParam(request.getDataParam());
+            ContentBlob data = storeData(request.getDataParam());
+            if (!Objects.equals(data.getId(), map.getData().getId())) {
+                replacedData = map.getData();
+                map.setData(data);
+            }
         }
         
-        SavedMap updated = savedMapRepository.save(map);
+        SavedMap updated = savedMapRepository.saveAndFlush(map);
+        contentBlobService.release(replacedData);
         logger.info("Updated map '{}' for user {}", updated.getName(), userId);
-        return ResponseEntity.ok(new SavedMapDto(updated));
+        return ResponseEntity.ok(withThumbnail(new SavedMapDto(updated, false)));
     }
 
     @DeleteMapping("/{id}")
     @Transactional
     public ResponseEntity<Void> deleteMap(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String authHeader) {
-        Long userId = getUserIdFromToken(authHeader);
+            @CurrentUser AuthenticatedUser user) {
+        Long userId = user.id();
         
         SavedMap map = savedMapRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Map not found"));
         
         savedMapRepository.delete(map);
+        savedMapRepository.flush();
+        contentBlobService.release(map.getData());
         logger.info("Deleted map '{}' for user {}", map.getName(), userId);
         return ResponseEntity.noContent().build();
     }
@@ -1,7 +1,10 @@
 package de.byedev.dsatable2.dsa_table_backend.web.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
+import de.byedev.dsatable2.dsa_table_backend.util.FogBitmap;
 
+import java.util.Base64;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -13,6 +16,12 @@ public class BattlemapDto {
     private Integer canvasHeight;
     private String mapImageUrl;
     private List<BattlemapTokenDto> tokens;
+    // Revealed fog cells: base64 of the raw FogBitmap bitset (bit y * fogColumns + x), null if nothing was revealed
+    private String fog;
+    private Integer fogColumns;
+    private Integer fogRows;
+    // Legacy fog format with one entry per revealed cell, only accepted on updates
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private List<FogRevealedAreaDto> fogRevealedAreas;
 
     public BattlemapDto() {
@@ -45,10 +54,11 @@ public class BattlemapDto {
                     })
                     .collect(Collectors.toList());
         }
-        if (battlemap.getFogRevealedAreas() != null) {
-            this.fogRevealedAreas = battlemap.getFogRevealedAreas().stream()
-                    .map(FogRevealedAreaDto::new)
-                    .collect(Collectors.toList());
+        FogBitmap fogBitmap = battlemap.getFog();
+        if (fogBitmap != null) {
+            this.fog = Base64.getEncoder().encodeToString(fogBitmap.toBytes());
+            this.fogColumns = fogBitmap.getColumns();
+            this.fogRows = fogBitmap.getRows();
         }
     }
 
@@ -108,6 +118,30 @@ public class BattlemapDto {
         this.tokens = tokens;
     }
 
+    public String getFog() {
+        return fog;
+    }
+
+    public void setFog(String fog) {
+        this.fog = fog;
+    }
+
+    public Integer getFogColumns() {
+        return fogColumns;
+    }
+
+    public void setFogColumns(Integer fogColumns) {
+        this.fogColumns = fogColumns;
+    }
+
+    public Integer getFogRows() {
+        return fogRows;
+    }
+
+    public void setFogRows(Integer fogRows) {
+        this.fogRows = fogRows;
+    }
+
     public List<FogRevealedAreaDto> getFogRevealedAreas() {
         return fogRevealedAreas;
     }
@@ -0,0 +1,192 @@
+package de.byedev.dsatable2.dsa_table_backend.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+
+/**
+ * What list views and lookups need of a character: identity, owner, avatar and the resource counters, without
+ * properties, talents, spells and the other collections of the full hero sheet. Uses the property names of
+ * {@link Character}, so clients can treat it as a partially loaded character.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CharacterSummary {
+    private Long id;
+    private String name;
+    private String race;
+    private String culture;
+    private String profession;
+    private String gender;
+    private int xp;
+    private int currentLife;
+    private int totalLife;
+    private int currentAsp;
+    private int currentKarma;
+    private int initiative;
+    private int wounds;
+    private String avatarUrl;
+    private Long ownerId;
+    @JsonIgnore
+    private Long sessionId;
+
+    public CharacterSummary() {
+    }
+
+    /**
+     * Projection constructor used by the JPQL queries of {@code CharacterRepository}; the property values are
+     * null if the character does not have the property
+     */
+    public CharacterSummary(Long id, String name, String race, String culture, String profession, String gender,
+                            int xp, int currentLife, int currentAsp, int currentKarma, int initiative, int wounds,
+                            String avatarUrl, Long ownerId, Long sessionId,
+                            Integer life, Integer constitution, Integer strength) {
+        this.id = id;
+        this.name = name;
+        this.race = race;
+        this.culture = culture;
+        this.profession = profession;
+        this.gender = gender;
+        this.xp = xp;
+        this.currentLife = currentLife;
+        this.currentAsp = currentAsp;
+        this.currentKarma = currentKarma;
+        this.initiative = initiative;
+        this.wounds = wounds;
+        this.avatarUrl = avatarUrl;
+        this.ownerId = ownerId;
+        this.sessionId = sessionId;
+        this.totalLife = Character.totalLife(valueOf(life), valueOf(constitution), valueOf(strength));
+    }
+
+    private static int valueOf(Integer propertyValue) {
+        return propertyValue != null ? propertyValue : 0;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getRace() {
+        return race;
+    }
+
+    public void setRace(String race) {
+        this.race = race;
+    }
+
+    public String getCulture() {
+        return culture;
+    }
+
+    public void setCulture(String culture) {
+        this.culture = culture;
+    }
+
+    public String getProfession() {
+        return profession;
+    }
+
+    public void setProfession(String profession) {
+        this.profession = profession;
+    }
+
+    public String getGender() {
+        return gender;
+    }
+
+    public void setGender(String gender) {
+        this.gender = gender;
+    }
+
+    public int getXp() {
+        return xp;
+    }
+
+    public void setXp(int xp) {
+        this.xp = xp;
+    }
+
+    public int getCurrentLife() {
+        return currentLife;
+    }
+
+    public void setCurrentLife(int currentLife) {
+        this.currentLife = currentLife;
+    }
+
+    public int getTotalLife() {
+        return totalLife;
+    }
+
+    public void setTotalLife(int totalLife) {
+        this.totalLife = totalLife;
+    }
+
+    public int getCurrentAsp() {
+        return currentAsp;
+    }
+
+    public void setCurrentAsp(int currentAsp) {
+        this.currentAsp = currentAsp;
+    }
+
+    public int getCurrentKarma() {
+        return currentKarma;
+    }
+
+    public void setCurrentKarma(int currentKarma) {
+        this.currentKarma = currentKarma;
+    }
+
+    public int getInitiative() {
+        return initiative;
+    }
+
+    public void setInitiative(int initiative) {
+        this.initiative = initiative;
+    }
+
+    public int getWounds() {
+        return wounds;
+    }
+
+    public void setWounds(int wounds) {
+        this.wounds = wounds;
+    }
+
+    public String getAvatarUrl() {
+        return avatarUrl;
+    }
+
+    public void setAvatarUrl(String avatarUrl) {
+        this.avatarUrl = avatarUrl;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+}
@@ -14,6 +14,19 @@ public class ChatMessageDto {
     public ChatMessageDto() {
     }
 
+    /**
+     * Projection constructor used by the JPQL queries of {@code ChatMessageRepository},
+     * so message lists are read without loading entities
+     */
+    public ChatMessageDto(Long id, Long sessionId, Long authorId, String authorUsername, String authorDisplayName,
+                          String message, OffsetDateTime createdAt) {
+        this.id = id;
+        this.sessionId = sessionId;
+        this.author = new UserDto(authorId, authorUsername, authorDisplayName);
+        this.message = message;
+        this.createdAt = createdAt;
+    }
+
     public ChatMessageDto(ChatMessage chatMessage) {
         this.id = chatMessage.getId();
         this.sessionId = chatMessage.getSession().getId();
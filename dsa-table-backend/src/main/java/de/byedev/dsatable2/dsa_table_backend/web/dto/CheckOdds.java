@@ -0,0 +1,55 @@
+package de.byedev.dsatable2.dsa_table_backend.web.dto;
+
+/**
+ * Chance to pass the check of one talent or spell of a character. {@code modifier} is the total modifier the
+ * check is rolled with: the requested one plus wounds and the handicap (BE) of the worn armour.
+ */
+public class CheckOdds {
+
+    private final Long id;
+    private final String name;
+    private final String check;
+    private final boolean spell;
+    private final int value;
+    private final int modifier;
+    private final double probability;
+
+    public CheckOdds(Long id, String name, String check, boolean spell, int value, int modifier,
+                     double probability) {
+        this.id = id;
+        this.name = name;
+        this.check = check;
+        this.spell = spell;
+        this.value = value;
+        this.modifier = modifier;
+        this.probability = probability;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCheck() {
+        return check;
+    }
+
+    public boolean isSpell() {
+        return spell;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public int getModifier() {
+        return modifier;
+    }
+
+    public double getProbability() {
+        return probability;
+    }
+}
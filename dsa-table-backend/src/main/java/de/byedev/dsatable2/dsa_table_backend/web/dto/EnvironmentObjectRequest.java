@@ -0,0 +1,40 @@
+package de.byedev.dsatable2.dsa_table_backend.web.dto;
+
+public class EnvironmentObjectRequest {
+    private String type;
+    private String color;
+    private Integer size;
+
+    public EnvironmentObjectRequest() {
+    }
+
+    public EnvironmentObjectRequest(String type, String color, Integer size) {
+        this.type = type;
+        this.color = color;
+        this.size = size;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public void setColor(String color) {
+        this.color = color;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,60 @@
+package de.byedev.dsatable2.dsa_table_backend.web.dto;
+
+public class EnvironmentObjectVariantDto {
+    private String type;
+    private String color;
+    private Integer size;
+    private String etag;
+    private String svg;
+
+    public EnvironmentObjectVariantDto() {
+    }
+
+    public EnvironmentObjectVariantDto(String type, String color, Integer size, String etag, String svg) {
+        this.type = type;
+        this.color = color;
+        this.size = size;
+        this.etag = etag;
+        this.svg = svg;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public void setColor(String color) {
+        this.color = color;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getSvg() {
+        return svg;
+    }
+
+    public void setSvg(String svg) {
+        this.svg = svg;
+    }
+}
@@ -1,7 +1,5 @@
 package de.byedev.dsatable2.dsa_table_backend.web.dto;
 
-import de.byedev.dsatable2.dsa_table_backend.model.FogRevealedArea;
-
 public class FogRevealedAreaDto {
     private Integer gridX;
     private Integer gridY;
@@ -14,11 +12,6 @@ public class FogRevealedAreaDto {
         this.gridY = gridY;
     }
 
-    public FogRevealedAreaDto(FogRevealedArea area) {
-        this.gridX = area.getGridX();
-        this.gridY = area.getGridY();
-    }
-
     public Integer getGridX() {
         return gridX;
     }
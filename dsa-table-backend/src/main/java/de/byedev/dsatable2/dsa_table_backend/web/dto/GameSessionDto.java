@@ -1,52 +1,91 @@
 package de.byedev.dsatable2.dsa_table_backend.web.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import de.byedev.dsatable2.dsa_table_backend.model.GameSession;
-import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapRepository;
-import de.byedev.dsatable2.dsa_table_backend.repository.UserRepository;
 
 import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * A game session. The parts that are expensive to load (players, battlemap) are only included if requested with
+ * {@code ?expand=players,battlemap}; the player count is always set.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class GameSessionDto {
+
+    /**
+     * Optional parts of a session
+     */
+    public enum Expansion {
+        PLAYERS, BATTLEMAP;
+
+        public static final Set<Expansion> ALL = Collections.unmodifiableSet(EnumSet.allOf(Expansion.class));
+        public static final Set<Expansion> NONE = Collections.unmodifiableSet(EnumSet.noneOf(Expansion.class));
+
+        /**
+         * Parse a comma-separated list of expansions, e.g. {@code players,battlemap} (case-insensitive)
+         *
+         * @throws IllegalArgumentException for unknown expansions
+         */
+        public static Set<Expansion> parse(String expand) {
+            if (expand == null || expand.isBlank()) {
+                return NONE;
+            }
+            Set<Expansion> expansions = EnumSet.noneOf(Expansion.class);
+            for (String name : expand.split(",")) {
+                if (name.isBlank()) {
+                    continue;
+                }
+                try {
+                    expansions.add(valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown expansion '" + name.trim() + "', expected one of "
+                            + Arrays.toString(values()).toLowerCase(Locale.ROOT));
+                }
+            }
+            return Collections.unmodifiableSet(expansions);
+        }
+    }
+
     private Long id;
     private String title;
     private String description;
     private UserDto gameMaster;
     private Set<UserDto> players;
+    private int playerCount;
     private OffsetDateTime createdAt;
     private BattlemapDto battlemap;
 
     public GameSessionDto() {
     }
 
-    public GameSessionDto(GameSession session, UserRepository userRepository) {
-        this(session, userRepository, null);
-    }
-
-    public GameSessionDto(GameSession session, UserRepository userRepository, BattlemapRepository battlemapRepository) {
+    /**
+     * @param users     the game master and (if expanded) players by ID; users that are missing are left out
+     * @param battlemap the battlemap of the session, null if it is not expanded or does not exist
+     */
+    public GameSessionDto(GameSession session, Map<Long, UserDto> users, Set<Expansion> expand, BattlemapDto battlemap) {
         this.id = session.getId();
         this.title = session.getTitle();
         this.description = session.getDescription();
         if (session.getGameMasterId() != null) {
-            userRepository.findById(session.getGameMasterId())
-                    .map(UserDto::new)
-                    .ifPresent(gm -> this.gameMaster = gm);
+            this.gameMaster = users.get(session.getGameMasterId());
         }
-        if (session.getPlayerIds() != null && !session.getPlayerIds().isEmpty()) {
+        this.playerCount = session.getPlayerIds() != null ? session.getPlayerIds().size() : 0;
+        if (expand.contains(Expansion.PLAYERS) && this.playerCount > 0) {
             this.players = session.getPlayerIds().stream()
-                    .map(userRepository::findById)
-                    .filter(java.util.Optional::isPresent)
-                    .map(java.util.Optional::get)
-                    .map(UserDto::new)
+                    .map(users::get)
+                    .filter(Objects::nonNull)
                     .collect(Collectors.toSet());
         }
         this.createdAt = session.getCreatedAt();
-        if (battlemapRepository != null) {
-            battlemapRepository.findBySessionId(session.getId())
-                    .map(BattlemapDto::new)
-                    .ifPresent(bm -> this.battlemap = bm);
-        }
+        this.battlemap = battlemap;
     }
 
     // Getters and setters
@@ -90,6 +129,14 @@ public class GameSessionDto {
         this.players = players;
     }
 
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public void setPlayerCount(int playerCount) {
+        this.playerCount = playerCount;
+    }
+
     public OffsetDateTime getCreatedAt() {
         return createdAt;
     }
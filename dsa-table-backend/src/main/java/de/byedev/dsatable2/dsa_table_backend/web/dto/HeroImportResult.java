@@ -0,0 +1,93 @@
+package de.byedev.dsatable2.dsa_table_backend.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a bulk hero import, with one entry per file of the archive in archive order
+ */
+public class HeroImportResult {
+
+    public enum Status {
+        IMPORTED, FAILED, SKIPPED
+    }
+
+    private final List<FileResult> files = new ArrayList<>();
+
+    public List<FileResult> getFiles() {
+        return files;
+    }
+
+    public FileResult add(String fileName) {
+        FileResult file = new FileResult(fileName);
+        files.add(file);
+        return file;
+    }
+
+    public long getImported() {
+        return count(Status.IMPORTED);
+    }
+
+    public long getFailed() {
+        return count(Status.FAILED);
+    }
+
+    public long getSkipped() {
+        return count(Status.SKIPPED);
+    }
+
+    private long count(Status status) {
+        return files.stream().filter(file -> file.getStatus() == status).count();
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class FileResult {
+        private final String fileName;
+        private Status status;
+        private Long characterId;
+        private String name;
+        private String error;
+
+        public FileResult(String fileName) {
+            this.fileName = fileName;
+        }
+
+        public void imported(Long characterId, String name) {
+            this.status = Status.IMPORTED;
+            this.characterId = characterId;
+            this.name = name;
+        }
+
+        public void failed(String error) {
+            this.status = Status.FAILED;
+            this.error = error;
+        }
+
+        public void skipped(String reason) {
+            this.status = Status.SKIPPED;
+            this.error = reason;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Long getCharacterId() {
+            return characterId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package de.byedev.dsatable2.dsa_table_backend.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the character reparse job. {@code lastId} is the checkpoint: all characters up to it are done, a
+ * resumed job continues after it.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReparseStatus {
+
+    public enum State {
+        IDLE, RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    private final State state;
+    private final long total;
+    private final long reparsed;
+    private final long skipped;
+    private final long failed;
+    private final long lastId;
+    private final double charactersPerSecond;
+    private final LocalDateTime startedAt;
+    private final LocalDateTime finishedAt;
+    private final String error;
+
+    public ReparseStatus(State state, long total, long reparsed, long skipped, long failed, long lastId,
+                         double charactersPerSecond, LocalDateTime startedAt, LocalDateTime finishedAt,
+                         String error) {
+        this.state = state;
+        this.total = total;
+        this.reparsed = reparsed;
+        this.skipped = skipped;
+        this.failed = failed;
+        this.lastId = lastId;
+        this.charactersPerSecond = charactersPerSecond;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.error = error;
+    }
+
+    public static ReparseStatus idle() {
+        return new ReparseStatus(State.IDLE, 0, 0, 0, 0, 0, 0, null, null, null);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Characters with raw data after the id the job started from, counted at the start
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public long getProcessed() {
+        return reparsed + skipped + failed;
+    }
+
+    public long getReparsed() {
+        return reparsed;
+    }
+
+    /**
+     * Characters already parsed from the same raw data with the current parser version
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public double getCharactersPerSecond() {
+        return charactersPerSecond;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -1,14 +1,25 @@
 package de.byedev.dsatable2.dsa_table_backend.web.dto;
 
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
 import de.byedev.dsatable2.dsa_table_backend.model.SavedMap;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 import java.time.LocalDateTime;
+import java.util.Base64;
 
+/**
+ * A saved map. Lists only contain the metadata and a thumbnail URL; {@code dataParam} (URL-safe base64 of the
+ * gzip-compressed map data) is only included when a single map is requested.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class SavedMapDto {
     private Long id;
     private String name;
     private String dataParam;
+    private String dataHash;
+    private Integer dataSize;
+    private String thumbnailUrl;
     
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime createdAt;
@@ -19,12 +30,41 @@ public class SavedMapDto {
     public SavedMapDto() {
     }
 
-    public SavedMapDto(SavedMap savedMap) {
-        this.id = savedMap.getId();
-        this.name = savedMap.getName();
-        this.dataParam = savedMap.getDataParam();
-        this.createdAt = savedMap.getCreatedAt();
-        this.updatedAt = savedMap.getUpdatedAt();
+    /**
+     * Projection constructor for map lists
+     */
+    public SavedMapDto(Long id, String name, LocalDateTime createdAt, LocalDateTime updatedAt,
+                       String dataHash, int dataSize) {
+        this.id = id;
+        this.name = name;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.dataHash = dataHash;
+        this.dataSize = dataSize;
+    }
+
+    /**
+     * @param includeData whether to load and include the map data
+     */
+    public SavedMapDto(SavedMap savedMap, boolean includeData) {
+        this(savedMap.getId(), savedMap.getName(), savedMap.getCreatedAt(), savedMap.getUpdatedAt(),
+                savedMap.getData().getContentHash(), savedMap.getData().getContentLength());
+        if (includeData) {
+            this.dataParam = encodeData(savedMap.getData());
+        }
+    }
+
+    private static String encodeData(ContentBlob data) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(data.getData());
+    }
+
+    /**
+     * Decode a {@code dataParam} as sent by clients: base64, standard or URL-safe, padding optional
+     *
+     * @throws IllegalArgumentException if it is not valid base64
+     */
+    public static byte[] decodeDataParam(String dataParam) {
+        return Base64.getUrlDecoder().decode(dataParam.trim().replace('+', '-').replace('/', '_'));
     }
 
     public Long getId() {
@@ -51,6 +91,36 @@ public class SavedMapDto {
         this.dataParam = dataParam;
     }
 
+    /**
+     * @return hash of the map data, identical for identical maps
+     */
+    public String getDataHash() {
+        return dataHash;
+    }
+
+    public void setDataHash(String dataHash) {
+        this.dataHash = dataHash;
+    }
+
+    /**
+     * @return size of the uncompressed map data in bytes
+     */
+    public Integer getDataSize() {
+        return dataSize;
+    }
+
+    public void setDataSize(Integer dataSize) {
+        this.dataSize = dataSize;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -67,4 +137,3 @@ public class SavedMapDto {
         this.updatedAt = updatedAt;
     }
 }
-
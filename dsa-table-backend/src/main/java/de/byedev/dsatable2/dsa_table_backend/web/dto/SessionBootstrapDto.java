@@ -0,0 +1,71 @@
+package de.byedev.dsatable2.dsa_table_backend.web.dto;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything a client needs to open a session, read in one request: the session, its battlemap, summaries of its
+ * characters, the full character of the current user and the latest chat messages. {@code changesCursor} points at
+ * the state the document was read at; the client follows the session change feed from there.
+ */
+public class SessionBootstrapDto {
+    private String changesCursor;
+    private GameSessionDto session;
+    private BattlemapDto battlemap;
+    private List<CharacterSummary> characters = new ArrayList<>();
+    private Character myCharacter;
+    private List<ChatMessageDto> chatMessages = new ArrayList<>();
+
+    public SessionBootstrapDto() {
+    }
+
+    public String getChangesCursor() {
+        return changesCursor;
+    }
+
+    public void setChangesCursor(String changesCursor) {
+        this.changesCursor = changesCursor;
+    }
+
+    public GameSessionDto getSession() {
+        return session;
+    }
+
+    public void setSession(GameSessionDto session) {
+        this.session = session;
+    }
+
+    public BattlemapDto getBattlemap() {
+        return battlemap;
+    }
+
+    public void setBattlemap(BattlemapDto battlemap) {
+        this.battlemap = battlemap;
+    }
+
+    public List<CharacterSummary> getCharacters() {
+        return characters;
+    }
+
+    public void setCharacters(List<CharacterSummary> characters) {
+        this.characters = characters;
+    }
+
+    public Character getMyCharacter() {
+        return myCharacter;
+    }
+
+    public void setMyCharacter(Character myCharacter) {
+        this.myCharacter = myCharacter;
+    }
+
+    public List<ChatMessageDto> getChatMessages() {
+        return chatMessages;
+    }
+
+    public void setChatMessages(List<ChatMessageDto> chatMessages) {
+        this.chatMessages = chatMessages;
+    }
+}
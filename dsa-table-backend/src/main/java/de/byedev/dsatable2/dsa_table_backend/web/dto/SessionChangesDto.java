@@ -0,0 +1,92 @@
+package de.byedev.dsatable2.dsa_table_backend.web.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response of the session change feed: everything that changed in a session after the requested cursor.
+ * Unchanged parts are left out (the server omits null values). If {@code resync} is set, the client missed changes
+ * and has to reload the full state; {@code cursor} is passed as {@code since} with the next request.
+ */
+public class SessionChangesDto {
+    private String cursor;
+    private boolean resync;
+    private GameSessionDto session;
+    private Boolean sessionDeleted;
+    private List<CharacterSummary> characters = new ArrayList<>();
+    private List<Long> removedCharacterIds = new ArrayList<>();
+    private String battlemapVersion;
+    private List<ChatMessageDto> chatMessages = new ArrayList<>();
+
+    public SessionChangesDto() {
+    }
+
+    public SessionChangesDto(String cursor, boolean resync) {
+        this.cursor = cursor;
+        this.resync = resync;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isResync() {
+        return resync;
+    }
+
+    public void setResync(boolean resync) {
+        this.resync = resync;
+    }
+
+    public GameSessionDto getSession() {
+        return session;
+    }
+
+    public void setSession(GameSessionDto session) {
+        this.session = session;
+    }
+
+    public Boolean getSessionDeleted() {
+        return sessionDeleted;
+    }
+
+    public void setSessionDeleted(Boolean sessionDeleted) {
+        this.sessionDeleted = sessionDeleted;
+    }
+
+    public List<CharacterSummary> getCharacters() {
+        return characters;
+    }
+
+    public void setCharacters(List<CharacterSummary> characters) {
+        this.characters = characters;
+    }
+
+    public List<Long> getRemovedCharacterIds() {
+        return removedCharacterIds;
+    }
+
+    public void setRemovedCharacterIds(List<Long> removedCharacterIds) {
+        this.removedCharacterIds = removedCharacterIds;
+    }
+
+    public String getBattlemapVersion() {
+        return battlemapVersion;
+    }
+
+    public void setBattlemapVersion(String battlemapVersion) {
+        this.battlemapVersion = battlemapVersion;
+    }
+
+    public List<ChatMessageDto> getChatMessages() {
+        return chatMessages;
+    }
+
+    public void setChatMessages(List<ChatMessageDto> chatMessages) {
+        this.chatMessages = chatMessages;
+    }
+}
@@ -0,0 +1,90 @@
+package de.byedev.dsatable2.dsa_table_backend.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A single change of a battlemap token sent over the live battlemap WebSocket.
+ * Moves only carry the client token ID and the new position, e.g. {@code {"op":"move","tid":3,"x":40.0,"y":60.0}};
+ * adds carry the full token, removes only the token ID. {@code reload} tells clients to fetch the whole battlemap again.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TokenDelta {
+
+    public static final String MOVE = "move";
+    public static final String ADD = "add";
+    public static final String REMOVE = "remove";
+    public static final String RELOAD = "reload";
+
+    private String op;
+    private Long tid;
+    private Double x;
+    private Double y;
+    private BattlemapTokenDto token;
+
+    public TokenDelta() {
+    }
+
+    public TokenDelta(String op, Long tid, Double x, Double y, BattlemapTokenDto token) {
+        this.op = op;
+        this.tid = tid;
+        this.x = x;
+        this.y = y;
+        this.token = token;
+    }
+
+    public static TokenDelta move(Long tid, Double x, Double y) {
+        return new TokenDelta(MOVE, tid, x, y, null);
+    }
+
+    public static TokenDelta add(BattlemapTokenDto token) {
+        return new TokenDelta(ADD, token.getTokenId(), null, null, token);
+    }
+
+    public static TokenDelta remove(Long tid) {
+        return new TokenDelta(REMOVE, tid, null, null, null);
+    }
+
+    public static TokenDelta reload() {
+        return new TokenDelta(RELOAD, null, null, null, null);
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public Long getTid() {
+        return tid;
+    }
+
+    public void setTid(Long tid) {
+        this.tid = tid;
+    }
+
+    public Double getX() {
+        return x;
+    }
+
+    public void setX(Double x) {
+        this.x = x;
+    }
+
+    public Double getY() {
+        return y;
+    }
+
+    public void setY(Double y) {
+        this.y = y;
+    }
+
+    public BattlemapTokenDto getToken() {
+        return token;
+    }
+
+    public void setToken(BattlemapTokenDto token) {
+        this.token = token;
+    }
+}
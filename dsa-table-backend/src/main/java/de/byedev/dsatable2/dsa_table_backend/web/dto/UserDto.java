@@ -10,6 +10,12 @@ public class UserDto {
     public UserDto() {
     }
 
+    public UserDto(Long id, String username, String displayName) {
+        this.id = id;
+        this.username = username;
+        this.displayName = displayName;
+    }
+
     public UserDto(User user) {
         this.id = user.getId();
         this.username = user.getUsername();
@@ -0,0 +1,23 @@
+package de.byedev.dsatable2.dsa_table_backend.web.exception;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a client is throttled or the server is too busy for the request
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Time after which the request may succeed
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
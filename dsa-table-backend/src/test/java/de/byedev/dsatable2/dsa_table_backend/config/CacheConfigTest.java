@@ -0,0 +1,59 @@
+package de.byedev.dsatable2.dsa_table_backend.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheConfigTest {
+
+    @SuppressWarnings("unchecked")
+    private static Cache<Object, Object> nativeCache(CacheManager cacheManager, String name) {
+        return (Cache<Object, Object>) cacheManager.getCache(name).getNativeCache();
+    }
+
+    @Test
+    void testCacheManager_BoundsEveryCacheByWeight() {
+        CacheTuningProperties properties = new CacheTuningProperties();
+        properties.getSpecs().put("characters",
+                new CacheTuningProperties.CacheSpec(DataSize.ofKilobytes(4), Duration.ofMinutes(5), null));
+        CacheManager cacheManager = new CacheConfig().cacheManager(properties);
+
+        assertTrue(cacheManager.getCacheNames().containsAll(CacheConfig.CACHE_NAMES));
+        for (String name : CacheConfig.CACHE_NAMES) {
+            Cache<Object, Object> cache = nativeCache(cacheManager, name);
+            assertTrue(cache.policy().eviction().orElseThrow().isWeighted(), name);
+            assertTrue(cache.policy().expireAfterAccess().isPresent() || cache.policy().expireAfterWrite().isPresent(),
+                    name);
+        }
+
+        // About 1 KB per entry, so only a few fit
+        Cache<Object, Object> characters = nativeCache(cacheManager, "characters");
+        for (long id = 0; id < 50; id++) {
+            cacheManager.getCache("characters").put(id, "x".repeat(500));
+        }
+        characters.cleanUp();
+        assertTrue(characters.estimatedSize() < 50);
+        assertTrue(characters.policy().eviction().orElseThrow().weightedSize().orElseThrow()
+                <= DataSize.ofKilobytes(4).toBytes());
+        assertEquals(Duration.ofMinutes(5), characters.policy().expireAfterWrite().orElseThrow().getExpiresAfter());
+        // Unset values fall back to the defaults
+        assertEquals(Duration.ofMinutes(30), characters.policy().expireAfterAccess().orElseThrow().getExpiresAfter());
+    }
+
+    @Test
+    void testCacheManager_RecordsStatistics() {
+        CacheManager cacheManager = new CacheConfig().cacheManager(new CacheTuningProperties());
+        org.springframework.cache.Cache users = cacheManager.getCache("users");
+        users.put(1L, "alrik");
+        users.get(1L);
+        users.get(2L);
+
+        assertEquals(1, nativeCache(cacheManager, "users").stats().hitCount());
+        assertEquals(1, nativeCache(cacheManager, "users").stats().missCount());
+    }
+}
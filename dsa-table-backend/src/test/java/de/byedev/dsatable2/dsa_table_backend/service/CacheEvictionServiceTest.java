@@ -0,0 +1,155 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.config.CacheConfig;
+import de.byedev.dsatable2.dsa_table_backend.config.CacheTuningProperties;
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.model.GameSession;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static de.byedev.dsatable2.dsa_table_backend.service.CacheEvictionService.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CacheEvictionServiceTest {
+
+    private CacheManager cacheManager;
+    private ResourceVersionService resourceVersions;
+    private CacheEvictionService service;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CacheConfig().cacheManager(new CacheTuningProperties());
+        resourceVersions = new ResourceVersionService();
+        service = new CacheEvictionService(cacheManager, resourceVersions, new SessionChangeLog());
+    }
+
+    private void fill(String cacheName, Object... keys) {
+        for (Object key : keys) {
+            cacheManager.getCache(cacheName).put(key, "cached");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Object> cachedKeys(String cacheName) {
+        return new HashSet<>(((com.github.benmanes.caffeine.cache.Cache<Object, Object>)
+                cacheManager.getCache(cacheName).getNativeCache()).asMap().keySet());
+    }
+
+    private static Character character(Long id, Long ownerId, Long sessionId) {
+        Character character = new Character();
+        ReflectionTestUtils.setField(character, "id", id);
+        character.setOwnerId(ownerId);
+        character.setSessionId(sessionId);
+        return character;
+    }
+
+    private static GameSession session(Long id, Long gameMasterId, Long... playerIds) {
+        GameSession session = new GameSession("Phileasson", null, gameMasterId);
+        ReflectionTestUtils.setField(session, "id", id);
+        session.setPlayerIds(new HashSet<>(List.of(playerIds)));
+        return session;
+    }
+
+    @Test
+    void testCharacterMovedBetweenSessions_EvictsOldAndNewSession() {
+        Character character = character(5L, 3L, 1L);
+        service.characterLoaded(character);
+        fill(CHARACTERS_CACHE, 5L, 6L, LIST_ALL_KEY, "list:owner:3", "list:owner:4",
+                "list:session:1", "list:session:2", "list:session:7");
+        fill(BATTLEMAPS_CACHE, 1L, 2L, 7L);
+
+        character.setSessionId(2L);
+        service.characterChanged(character);
+
+        assertEquals(Set.of(6L, "list:owner:4", "list:session:7"), cachedKeys(CHARACTERS_CACHE));
+        assertEquals(Set.of(7L), cachedKeys(BATTLEMAPS_CACHE));
+    }
+
+    @Test
+    void testOwnerChanged_EvictsOldAndNewOwnerLists() {
+        Character character = character(5L, 3L, 1L);
+        service.characterLoaded(character);
+        fill(CHARACTERS_CACHE, 5L, "list:owner:3", "list:owner:4", "list:owner:9", "list:session:1");
+
+        character.setOwnerId(4L);
+        service.characterChanged(character);
+        assertEquals(Set.of("list:owner:9"), cachedKeys(CHARACTERS_CACHE));
+
+        // The new keys are remembered, so the next change does not evict the first owner again
+        fill(CHARACTERS_CACHE, 5L, "list:owner:3", "list:owner:4", "list:session:1");
+        service.characterChanged(character);
+        assertEquals(Set.of("list:owner:3", "list:owner:9"), cachedKeys(CHARACTERS_CACHE));
+    }
+
+    @Test
+    void testCharacterChildChanged_UsesRememberedKeys() {
+        service.characterLoaded(character(5L, 3L, 1L));
+        fill(CHARACTERS_CACHE, 5L, 6L, LIST_ALL_KEY, "list:owner:3", "list:owner:4", "list:session:1");
+
+        service.characterChildChanged(5L);
+        assertEquals(Set.of(6L, "list:owner:4"), cachedKeys(CHARACTERS_CACHE));
+
+        // Unknown character: its entry and all lists, but not other characters
+        fill(CHARACTERS_CACHE, "list:owner:4", 8L);
+        service.characterChildChanged(8L);
+        assertEquals(Set.of(6L), cachedKeys(CHARACTERS_CACHE));
+    }
+
+    @Test
+    void testPlayerRemoved_EvictsRemovedAndRemainingPlayerLists() {
+        GameSession session = session(1L, 2L, 3L, 4L);
+        service.sessionChanged(session);
+        fill(GAME_SESSIONS_CACHE, 1L, 9L, LIST_ALL_KEY, "list:gm:2", "list:gm:8",
+                "list:player:3", "list:player:4", "list:player:5");
+        String etag = resourceVersions.ofList(GAME_SESSIONS_CACHE, "list:player:4").etag();
+
+        session.setPlayerIds(new HashSet<>(Set.of(3L)));
+        service.sessionChanged(session);
+
+        assertEquals(Set.of(9L, "list:gm:8", "list:player:5"), cachedKeys(GAME_SESSIONS_CACHE));
+        assertNotEquals(etag, resourceVersions.ofList(GAME_SESSIONS_CACHE, "list:player:4").etag());
+    }
+
+    @Test
+    void testSessionRemoved_EvictsItsPlayersAndBattlemapChangeEvictsSession() {
+        GameSession session = session(1L, 2L, 3L);
+        service.sessionChanged(session);
+        fill(GAME_SESSIONS_CACHE, 1L, 9L, LIST_ALL_KEY, "list:gm:2", "list:player:3", "list:player:5");
+
+        service.sessionRemoved(session);
+        assertEquals(Set.of(9L, "list:player:5"), cachedKeys(GAME_SESSIONS_CACHE));
+
+        // The session DTO embeds the battlemap; players of session 9 are unknown, so all lists go
+        fill(GAME_SESSIONS_CACHE, 8L, "list:gm:2");
+        fill(BATTLEMAPS_CACHE, 9L, 1L);
+        service.battlemapChanged(9L);
+        assertEquals(Set.of(1L), cachedKeys(BATTLEMAPS_CACHE));
+        assertEquals(Set.of(8L), cachedKeys(GAME_SESSIONS_CACHE));
+    }
+
+    @Test
+    void testPlayerCollectionChange_EvictsSessionLists() {
+        GameSession session = session(1L, 2L, 3L);
+        service.sessionChanged(session);
+        fill(GAME_SESSIONS_CACHE, 1L, 9L, "list:player:3", "list:player:4", "list:player:5");
+
+        // Joining only changes the player collection, there is no entity update
+        session.getPlayerIds().add(4L);
+        PostCollectionUpdateEvent event = mock(PostCollectionUpdateEvent.class);
+        when(event.getAffectedOwnerOrNull()).thenReturn(session);
+        new CollectionCacheEvictionListener(mock(EntityManagerFactory.class), service).onPostUpdateCollection(event);
+
+        assertEquals(Set.of(9L, "list:player:5"), cachedKeys(GAME_SESSIONS_CACHE));
+    }
+}
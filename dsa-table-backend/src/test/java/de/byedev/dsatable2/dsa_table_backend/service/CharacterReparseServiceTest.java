@@ -0,0 +1,136 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterParseState;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.ContentBlobRepository;
+import de.byedev.dsatable2.dsa_table_backend.util.HeroXMLParser;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.ReparseStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CharacterReparseServiceTest {
+
+    private CharacterRepository characterRepository;
+    private CharacterReparseService service;
+    private final List<Character> characters = new ArrayList<>();
+    private final List<ContentBlob> blobs = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String fenia = new ClassPathResource("static/FeniaFuxfell.xml").getContentAsString(StandardCharsets.UTF_8);
+        // 1 and 2 are outdated, 3 is current, 4 has broken XML
+        addCharacter(1L, fenia, false);
+        addCharacter(2L, fenia, false);
+        addCharacter(3L, fenia, true);
+        addCharacter(4L, "<helden><held", false);
+
+        characterRepository = mock(CharacterRepository.class);
+        when(characterRepository.countByIdGreaterThanAndRawDataIsNotNull(anyLong())).thenAnswer(invocation ->
+                characters.stream().filter(c -> c.getId() > invocation.<Long>getArgument(0)).count());
+        when(characterRepository.findParseStatesAfter(anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Limit limit = invocation.getArgument(1);
+            return characters.stream()
+                    .filter(c -> c.getId() > afterId)
+                    .limit(limit.max())
+                    .map(c -> new CharacterParseState(c.getId(), c.getRawData().getId(),
+                            c.getRawData().getContentHash(), c.getParsedHash(), c.getParserVersion()))
+                    .toList();
+        });
+        when(characterRepository.findAllById(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return characters.stream().filter(c -> ids.contains(c.getId())).toList();
+        });
+        ContentBlobRepository contentBlobRepository = mock(ContentBlobRepository.class);
+        when(contentBlobRepository.findAllById(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return blobs.stream().filter(b -> ids.contains(b.getId())).toList();
+        });
+
+        service = new CharacterReparseService(characterRepository, contentBlobRepository,
+                mock(PlatformTransactionManager.class), 2, 2);
+    }
+
+    private void addCharacter(Long id, String xml, boolean current) {
+        ContentBlob blob = spy(ContentBlob.of(xml + id));
+        when(blob.getId()).thenReturn(id * 10);
+        blobs.add(blob);
+        Character character = new Character();
+        ReflectionTestUtils.setField(character, "id", id);
+        character.setName("Alt");
+        character.setRawData(blob);
+        if (current) {
+            character.markParsed();
+        }
+        characters.add(character);
+    }
+
+    private ReparseStatus awaitFinished() throws InterruptedException {
+        BooleanSupplier finished = () -> service.status().getState() != ReparseStatus.State.RUNNING;
+        for (int i = 0; i < 200 && !finished.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(finished.getAsBoolean(), "Job not finished in time");
+        return service.status();
+    }
+
+    @Test
+    void testReparse_SkipsCurrentCharacters() throws Exception {
+        service.start(null);
+        ReparseStatus status = awaitFinished();
+
+        assertEquals(ReparseStatus.State.COMPLETED, status.getState());
+        assertEquals(4, status.getTotal());
+        assertEquals(2, status.getReparsed());
+        assertEquals(1, status.getSkipped());
+        assertEquals(1, status.getFailed());
+        assertEquals(4, status.getLastId());
+        assertEquals("Fenia Fuxfell", characters.get(0).getName());
+        assertEquals(HeroXMLParser.VERSION, characters.get(1).getParserVersion());
+        assertEquals(characters.get(1).getRawData().getContentHash(), characters.get(1).getParsedHash());
+        assertEquals("Alt", characters.get(2).getName());
+        assertNull(characters.get(3).getParserVersion());
+
+        // Nothing left to do except the broken one
+        service.start(null);
+        status = awaitFinished();
+        assertEquals(0, status.getReparsed());
+        assertEquals(3, status.getSkipped());
+    }
+
+    @Test
+    void testReparse_ResumesAfterCheckpoint() throws Exception {
+        // Fail while reading the second chunk
+        doThrow(new IllegalStateException("Connection lost"))
+                .when(characterRepository).findParseStatesAfter(eq(2L), any());
+        service.start(null);
+        ReparseStatus status = awaitFinished();
+        assertEquals(ReparseStatus.State.FAILED, status.getState());
+        assertEquals(2, status.getLastId());
+        assertEquals(2, status.getReparsed());
+
+        reset(characterRepository);
+        when(characterRepository.findParseStatesAfter(anyLong(), any())).thenReturn(List.of());
+        service.start(null);
+        awaitFinished();
+        // Continued after the first chunk
+        verify(characterRepository).findParseStatesAfter(eq(2L), any());
+        verify(characterRepository).countByIdGreaterThanAndRawDataIsNotNull(2L);
+    }
+}
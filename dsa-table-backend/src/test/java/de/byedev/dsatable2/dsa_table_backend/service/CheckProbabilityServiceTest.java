@@ -0,0 +1,103 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.model.HeroProperty;
+import de.byedev.dsatable2.dsa_table_backend.model.PropertyName;
+import de.byedev.dsatable2.dsa_table_backend.model.Spell;
+import de.byedev.dsatable2.dsa_table_backend.model.Talent;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.CheckOdds;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CheckProbabilityServiceTest {
+
+    private final CheckProbabilityService service = new CheckProbabilityService();
+
+    /**
+     * Rolls all 8000 combinations the way the talent check of the session view does
+     */
+    private static int bruteForce(int first, int second, int third, int value, int modifier) {
+        int[] attributes = {first, second, third};
+        int successes = 0;
+        for (int r1 = 1; r1 <= 20; r1++) {
+            for (int r2 = 1; r2 <= 20; r2++) {
+                for (int r3 = 1; r3 <= 20; r3++) {
+                    int totalMod = value - modifier;
+                    int result = Math.max(totalMod, 0);
+                    int diff = totalMod < 0 ? -totalMod : 0;
+                    int[] rolls = {r1, r2, r3};
+                    for (int i = 0; i < 3; i++) {
+                        result += Math.min(attributes[i] - diff - rolls[i], 0);
+                    }
+                    if (result >= 0) {
+                        successes++;
+                    }
+                }
+            }
+        }
+        return successes;
+    }
+
+    @Test
+    void testSuccessfulRolls_MatchEnumeration() {
+        int[][] attributes = {
+                {12, 13, 14}, {14, 12, 13}, {8, 17, 11}, {1, 20, 20}, {0, 3, 25}, {-2, 10, 10}, {20, 20, 20}};
+        for (int[] a : attributes) {
+            for (int v = -3; v <= 21; v += 3) {
+                for (int m = -7; m <= 14; m += 3) {
+                    int value = v;
+                    int modifier = m;
+                    assertEquals(bruteForce(a[0], a[1], a[2], value, modifier),
+                            service.successfulRolls(a[0], a[1], a[2], value, modifier),
+                            () -> Arrays.toString(a) + " value " + value + " modifier " + modifier);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSuccessProbability() {
+        // Without points every die must stay at or below its attribute
+        assertEquals(0.125, service.successProbability(new int[]{10, 10, 10}, 0, 0));
+        // Modifier 2 above the value lowers every attribute by 2
+        assertEquals(0.4 * 0.4 * 0.4, service.successProbability(new int[]{10, 10, 10}, 3, 5), 1e-12);
+        assertEquals(1.0, service.successProbability(new int[]{20, 20, 20}, 0, 0));
+        assertEquals(0.0, service.successProbability(new int[]{5, 5, 5}, 0, 30));
+    }
+
+    @Test
+    void testForCharacter_AddsWoundsAndArmourHandicap() {
+        Character character = new Character();
+        character.setProperties(List.of(
+                new HeroProperty(PropertyName.COURAGE, 12),
+                new HeroProperty(PropertyName.INTUITION, 13),
+                new HeroProperty(PropertyName.AGILITY, 14),
+                new HeroProperty(PropertyName.WISDOM, 15),
+                new HeroProperty(PropertyName.CHARISMA, 11)));
+        Talent climbing = new Talent("Klettern", "(MU/GE/KK)", 6);
+        climbing.setHandicap("BEx2");
+        Talent perception = new Talent("Sinnesschärfe", "(KL/IN/IN)", 7);
+        Spell spell = new Spell("Balsam Salabunde", "(KL/IN/CH)", 9);
+        character.setTalents(List.of(climbing, perception));
+        character.setSpells(List.of(spell));
+        character.setWounds(1);
+        character.setWearingArmour(true);
+        character.setArmourBe(3);
+
+        List<CheckOdds> odds = service.forCharacter(character, 1);
+
+        assertEquals(3, odds.size());
+        // 1 + 2 for the wound + 2 * 3 BE; KK is missing and counts as 0
+        assertEquals(9, odds.get(0).getModifier());
+        assertEquals(bruteForce(12, 14, 0, 6, 9) / 8000.0, odds.get(0).getProbability());
+        assertEquals(3, odds.get(1).getModifier());
+        assertEquals(bruteForce(15, 13, 13, 7, 3) / 8000.0, odds.get(1).getProbability());
+        assertTrue(odds.get(2).isSpell());
+        assertEquals(bruteForce(15, 13, 11, 9, 3) / 8000.0, odds.get(2).getProbability());
+    }
+}
@@ -0,0 +1,108 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.ContentBlobRepository;
+import de.byedev.dsatable2.dsa_table_backend.util.FogBitmap;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the migration against the schema of the current entities, with the former tables and columns added
+ */
+@SpringBootTest
+class LegacyContentMigrationTest {
+
+    @Autowired
+    private LegacyContentMigration migration;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BattlemapRepository battlemapRepository;
+    @Autowired
+    private CharacterRepository characterRepository;
+    @Autowired
+    private ContentBlobRepository contentBlobRepository;
+
+    private Long countTables(String name) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE LOWER(table_name) = ?", Long.class, name);
+    }
+
+    private static Character character(String name) {
+        Character character = new Character();
+        character.setName(name);
+        return character;
+    }
+
+    @Test
+    void testRun_MovesFogRevealedAreasToBitmap() {
+        Battlemap battlemap = new Battlemap(9001L);
+        battlemap.setGridSize(10);
+        Long id = battlemapRepository.save(battlemap).getId();
+        Long emptyId = battlemapRepository.save(new Battlemap(9002L)).getId();
+        jdbcTemplate.execute("CREATE TABLE battlemap_fog_revealed_areas"
+                + " (battlemap_id BIGINT NOT NULL, grid_x INTEGER, grid_y INTEGER)");
+        jdbcTemplate.update("INSERT INTO battlemap_fog_revealed_areas VALUES (?, 0, 0), (?, 9, 1), (?, 12, 3),"
+                + " (?, NULL, 4), (?, -1, 2)", id, id, id, id, id);
+
+        migration.run();
+
+        FogBitmap fog = battlemapRepository.findById(id).orElseThrow().getFog();
+        // Widened to keep the cell outside of the 10x10 grid
+        assertEquals(13, fog.getColumns());
+        assertEquals(10, fog.getRows());
+        assertEquals(3, fog.getRevealedCount());
+        assertTrue(fog.isRevealed(0, 0));
+        assertTrue(fog.isRevealed(9, 1));
+        assertTrue(fog.isRevealed(12, 3));
+        assertNull(battlemapRepository.findById(emptyId).orElseThrow().getFog());
+        assertEquals(0L, countTables("battlemap_fog_revealed_areas"));
+
+        // Nothing left to do on the next start
+        migration.run();
+        assertEquals(3, battlemapRepository.findById(id).orElseThrow().getFog().getRevealedCount());
+        battlemapRepository.deleteAllById(List.of(id, emptyId));
+    }
+
+    @Test
+    void testRun_MovesOnlyHeroRawDataToBlobs() throws Exception {
+        String xml = new ClassPathResource("static/FeniaFuxfell.xml").getContentAsString(StandardCharsets.UTF_8);
+        Long heroId = characterRepository.save(character("Fenia Fuxfell")).getId();
+        Long brokenId = characterRepository.save(character("Alrik")).getId();
+        // Former @Lob String column; read as string, PostgreSQL would return the oid of the large object
+        jdbcTemplate.execute("ALTER TABLE characters ADD COLUMN raw_data CLOB");
+        try {
+            jdbcTemplate.update("UPDATE characters SET raw_data = ? WHERE id = ?", xml, heroId);
+            jdbcTemplate.update("UPDATE characters SET raw_data = ? WHERE id = ?", "16411", brokenId);
+
+            migration.run();
+
+            Map<String, Object> hero = jdbcTemplate.queryForMap(
+                    "SELECT raw_data, raw_data_id FROM characters WHERE id = ?", heroId);
+            assertNull(hero.get("raw_data"));
+            ContentBlob blob = contentBlobRepository.findById(((Number) hero.get("raw_data_id")).longValue())
+                    .orElseThrow();
+            assertEquals(xml, blob.getText());
+            // Kept for a later attempt rather than replaced by something that is no hero
+            Map<String, Object> broken = jdbcTemplate.queryForMap(
+                    "SELECT raw_data_id FROM characters WHERE id = ? AND raw_data IS NOT NULL", brokenId);
+            assertNull(broken.get("raw_data_id"));
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE characters DROP COLUMN raw_data");
+            characterRepository.deleteAllById(List.of(heroId, brokenId));
+        }
+    }
+}
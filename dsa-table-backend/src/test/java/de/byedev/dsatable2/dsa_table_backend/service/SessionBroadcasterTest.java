@@ -0,0 +1,145 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionBroadcasterTest {
+
+    private static final int CAPACITY = 8;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SessionBroadcaster<Integer> broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        broadcaster = new SessionBroadcaster<>("test", CAPACITY, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.close();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean(), "Condition not met in time");
+    }
+
+    private static class RecordingSubscriber implements SessionBroadcaster.Subscriber<Integer> {
+        final List<Integer> events = new CopyOnWriteArrayList<>();
+        volatile int heartbeats;
+        volatile boolean overflowed;
+
+        @Override
+        public void onEvent(Integer event) throws IOException {
+            events.add(event);
+        }
+
+        @Override
+        public void onHeartbeat() {
+            heartbeats++;
+        }
+
+        @Override
+        public void onOverflow() {
+            overflowed = true;
+        }
+    }
+
+    @Test
+    void testPublish_DeliveredInOrderToSubscribersOfTheSession() throws Exception {
+        RecordingSubscriber first = new RecordingSubscriber();
+        RecordingSubscriber second = new RecordingSubscriber();
+        RecordingSubscriber otherSession = new RecordingSubscriber();
+        broadcaster.subscribe(1L, first);
+        broadcaster.subscribe(1L, second);
+        broadcaster.subscribe(2L, otherSession);
+
+        for (int i = 0; i < CAPACITY; i++) {
+            broadcaster.publish(1L, i);
+        }
+
+        await(() -> first.events.size() == CAPACITY && second.events.size() == CAPACITY);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7), first.events);
+        assertEquals(first.events, second.events);
+        assertTrue(otherSession.events.isEmpty());
+    }
+
+    @Test
+    void testSlowSubscriber_DroppedWithoutBlockingPublisherOrOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSubscriber slow = new RecordingSubscriber() {
+            @Override
+            public void onEvent(Integer event) throws IOException {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onEvent(event);
+            }
+        };
+        RecordingSubscriber fast = new RecordingSubscriber();
+        broadcaster.subscribe(1L, slow);
+        broadcaster.subscribe(1L, fast);
+
+        // The slow subscriber is stuck in its first event while the publisher and the fast subscriber go on
+        for (int i = 0; i < CAPACITY * 3; i++) {
+            broadcaster.publish(1L, i);
+            int delivered = i + 1;
+            await(() -> fast.events.size() == delivered);
+        }
+        release.countDown();
+        await(() -> slow.overflowed);
+        assertEquals(1, broadcaster.getSubscriberCount(1L));
+        assertEquals(1.0, meterRegistry.get("session.broadcast.dropped").tag("reason", "overflow").counter().count());
+        assertEquals(CAPACITY * 3.0, meterRegistry.get("session.broadcast.published").counter().count());
+    }
+
+    @Test
+    void testFailingSubscriber_Unsubscribed() throws Exception {
+        broadcaster.subscribe(1L, new RecordingSubscriber() {
+            @Override
+            public void onEvent(Integer event) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        });
+
+        broadcaster.publish(1L, 1);
+
+        await(() -> broadcaster.getSubscriberCount(1L) == 0);
+        assertEquals(1.0, meterRegistry.get("session.broadcast.dropped").tag("reason", "error").counter().count());
+        assertEquals(0.0, meterRegistry.get("session.broadcast.subscribers").gauge().value());
+    }
+
+    @Test
+    void testHeartbeat_OnlyForIdleSubscribers() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        SessionBroadcaster<Integer>.Subscription subscription = broadcaster.subscribe(1L, subscriber);
+
+        broadcaster.heartbeat();
+        await(() -> subscriber.heartbeats == 1);
+
+        subscription.close();
+        broadcaster.heartbeat();
+        broadcaster.publish(1L, 1);
+        Thread.sleep(50);
+        assertEquals(1, subscriber.heartbeats);
+        assertTrue(subscriber.events.isEmpty());
+        assertEquals(0, broadcaster.getSubscriberCount(1L));
+    }
+}
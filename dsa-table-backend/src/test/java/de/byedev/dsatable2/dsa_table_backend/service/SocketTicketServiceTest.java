@@ -0,0 +1,44 @@
+package de.byedev.dsatable2.dsa_table_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SocketTicketServiceTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final SocketTicketService service = new SocketTicketService(nanos::get);
+
+    @Test
+    void testRedeem_OnlyOnce() {
+        String ticket = service.issue("alrik", 1L);
+        assertNotEquals(ticket, service.issue("alrik", 1L));
+
+        assertEquals("alrik", service.redeem(ticket, 1L));
+        assertNull(service.redeem(ticket, 1L));
+        assertNull(service.redeem("unknown", 1L));
+        assertNull(service.redeem(null, 1L));
+    }
+
+    @Test
+    void testRedeem_OtherSessionUsesUpTicket() {
+        String ticket = service.issue("alrik", 1L);
+
+        assertNull(service.redeem(ticket, 2L));
+        assertNull(service.redeem(ticket, 1L));
+    }
+
+    @Test
+    void testRedeem_Expired() {
+        String ticket = service.issue("alrik", 1L);
+        String fresh = service.issue("alrik", 1L);
+        nanos.addAndGet(SocketTicketService.TICKET_LIFETIME.minusSeconds(1).toNanos());
+        assertEquals("alrik", service.redeem(fresh, 1L));
+
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertNull(service.redeem(ticket, 1L));
+    }
+}
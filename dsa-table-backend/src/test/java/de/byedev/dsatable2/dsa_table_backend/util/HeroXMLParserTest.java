@@ -0,0 +1,92 @@
+package de.byedev.dsatable2.dsa_table_backend.util;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.ClassPathResource;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import javax.xml.stream.XMLStreamException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeroXMLParserTest {
+
+    private final JsonMapper mapper = JsonMapper.builder().build();
+
+    /**
+     * The golden files hold the output of the former DOM parser
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"FeniaFuxfell", "Krixnix"})
+    void testFromXmlData_MatchesGoldenFile(String hero) throws Exception {
+        String xml = new ClassPathResource("static/" + hero + ".xml").getContentAsString(StandardCharsets.UTF_8);
+        String golden = new ClassPathResource("golden/" + hero + ".json").getContentAsString(StandardCharsets.UTF_8);
+
+        Character character = HeroXMLParser.fromXmlData(xml);
+
+        assertEquals(withoutRolls(mapper.readTree(golden)), withoutRolls(mapper.valueToTree(character)));
+    }
+
+    /**
+     * Regeneration is rolled on every call
+     */
+    private static JsonNode withoutRolls(JsonNode character) {
+        ((ObjectNode) character).remove(List.of("lifeRegen", "aspRegen"));
+        return character;
+    }
+
+    @Test
+    void testFromXmlData_ToleratesFormattingAndUnknownElements() throws Exception {
+        String xml = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <helden>
+                  <!-- exported -->
+                  <held name="Alrik">
+                    <basis>
+                      <geschlecht name="männlich"/>
+                      <rasse string="Mittelländer"><variante name="Garethi"/></rasse>
+                      <kultur string="Mittelreich"/>
+                      <ausbildungen><ausbildung string="Krieger"/><ausbildung string="Söldner"/></ausbildungen>
+                      <abenteuerpunkte value="?"/>
+                    </basis>
+                    <kampf>
+                      <kampfwerte name="Raufen">
+                        <attacke value="12"/>
+                        <parade value="9"/>
+                      </kampfwerte>
+                    </kampf>
+                    <vt><vorteil name="Zäher Hund" value="3"><auswahl value="Kälte"/></vorteil></vt>
+                    <sf><unbekannt/><sonderfertigkeit name="Finte"/></sf>
+                  </held>
+                </helden>
+                """;
+
+        Character character = HeroXMLParser.fromXmlData(xml);
+
+        assertEquals("Alrik", character.getName());
+        assertEquals("Mittelländer", character.getRace());
+        assertEquals("Söldner", character.getProfession());
+        assertEquals(0, character.getXp());
+        assertEquals(12, character.getCombatTalents().getFirst().getAttack());
+        assertEquals(9, character.getCombatTalents().getFirst().getParry());
+        assertEquals("Kälte", character.getAdvantages().getFirst().getAdditionalText().getFirst());
+        assertEquals(1, character.getSpecialities().size());
+    }
+
+    @Test
+    void testFromXmlData_InvalidDocuments() {
+        assertThrows(IllegalArgumentException.class, () -> HeroXMLParser.fromXmlData("<held name=\"Alrik\"/>"));
+        assertThrows(IllegalArgumentException.class,
+                () -> HeroXMLParser.fromXmlData("<helden><held name=\"Alrik\"><basis/></held></helden>"));
+        assertThrows(XMLStreamException.class, () -> HeroXMLParser.fromXmlData("<helden><held name="));
+        // No external entities
+        assertThrows(XMLStreamException.class, () -> HeroXMLParser.fromXmlData(
+                "<!DOCTYPE helden [<!ENTITY x SYSTEM \"file:///etc/passwd\">]><helden><held name=\"&x;\"/></helden>"));
+    }
+}
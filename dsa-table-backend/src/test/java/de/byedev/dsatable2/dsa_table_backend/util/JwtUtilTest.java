@@ -0,0 +1,44 @@
+package de.byedev.dsatable2.dsa_table_backend.util;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private final JwtUtil jwtUtil = new JwtUtil("kurzesGeheimnis", 60_000L);
+
+    @Test
+    void testValidateToken() {
+        String token = jwtUtil.generateToken("alrik");
+
+        // Repeated calls are served from the verified claims
+        for (int i = 0; i < 3; i++) {
+            assertEquals("alrik", jwtUtil.extractUsername(token));
+            assertTrue(jwtUtil.validateToken(token, "alrik"));
+        }
+        assertFalse(jwtUtil.validateToken(token, "rondrigo"));
+    }
+
+    @Test
+    void testInvalidTokensAreNotCached() {
+        String token = jwtUtil.generateToken("alrik");
+        assertEquals("alrik", jwtUtil.extractUsername(token));
+
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + parts[1] + "." + parts[2].substring(0, parts[2].length() - 2) + "AA";
+        assertThrows(JwtException.class, () -> jwtUtil.extractUsername(tampered));
+        assertThrows(JwtException.class, () -> jwtUtil.extractUsername(tampered));
+        // Signed with another key
+        assertThrows(JwtException.class,
+                () -> jwtUtil.extractUsername(new JwtUtil("anderesGeheimnis", 60_000L).generateToken("alrik")));
+    }
+
+    @Test
+    void testExpiredToken() {
+        String token = new JwtUtil("kurzesGeheimnis", -1_000L).generateToken("alrik");
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.extractUsername(token));
+    }
+}
@@ -0,0 +1,179 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.config.AuthProperties;
+import de.byedev.dsatable2.dsa_table_backend.model.User;
+import de.byedev.dsatable2.dsa_table_backend.repository.UserRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.LoginThrottleService;
+import de.byedev.dsatable2.dsa_table_backend.service.PasswordHashingService;
+import de.byedev.dsatable2.dsa_table_backend.util.JwtUtil;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.GlobalExceptionHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AuthControllerTest {
+
+    private UserRepository userRepository;
+    private JwtUtil jwtUtil;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        jwtUtil = mock(JwtUtil.class);
+        when(jwtUtil.generateToken(any())).thenReturn("token");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private MockMvc mockMvc(PasswordEncoder passwordEncoder, AuthProperties properties) {
+        AuthController controller = new AuthController(userRepository,
+                new PasswordHashingService(passwordEncoder, properties, meterRegistry),
+                new LoginThrottleService(properties, meterRegistry), jwtUtil);
+        return MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private static MockHttpServletRequestBuilder login(String username, String password, String ip) {
+        return post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}")
+                .with(request -> {
+                    request.setRemoteAddr(ip);
+                    return request;
+                });
+    }
+
+    /**
+     * Perform a request and, if it was handled asynchronously, its dispatch with the result
+     */
+    private static ResultActions perform(MockMvc mockMvc, RequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
+
+    private void givenUser(PasswordEncoder passwordEncoder) {
+        when(userRepository.findByUsername("alrik"))
+                .thenReturn(Optional.of(new User("alrik", "Alrik", passwordEncoder.encode("geheim"))));
+    }
+
+    @Test
+    void testLogin_VerifiesPasswordAsynchronously() throws Exception {
+        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+        givenUser(passwordEncoder);
+        MockMvc mockMvc = mockMvc(passwordEncoder, new AuthProperties());
+
+        MvcResult result = mockMvc.perform(login("alrik", "geheim", "10.0.0.1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("token"));
+
+        perform(mockMvc, login("alrik", "falsch", "10.0.0.1"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("Invalid credentials"));
+
+        // Unknown users are rejected without hashing
+        perform(mockMvc, login("niemand", "geheim", "10.0.0.1"))
+                .andExpect(status().isUnauthorized());
+        assertEquals(2, meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void testLogin_ThrottlesPerUsernameAndIp() throws Exception {
+        AuthProperties properties = new AuthProperties();
+        properties.setAttemptsPerUsername(2);
+        properties.setAttemptsPerIp(2);
+        MockMvc mockMvc = mockMvc(new BCryptPasswordEncoder(4), properties);
+
+        // Unknown user, so no password is hashed
+        perform(mockMvc, login("Alrik", "falsch", "10.0.0.1")).andExpect(status().isUnauthorized());
+        perform(mockMvc, login("alrik", "falsch", "10.0.0.2")).andExpect(status().isUnauthorized());
+        // Case-insensitive per username, regardless of the IP
+        perform(mockMvc, login("ALRIK", "falsch", "10.0.0.3"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        perform(mockMvc, login("boron", "falsch", "10.0.0.1")).andExpect(status().isUnauthorized());
+        perform(mockMvc, login("rondra", "falsch", "10.0.0.1")).andExpect(status().isTooManyRequests());
+
+        assertEquals(1, meterRegistry.get("auth.throttled").tag("reason", "username").counter().count());
+        assertEquals(1, meterRegistry.get("auth.throttled").tag("reason", "ip").counter().count());
+    }
+
+    @Test
+    void testLogin_RejectsWhenHashingPoolIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = mock(PasswordEncoder.class);
+        when(blocking.matches(any(), any())).thenAnswer(invocation -> {
+            release.await();
+            return true;
+        });
+        when(userRepository.findByUsername("alrik")).thenReturn(Optional.of(new User("alrik", "Alrik", "hash")));
+        AuthProperties properties = new AuthProperties();
+        properties.setHashingThreads(1);
+        properties.setHashingQueueCapacity(1);
+        properties.setAttemptsPerUsername(10);
+        MockMvc mockMvc = mockMvc(blocking, properties);
+
+        // One hashing, one queued
+        MvcResult first = mockMvc.perform(login("alrik", "geheim", "10.0.0.1")).andReturn();
+        MvcResult second = mockMvc.perform(login("alrik", "geheim", "10.0.0.1")).andReturn();
+        mockMvc.perform(login("alrik", "geheim", "10.0.0.1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+
+        release.countDown();
+        mockMvc.perform(asyncDispatch(first)).andExpect(status().isOk());
+        mockMvc.perform(asyncDispatch(second)).andExpect(status().isOk());
+        assertEquals(1, meterRegistry.get("auth.throttled").tag("reason", "busy").counter().count());
+    }
+
+    @Test
+    void testRegister_HashesPasswordOnPool() throws Exception {
+        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+        when(userRepository.findByUsername(any())).thenReturn(Optional.empty());
+        AtomicReference<Thread> savingThread = new AtomicReference<>();
+        when(userRepository.save(any())).thenAnswer(invocation -> {
+            savingThread.set(Thread.currentThread());
+            return invocation.getArgument(0);
+        });
+        MockMvc mockMvc = mockMvc(passwordEncoder, new AuthProperties());
+
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"alrik\",\"displayName\":\"Alrik\",\"password\":\"geheim\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("token"));
+
+        verify(userRepository).save(argThat(user -> passwordEncoder.matches("geheim", user.getPassword())));
+        // Not on the hashing pool, which stays free for hashing
+        assertTrue(savingThread.get().isVirtual());
+    }
+}
@@ -0,0 +1,143 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
+import de.byedev.dsatable2.dsa_table_backend.model.GameSession;
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.ChatMessageRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.GameSessionRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.BattlemapTokenService;
+import de.byedev.dsatable2.dsa_table_backend.service.GameSessionDtoAssembler;
+import de.byedev.dsatable2.dsa_table_backend.service.LiveBattlemapService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService;
+import de.byedev.dsatable2.dsa_table_backend.service.SerializedResponseCache;
+import de.byedev.dsatable2.dsa_table_backend.service.SessionChangeFeedService;
+import de.byedev.dsatable2.dsa_table_backend.service.SocketTicketService;
+import de.byedev.dsatable2.dsa_table_backend.util.FogBitmap;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class BattlemapFogControllerTest {
+
+    private MockMvc mockMvc;
+    private BattlemapRepository battlemapRepository;
+    private Battlemap battlemap;
+
+    @BeforeEach
+    void setUp() {
+        GameSessionRepository gameSessionRepository = mock(GameSessionRepository.class);
+        when(gameSessionRepository.findById(1L)).thenReturn(Optional.of(mock(GameSession.class)));
+
+        battlemap = new Battlemap(1L);
+        battlemapRepository = mock(BattlemapRepository.class);
+        when(battlemapRepository.findBySessionId(1L)).thenReturn(Optional.of(battlemap));
+        when(battlemapRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        GameSessionController controller = new GameSessionController(gameSessionRepository,
+                mock(CharacterRepository.class), battlemapRepository,
+                mock(ChatMessageRepository.class), new ResourceVersionService(),
+                mock(SerializedResponseCache.class), mock(LiveBattlemapService.class),
+                mock(SessionChangeFeedService.class), mock(BattlemapTokenService.class),
+                mock(GameSessionDtoAssembler.class), new SocketTicketService());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void testUpdateBattlemap_LegacyCellsStoredAsBitset() throws Exception {
+        mockMvc.perform(put("/api/sessions/1/battlemap")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fogRevealedAreas\":[{\"gridX\":0,\"gridY\":0},{\"gridX\":9,\"gridY\":1}]}"))
+                .andExpect(status().isOk())
+                // Cells 0 and 19 of the default 10x10 grid
+                .andExpect(jsonPath("$.fog").value(Base64.getEncoder().encodeToString(new byte[]{1, 0, 8})))
+                .andExpect(jsonPath("$.fogColumns").value(10))
+                .andExpect(jsonPath("$.fogRows").value(10))
+                .andExpect(jsonPath("$.fogRevealedAreas").doesNotExist());
+
+        FogBitmap fog = battlemap.getFog();
+        assertEquals(2, fog.getRevealedCount());
+        assertTrue(fog.isRevealed(0, 0));
+        assertTrue(fog.isRevealed(9, 1));
+    }
+
+    @Test
+    void testUpdateBattlemap_Bitset() throws Exception {
+        FogBitmap sent = new FogBitmap(20, 20);
+        sent.setRectangle(0, 0, 20, 20, true);
+        sent.set(5, 5, false);
+        String encoded = Base64.getEncoder().encodeToString(sent.toBytes());
+
+        mockMvc.perform(put("/api/sessions/1/battlemap")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fog\":\"" + encoded + "\",\"fogColumns\":20,\"fogRows\":20}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fog").value(encoded));
+
+        assertEquals(399, battlemap.getFog().getRevealedCount());
+        assertFalse(battlemap.getFog().isRevealed(5, 5));
+
+        // Updates without fog keep it
+        mockMvc.perform(put("/api/sessions/1/battlemap")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"gridSize\":20}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fog").value(encoded));
+    }
+
+    @Test
+    void testRevealAndHideRectangle() throws Exception {
+        mockMvc.perform(post("/api/sessions/1/battlemap/fog/reveal")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"x\":-2,\"y\":2,\"width\":5,\"height\":100}"))
+                .andExpect(status().isNoContent());
+        // Clipped to the 10x10 grid
+        assertEquals(3 * 8, battlemap.getFog().getRevealedCount());
+
+        mockMvc.perform(post("/api/sessions/1/battlemap/fog/hide")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"x\":0,\"y\":0,\"width\":10,\"height\":5}"))
+                .andExpect(status().isNoContent());
+        assertEquals(3 * 5, battlemap.getFog().getRevealedCount());
+        assertFalse(battlemap.getFog().isRevealed(0, 4));
+        assertTrue(battlemap.getFog().isRevealed(0, 5));
+        verify(battlemapRepository, times(2)).save(battlemap);
+    }
+
+    @Test
+    void testFog_InvalidRequests() throws Exception {
+        // Bits outside of the grid
+        mockMvc.perform(put("/api/sessions/1/battlemap")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fog\":\"AAAAAAAAAAAAAAAAEA==\",\"fogColumns\":10,\"fogRows\":10}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/sessions/1/battlemap")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fog\":\"not base64!\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/sessions/1/battlemap/fog/reveal")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"x\":0,\"y\":0,\"width\":-1,\"height\":1}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/sessions/2/battlemap/fog/reveal")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"x\":0,\"y\":0,\"width\":1,\"height\":1}"))
+                .andExpect(status().isNotFound());
+        assertNull(battlemap.getFog());
+    }
+}
@@ -0,0 +1,82 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.repository.GameSessionRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.SocketTicketService;
+import de.byedev.dsatable2.dsa_table_backend.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.socket.WebSocketHandler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BattlemapHandshakeInterceptorTest {
+
+    private SocketTicketService socketTicketService;
+    private JwtUtil jwtUtil;
+    private BattlemapHandshakeInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        socketTicketService = new SocketTicketService();
+        jwtUtil = mock(JwtUtil.class);
+        GameSessionRepository gameSessionRepository = mock(GameSessionRepository.class);
+        when(gameSessionRepository.existsById(1L)).thenReturn(true);
+        when(gameSessionRepository.existsById(2L)).thenReturn(true);
+        interceptor = new BattlemapHandshakeInterceptor(socketTicketService, jwtUtil, gameSessionRepository);
+    }
+
+    private HttpStatus handshake(MockHttpServletRequest request, Map<String, Object> attributes) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean accepted = interceptor.beforeHandshake(new ServletServerHttpRequest(request),
+                new ServletServerHttpResponse(response), mock(WebSocketHandler.class), attributes);
+        return accepted ? HttpStatus.OK : HttpStatus.valueOf(response.getStatus());
+    }
+
+    private static MockHttpServletRequest request(Long sessionId, String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET",
+                "/api/sessions/" + sessionId + "/battlemap/live");
+        request.setQueryString(query);
+        return request;
+    }
+
+    @Test
+    void testBeforeHandshake_TicketIsSingleUse() {
+        String ticket = socketTicketService.issue("alrik", 1L);
+        Map<String, Object> attributes = new HashMap<>();
+
+        assertEquals(HttpStatus.OK, handshake(request(1L, "ticket=" + ticket), attributes));
+        assertEquals(1L, attributes.get(BattlemapSocketHandler.SESSION_ID_ATTRIBUTE));
+        assertEquals("alrik", attributes.get(BattlemapSocketHandler.USERNAME_ATTRIBUTE));
+
+        assertEquals(HttpStatus.UNAUTHORIZED, handshake(request(1L, "ticket=" + ticket), new HashMap<>()));
+    }
+
+    @Test
+    void testBeforeHandshake_TicketOfOtherSessionRejected() {
+        String ticket = socketTicketService.issue("alrik", 1L);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, handshake(request(2L, "ticket=" + ticket), new HashMap<>()));
+    }
+
+    @Test
+    void testBeforeHandshake_JwtOnlyAcceptedInHeader() {
+        when(jwtUtil.extractUsername("jwt")).thenReturn("alrik");
+        when(jwtUtil.validateToken("jwt", "alrik")).thenReturn(true);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, handshake(request(1L, "token=jwt"), new HashMap<>()));
+
+        MockHttpServletRequest request = request(1L, null);
+        request.addHeader("Authorization", "Bearer jwt");
+        assertEquals(HttpStatus.OK, handshake(request, new HashMap<>()));
+    }
+}
@@ -0,0 +1,224 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
+import de.byedev.dsatable2.dsa_table_backend.model.BattlemapToken;
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapTokenRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.CacheEvictionService;
+import de.byedev.dsatable2.dsa_table_backend.service.LiveBattlemapService;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.CharacterSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BattlemapSocketHandlerTest {
+
+    private BattlemapRepository battlemapRepository;
+    private BattlemapTokenRepository battlemapTokenRepository;
+    private CacheEvictionService cacheEvictionService;
+    private LiveBattlemapService liveBattlemapService;
+    private BattlemapSocketHandler handler;
+
+    private WebSocketSession alice;
+    private WebSocketSession bob;
+    private CharacterRepository characterRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Battlemap battlemap = mock(Battlemap.class);
+        when(battlemap.getId()).thenReturn(7L);
+        List<BattlemapToken> tokens = new ArrayList<>();
+        tokens.add(new BattlemapToken(battlemap, 1L, 10.0, 20.0, false));
+        when(battlemap.getTokens()).thenReturn(tokens);
+
+        battlemapRepository = mock(BattlemapRepository.class);
+        when(battlemapRepository.findBySessionId(1L)).thenReturn(Optional.of(battlemap));
+        when(battlemapRepository.getReferenceById(7L)).thenReturn(battlemap);
+        battlemapTokenRepository = mock(BattlemapTokenRepository.class);
+        cacheEvictionService = mock(CacheEvictionService.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        CharacterSummary character = new CharacterSummary();
+        character.setId(5L);
+        character.setName("Fenia");
+        characterRepository = mock(CharacterRepository.class);
+        when(characterRepository.findSummariesBySessionId(1L)).thenReturn(List.of(character));
+
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        liveBattlemapService = new LiveBattlemapService(battlemapRepository, battlemapTokenRepository,
+                characterRepository, cacheEvictionService, jsonMapper, transactionManager);
+        handler = new BattlemapSocketHandler(liveBattlemapService, jsonMapper);
+
+        alice = connect("alice");
+        bob = connect("bob");
+    }
+
+    private WebSocketSession connect(String id) throws Exception {
+        WebSocketSession socket = mock(WebSocketSession.class);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(BattlemapSocketHandler.SESSION_ID_ATTRIBUTE, 1L);
+        when(socket.getId()).thenReturn(id);
+        when(socket.isOpen()).thenReturn(true);
+        when(socket.getAttributes()).thenReturn(attributes);
+        handler.afterConnectionEstablished(socket);
+        return socket;
+    }
+
+    private static List<String> sentPayloads(WebSocketSession socket) throws Exception {
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(socket, atLeast(0)).sendMessage(captor.capture());
+        return captor.getAllValues().stream().map(TextMessage::getPayload).toList();
+    }
+
+    @Test
+    void testMove_BroadcastToOtherSocketsOnly() throws Exception {
+        handler.handleTextMessage(alice, new TextMessage("{\"op\":\"move\",\"tid\":1,\"x\":30.0,\"y\":40.0}"));
+
+        List<String> received = sentPayloads(bob);
+        assertEquals(1, received.size());
+        assertEquals("{\"op\":\"move\",\"tid\":1,\"x\":30.0,\"y\":40.0}", received.get(0));
+        assertTrue(sentPayloads(alice).isEmpty());
+        // Nothing is written before the flush
+        verifyNoInteractions(battlemapTokenRepository);
+    }
+
+    @Test
+    void testMove_UnknownTokenTellsSenderToReload() throws Exception {
+        handler.handleTextMessage(alice, new TextMessage("{\"op\":\"move\",\"tid\":99,\"x\":30.0,\"y\":40.0}"));
+
+        assertEquals(List.of("{\"op\":\"reload\"}"), sentPayloads(alice));
+        assertTrue(sentPayloads(bob).isEmpty());
+    }
+
+    @Test
+    void testFlush_CoalescesMovesIntoOneUpdate() throws Exception {
+        handler.handleTextMessage(alice, new TextMessage("{\"op\":\"move\",\"tid\":1,\"x\":30.0,\"y\":40.0}"));
+        handler.handleTextMessage(alice, new TextMessage("{\"op\":\"move\",\"tid\":1,\"x\":50.0,\"y\":60.0}"));
+
+        liveBattlemapService.flushAll();
+
+        verify(battlemapTokenRepository).updatePosition(7L, 1L, 50.0, 60.0);
+        verify(battlemapTokenRepository, never()).save(any());
+        verify(cacheEvictionService).battlemapChanged(1L);
+
+        // Nothing pending anymore
+        clearInvocations(battlemapTokenRepository, cacheEvictionService);
+        liveBattlemapService.flushAll();
+        verifyNoInteractions(battlemapTokenRepository, cacheEvictionService);
+    }
+
+    @Test
+    void testFlush_ConcurrentFlushesWriteInOrder() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 1;
+        }).when(battlemapTokenRepository).updatePosition(7L, 1L, 30.0, 40.0);
+
+        handler.handleTextMessage(alice, new TextMessage("{\"op\":\"move\",\"tid\":1,\"x\":30.0,\"y\":40.0}"));
+        Thread scheduled = Thread.ofPlatform().start(liveBattlemapService::flushAll);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // A REST caller flushes a newer position while the scheduled flush is still writing
+        handler.handleTextMessage(alice, new TextMessage("{\"op\":\"move\",\"tid\":1,\"x\":50.0,\"y\":60.0}"));
+        Thread rest = Thread.ofPlatform().start(() -> liveBattlemapService.flush(1L));
+        Thread.sleep(100);
+        verify(battlemapTokenRepository, never()).updatePosition(7L, 1L, 50.0, 60.0);
+
+        release.countDown();
+        scheduled.join();
+        rest.join();
+        InOrder inOrder = inOrder(battlemapTokenRepository);
+        inOrder.verify(battlemapTokenRepository).updatePosition(7L, 1L, 30.0, 40.0);
+        inOrder.verify(battlemapTokenRepository).updatePosition(7L, 1L, 50.0, 60.0);
+    }
+
+    @Test
+    void testFlush_AddedAndRemovedBeforeFlushIsNeverWritten() throws Exception {
+        handler.handleTextMessage(alice, new TextMessage("{\"op\":\"add\",\"token\":{\"tid\":2,\"x\":1.0,\"y\":2.0,\"playerName\":\"npc\"}}"));
+        handler.handleTextMessage(alice, new TextMessage("{\"op\":\"move\",\"tid\":2,\"x\":3.0,\"y\":4.0}"));
+        handler.handleTextMessage(bob, new TextMessage("{\"op\":\"remove\",\"tid\":2}"));
+
+        liveBattlemapService.flushAll();
+
+        verifyNoInteractions(battlemapTokenRepository);
+        // Bob received the add and the move, Alice the remove
+        assertEquals(2, sentPayloads(bob).size());
+        assertEquals(1, sentPayloads(alice).size());
+    }
+
+    @Test
+    void testFlush_AddedTokenSavedWithLatestPosition() throws Exception {
+        handler.handleTextMessage(alice, new TextMessage("{\"op\":\"add\",\"token\":{\"tid\":2,\"x\":1.0,\"y\":2.0,\"playerName\":\"npc\"}}"));
+        handler.handleTextMessage(alice, new TextMessage("{\"op\":\"move\",\"tid\":2,\"x\":3.0,\"y\":4.0}"));
+        handler.handleTextMessage(alice, new TextMessage("{\"op\":\"remove\",\"tid\":1}"));
+
+        liveBattlemapService.flushAll();
+
+        ArgumentCaptor<BattlemapToken> saved = ArgumentCaptor.forClass(BattlemapToken.class);
+        verify(battlemapTokenRepository).save(saved.capture());
+        assertEquals(2L, saved.getValue().getTokenId());
+        assertEquals(3.0, saved.getValue().getX());
+        assertEquals(4.0, saved.getValue().getY());
+        assertNull(saved.getValue().getCharacterId());
+        verify(battlemapTokenRepository).deleteByTokenIds(eq(7L), eq(Set.of(1L)));
+        verify(battlemapTokenRepository, never()).updatePosition(any(), any(), any(), any());
+    }
+
+    @Test
+    void testFlush_AddedPlayerTokenLinkedToCharacter() throws Exception {
+        handler.handleTextMessage(alice, new TextMessage("{\"op\":\"add\",\"token\":{\"tid\":2,\"x\":1.0,\"y\":2.0,\"playerName\":\"Fenia\"}}"));
+
+        liveBattlemapService.flushAll();
+
+        ArgumentCaptor<BattlemapToken> saved = ArgumentCaptor.forClass(BattlemapToken.class);
+        verify(battlemapTokenRepository).save(saved.capture());
+        assertEquals(5L, saved.getValue().getCharacterId());
+        // Only names and IDs are needed, not the hero sheets
+        verify(characterRepository, never()).findBySessionId(any());
+    }
+
+    @Test
+    void testMalformedMessageIsIgnored() throws Exception {
+        handler.handleTextMessage(alice, new TextMessage("not json"));
+
+        assertTrue(sentPayloads(alice).isEmpty());
+        assertTrue(sentPayloads(bob).isEmpty());
+        verifyNoInteractions(battlemapRepository);
+    }
+
+    @Test
+    void testInvalidate_TellsEveryoneToReload() throws Exception {
+        handler.afterConnectionClosed(bob, CloseStatus.NORMAL);
+
+        liveBattlemapService.invalidate(1L);
+
+        assertEquals(List.of("{\"op\":\"reload\"}"), sentPayloads(alice));
+        assertTrue(sentPayloads(bob).isEmpty());
+        assertEquals(1, liveBattlemapService.getSocketCount(1L));
+    }
+}
@@ -0,0 +1,162 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
+import de.byedev.dsatable2.dsa_table_backend.model.BattlemapToken;
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapTokenRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.ChatMessageRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.GameSessionRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.BattlemapTokenService;
+import de.byedev.dsatable2.dsa_table_backend.service.CacheEvictionService;
+import de.byedev.dsatable2.dsa_table_backend.service.GameSessionDtoAssembler;
+import de.byedev.dsatable2.dsa_table_backend.service.LiveBattlemapService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService;
+import de.byedev.dsatable2.dsa_table_backend.service.SerializedResponseCache;
+import de.byedev.dsatable2.dsa_table_backend.service.SessionChangeFeedService;
+import de.byedev.dsatable2.dsa_table_backend.service.SocketTicketService;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.CharacterSummary;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class BattlemapTokenControllerTest {
+
+    private MockMvc mockMvc;
+    private BattlemapTokenRepository battlemapTokenRepository;
+    private CacheEvictionService cacheEvictionService;
+    private LiveBattlemapService liveBattlemapService;
+    private BattlemapToken token;
+
+    @BeforeEach
+    void setUp() {
+        Battlemap battlemap = mock(Battlemap.class);
+        when(battlemap.getId()).thenReturn(7L);
+        BattlemapRepository battlemapRepository = mock(BattlemapRepository.class);
+        when(battlemapRepository.findBySessionId(1L)).thenReturn(Optional.of(battlemap));
+
+        token = new BattlemapToken(battlemap, 3L, 10.0, 20.0, false);
+        battlemapTokenRepository = mock(BattlemapTokenRepository.class);
+        when(battlemapTokenRepository.updatePosition(eq(7L), eq(3L), any(), any())).thenReturn(1);
+        when(battlemapTokenRepository.findByTokenIds(eq(7L), any())).thenAnswer(invocation ->
+                invocation.<Set<Long>>getArgument(1).contains(3L) ? List.of(token) : List.of());
+
+        CharacterSummary character = new CharacterSummary();
+        character.setId(5L);
+        character.setName("Fenia");
+        CharacterRepository characterRepository = mock(CharacterRepository.class);
+        when(characterRepository.findSummariesBySessionId(1L)).thenReturn(List.of(character));
+
+        cacheEvictionService = mock(CacheEvictionService.class);
+        liveBattlemapService = mock(LiveBattlemapService.class);
+        BattlemapTokenService tokenService = new BattlemapTokenService(battlemapRepository, battlemapTokenRepository,
+                characterRepository, cacheEvictionService, liveBattlemapService);
+
+        GameSessionController controller = new GameSessionController(mock(GameSessionRepository.class),
+                characterRepository, battlemapRepository,
+                mock(ChatMessageRepository.class), new ResourceVersionService(),
+                mock(SerializedResponseCache.class), liveBattlemapService, mock(SessionChangeFeedService.class),
+                tokenService, mock(GameSessionDtoAssembler.class), new SocketTicketService());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void testPatchToken_MoveIsOneUpdateWithoutLoading() throws Exception {
+        mockMvc.perform(patch("/api/sessions/1/battlemap/tokens/3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"x\":30.0,\"y\":40.0}"))
+                .andExpect(status().isNoContent());
+
+        verify(battlemapTokenRepository).updatePosition(7L, 3L, 30.0, 40.0);
+        verify(battlemapTokenRepository, never()).findByTokenIds(anyLong(), any());
+        verify(cacheEvictionService).battlemapChanged(1L);
+        // Pending live moves are written first, live clients reload afterwards
+        verify(liveBattlemapService).flush(1L);
+        verify(liveBattlemapService).invalidate(1L);
+    }
+
+    @Test
+    void testPatchToken_ChangesOnlyGivenFields() throws Exception {
+        mockMvc.perform(patch("/api/sessions/1/battlemap/tokens/3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Fenia\",\"playerName\":\"Fenia\",\"gm\":true}"))
+                .andExpect(status().isNoContent());
+
+        assertEquals("Fenia", token.getName());
+        assertEquals(5L, token.getCharacterId());
+        assertTrue(token.getIsGmOnly());
+        assertEquals(10.0, token.getX());
+        assertEquals(20.0, token.getY());
+        verify(battlemapTokenRepository, never()).updatePosition(any(), any(), any(), any());
+        verify(cacheEvictionService).battlemapChanged(1L);
+    }
+
+    @Test
+    void testPatchTokens_BulkMovesAndNpc() throws Exception {
+        token.setCharacterId(5L);
+        when(battlemapTokenRepository.updatePosition(7L, 4L, 1.0, 2.0)).thenReturn(1);
+
+        mockMvc.perform(patch("/api/sessions/1/battlemap/tokens")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"tid\":4,\"x\":1.0,\"y\":2.0},{\"tid\":3,\"playerName\":\"npc\"}]"))
+                .andExpect(status().isNoContent());
+
+        verify(battlemapTokenRepository).updatePosition(7L, 4L, 1.0, 2.0);
+        assertNull(token.getCharacterId());
+        verify(cacheEvictionService, times(1)).battlemapChanged(1L);
+    }
+
+    @Test
+    void testPatchTokens_InvalidRequests() throws Exception {
+        // Unknown token
+        mockMvc.perform(patch("/api/sessions/1/battlemap/tokens/99")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Ghost\"}"))
+                .andExpect(status().isNotFound());
+        // Token ID of body and path differ
+        mockMvc.perform(patch("/api/sessions/1/battlemap/tokens/3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tid\":4,\"x\":1.0,\"y\":2.0}"))
+                .andExpect(status().isBadRequest());
+        // Bulk patch without token ID
+        mockMvc.perform(patch("/api/sessions/1/battlemap/tokens")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"x\":1.0,\"y\":2.0}]"))
+                .andExpect(status().isBadRequest());
+        // Unknown battlemap
+        mockMvc.perform(patch("/api/sessions/2/battlemap/tokens/3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"x\":1.0,\"y\":2.0}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testDeleteTokens() throws Exception {
+        when(battlemapTokenRepository.deleteByTokenIds(7L, Set.of(3L, 4L))).thenReturn(2);
+
+        mockMvc.perform(delete("/api/sessions/1/battlemap/tokens").param("tokenIds", "3", "4"))
+                .andExpect(status().isNoContent());
+        verify(cacheEvictionService).battlemapChanged(1L);
+
+        mockMvc.perform(delete("/api/sessions/1/battlemap/tokens/99"))
+                .andExpect(status().isNotFound());
+    }
+}
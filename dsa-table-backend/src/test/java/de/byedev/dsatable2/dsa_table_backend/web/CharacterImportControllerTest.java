@@ -0,0 +1,159 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.config.AuthenticatedUser;
+import de.byedev.dsatable2.dsa_table_backend.config.HeroImportProperties;
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.HeroPropertyRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.CheckProbabilityService;
+import de.byedev.dsatable2.dsa_table_backend.service.ContentBlobService;
+import de.byedev.dsatable2.dsa_table_backend.service.HeroImportService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService;
+import de.byedev.dsatable2.dsa_table_backend.service.SerializedResponseCache;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class CharacterImportControllerTest {
+
+    private static final UsernamePasswordAuthenticationToken ALRIK =
+            new UsernamePasswordAuthenticationToken(new AuthenticatedUser(3L, "alrik"), null);
+
+    private CharacterRepository characterRepository;
+    private List<Integer> savedChunkSizes;
+    private byte[] fenia;
+    private byte[] krixnix;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fenia = new ClassPathResource("static/FeniaFuxfell.xml").getContentAsByteArray();
+        krixnix = new ClassPathResource("static/Krixnix.xml").getContentAsByteArray();
+
+        savedChunkSizes = new ArrayList<>();
+        characterRepository = mock(CharacterRepository.class);
+        when(characterRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Character> characters = new ArrayList<>();
+            invocation.<Iterable<Character>>getArgument(0).forEach(characters::add);
+            savedChunkSizes.add(characters.size());
+            return characters;
+        });
+    }
+
+    private MockMvc mockMvc(HeroImportProperties properties) {
+        ContentBlobService contentBlobService = mock(ContentBlobService.class);
+        HeroImportService importService = new HeroImportService(characterRepository, contentBlobService,
+                mock(PlatformTransactionManager.class), properties);
+        CharacterController controller = new CharacterController(characterRepository,
+                mock(HeroPropertyRepository.class), new ResourceVersionService(),
+                mock(SerializedResponseCache.class), contentBlobService, importService, new CheckProbabilityService());
+        return MockMvcBuilders.standaloneSetup(controller)
+                .setCustomArgumentResolvers(new CurrentUserArgumentResolver())
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private static MockMultipartFile zip(Object... namesAndContents) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry((String) namesAndContents[i]));
+                zip.write((byte[]) namesAndContents[i + 1]);
+                zip.closeEntry();
+            }
+        }
+        return new MockMultipartFile("file", "heroes.zip", "application/zip", out.toByteArray());
+    }
+
+    @Test
+    void testUploadZip_ReportsEveryFile() throws Exception {
+        MockMultipartFile file = zip(
+                "helden/FeniaFuxfell.xml", fenia,
+                "helden/kaputt.xml", "<helden><held".getBytes(StandardCharsets.UTF_8),
+                "helden/Krixnix.xml", krixnix,
+                "liesmich.txt", "Viel Spass".getBytes(StandardCharsets.UTF_8),
+                "__MACOSX/helden/._Krixnix.xml", new byte[]{0, 5, 22, 7});
+
+        mockMvc(new HeroImportProperties()).perform(multipart("/api/characters/upload-zip").file(file)
+                        .param("sessionId", "1")
+                        .principal(ALRIK))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.skipped").value(2))
+                // Archive order
+                .andExpect(jsonPath("$.files[0].status").value("IMPORTED"))
+                .andExpect(jsonPath("$.files[0].name").value("Fenia Fuxfell"))
+                .andExpect(jsonPath("$.files[1].status").value("FAILED"))
+                .andExpect(jsonPath("$.files[1].error").exists())
+                .andExpect(jsonPath("$.files[2].name").value("Krixnix"));
+
+        // Both heroes in one chunk
+        verify(characterRepository, times(1)).saveAll(any());
+        verify(characterRepository, never()).save(any());
+    }
+
+    @Test
+    void testUploadZip_MemoryBudgetSavesChunksEarly() throws Exception {
+        HeroImportProperties properties = new HeroImportProperties();
+        // Files are charged twice their size, for their bytes and the parsed hero
+        properties.setMemoryBudget(DataSize.ofKilobytes(120));
+        properties.setMaxFileSize(DataSize.ofKilobytes(45));
+        MockMvc mockMvc = mockMvc(properties);
+        MockMultipartFile file = zip("Fenia.xml", fenia, "Krixnix.xml", krixnix, "Fenia2.xml", fenia);
+
+        // Twice, so leaked budget would block the second import
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(multipart("/api/characters/upload-zip").file(file).principal(ALRIK))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.imported").value(3));
+        }
+        // Only one file fits into the budget next to the reservation for the next one
+        assertEquals(List.of(1, 1, 1, 1, 1, 1), savedChunkSizes);
+
+        // The 21KB files would fit by their size alone, but not with their parsed heroes
+        savedChunkSizes.clear();
+        mockMvc.perform(multipart("/api/characters/upload-zip")
+                        .file(zip("Krixnix.xml", krixnix, "Krixnix2.xml", krixnix))
+                        .principal(ALRIK))
+                .andExpect(jsonPath("$.imported").value(2));
+        assertEquals(List.of(1, 1), savedChunkSizes);
+
+        // Larger than the maximum file size
+        mockMvc.perform(multipart("/api/characters/upload-zip").file(zip("Gross.xml", new byte[50 * 1024]))
+                        .principal(ALRIK))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.files[0].status").value("FAILED"));
+    }
+
+    @Test
+    void testUploadZip_InvalidRequests() throws Exception {
+        MockMvc mockMvc = mockMvc(new HeroImportProperties());
+        mockMvc.perform(multipart("/api/characters/upload-zip").file(zip("Fenia.xml", fenia)))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(multipart("/api/characters/upload-zip")
+                        .file(new MockMultipartFile("file", "Fenia.xml", "text/xml", fenia))
+                        .principal(ALRIK))
+                .andExpect(status().isBadRequest());
+        verify(characterRepository, never()).saveAll(any());
+    }
+}
@@ -0,0 +1,146 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.ContentBlobRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.HeroPropertyRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.CheckProbabilityService;
+import de.byedev.dsatable2.dsa_table_backend.service.ContentBlobService;
+import de.byedev.dsatable2.dsa_table_backend.service.HeroImportService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService;
+import de.byedev.dsatable2.dsa_table_backend.service.SerializedResponseCache;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class CharacterRawDataControllerTest {
+
+    private static final String XML = "<helden><held name=\"Fenia Fuxfell\"/></helden>";
+
+    private MockMvc mockMvc;
+    private CharacterRepository characterRepository;
+    private ContentBlobRepository contentBlobRepository;
+    private ContentBlobService contentBlobService;
+    private ContentBlob blob;
+
+    @BeforeEach
+    void setUp() {
+        blob = spy(ContentBlob.of(XML));
+        when(blob.getId()).thenReturn(9L);
+        characterRepository = mock(CharacterRepository.class);
+        when(characterRepository.findRawDataById(5L)).thenReturn(Optional.of(blob));
+        when(characterRepository.existsById(5L)).thenReturn(true);
+
+        contentBlobRepository = mock(ContentBlobRepository.class);
+        when(contentBlobRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        contentBlobService = new ContentBlobService(contentBlobRepository, mock(PlatformTransactionManager.class));
+
+        CharacterController controller = new CharacterController(characterRepository,
+                mock(HeroPropertyRepository.class), new ResourceVersionService(),
+                mock(SerializedResponseCache.class), contentBlobService,
+                mock(HeroImportService.class), new CheckProbabilityService());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void testContentBlob_CompressedAndHashed() {
+        String xml = XML.repeat(100);
+        ContentBlob large = ContentBlob.of(xml);
+        assertEquals(64, large.getContentHash().length());
+        assertEquals(ContentBlob.hash(xml), large.getContentHash());
+        assertNotEquals(ContentBlob.hash(XML), large.getContentHash());
+        assertTrue(large.getData().length < xml.length() / 10);
+        assertEquals(xml.length(), large.getContentLength());
+        assertEquals(xml, large.getText());
+    }
+
+    @Test
+    void testStore_DeduplicatesByHash() {
+        when(contentBlobRepository.findByContentHash(blob.getContentHash())).thenReturn(Optional.of(blob));
+
+        assertSame(blob, contentBlobService.store(XML));
+        verify(contentBlobRepository, never()).saveAndFlush(any());
+
+        ContentBlob stored = contentBlobService.store("<helden/>");
+        assertEquals("<helden/>", stored.getText());
+        verify(contentBlobRepository).saveAndFlush(stored);
+    }
+
+    @Test
+    void testStore_ConcurrentlyStoredContentIsReRead() {
+        // Not there yet when looked up, but inserted by another request before this insert
+        when(contentBlobRepository.findByContentHash(blob.getContentHash()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(blob));
+        when(contentBlobRepository.saveAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("Unique index on content_hash violated"));
+
+        assertSame(blob, contentBlobService.store(XML));
+
+        // Anything else that fails the insert is not hidden
+        assertThrows(DataIntegrityViolationException.class, () -> contentBlobService.store("<helden/>"));
+    }
+
+    @Test
+    void testDownloadRawData() throws Exception {
+        // Weak, as the gzip and the identity representation share it
+        String etag = "W/\"" + blob.getContentHash() + '"';
+        mockMvc.perform(get("/api/characters/5/raw-data"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/xml"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"hero-5.xml\""))
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(XML));
+
+        // Compressed data is sent as stored
+        MvcResult result = mockMvc.perform(get("/api/characters/5/raw-data").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn();
+        byte[] body = result.getResponse().getContentAsByteArray();
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals(XML, new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        mockMvc.perform(get("/api/characters/5/raw-data").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        // Tags sent before they were weak still validate
+        mockMvc.perform(get("/api/characters/5/raw-data")
+                        .header(HttpHeaders.IF_NONE_MATCH, '"' + blob.getContentHash() + '"')
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/characters/6/raw-data"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testDelete_ReleasesRawData() throws Exception {
+        mockMvc.perform(delete("/api/characters/5"))
+                .andExpect(status().isNoContent());
+
+        verify(characterRepository).deleteById(5L);
+        verify(contentBlobRepository).deleteIfUnreferenced(9L);
+    }
+}
@@ -0,0 +1,225 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.repository.ChatMessageRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.GameSessionRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.UserRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.ChatStreamService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.ChatMessageDto;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.UserDto;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.GlobalExceptionHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ChatControllerTest {
+
+    private MockMvc mockMvc;
+    private ChatMessageRepository chatMessageRepository;
+    private ResourceVersionService resourceVersions;
+    private ChatStreamService chatStreamService;
+
+    @BeforeEach
+    void setUp() {
+        chatMessageRepository = mock(ChatMessageRepository.class);
+        GameSessionRepository gameSessionRepository = mock(GameSessionRepository.class);
+        when(gameSessionRepository.existsById(1L)).thenReturn(true);
+        resourceVersions = new ResourceVersionService();
+        chatStreamService = new ChatStreamService(chatMessageRepository, new SimpleMeterRegistry());
+        ChatController controller = new ChatController(chatMessageRepository, gameSessionRepository,
+                mock(UserRepository.class), resourceVersions, chatStreamService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void testGetMessages_ReturnsVersionHeaders() throws Exception {
+        mockMvc.perform(get("/api/sessions/1/chat"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", containsString("no-cache")))
+                .andExpect(content().json("[]"));
+    }
+
+    @Test
+    void testGetMessages_NotModifiedWithoutLoadingMessages() throws Exception {
+        String etag = mockMvc.perform(get("/api/sessions/1/chat"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+        clearInvocations(chatMessageRepository);
+
+        mockMvc.perform(get("/api/sessions/1/chat").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        verifyNoInteractions(chatMessageRepository);
+    }
+
+    @Test
+    void testGetMessages_NewVersionAfterChange() throws Exception {
+        String etag = mockMvc.perform(get("/api/sessions/1/chat"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        resourceVersions.bump("chatMessages", 1L);
+
+        String newEtag = mockMvc.perform(get("/api/sessions/1/chat").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, newEtag);
+    }
+
+    private static ChatMessageDto message(long id) {
+        return new ChatMessageDto(id, 1L, 3L, "alrik", "Alrik", "Message " + id, OffsetDateTime.now());
+    }
+
+    @Test
+    void testGetMessages_ReturnsLatestMessagesOldestFirst() throws Exception {
+        when(chatMessageRepository.findRecentMessages(1L, Limit.of(ChatController.DEFAULT_LIMIT)))
+                .thenReturn(List.of(message(12), message(11), message(10)));
+
+        mockMvc.perform(get("/api/sessions/1/chat"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(10))
+                .andExpect(jsonPath("$[2].id").value(12))
+                .andExpect(jsonPath("$[0].author.username").value("alrik"));
+    }
+
+    @Test
+    void testGetMessages_AfterCursor() throws Exception {
+        when(chatMessageRepository.findBySessionIdAfter(1L, 10L, Limit.of(2)))
+                .thenReturn(List.of(message(11), message(12)));
+
+        mockMvc.perform(get("/api/sessions/1/chat").param("after", "10").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(11));
+        verify(chatMessageRepository, never()).findRecentMessages(any(), any());
+    }
+
+    @Test
+    void testGetMessages_BeforeCursorOldestFirst() throws Exception {
+        when(chatMessageRepository.findBySessionIdBefore(1L, 10L, Limit.of(ChatController.DEFAULT_LIMIT)))
+                .thenReturn(List.of(message(9), message(8)));
+
+        mockMvc.perform(get("/api/sessions/1/chat").param("before", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(8))
+                .andExpect(jsonPath("$[1].id").value(9));
+    }
+
+    @Test
+    void testGetMessages_InvalidPagination() throws Exception {
+        mockMvc.perform(get("/api/sessions/1/chat").param("after", "1").param("before", "5"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/sessions/1/chat").param("limit", String.valueOf(ChatController.MAX_LIMIT + 1)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/sessions/1/chat").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(chatMessageRepository);
+    }
+
+    @Test
+    void testStreamMessages_PushesPublishedMessages() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/sessions/1/chat/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        ChatMessageDto message = new ChatMessageDto();
+        message.setId(42L);
+        message.setSessionId(1L);
+        message.setAuthor(new UserDto());
+        message.setMessage("Hello");
+        chatStreamService.publishAfterCommit(message);
+
+        // Delivered asynchronously; the event is written line by line, so wait for its data
+        String body = result.getResponse().getContentAsString();
+        for (int i = 0; i < 50 && !body.contains("\"message\":\"Hello\""); i++) {
+            Thread.sleep(20);
+            body = result.getResponse().getContentAsString();
+        }
+        assertTrue(body.contains("id:42"));
+        assertTrue(body.contains("event:message"));
+        assertTrue(body.contains("\"message\":\"Hello\""));
+        assertEquals(1, chatStreamService.getSubscriberCount(1L));
+    }
+
+    @Test
+    void testStreamMessages_ReplaysMissedMessagesOnResume() throws Exception {
+        mockMvc.perform(get("/api/sessions/1/chat/stream").header("Last-Event-ID", "7"))
+                .andExpect(request().asyncStarted());
+
+        verify(chatMessageRepository).findBySessionIdAfter(eq(1L), eq(7L), any());
+    }
+
+    @Test
+    void testStreamMessages_HoldsBackLiveMessagesUntilReplayed() throws Exception {
+        when(chatMessageRepository.findBySessionIdAfter(eq(1L), eq(7L), any())).thenAnswer(invocation -> {
+            // Committed while the replay is read: one of them is replayed as well
+            chatStreamService.publishAfterCommit(message(9L, "Live"));
+            chatStreamService.publishAfterCommit(message(8L, "Replayed"));
+            return List.of(message(8L, "Replayed"));
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/sessions/1/chat/stream").header("Last-Event-ID", "7"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = result.getResponse().getContentAsString();
+        for (int i = 0; i < 50 && !body.contains("\"message\":\"Live\""); i++) {
+            Thread.sleep(20);
+            body = result.getResponse().getContentAsString();
+        }
+        assertTrue(body.indexOf("id:8") < body.indexOf("id:9"));
+        assertEquals(body.indexOf("id:8"), body.lastIndexOf("id:8"));
+        assertTrue(body.contains("\"message\":\"Live\""));
+    }
+
+    @Test
+    void testStreamMessages_CompletesWhenReplayIsCapped() throws Exception {
+        // The maximum of one replay, so there may be more
+        List<ChatMessageDto> missed = new ArrayList<>();
+        for (long id = 8; id < 508; id++) {
+            missed.add(message(id, "Missed"));
+        }
+        when(chatMessageRepository.findBySessionIdAfter(eq(1L), eq(7L), any())).thenReturn(missed);
+
+        MvcResult result = mockMvc.perform(get("/api/sessions/1/chat/stream").header("Last-Event-ID", "7"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("id:507"));
+        assertEquals(0, chatStreamService.getSubscriberCount(1L));
+    }
+
+    @Test
+    void testStreamMessages_UnknownSession() throws Exception {
+        mockMvc.perform(get("/api/sessions/2/chat/stream"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static ChatMessageDto message(Long id, String text) {
+        ChatMessageDto message = new ChatMessageDto();
+        message.setId(id);
+        message.setSessionId(1L);
+        message.setAuthor(new UserDto());
+        message.setMessage(text);
+        return message;
+    }
+}
@@ -0,0 +1,98 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.service.EnvironmentObjectService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class EnvironmentObjectControllerTest {
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        EnvironmentObjectService service = new EnvironmentObjectService();
+        service.initialize();
+        EnvironmentObjectController controller = new EnvironmentObjectController(service);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void testGenerateEnvironmentObject_WithDefaultParameters() throws Exception {
+        mockMvc.perform(get("/api/env-object"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.parseMediaType("image/svg+xml")))
+                .andExpect(header().exists("ETag"))
+                .andExpect(content().string(containsString("<!DOCTYPE svg")))
+                .andExpect(content().string(containsString("width='80' height='80'")))
+                .andExpect(content().string(containsString("</svg>")));
+    }
+
+    @Test
+    void testGenerateEnvironmentObject_WithAllTypes() throws Exception {
+        for (String type : EnvironmentObjectController.TYPE_OPTIONS) {
+            mockMvc.perform(get("/api/env-object")
+                            .param(EnvironmentObjectController.PARAM_TYPE, type)
+                            .param(EnvironmentObjectController.PARAM_SIZE, "40"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(containsString("width='40' height='40'")));
+        }
+    }
+
+    @Test
+    void testGenerateEnvironmentObject_ReturnsNotModifiedForMatchingETag() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/env-object")
+                        .param(EnvironmentObjectController.PARAM_TYPE, EnvironmentObjectController.TYPE_HOUSE))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = result.getResponse().getHeader("ETag");
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/api/env-object")
+                        .param(EnvironmentObjectController.PARAM_TYPE, EnvironmentObjectController.TYPE_HOUSE)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testGenerateEnvironmentObject_WithInvalidColorAndSize() throws Exception {
+        mockMvc.perform(get("/api/env-object")
+                        .param(EnvironmentObjectController.PARAM_TYPE, EnvironmentObjectController.TYPE_STONE)
+                        .param(EnvironmentObjectController.PARAM_COLOR, "notacolor")
+                        .param(EnvironmentObjectController.PARAM_SIZE, "5"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("width='80' height='80'")));
+    }
+
+    @Test
+    void testGenerateEnvironmentObjects_Batch() throws Exception {
+        mockMvc.perform(post("/api/env-object/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"type\":\"tree2\",\"size\":64},{\"type\":\"stone\",\"color\":\"#696969\"},{}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].type").value("tree2"))
+                .andExpect(jsonPath("$[0].size").value(64))
+                .andExpect(jsonPath("$[1].color").value("#696969"))
+                .andExpect(jsonPath("$[2].type").value(EnvironmentObjectController.TYPE_TREE1))
+                .andExpect(jsonPath("$[2].etag").exists())
+                .andExpect(jsonPath("$[2].svg").value(containsString("</svg>")));
+    }
+
+    @Test
+    void testGetEnvironmentObjectTypes() throws Exception {
+        mockMvc.perform(get("/api/env-object/types"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(EnvironmentObjectController.TYPE_OPTIONS.length)));
+    }
+}
@@ -0,0 +1,125 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
+import de.byedev.dsatable2.dsa_table_backend.model.GameSession;
+import de.byedev.dsatable2.dsa_table_backend.model.User;
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.ChatMessageRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.GameSessionRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.UserRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.BattlemapTokenService;
+import de.byedev.dsatable2.dsa_table_backend.service.GameSessionDtoAssembler;
+import de.byedev.dsatable2.dsa_table_backend.service.LiveBattlemapService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService;
+import de.byedev.dsatable2.dsa_table_backend.service.SerializedResponseCache;
+import de.byedev.dsatable2.dsa_table_backend.service.SessionChangeFeedService;
+import de.byedev.dsatable2.dsa_table_backend.service.SocketTicketService;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class GameSessionListControllerTest {
+
+    private MockMvc mockMvc;
+    private UserRepository userRepository;
+    private BattlemapRepository battlemapRepository;
+    private List<User> users;
+
+    @BeforeEach
+    void setUp() {
+        List<GameSession> sessions = List.of(
+                session(1L, "Die Phileasson-Saga", 2L, Set.of(3L, 4L)),
+                session(10L, "Das Jahr des Feuers", 4L, Set.of(3L)));
+        GameSessionRepository gameSessionRepository = mock(GameSessionRepository.class);
+        when(gameSessionRepository.findByPlayerId(3L)).thenReturn(sessions);
+
+        users = List.of(user(2L, "rondrian"), user(3L, "alrik"), user(4L, "fenia"));
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findAllById(Set.of(2L, 3L, 4L))).thenReturn(users);
+
+        Battlemap battlemap = new Battlemap(10L);
+        battlemap.setGridSize(25);
+        battlemapRepository = mock(BattlemapRepository.class);
+        when(battlemapRepository.findBySessionIdIn(Set.of(1L, 10L))).thenReturn(List.of(battlemap));
+
+        GameSessionController controller = new GameSessionController(gameSessionRepository,
+                mock(CharacterRepository.class), battlemapRepository, mock(ChatMessageRepository.class),
+                new ResourceVersionService(), mock(SerializedResponseCache.class),
+                mock(LiveBattlemapService.class), mock(SessionChangeFeedService.class),
+                mock(BattlemapTokenService.class), new GameSessionDtoAssembler(userRepository, battlemapRepository),
+                new SocketTicketService());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private static GameSession session(Long id, String title, Long gameMasterId, Set<Long> playerIds) {
+        GameSession session = mock(GameSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.getTitle()).thenReturn(title);
+        when(session.getGameMasterId()).thenReturn(gameMasterId);
+        when(session.getPlayerIds()).thenReturn(playerIds);
+        return session;
+    }
+
+    private static User user(Long id, String username) {
+        User user = mock(User.class);
+        when(user.getId()).thenReturn(id);
+        when(user.getUsername()).thenReturn(username);
+        return user;
+    }
+
+    @Test
+    void testGetAll_SlimByDefault() throws Exception {
+        when(userRepository.findAllById(Set.of(2L, 4L))).thenReturn(List.of(users.get(0), users.get(2)));
+
+        mockMvc.perform(get("/api/sessions").param("playerId", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].title").value("Die Phileasson-Saga"))
+                .andExpect(jsonPath("$[0].gameMaster.username").value("rondrian"))
+                .andExpect(jsonPath("$[0].playerCount").value(2))
+                .andExpect(jsonPath("$[0].players").doesNotExist())
+                .andExpect(jsonPath("$[1].playerCount").value(1))
+                .andExpect(jsonPath("$[1].battlemap").doesNotExist());
+
+        // Only the game masters are loaded, battlemaps not at all
+        verify(userRepository).findAllById(Set.of(2L, 4L));
+        verifyNoInteractions(battlemapRepository);
+    }
+
+    @Test
+    void testGetAll_ExpandedLoadsUsersAndBattlemapsOnce() throws Exception {
+        mockMvc.perform(get("/api/sessions").param("playerId", "3").param("expand", "players, Battlemap"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].gameMaster.username").value("rondrian"))
+                .andExpect(jsonPath("$[0].players.length()").value(2))
+                .andExpect(jsonPath("$[0].battlemap").doesNotExist())
+                .andExpect(jsonPath("$[1].gameMaster.username").value("fenia"))
+                .andExpect(jsonPath("$[1].players[0].username").value("alrik"))
+                .andExpect(jsonPath("$[1].battlemap.gridSize").value(25));
+
+        verify(userRepository, times(1)).findAllById(any());
+        verify(userRepository, never()).findById(any());
+        verify(battlemapRepository, times(1)).findBySessionIdIn(any());
+        verify(battlemapRepository, never()).findBySessionId(any());
+    }
+
+    @Test
+    void testGetAll_UnknownExpansion() throws Exception {
+        mockMvc.perform(get("/api/sessions").param("expand", "characters"))
+                .andExpect(status().isBadRequest());
+    }
+}
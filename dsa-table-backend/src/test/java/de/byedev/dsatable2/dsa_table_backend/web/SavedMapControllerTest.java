@@ -0,0 +1,177 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.config.AuthenticatedUser;
+import de.byedev.dsatable2.dsa_table_backend.model.ContentBlob;
+import de.byedev.dsatable2.dsa_table_backend.model.SavedMap;
+import de.byedev.dsatable2.dsa_table_backend.repository.ContentBlobRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.SavedMapRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.BackgroundTextureService;
+import de.byedev.dsatable2.dsa_table_backend.service.ContentBlobService;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.SavedMapDto;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class SavedMapControllerTest {
+
+    private static final String MAP_JSON = "{\"gw\":20,\"gh\":10}";
+    private static final UsernamePasswordAuthenticationToken ALRIK =
+            new UsernamePasswordAuthenticationToken(new AuthenticatedUser(3L, "alrik"), null);
+
+    private MockMvc mockMvc;
+    private SavedMapRepository savedMapRepository;
+    private ContentBlobRepository contentBlobRepository;
+    private ContentBlob blob;
+    private SavedMap map;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        blob = spy(ContentBlob.ofGzipped(gzip(MAP_JSON)));
+        when(blob.getId()).thenReturn(9L);
+        map = new SavedMap(3L, "Taverne", blob);
+        map.setId(1L);
+        savedMapRepository = mock(SavedMapRepository.class);
+        when(savedMapRepository.findByIdAndUserId(1L, 3L)).thenReturn(Optional.of(map));
+        when(savedMapRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(savedMapRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(savedMapRepository.findMapDataByContentHash(blob.getContentHash())).thenReturn(Optional.of(blob));
+
+        contentBlobRepository = mock(ContentBlobRepository.class);
+        when(contentBlobRepository.findByContentHash(blob.getContentHash())).thenReturn(Optional.of(blob));
+        when(contentBlobRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        SavedMapController controller = new SavedMapController(savedMapRepository,
+                new ContentBlobService(contentBlobRepository, mock(PlatformTransactionManager.class)),
+                "http://localhost/api");
+        BattlemapImageController imageController = new BattlemapImageController();
+        ReflectionTestUtils.setField(imageController, "textureService", mock(BackgroundTextureService.class));
+        ReflectionTestUtils.setField(imageController, "savedMapRepository", savedMapRepository);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller, imageController)
+                .setCustomArgumentResolvers(new CurrentUserArgumentResolver())
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private static byte[] gzip(String text) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static String encode(byte[] data) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(data);
+    }
+
+    @Test
+    void testGetAllMaps_OnlyMetadataAndThumbnail() throws Exception {
+        List<SavedMapDto> summaries = List.of(new SavedMapDto(1L, "Taverne",
+                LocalDateTime.now(), LocalDateTime.now(), blob.getContentHash(), MAP_JSON.length()));
+        when(savedMapRepository.findSummariesByUserId(3L)).thenReturn(summaries);
+
+        mockMvc.perform(get("/api/saved-maps").principal(ALRIK))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Taverne"))
+                .andExpect(jsonPath("$[0].dataSize").value(MAP_JSON.length()))
+                .andExpect(jsonPath("$[0].thumbnailUrl").value("http://localhost/api/battlemap-image/maps/"
+                        + blob.getContentHash() + "?maxSize=" + BattlemapImageController.THUMBNAIL_SIZE))
+                .andExpect(jsonPath("$[0].dataParam").doesNotExist());
+        verify(savedMapRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetMapById_ReturnsData() throws Exception {
+        mockMvc.perform(get("/api/saved-maps/1").principal(ALRIK))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dataParam").value(encode(blob.getData())));
+    }
+
+    @Test
+    void testSaveMap_IdenticalDataIsShared() throws Exception {
+        // Standard base64 with padding is accepted as well
+        String dataParam = Base64.getEncoder().encodeToString(MAP_JSON.getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(post("/api/saved-maps")
+                        .principal(ALRIK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Kopie\",\"dataParam\":\"" + dataParam + "\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.dataHash").value(blob.getContentHash()))
+                .andExpect(jsonPath("$.dataParam").doesNotExist());
+        verify(contentBlobRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testUpdateMap_ReleasesReplacedData() throws Exception {
+        String dataParam = encode(gzip("{\"gw\":8,\"gh\":8}"));
+
+        mockMvc.perform(put("/api/saved-maps/1")
+                        .principal(ALRIK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"dataParam\":\"" + dataParam + "\"}"))
+                .andExpect(status().isOk());
+        assertNotSame(blob, map.getData());
+        assertEquals("{\"gw\":8,\"gh\":8}", map.getData().getText());
+        verify(contentBlobRepository).deleteIfUnreferenced(9L);
+    }
+
+    @Test
+    void testSaveMap_InvalidData() throws Exception {
+        // Not base64
+        mockMvc.perform(post("/api/saved-maps")
+                        .principal(ALRIK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Kaputt\",\"dataParam\":\"%%%\"}"))
+                .andExpect(status().isBadRequest());
+        // Truncated gzip
+        byte[] truncated = gzip(MAP_JSON);
+        mockMvc.perform(post("/api/saved-maps")
+                        .principal(ALRIK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Kaputt\",\"dataParam\":\"" + encode(Arrays.copyOf(truncated, 12)) + "\"}"))
+                .andExpect(status().isBadRequest());
+        verify(savedMapRepository, never()).save(any());
+    }
+
+    @Test
+    void testRenderSavedMap_ScaledThumbnail() throws Exception {
+        String path = "/api/battlemap-image/maps/" + blob.getContentHash();
+        String etag = mockMvc.perform(get(path).param("maxSize", "256"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("width='256' height='128' viewBox='0 0 640 320'")))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Content-addressed, so a cached copy is never loaded again
+        mockMvc.perform(get(path).param("maxSize", "256").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verify(savedMapRepository, times(1)).findMapDataByContentHash(blob.getContentHash());
+
+        mockMvc.perform(get("/api/battlemap-image/maps/" + "0".repeat(64)))
+                .andExpect(status().isNotFound());
+    }
+}
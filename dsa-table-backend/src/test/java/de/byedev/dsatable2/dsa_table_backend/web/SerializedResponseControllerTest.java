@@ -0,0 +1,137 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.config.CacheConfig;
+import de.byedev.dsatable2.dsa_table_backend.config.CacheTuningProperties;
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.HeroPropertyRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.CheckProbabilityService;
+import de.byedev.dsatable2.dsa_table_backend.service.ContentBlobService;
+import de.byedev.dsatable2.dsa_table_backend.service.HeroImportService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService;
+import de.byedev.dsatable2.dsa_table_backend.service.SerializedResponseCache;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Serialized response cache and content negotiation of {@link ConditionalResponses}, through the character
+ * endpoint
+ */
+class SerializedResponseControllerTest {
+
+    private MockMvc mockMvc;
+    private CharacterRepository characterRepository;
+    private ResourceVersionService resourceVersions;
+    private Character character;
+
+    @BeforeEach
+    void setUp() {
+        character = new Character();
+        character.setName("Fenia Fuxfell");
+        // Large enough to be stored gzipped as well
+        character.setNotes("Streunerin aus Gareth. ".repeat(100));
+        characterRepository = mock(CharacterRepository.class);
+        when(characterRepository.findById(5L)).thenAnswer(invocation -> Optional.of(character));
+
+        resourceVersions = new ResourceVersionService();
+        SerializedResponseCache serializedResponses = new SerializedResponseCache(
+                new CacheConfig().cacheManager(new CacheTuningProperties()), JsonMapper.builder().build());
+        CharacterController controller = new CharacterController(characterRepository,
+                mock(HeroPropertyRepository.class), resourceVersions, serializedResponses,
+                mock(ContentBlobService.class), mock(HeroImportService.class), new CheckProbabilityService());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private static String gunzip(byte[] data) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void testGetById_NegotiatesGzip() throws Exception {
+        MvcResult gzipped = mockMvc.perform(get("/api/characters/5").header(HttpHeaders.ACCEPT_ENCODING, "gzip, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                .andReturn();
+        String json = gunzip(gzipped.getResponse().getContentAsByteArray());
+
+        String[] refusingGzip = {"identity", "gzip;q=0", "x-gzip;q=0, br", "*;q=0", "br, gzip;q=0.0"};
+        for (String acceptEncoding : refusingGzip) {
+            mockMvc.perform(get("/api/characters/5").header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                    .andExpect(content().json(json));
+        }
+        mockMvc.perform(get("/api/characters/5"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(jsonPath("$.name").value("Fenia Fuxfell"));
+        mockMvc.perform(get("/api/characters/5").header(HttpHeaders.ACCEPT_ENCODING, "br, *;q=0.5"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+
+        // Serialized once, all later requests are served from the cache
+        verify(characterRepository, times(1)).findById(5L);
+    }
+
+    @Test
+    void testGetById_NotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/characters/5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/characters/5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+        // Weak comparison, so the gzip representation validates the same tag
+        mockMvc.perform(get("/api/characters/5").header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isNotModified());
+
+        verify(characterRepository, times(1)).findById(5L);
+    }
+
+    @Test
+    void testGetById_NeverServesStaleEntryAfterVersionBump() throws Exception {
+        String etag = mockMvc.perform(get("/api/characters/5"))
+                .andExpect(jsonPath("$.name").value("Fenia Fuxfell"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Changed without evicting the cache entry, only the version is bumped
+        character.setName("Fenia Fuxfell von Gareth");
+        resourceVersions.bump("characters", 5L);
+
+        String newEtag = mockMvc.perform(get("/api/characters/5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Fenia Fuxfell von Gareth"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newEtag);
+
+        String gzipped = gunzip(mockMvc.perform(get("/api/characters/5").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, newEtag))
+                .andReturn().getResponse().getContentAsByteArray());
+        assertTrue(gzipped.contains("Fenia Fuxfell von Gareth"));
+        verify(characterRepository, times(2)).findById(5L);
+    }
+}
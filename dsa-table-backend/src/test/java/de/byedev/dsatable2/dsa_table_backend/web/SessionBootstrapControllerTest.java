@@ -0,0 +1,161 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.config.AuthenticatedUser;
+import de.byedev.dsatable2.dsa_table_backend.model.Battlemap;
+import de.byedev.dsatable2.dsa_table_backend.model.BattlemapToken;
+import de.byedev.dsatable2.dsa_table_backend.model.Character;
+import de.byedev.dsatable2.dsa_table_backend.model.GameSession;
+import de.byedev.dsatable2.dsa_table_backend.model.User;
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.ChatMessageRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.GameSessionRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.UserRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.BattlemapTokenService;
+import de.byedev.dsatable2.dsa_table_backend.service.GameSessionDtoAssembler;
+import de.byedev.dsatable2.dsa_table_backend.service.LiveBattlemapService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService;
+import de.byedev.dsatable2.dsa_table_backend.service.SerializedResponseCache;
+import de.byedev.dsatable2.dsa_table_backend.service.SessionChangeFeedService;
+import de.byedev.dsatable2.dsa_table_backend.service.SessionChangeLog;
+import de.byedev.dsatable2.dsa_table_backend.service.SocketTicketService;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.CharacterSummary;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.ChatMessageDto;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class SessionBootstrapControllerTest {
+
+    private MockMvc mockMvc;
+    private UserRepository userRepository;
+    private BattlemapRepository battlemapRepository;
+    private CharacterRepository characterRepository;
+    private ChatMessageRepository chatMessageRepository;
+
+    @BeforeEach
+    void setUp() {
+        GameSession session = mock(GameSession.class);
+        when(session.getId()).thenReturn(1L);
+        when(session.getTitle()).thenReturn("Die Phileasson-Saga");
+        when(session.getGameMasterId()).thenReturn(2L);
+        when(session.getPlayerIds()).thenReturn(Set.of(3L));
+        GameSessionRepository gameSessionRepository = mock(GameSessionRepository.class);
+        when(gameSessionRepository.findById(1L)).thenReturn(Optional.of(session));
+
+        User player = mock(User.class);
+        when(player.getId()).thenReturn(3L);
+        when(player.getUsername()).thenReturn("alrik");
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findAllById(Set.of(2L, 3L))).thenReturn(List.of(player));
+
+        CharacterSummary mine = new CharacterSummary();
+        mine.setId(5L);
+        mine.setName("Fenia");
+        mine.setOwnerId(3L);
+        mine.setSessionId(1L);
+        CharacterSummary other = new CharacterSummary();
+        other.setId(6L);
+        other.setName("Krixnix");
+        other.setOwnerId(4L);
+        other.setSessionId(1L);
+        Character mineFull = mock(Character.class);
+        when(mineFull.getId()).thenReturn(5L);
+        when(mineFull.getName()).thenReturn("Fenia");
+        characterRepository = mock(CharacterRepository.class);
+        when(characterRepository.findSummariesBySessionId(1L)).thenReturn(List.of(mine, other));
+        when(characterRepository.findById(5L)).thenReturn(Optional.of(mineFull));
+
+        Battlemap battlemap = mock(Battlemap.class);
+        when(battlemap.getSessionId()).thenReturn(1L);
+        List<BattlemapToken> tokens = new ArrayList<>();
+        BattlemapToken token = new BattlemapToken(battlemap, 1L, 10.0, 20.0, false);
+        token.setCharacterId(5L);
+        tokens.add(token);
+        tokens.add(new BattlemapToken(battlemap, 2L, 30.0, 40.0, true));
+        when(battlemap.getTokens()).thenReturn(tokens);
+        battlemapRepository = mock(BattlemapRepository.class);
+        when(battlemapRepository.findBySessionId(1L)).thenReturn(Optional.of(battlemap));
+
+        chatMessageRepository = mock(ChatMessageRepository.class);
+        when(chatMessageRepository.findRecentMessages(eq(1L), any())).thenReturn(List.of(
+                new ChatMessageDto(11L, 1L, 3L, "alrik", "Alrik", "Second", OffsetDateTime.now()),
+                new ChatMessageDto(10L, 1L, 3L, "alrik", "Alrik", "First", OffsetDateTime.now())));
+
+        GameSessionDtoAssembler assembler = new GameSessionDtoAssembler(userRepository, battlemapRepository);
+        SessionChangeFeedService feed = new SessionChangeFeedService(new SessionChangeLog(), gameSessionRepository,
+                characterRepository, chatMessageRepository, assembler, new ResourceVersionService(),
+                mock(PlatformTransactionManager.class));
+        GameSessionController controller = new GameSessionController(gameSessionRepository,
+                characterRepository, battlemapRepository, chatMessageRepository,
+                new ResourceVersionService(), mock(SerializedResponseCache.class), mock(LiveBattlemapService.class), feed,
+                mock(BattlemapTokenService.class), assembler, new SocketTicketService());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setCustomArgumentResolvers(new CurrentUserArgumentResolver())
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void testBootstrap_ContainsEverythingToOpenTheSession() throws Exception {
+        mockMvc.perform(get("/api/sessions/1/bootstrap")
+                        .principal(new UsernamePasswordAuthenticationToken(new AuthenticatedUser(3L, "alrik"), null)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changesCursor").exists())
+                .andExpect(jsonPath("$.session.title").value("Die Phileasson-Saga"))
+                .andExpect(jsonPath("$.session.players[0].username").value("alrik"))
+                .andExpect(jsonPath("$.characters.length()").value(2))
+                .andExpect(jsonPath("$.myCharacter.name").value("Fenia"))
+                .andExpect(jsonPath("$.battlemap.tokens[0].playerName").value("Fenia"))
+                .andExpect(jsonPath("$.battlemap.tokens[1].playerName").value("npc"))
+                // Oldest first
+                .andExpect(jsonPath("$.chatMessages[0].message").value("First"))
+                .andExpect(jsonPath("$.chatMessages[1].message").value("Second"));
+
+        // Users are loaded at once, the battlemap once for the tokens; summaries are read once for the list and the tokens, only my character fully
+        verify(userRepository).findAllById(Set.of(2L, 3L));
+        verify(userRepository, never()).findById(any());
+        verify(battlemapRepository, times(1)).findBySessionId(1L);
+        verify(characterRepository, times(1)).findSummariesBySessionId(1L);
+        verify(characterRepository).findById(5L);
+        verify(characterRepository, never()).findById(6L);
+        verify(characterRepository, never()).findBySessionId(any());
+        verify(characterRepository, never()).findByOwnerId(any());
+        verify(chatMessageRepository).findRecentMessages(1L, Limit.of(ChatController.DEFAULT_LIMIT));
+    }
+
+    @Test
+    void testBootstrap_WithoutChatAndUser() throws Exception {
+        mockMvc.perform(get("/api/sessions/1/bootstrap").param("chatLimit", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.myCharacter").doesNotExist())
+                .andExpect(jsonPath("$.chatMessages").isEmpty());
+        verifyNoInteractions(chatMessageRepository);
+    }
+
+    @Test
+    void testBootstrap_InvalidRequests() throws Exception {
+        mockMvc.perform(get("/api/sessions/1/bootstrap")
+                        .param("chatLimit", String.valueOf(GameSessionController.MAX_BOOTSTRAP_CHAT_MESSAGES + 1)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/sessions/2/bootstrap"))
+                .andExpect(status().isNotFound());
+    }
+}
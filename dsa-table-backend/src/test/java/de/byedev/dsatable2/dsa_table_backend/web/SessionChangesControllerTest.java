@@ -0,0 +1,186 @@
+package de.byedev.dsatable2.dsa_table_backend.web;
+
+import de.byedev.dsatable2.dsa_table_backend.repository.BattlemapRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.CharacterRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.ChatMessageRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.GameSessionRepository;
+import de.byedev.dsatable2.dsa_table_backend.repository.UserRepository;
+import de.byedev.dsatable2.dsa_table_backend.service.BattlemapTokenService;
+import de.byedev.dsatable2.dsa_table_backend.service.GameSessionDtoAssembler;
+import de.byedev.dsatable2.dsa_table_backend.service.LiveBattlemapService;
+import de.byedev.dsatable2.dsa_table_backend.service.ResourceVersionService;
+import de.byedev.dsatable2.dsa_table_backend.service.SerializedResponseCache;
+import de.byedev.dsatable2.dsa_table_backend.service.SessionChangeFeedService;
+import de.byedev.dsatable2.dsa_table_backend.service.SessionChangeLog;
+import de.byedev.dsatable2.dsa_table_backend.service.SessionChangeLog.ChangeType;
+import de.byedev.dsatable2.dsa_table_backend.service.SocketTicketService;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.CharacterSummary;
+import de.byedev.dsatable2.dsa_table_backend.web.dto.ChatMessageDto;
+import de.byedev.dsatable2.dsa_table_backend.web.exception.GlobalExceptionHandler;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class SessionChangesControllerTest {
+
+    private MockMvc mockMvc;
+    private SessionChangeLog changeLog;
+    private CharacterRepository characterRepository;
+    private ChatMessageRepository chatMessageRepository;
+
+    @BeforeEach
+    void setUp() {
+        GameSessionRepository gameSessionRepository = mock(GameSessionRepository.class);
+        when(gameSessionRepository.existsById(1L)).thenReturn(true);
+        characterRepository = mock(CharacterRepository.class);
+        chatMessageRepository = mock(ChatMessageRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        ResourceVersionService resourceVersions = new ResourceVersionService();
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        changeLog = new SessionChangeLog();
+        BattlemapRepository battlemapRepository = mock(BattlemapRepository.class);
+        GameSessionDtoAssembler assembler = new GameSessionDtoAssembler(userRepository, battlemapRepository);
+        SessionChangeFeedService feed = new SessionChangeFeedService(changeLog, gameSessionRepository,
+                characterRepository, chatMessageRepository, assembler, resourceVersions, transactionManager);
+        GameSessionController controller = new GameSessionController(gameSessionRepository,
+                characterRepository, battlemapRepository, chatMessageRepository,
+                resourceVersions, mock(SerializedResponseCache.class), mock(LiveBattlemapService.class), feed,
+                mock(BattlemapTokenService.class), assembler, new SocketTicketService());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private String startCursor() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/sessions/1/changes")).andReturn();
+        return JsonPath.read(
+                mockMvc.perform(asyncDispatch(result)).andReturn().getResponse().getContentAsString(), "$.cursor");
+    }
+
+    @Test
+    void testChanges_WithoutCursorRequestsResync() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/sessions/1/changes"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resync").value(true))
+                .andExpect(jsonPath("$.cursor").exists());
+    }
+
+    @Test
+    void testChanges_NoChangesUntilTimeout() throws Exception {
+        String cursor = startCursor();
+
+        MvcResult result = mockMvc.perform(get("/api/sessions/1/changes").param("since", cursor).param("wait", "0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resync").value(false))
+                .andExpect(jsonPath("$.cursor").value(cursor))
+                .andExpect(jsonPath("$.characters").isEmpty());
+        verifyNoInteractions(characterRepository, chatMessageRepository);
+    }
+
+    @Test
+    void testChanges_LongPollWakesUpOnChange() throws Exception {
+        String cursor = startCursor();
+        ChatMessageDto message = new ChatMessageDto(42L, 1L, 3L, "alrik", "Alrik", "Hello", OffsetDateTime.now());
+        when(chatMessageRepository.findBySessionIdAfter(eq(1L), eq(41L), any())).thenReturn(List.of(message));
+
+        MvcResult result = mockMvc.perform(get("/api/sessions/1/changes").param("since", cursor))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // Parked: nothing is read before the change
+        Thread.sleep(100);
+        verifyNoInteractions(chatMessageRepository);
+
+        changeLog.record(1L, ChangeType.CHAT, 42L);
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.chatMessages[0].id").value(42))
+                .andExpect(jsonPath("$.cursor").value(not(cursor)));
+    }
+
+    @Test
+    void testChanges_TooManyChatMessagesRequestResync() throws Exception {
+        String cursor = startCursor();
+        // The maximum of one response, so there may be more
+        List<ChatMessageDto> messages = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            messages.add(new ChatMessageDto(id, 1L, 3L, "alrik", "Alrik", "Hello", OffsetDateTime.now()));
+        }
+        when(chatMessageRepository.findBySessionIdAfter(eq(1L), eq(0L), any())).thenReturn(messages);
+        changeLog.record(1L, ChangeType.CHAT, 1L);
+
+        MvcResult result = mockMvc.perform(get("/api/sessions/1/changes").param("since", cursor))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resync").value(true))
+                .andExpect(jsonPath("$.chatMessages").isEmpty());
+    }
+
+    @Test
+    void testChanges_CharacterChangesAndRemovals() throws Exception {
+        String cursor = startCursor();
+        CharacterSummary stayed = new CharacterSummary();
+        stayed.setId(5L);
+        stayed.setSessionId(1L);
+        CharacterSummary left = new CharacterSummary();
+        left.setId(6L);
+        left.setSessionId(2L);
+        when(characterRepository.findSummariesByIds(any())).thenReturn(List.of(stayed, left));
+
+        changeLog.record(1L, ChangeType.CHARACTER, 5L);
+        changeLog.record(1L, ChangeType.CHARACTER, 6L);
+        changeLog.record(1L, ChangeType.CHARACTER, 7L);
+        changeLog.record(1L, ChangeType.CHARACTER, 5L);
+
+        MvcResult result = mockMvc.perform(get("/api/sessions/1/changes").param("since", cursor))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.characters.length()").value(1))
+                .andExpect(jsonPath("$.removedCharacterIds.length()").value(2));
+        verify(characterRepository, times(1)).findSummariesByIds(any());
+        verify(characterRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void testChanges_CursorFromPreviousRunRequestsResync() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/sessions/1/changes").param("since", "oldepoch-12"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(jsonPath("$.resync").value(true));
+    }
+
+    @Test
+    void testChanges_InvalidRequests() throws Exception {
+        mockMvc.perform(get("/api/sessions/1/changes").param("since", "garbage"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/sessions/2/changes"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -461,8 +461,8 @@ export class BackgroundImageDialogComponent implements OnInit {
     if (this.selectedType === 'savedMap' && this.selectedMapId) {
       const selectedMap = this.savedMaps.find(m => m.id === this.selectedMapId);
       if (selectedMap) {
-        // Generate battlemap image URL from saved map dataParam
-        const previewUrl = `${environment.apiUrl}/battlemap-image?data=${encodeURIComponent(selectedMap.dataParam)}`;
+        // The list only contains a thumbnail, the map data is loaded on confirm
+        const previewUrl = selectedMap.thumbnailUrl;
         this.selectedMapPreview = previewUrl;
         this.loadPreviewSvg(previewUrl, (content) => this.selectedMapSvgContent = content);
       } else {
@@ -491,15 +491,18 @@ export class BackgroundImageDialogComponent implements OnInit {
     } else if (this.selectedType === 'savedMap' && this.selectedMapId) {
       // Ensure selectedMapId is a number for comparison
       const mapId = typeof this.selectedMapId === 'string' ? Number(this.selectedMapId) : this.selectedMapId;
-      const selectedMap = this.savedMaps.find(m => m.id === mapId);
-      if (selectedMap) {
-        // Generate battlemap image URL from saved map dataParam
-        const imageUrl = `${environment.apiUrl}/battlemap-image?data=${encodeURIComponent(selectedMap.dataParam)}`;
-        // Also pass the dataParam so we can extract environment objects
-        this.confirm.emit({ imageUrl, dataParam: selectedMap.dataParam });
-      } else {
-        console.error('Selected map not found for id:', mapId);
-      }
+      this.savedMapsService.getMapById(mapId).subscribe({
+        next: (map) => {
+          const dataParam = map.dataParam ?? '';
+          // Generate battlemap image URL from saved map dataParam
+          const imageUrl = `${environment.apiUrl}/battlemap-image?data=${encodeURIComponent(dataParam)}`;
+          // Also pass the dataParam so we can extract environment objects
+          this.confirm.emit({ imageUrl, dataParam });
+        },
+        error: (err) => {
+          console.error('Error loading saved map:', mapId, err);
+        }
+      });
     }
   }
 
@@ -3,13 +3,13 @@ import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
 import { HttpClient } from '@angular/common/http';
 import { DomSanitizer, SafeHtml } from '@angular/platform-browser';
-import { GameSessionService } from '../../services/game-session.service';
+import { BattlemapChannel, GameSessionService } from '../../services/game-session.service';
 import { CharacterService } from '../../services/character.service';
 import { ViewportService } from '../../services/viewport.service';
 import { GridService } from '../../services/grid.service';
 import { FogOfWarService } from '../../services/fog-of-war.service';
-import { Battlemap, BattlemapToken } from '../../models/battlemap.model';
-import { Character } from '../../models/character.model';
+import { Battlemap, BattlemapToken, TokenDelta } from '../../models/battlemap.model';
+import { Character, CharacterSummary } from '../../models/character.model';
 import { environment } from '../../../environments/environment';
 import { Subscription, forkJoin, of } from 'rxjs';
 import { map, catchError } from 'rxjs/operators';
@@ -27,6 +27,10 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
   @Input() sessionId?: number;
   @Input() mapImageUrl?: string;
   @Input() isGameMaster: boolean = false;
+  /** Battlemap loaded with the session; loaded separately if not given */
+  @Input() initialBattlemap?: Battlemap;
+  /** Own character loaded with the session (null: none); requested separately if undefined */
+  @Input() playerCharacter?: Character | null;
   
   @HostListener('document:click', ['$event'])
   onDocumentClick(event: MouseEvent): void {
@@ -37,12 +41,16 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
   
   private battlemapSubscription?: Subscription;
   private pollingSubscription?: Subscription;
+  private battlemapChannel?: BattlemapChannel;
+  private channelSubscription?: Subscription;
+  private lastLiveMoveSentAt: number = 0;
   private saveTimeout?: any;
   private isSaving: boolean = false;
   private lastSavedTokenHash: string = '';
   
   private readonly SAVE_DEBOUNCE_MS = 300;
   private readonly POLLING_INTERVAL_MS = 2000;
+  private readonly LIVE_MOVE_INTERVAL_MS = 50;
   
   @ViewChild('mapViewport', { static: false }) mapViewport!: ElementRef<HTMLDivElement>;
   @ViewChild('mapCanvas', { static: false }) mapCanvas!: ElementRef<HTMLDivElement>;
@@ -112,9 +120,14 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
         this.mapInitialized = true;
       }
       this.setupEventListeners();
-      this.loadBattlemap();
+      if (this.initialBattlemap) {
+        this.applyBattlemapData(this.initialBattlemap, false);
+      } else {
+        this.loadBattlemap();
+      }
       this.loadPlayerCharacter();
       this.startPolling();
+      this.connectLiveChannel();
       
       // Load SVG if mapImageUrl is already set
       if (this.mapImageUrl) {
@@ -130,6 +143,10 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
     if (this.pollingSubscription) {
       this.pollingSubscription.unsubscribe();
     }
+    if (this.channelSubscription) {
+      this.channelSubscription.unsubscribe();
+    }
+    this.battlemapChannel?.close();
     if (this.saveTimeout) {
       clearTimeout(this.saveTimeout);
     }
@@ -154,6 +171,10 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
     if (!this.sessionId || this.isGameMaster) {
       return;
     }
+    if (this.playerCharacter !== undefined) {
+      this.playerCharacterName = this.playerCharacter?.name || null;
+      return;
+    }
     
     this.gameSessionService.getMyCharacter(this.sessionId).subscribe({
       next: (character) => {
@@ -321,7 +342,7 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
   }
   
   private updateFogOfWar(battlemap: Battlemap): void {
-    this.fogOfWarService.setFogAreas(battlemap.fogRevealedAreas || []);
+    this.fogOfWarService.setFogBitmap(battlemap.fog, battlemap.fogColumns ?? this.gridService.gridSize);
   }
   
   private handleInitialMapCentering(skipIfSaving: boolean): void {
@@ -345,7 +366,8 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
     
     this.pollingSubscription = this.gameSessionService.pollBattlemap(this.sessionId, this.POLLING_INTERVAL_MS).subscribe({
       next: (battlemap) => {
-        if (battlemap) {
+        // While the live channel is connected, token changes arrive as deltas instead
+        if (battlemap && !this.battlemapChannel?.isConnected()) {
           this.applyBattlemapData(battlemap, true);
         }
       },
@@ -355,6 +377,76 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
     });
   }
   
+  /**
+   * Connect to the live battlemap channel: token moves, adds and removes are exchanged as deltas,
+   * everything else (appearance, grid, fog, background) is still saved as a whole
+   */
+  private connectLiveChannel(): void {
+    if (!this.sessionId) return;
+    
+    this.battlemapChannel = this.gameSessionService.connectBattlemap(this.sessionId);
+    this.channelSubscription = this.battlemapChannel.deltas.subscribe(delta => this.applyTokenDelta(delta));
+  }
+  
+  private applyTokenDelta(delta: TokenDelta): void {
+    switch (delta.op) {
+      case 'move': {
+        // Never move the token the user is dragging right now
+        const token = this.tokens.find(t => t.id === delta.tid);
+        if (token && token.id !== this.draggedTokenId && delta.x !== undefined && delta.y !== undefined) {
+          token.x = delta.x;
+          token.y = delta.y;
+        }
+        break;
+      }
+      case 'add':
+        if (delta.token && !this.tokens.some(t => t.id === delta.tid)) {
+          this.tokens.push(this.mapDtoToToken(delta.token));
+          this.nextTokenId = Math.max(this.nextTokenId, (delta.tid ?? 0) + 1);
+          this.loadTokenAvatars();
+        }
+        break;
+      case 'remove':
+        this.tokens = this.tokens.filter(t => t.id !== delta.tid);
+        break;
+      case 'reload':
+        this.loadBattlemap();
+        break;
+    }
+  }
+  
+  /**
+   * Send a token delta over the live channel. Returns false if it is not connected,
+   * in which case the caller saves the whole battlemap instead.
+   */
+  private sendTokenDelta(delta: TokenDelta): boolean {
+    return !!this.battlemapChannel && this.battlemapChannel.send(delta);
+  }
+
+  /**
+   * Write only the changed tokens (used while the live channel is down).
+   * Falls back to saving the whole battlemap if the patch fails.
+   */
+  private patchTokens(patches: BattlemapToken[]): void {
+    if (!this.sessionId) return;
+    this.gameSessionService.patchTokens(this.sessionId, patches).subscribe({
+      error: (error) => {
+        console.error('Error patching tokens:', error);
+        this.saveBattlemap();
+      }
+    });
+  }
+
+  private deleteTokens(tokenIds: number[]): void {
+    if (!this.sessionId) return;
+    this.gameSessionService.deleteTokens(this.sessionId, tokenIds).subscribe({
+      error: (error) => {
+        console.error('Error deleting tokens:', error);
+        this.saveBattlemap();
+      }
+    });
+  }
+  
   /**
    * Save battlemap data to backend (debounced)
    * IMPORTANT: Only base dimensions and token positions are saved - zoom/pan are local view state
@@ -398,7 +490,9 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
       canvasWidth: this.baseCanvasWidth,
       canvasHeight: this.baseCanvasHeight,
       tokens: this.tokens.map(token => this.mapTokenToDto(token)),
-      fogRevealedAreas: this.fogOfWarService.getFogAreas()
+      fog: this.fogOfWarService.getFogBitmap(this.gridService.gridSize, this.gridService.gridSize),
+      fogColumns: this.gridService.gridSize,
+      fogRows: this.gridService.gridSize
     };
     
     if (this.mapImageUrl !== undefined) {
@@ -806,7 +900,9 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
     this.tokens.push(token);
     this.pendingTokenConfig = null;
     
-    this.saveBattlemap();
+    if (!this.sendTokenDelta({ op: 'add', tid: token.id, token: this.mapTokenToDto(token) })) {
+      this.saveBattlemap();
+    }
     this.exitTokenPlacementMode();
   }
   
@@ -939,7 +1035,7 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
     // Clear all revealed cells (all fog everywhere)
     this.fogOfWarService.setFogAreas([]);
     this.showFogMenu = false;
-    this.saveBattlemap();
+    this.updateFogRectangle(false);
   }
   
   /**
@@ -963,7 +1059,25 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
     }
     this.fogOfWarService.setFogAreas(allCells);
     this.showFogMenu = false;
-    this.saveBattlemap();
+    this.updateFogRectangle(true);
+  }
+
+  /**
+   * Reveal or hide the whole grid on the backend without sending all cells
+   */
+  private updateFogRectangle(reveal: boolean): void {
+    if (!this.sessionId) return;
+    const size = this.gridService.gridSize;
+    const rectangle = { x: 0, y: 0, width: size, height: size };
+    const request = reveal
+      ? this.gameSessionService.revealFog(this.sessionId, rectangle)
+      : this.gameSessionService.hideFog(this.sessionId, rectangle);
+    request.subscribe({
+      error: (error) => {
+        console.error('Error updating fog of war:', error);
+        this.saveBattlemap();
+      }
+    });
   }
   
   /**
@@ -1083,7 +1197,7 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
       }
     }
     
-    this.saveBattlemap();
+    this.patchTokens([this.mapTokenToDto(token)]);
     this.closeTokenAppearanceDialog();
   }
 
@@ -1092,8 +1206,10 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
     
     const tokenIndex = this.tokens.findIndex(t => t.id === this.editingToken!.id);
     if (tokenIndex > -1) {
-      this.tokens.splice(tokenIndex, 1);
-      this.saveBattlemap();
+      const [removed] = this.tokens.splice(tokenIndex, 1);
+      if (!this.sendTokenDelta({ op: 'remove', tid: removed.id })) {
+        this.deleteTokens([removed.id]);
+      }
     }
     
     this.closeTokenAppearanceDialog();
@@ -1170,6 +1286,13 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
     if (token) {
       token.x = canvasCoords.x - this.dragStartTokenX;
       token.y = canvasCoords.y - this.dragStartTokenY;
+      
+      // Let the other players follow the drag, throttled
+      const now = Date.now();
+      if (now - this.lastLiveMoveSentAt >= this.LIVE_MOVE_INTERVAL_MS) {
+        this.lastLiveMoveSentAt = now;
+        this.sendTokenDelta({ op: 'move', tid: token.id, x: token.x, y: token.y });
+      }
     }
   }
   
@@ -1184,7 +1307,9 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
       // Snap to grid
       token.x = this.snapToGrid(token.x, false);
       token.y = this.snapToGrid(token.y, true);
-      this.saveBattlemap();
+      if (!this.sendTokenDelta({ op: 'move', tid: token.id, x: token.x, y: token.y })) {
+        this.patchTokens([{ tid: token.id, x: token.x, y: token.y }]);
+      }
     }
     
     // Reset drag state
@@ -1309,8 +1434,8 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
   loadTokenAvatars(): void {
     if (!this.sessionId) return;
     
-    this.characterService.getAllCharacters(undefined, this.sessionId).subscribe({
-      next: (characters: Character[]) => {
+    this.characterService.getCharacterSummaries(undefined, this.sessionId).subscribe({
+      next: (characters: CharacterSummary[]) => {
         const { characterMap, avatarMap } = this.buildCharacterMaps(characters);
         this.updateTokensWithCharacterData(characterMap, avatarMap);
       },
@@ -1320,7 +1445,7 @@ export class BattlemapComponent implements AfterViewInit, OnDestroy, OnChanges {
     });
   }
   
-  private buildCharacterMaps(characters: Character[]): { characterMap: Map<string, Character>; avatarMap: Map<string, string> } {
+  private buildCharacterMaps(characters: CharacterSummary[]): { characterMap: Map<string, Character>; avatarMap: Map<string, string> } {
     const characterMap = new Map<string, Character>();
     const avatarMap = new Map<string, string>();
     
@@ -4,7 +4,7 @@ import { FormsModule } from '@angular/forms';
 import { TranslateModule } from '@ngx-translate/core';
 import { CharacterService } from '../../services/character.service';
 import { AuthService } from '../../services/auth.service';
-import { Character } from '../../models/character.model';
+import { Character, HeroImportResult } from '../../models/character.model';
 import { CharacterCardComponent } from '../character-card/character-card.component';
 
 @Component({
@@ -66,11 +66,12 @@ export class CharacterListComponent implements OnInit {
   }
 
   handleFile(file: File): void {
-    if (file.type === 'text/xml' || file.type === 'application/xml' || file.name.endsWith('.xml')) {
+    if (file.type === 'text/xml' || file.type === 'application/xml' || file.name.endsWith('.xml')
+        || this.isZip(file)) {
       this.selectedFile = file;
       this.uploadError = null;
     } else {
-      this.uploadError = 'Please select a valid XML file';
+      this.uploadError = 'Please select a valid XML or ZIP file';
       this.selectedFile = null;
     }
   }
@@ -106,6 +107,11 @@ export class CharacterListComponent implements OnInit {
     this.uploading = true;
     this.uploadError = null;
 
+    if (this.isZip(this.selectedFile)) {
+      this.uploadCharacters(this.selectedFile);
+      return;
+    }
+
     this.characterService.uploadCharacterFromXml(this.selectedFile).subscribe({
       next: (character: Character) => {
         this.uploading = false;
@@ -126,6 +132,34 @@ export class CharacterListComponent implements OnInit {
     });
   }
 
+  private isZip(file: File): boolean {
+    return file.type === 'application/zip' || file.type === 'application/x-zip-compressed'
+      || file.name.toLowerCase().endsWith('.zip');
+  }
+
+  /**
+   * Import a ZIP archive of hero XML files; files that failed are listed in the upload error
+   */
+  private uploadCharacters(file: File): void {
+    this.characterService.uploadCharactersFromZip(file).subscribe({
+      next: (result: HeroImportResult) => {
+        this.uploading = false;
+        this.clearFileSelection();
+        const failed = result.files.filter(f => f.status === 'FAILED');
+        if (failed.length > 0) {
+          this.uploadError = `Imported ${result.imported} characters, failed: `
+            + failed.map(f => `${f.fileName} (${f.error})`).join(', ');
+        }
+        this.loadCharacters();
+      },
+      error: (err: any) => {
+        this.uploading = false;
+        this.uploadError = err.error?.message || 'Failed to upload characters. Please check the ZIP file.';
+        console.error('Error uploading characters:', err);
+      }
+    });
+  }
+
   clearFileSelection(): void {
     this.selectedFile = null;
     this.uploadError = null;
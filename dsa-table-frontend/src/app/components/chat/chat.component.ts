@@ -16,17 +16,22 @@ import { Subscription } from 'rxjs';
 })
 export class ChatComponent implements OnInit, OnDestroy, AfterViewChecked {
   @Input() sessionId!: number;
+  /** Latest messages loaded with the session (oldest first); loaded separately if not given */
+  @Input() initialMessages?: ChatMessage[];
   @ViewChild('messagesContainer') private messagesContainer!: ElementRef;
   @ViewChild('messageInput') private messageInput!: ElementRef;
 
   messages: ChatMessage[] = [];
   newMessage: string = '';
   loading = false;
+  loadingOlder = false;
+  hasOlderMessages = false;
   sending = false;
   error: string | null = null;
   currentUserId: number | null = null;
-  private pollingSubscription?: Subscription;
+  private streamSubscription?: Subscription;
   private shouldScrollToBottom = false;
+  private readonly PAGE_SIZE = 100;
 
   constructor(
     private chatService: ChatService,
@@ -39,14 +44,13 @@ export class ChatComponent implements OnInit, OnDestroy, AfterViewChecked {
       this.currentUserId = currentUser.id;
     }
 
+    // Load the history once, then receive new messages via the chat stream
     this.loadMessages();
-    // Start polling for new messages
-    this.startPolling();
   }
 
   ngOnDestroy(): void {
-    if (this.pollingSubscription) {
-      this.pollingSubscription.unsubscribe();
+    if (this.streamSubscription) {
+      this.streamSubscription.unsubscribe();
     }
   }
 
@@ -58,14 +62,18 @@ export class ChatComponent implements OnInit, OnDestroy, AfterViewChecked {
   }
 
   loadMessages(): void {
+    if (this.initialMessages) {
+      this.showLatestMessages(this.initialMessages);
+      return;
+    }
+
     this.loading = true;
     this.error = null;
 
-    this.chatService.getMessages(this.sessionId).subscribe({
+    this.chatService.getMessages(this.sessionId, { limit: this.PAGE_SIZE }).subscribe({
       next: (data: ChatMessage[]) => {
-        this.messages = data;
         this.loading = false;
-        this.shouldScrollToBottom = true;
+        this.showLatestMessages(data);
       },
       error: (err: any) => {
         this.error = 'Failed to load messages.';
@@ -75,22 +83,59 @@ export class ChatComponent implements OnInit, OnDestroy, AfterViewChecked {
     });
   }
 
-  startPolling(): void {
-    this.pollingSubscription = this.chatService.pollMessages(this.sessionId).subscribe({
-      next: (data: ChatMessage[]) => {
-        // Only update if we have new messages
-        if (data.length !== this.messages.length || 
-            (data.length > 0 && this.messages.length > 0 && 
-             data[data.length - 1].id !== this.messages[this.messages.length - 1].id)) {
+  private showLatestMessages(data: ChatMessage[]): void {
+    this.messages = data;
+    this.hasOlderMessages = data.length >= this.PAGE_SIZE;
+    this.shouldScrollToBottom = true;
+    // Resume after the last loaded message, or from the start if there is none, so messages written
+    // between loading and connecting are replayed
+    const lastMessage = data.length > 0 ? data[data.length - 1] : undefined;
+    this.startStreaming(lastMessage?.id ?? 0);
+  }
+
+  /**
+   * Load the previous page of the history when scrolled to the top, keeping the scroll position
+   */
+  onMessagesScroll(): void {
+    if (!this.messagesContainer || this.loadingOlder || !this.hasOlderMessages || this.messages.length === 0) {
+      return;
+    }
+    const element = this.messagesContainer.nativeElement;
+    if (element.scrollTop > 50) {
+      return;
+    }
+
+    this.loadingOlder = true;
+    this.chatService.getMessages(this.sessionId, { before: this.messages[0].id, limit: this.PAGE_SIZE }).subscribe({
+      next: (older: ChatMessage[]) => {
+        const previousHeight = element.scrollHeight;
+        this.messages = [...older, ...this.messages];
+        this.hasOlderMessages = older.length === this.PAGE_SIZE;
+        this.loadingOlder = false;
+        setTimeout(() => element.scrollTop = element.scrollHeight - previousHeight + element.scrollTop, 0);
+      },
+      error: (err: any) => {
+        this.loadingOlder = false;
+        console.error('Error loading older messages:', err);
+      }
+    });
+  }
+
+  startStreaming(lastMessageId?: number): void {
+    this.streamSubscription?.unsubscribe();
+    this.streamSubscription = this.chatService.streamMessages(this.sessionId, lastMessageId).subscribe({
+      next: (message: ChatMessage) => {
+        // Own messages may already have been added from the send response
+        if (!this.messages.find(m => m.id === message.id)) {
           const wasAtBottom = this.isScrolledToBottom();
-          this.messages = data;
+          this.messages.push(message);
           if (wasAtBottom) {
             this.shouldScrollToBottom = true;
           }
         }
       },
       error: (err: any) => {
-        console.error('Error polling messages:', err);
+        console.error('Error streaming messages:', err);
       }
     });
   }
@@ -108,7 +153,7 @@ export class ChatComponent implements OnInit, OnDestroy, AfterViewChecked {
 
     this.chatService.sendMessage(this.sessionId, textToSend).subscribe({
       next: (message: ChatMessage) => {
-        // Message will be added via polling, but we can add it immediately for better UX
+        // Message will also arrive via the stream, but we can add it immediately for better UX
         if (!this.messages.find(m => m.id === message.id)) {
           this.messages.push(message);
           this.shouldScrollToBottom = true;
@@ -7,15 +7,15 @@ import { CharacterService } from '../../services/character.service';
 import { ChatService } from '../../services/chat.service';
 import { AuthService } from '../../services/auth.service';
 import { UserService } from '../../services/user.service';
-import { GameSession } from '../../models/game-session.model';
-import { Character, Talent, Spell, Weapon } from '../../models/character.model';
+import { GameSession, SessionBootstrap, SessionChanges } from '../../models/game-session.model';
+import { Character, CharacterSummary, Talent, Spell, Weapon } from '../../models/character.model';
 import { rollAttackOrParry } from '../../utils/dsa-rolls.util';
 import { WeaponManagerDialogComponent } from './weapon-manager-dialog.component';
 import { ChatComponent } from '../chat/chat.component';
 import { BattlemapComponent } from '../battlemap/battlemap.component';
 import { environment } from '../../../environments/environment';
-import { Subscription, interval, forkJoin, of } from 'rxjs';
-import { switchMap, startWith, map, catchError } from 'rxjs/operators';
+import { Subscription, timer, forkJoin, of } from 'rxjs';
+import { map, catchError } from 'rxjs/operators';
 
 @Component({
   selector: 'app-game-session-detail',
@@ -30,7 +30,7 @@ export class GameSessionDetailComponent implements OnInit, AfterViewInit, OnDest
   @ViewChild('talentWrapper') talentWrapper!: ElementRef<HTMLDivElement>;
   
   session: GameSession | null = null;
-  characters: Character[] = [];
+  characters: CharacterSummary[] = [];
   loading = false;
   error: string | null = null;
   sessionId: number | null = null;
@@ -40,14 +40,19 @@ export class GameSessionDetailComponent implements OnInit, AfterViewInit, OnDest
   
   // Character selection for joining session
   showCharacterSelection = false;
-  availableCharacters: Character[] = [];
+  availableCharacters: CharacterSummary[] = [];
   selectedCharacterId: number | null = null;
   joiningSession = false;
   myCharacter: Character | null = null;
   
-  // Polling subscriptions
-  private charactersPollingSubscription?: Subscription;
-  private sessionPollingSubscription?: Subscription;
+  // Initial battlemap and chat messages, loaded together with the session
+  bootstrap: SessionBootstrap | null = null;
+  bootstrapDone = false;
+
+  // Session change feed
+  private changesSubscription?: Subscription;
+  private changesCursor?: string;
+  private readonly CHANGES_RETRY_DELAY_MS = 5000;
   
   // Owner information cache
   private ownerNames: Map<number, string> = new Map();
@@ -94,9 +99,8 @@ export class GameSessionDetailComponent implements OnInit, AfterViewInit, OnDest
     this.route.params.subscribe(params => {
       this.sessionId = +params['id'];
       if (this.sessionId) {
-        this.loadSession();
-        this.loadCharacters();
-        this.startPolling();
+        this.stopPolling();
+        this.loadBootstrap();
       }
     });
   }
@@ -109,95 +113,120 @@ export class GameSessionDetailComponent implements OnInit, AfterViewInit, OnDest
     this.stopPolling();
   }
 
-  startPolling(): void {
+  /**
+   * Load session, characters, the own character, battlemap and chat with one request, then follow
+   * the change feed from there. Also used to start over when the feed asks for a resync.
+   */
+  loadBootstrap(): void {
     if (!this.sessionId) return;
 
-    // Poll for characters every 5 seconds
-    this.charactersPollingSubscription = interval(5000).pipe(
-      startWith(0),
-      switchMap(() => {
-        if (!this.sessionId) return [];
-        return this.characterService.getAllCharacters(undefined, this.sessionId);
-      })
-    ).subscribe({
-      next: (data: Character[]) => {
-        // Only update if characters have changed
-        const currentIds = this.characters.map(c => c.id).sort().join(',');
-        const newIds = data.map(c => c.id).sort().join(',');
-        
-        if (currentIds !== newIds || this.characters.length !== data.length) {
-          // Sort by initiative (descending), then by name
-          this.characters = this.sortCharactersList(data);
-          // Load owner names for any new characters
-          this.loadOwnerNames(this.characters);
-        } else {
-          // Even if IDs are the same, update data in case stats changed
-          // Merge updates to preserve any local state
-          data.forEach(newChar => {
-            const existing = this.characters.find(c => c.id === newChar.id);
-            if (existing) {
-              // Update properties but preserve order
-              Object.assign(existing, newChar);
-            }
-          });
-          // Re-sort in case initiative values changed
-          this.characters = this.sortCharactersList(this.characters);
+    const sessionId = this.sessionId;
+    // Keep the view (and the battlemap and chat with their own live updates) when reloading
+    this.loading = !this.session;
+    this.error = null;
+
+    this.changesSubscription = this.gameSessionService.getBootstrap(sessionId).subscribe({
+      next: (bootstrap: SessionBootstrap) => {
+        this.bootstrap = bootstrap;
+        this.session = bootstrap.session;
+        this.characters = this.sortCharactersList(bootstrap.characters);
+        this.loadOwnerNames(this.characters);
+        this.loading = false;
+        this.bootstrapDone = true;
+        this.checkIfJoined(bootstrap.myCharacter ?? null);
+        this.changesCursor = bootstrap.changesCursor;
+        if (this.sessionId === sessionId) {
+          this.pollChanges();
         }
       },
       error: (err: any) => {
-        console.error('Error polling characters:', err);
+        console.error('Error loading game session:', err);
+        if (!this.session) {
+          this.error = 'Failed to load game session.';
+        }
+        this.loading = false;
+        this.changesSubscription = timer(this.CHANGES_RETRY_DELAY_MS).subscribe(() => this.loadBootstrap());
       }
     });
+  }
 
-    // Poll for session data every 5 seconds to get updated players list
-    this.sessionPollingSubscription = interval(5000).pipe(
-      startWith(0),
-      switchMap(() => {
-        if (!this.sessionId) return [];
-        return this.gameSessionService.getSessionById(this.sessionId);
-      })
-    ).subscribe({
-      next: (data: GameSession) => {
-        // Only update if players list has changed
-        const currentPlayerIds = this.session?.players?.map(p => p.id).sort().join(',') || '';
-        const newPlayerIds = data.players?.map(p => p.id).sort().join(',') || '';
-        
-        if (currentPlayerIds !== newPlayerIds) {
-          this.session = data;
-          // When players list changes, immediately reload characters
-          // as a new player might have joined with a character
-          this.loadCharacters();
-          // Also reload owner names for new characters
-          this.loadOwnerNames(this.characters);
-        } else {
-          // Update session data but preserve structure
-          if (this.session) {
-            this.session.players = data.players;
-            this.session.gameMaster = data.gameMaster;
-          }
+  /**
+   * Long poll the session change feed: the request returns as soon as the session, its characters
+   * or players changed, and the next request is sent right away with the returned cursor.
+   */
+  private pollChanges(): void {
+    const sessionId = this.sessionId;
+    if (!sessionId) return;
+    this.changesSubscription = this.gameSessionService.getChanges(sessionId, this.changesCursor).subscribe({
+      next: (changes: SessionChanges) => {
+        if (changes.resync) {
+          // Changes were missed (e.g. server restart): reload everything and follow the feed from there
+          this.loadBootstrap();
+          return;
+        }
+        this.changesCursor = changes.cursor;
+        this.applyChanges(changes);
+        if (this.sessionId === sessionId) {
+          this.pollChanges();
         }
       },
       error: (err: any) => {
-        console.error('Error polling session:', err);
+        console.error('Error polling session changes:', err);
+        // Retry with the same cursor; the server answers with resync if it cannot continue from it
+        this.changesSubscription = timer(this.CHANGES_RETRY_DELAY_MS).subscribe(() => this.pollChanges());
       }
     });
   }
 
-  stopPolling(): void {
-    if (this.charactersPollingSubscription) {
-      this.charactersPollingSubscription.unsubscribe();
-      this.charactersPollingSubscription = undefined;
+  private applyChanges(changes: SessionChanges): void {
+    if (changes.sessionDeleted) {
+      this.stopPolling();
+      this.router.navigate(['/sessions']);
+      return;
     }
-    if (this.sessionPollingSubscription) {
-      this.sessionPollingSubscription.unsubscribe();
-      this.sessionPollingSubscription = undefined;
+
+    if (changes.session) {
+      // Characters of joining players arrive as character changes
+      if (this.session) {
+        this.session.title = changes.session.title;
+        this.session.description = changes.session.description;
+        this.session.players = changes.session.players;
+        this.session.gameMaster = changes.session.gameMaster;
+      } else {
+        this.session = changes.session;
+      }
+    }
+
+    const removedIds = new Set(changes.removedCharacterIds || []);
+    const updated = changes.characters || [];
+    if (removedIds.size > 0 || updated.length > 0) {
+      let characters = this.characters.filter(c => !c.id || !removedIds.has(c.id));
+      updated.forEach(newChar => {
+        const existing = characters.find(c => c.id === newChar.id);
+        if (existing) {
+          // Update in place to preserve any local state
+          Object.assign(existing, newChar);
+        } else {
+          characters.push(newChar);
+        }
+      });
+      // Re-sort in case initiative values changed
+      this.characters = this.sortCharactersList(characters);
+      this.loadOwnerNames(this.characters);
+    }
+  }
+
+  stopPolling(): void {
+    if (this.changesSubscription) {
+      this.changesSubscription.unsubscribe();
+      this.changesSubscription = undefined;
     }
   }
 
   /**
    * Sort characters by initiative (descending) and then by name.
    */
-  private sortCharactersList(chars: Character[]): Character[] {
+  private sortCharactersList(chars: CharacterSummary[]): CharacterSummary[] {
     return [...chars].sort((a, b) => {
       const initA = a.initiative ?? 0;
       const initB = b.initiative ?? 0;
@@ -214,7 +243,7 @@ export class GameSessionDetailComponent implements OnInit, AfterViewInit, OnDest
     this.loading = true;
     this.error = null;
 
-    this.gameSessionService.getSessionById(this.sessionId).subscribe({
+    this.gameSessionService.getSessionById(this.sessionId, ['players']).subscribe({
       next: (data: GameSession) => {
         this.session = data;
         this.loading = false;
@@ -232,8 +261,8 @@ export class GameSessionDetailComponent implements OnInit, AfterViewInit, OnDest
   loadCharacters(): void {
     if (!this.sessionId) return;
 
-    this.characterService.getAllCharacters(undefined, this.sessionId).subscribe({
-      next: (data: Character[]) => {
+    this.characterService.getCharacterSummaries(undefined, this.sessionId).subscribe({
+      next: (data: CharacterSummary[]) => {
         // Check if characters have actually changed before updating
         const currentIds = this.characters.map(c => c.id).sort().join(',');
         const newIds = data.map(c => c.id).sort().join(',');
@@ -266,7 +295,7 @@ export class GameSessionDetailComponent implements OnInit, AfterViewInit, OnDest
     });
   }
 
-  loadOwnerNames(characters: Character[]): void {
+  loadOwnerNames(characters: CharacterSummary[]): void {
     // Get unique owner IDs
     const ownerIds = new Set<number>();
     characters.forEach(char => {
@@ -364,7 +393,11 @@ export class GameSessionDetailComponent implements OnInit, AfterViewInit, OnDest
     }
   }
 
-  checkIfJoined(): void {
+  /**
+   * Show the character selection if the user has not joined yet. `knownCharacter` is the own
+   * character if already loaded (null: none), otherwise it is requested.
+   */
+  checkIfJoined(knownCharacter?: Character | null): void {
     if (!this.sessionId || !this.currentUserId) return;
 
     const isGM = this.session?.gameMaster?.id === this.currentUserId;
@@ -374,37 +407,41 @@ export class GameSessionDetailComponent implements OnInit, AfterViewInit, OnDest
       this.showCharacterSelection = false;
       return;
     }
+
+    if (knownCharacter !== undefined) {
+      this.applyMyCharacter(knownCharacter, false);
+      return;
+    }
     
     // Check if user has a character in this session
     this.gameSessionService.getMyCharacter(this.sessionId).subscribe({
-      next: (character: Character | null) => {
-        if (character) {
-          this.myCharacter = character;
-          this.initializeSelectedWeapon(this.myCharacter);
-          this.showCharacterSelection = false;
-          // Load full character data with properties and talents
-          if (character.id) {
-            this.loadFullCharacter(character.id);
-          }
-        } else {
-          // Non-GM users need to join, show character selection
-          this.loadAvailableCharacters();
-          this.showCharacterSelection = true;
-        }
-      },
-      error: (err: any) => {
-        // If error, assume user hasn't joined
-        this.loadAvailableCharacters();
-        this.showCharacterSelection = true;
-      }
+      next: (character: Character | null) => this.applyMyCharacter(character, true),
+      // If error, assume user hasn't joined
+      error: () => this.applyMyCharacter(null, false)
     });
   }
 
+  private applyMyCharacter(character: Character | null, loadFull: boolean): void {
+    if (character) {
+      this.myCharacter = character;
+      this.initializeSelectedWeapon(this.myCharacter);
+      this.showCharacterSelection = false;
+      // Load full character data with properties and talents
+      if (loadFull && character.id) {
+        this.loadFullCharacter(character.id);
+      }
+    } else {
+      // Non-GM users need to join, show character selection
+      this.loadAvailableCharacters();
+      this.showCharacterSelection = true;
+    }
+  }
+
   loadAvailableCharacters(): void {
     if (!this.currentUserId) return;
 
-    this.characterService.getAllCharacters(this.currentUserId).subscribe({
-      next: (data: Character[]) => {
+    this.characterService.getCharacterSummaries(this.currentUserId).subscribe({
+      next: (data: CharacterSummary[]) => {
         this.availableCharacters = data;
         if (data.length > 0) {
           this.selectedCharacterId = data[0].id || null;
@@ -306,11 +306,12 @@ export class MapEditorPageComponent implements OnInit {
     this.savedMapsService.getMapById(Number(this.selectedMapId)).subscribe({
       next: (map) => {
         // Update currentDataParam
-        this.currentDataParam = map.dataParam;
+        const dataParam = map.dataParam ?? '';
+        this.currentDataParam = dataParam;
         
         // Decode and update initialData immediately so the map refreshes
         try {
-          const data = this.decodeDataParam(map.dataParam);
+          const data = this.decodeDataParam(dataParam);
           
           // Handle migration from old canvasWidth/canvasHeight format
           if (data.gridWidth && data.gridHeight) {
@@ -351,7 +352,7 @@ export class MapEditorPageComponent implements OnInit {
         // Update URL to reflect the loaded map (for sharing/bookmarking)
         this.router.navigate([], {
           relativeTo: this.route,
-          queryParams: { data: map.dataParam },
+          queryParams: { data: dataParam },
           queryParamsHandling: 'merge',
           replaceUrl: true
         });
@@ -32,5 +32,30 @@ export interface Battlemap {
   canvasHeight?: number;
   mapImageUrl?: string;
   tokens?: BattlemapToken[];
-  fogRevealedAreas?: FogRevealedArea[];
+  fog?: string; // Revealed fog cells: base64 bitset, bit y * fogColumns + x
+  fogColumns?: number;
+  fogRows?: number;
+  fogRevealedAreas?: FogRevealedArea[]; // Legacy fog format, only accepted by the backend
+}
+
+/**
+ * A rectangle of fog of war grid cells
+ */
+export interface FogRectangle {
+  x: number;
+  y: number;
+  width: number;
+  height: number;
+}
+
+/**
+ * A token change sent over the live battlemap WebSocket.
+ * "reload" tells the client to fetch the whole battlemap again.
+ */
+export interface TokenDelta {
+  op: 'move' | 'add' | 'remove' | 'reload';
+  tid?: number;
+  x?: number;
+  y?: number;
+  token?: BattlemapToken;
 }
@@ -27,6 +27,29 @@ export interface Character {
   specialities?: Speciality[];
 }
 
+/**
+ * A character without its hero sheet collections (properties, talents, spells, ...), as returned by
+ * the summaries endpoint, the session bootstrap and the session change feed
+ */
+export type CharacterSummary = Pick<Character, 'id' | 'name' | 'race' | 'culture' | 'profession' | 'gender' | 'xp'
+  | 'currentLife' | 'totalLife' | 'currentAsp' | 'currentKarma' | 'initiative' | 'wounds' | 'avatarUrl' | 'ownerId'>;
+
+/**
+ * Result of a bulk import of hero XML files from a ZIP archive, one entry per file
+ */
+export interface HeroImportResult {
+  imported: number;
+  failed: number;
+  skipped: number;
+  files: {
+    fileName: string;
+    status: 'IMPORTED' | 'FAILED' | 'SKIPPED';
+    characterId?: number;
+    name?: string;
+    error?: string;
+  }[];
+}
+
 export interface HeroProperty {
   id?: number;
   name: string;
@@ -1,14 +1,51 @@
-import { Character } from './character.model';
+import { Character, CharacterSummary } from './character.model';
 import { User } from './auth.model';
 import { Battlemap } from './battlemap.model';
+import { ChatMessage } from './chat-message.model';
+
+/**
+ * Optional parts of a session, requested with `expand`
+ */
+export type SessionExpansion = 'players' | 'battlemap';
 
 export interface GameSession {
   id?: number;
   title: string;
   description?: string;
   gameMaster?: User;
+  /** Only set if expanded */
   players?: User[];
+  playerCount?: number;
   characters?: Character[];
   createdAt?: string;
+  /** Only set if expanded */
+  battlemap?: Battlemap;
+}
+
+/**
+ * Response of the session change feed. Only changed parts are set; on `resync` the
+ * full state has to be reloaded. `cursor` is passed as `since` with the next request.
+ */
+export interface SessionChanges {
+  cursor: string;
+  resync: boolean;
+  session?: GameSession;
+  sessionDeleted?: boolean;
+  characters?: CharacterSummary[];
+  removedCharacterIds?: number[];
+  battlemapVersion?: string;
+  chatMessages?: ChatMessage[];
+}
+
+/**
+ * Everything needed to open a session, loaded with one request. The change feed is followed
+ * from `changesCursor`.
+ */
+export interface SessionBootstrap {
+  changesCursor: string;
+  session: GameSession;
   battlemap?: Battlemap;
+  characters: CharacterSummary[];
+  myCharacter?: Character;
+  chatMessages: ChatMessage[];
 }
@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Character, HeroProperty } from '../models/character.model';
+import { Character, CharacterSummary, HeroImportResult, HeroProperty } from '../models/character.model';
 import { environment } from '../../environments/environment';
 
 @Injectable({
@@ -20,6 +20,17 @@ export class CharacterService {
     return this.http.get<Character[]>(this.apiUrl, { params });
   }
 
+  /**
+   * Characters without their hero sheets; use for lists and lookups instead of getAllCharacters
+   */
+  getCharacterSummaries(ownerId?: number, sessionId?: number): Observable<CharacterSummary[]> {
+    let params = new HttpParams();
+    if (ownerId) params = params.set('ownerId', ownerId.toString());
+    if (sessionId) params = params.set('sessionId', sessionId.toString());
+
+    return this.http.get<CharacterSummary[]>(`${this.apiUrl}/summaries`, { params });
+  }
+
   getCharacterById(id: number): Observable<Character> {
     return this.http.get<Character>(`${this.apiUrl}/${id}`);
   }
@@ -57,6 +68,18 @@ export class CharacterService {
     return this.http.post<Character>(`${this.apiUrl}/upload-xml`, formData);
   }
 
+  /**
+   * Import all hero XML files of a ZIP archive; the result lists the outcome of every file
+   */
+  uploadCharactersFromZip(file: File, sessionId?: number): Observable<HeroImportResult> {
+    const formData = new FormData();
+    formData.append('file', file);
+    if (sessionId) {
+      formData.append('sessionId', sessionId.toString());
+    }
+    return this.http.post<HeroImportResult>(`${this.apiUrl}/upload-zip`, formData);
+  }
+
   performRest(id: number): Observable<Character> {
     return this.http.post<Character>(`${this.apiUrl}/${id}/rest`, {});
   }
@@ -1,20 +1,38 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable, interval } from 'rxjs';
 import { switchMap, startWith } from 'rxjs/operators';
 import { ChatMessage, ChatMessageRequest } from '../models/chat-message.model';
+import { AuthService } from './auth.service';
 import { environment } from '../../environments/environment';
 
+interface StreamEvent {
+  id?: string;
+  data?: string;
+  retry?: number;
+}
+
 @Injectable({
   providedIn: 'root'
 })
 export class ChatService {
   private apiUrl = `${environment.apiUrl}/sessions`;
 
-  constructor(private http: HttpClient) {}
+  constructor(
+    private http: HttpClient,
+    private authService: AuthService
+  ) {}
 
-  getMessages(sessionId: number): Observable<ChatMessage[]> {
-    return this.http.get<ChatMessage[]>(`${this.apiUrl}/${sessionId}/chat`);
+  /**
+   * Get messages oldest first. Without cursor the latest messages are returned;
+   * `after` fetches the messages following a message, `before` the ones preceding it.
+   */
+  getMessages(sessionId: number, page?: { after?: number; before?: number; limit?: number }): Observable<ChatMessage[]> {
+    let params = new HttpParams();
+    if (page?.after !== undefined) params = params.set('after', page.after.toString());
+    if (page?.before !== undefined) params = params.set('before', page.before.toString());
+    if (page?.limit !== undefined) params = params.set('limit', page.limit.toString());
+    return this.http.get<ChatMessage[]>(`${this.apiUrl}/${sessionId}/chat`, { params });
   }
 
   sendMessage(sessionId: number, message: string): Observable<ChatMessage> {
@@ -29,5 +47,110 @@ export class ChatService {
       switchMap(() => this.getMessages(sessionId))
     );
   }
-}
 
+  /**
+   * Stream new messages via Server-Sent Events.
+   * Uses fetch instead of EventSource so the Authorization header can be sent.
+   * When the stream ends it reconnects with Last-Event-ID, so no message is missed.
+   */
+  streamMessages(sessionId: number, lastMessageId?: number): Observable<ChatMessage> {
+    return new Observable<ChatMessage>(subscriber => {
+      const controller = new AbortController();
+      let lastEventId = lastMessageId;
+      let retryMs = 3000;
+      let stopped = false;
+
+      const connect = async (): Promise<void> => {
+        while (!stopped) {
+          try {
+            const headers: Record<string, string> = { Accept: 'text/event-stream' };
+            const token = this.authService.getToken();
+            if (token) {
+              headers['Authorization'] = `Bearer ${token}`;
+            }
+            if (lastEventId !== undefined) {
+              headers['Last-Event-ID'] = String(lastEventId);
+            }
+
+            const response = await fetch(`${this.apiUrl}/${sessionId}/chat/stream`, {
+              headers,
+              signal: controller.signal
+            });
+            if (response.status === 401 || response.status === 404) {
+              subscriber.error(new Error(`Chat stream rejected with status ${response.status}`));
+              return;
+            }
+            if (!response.ok || !response.body) {
+              throw new Error(`Chat stream failed with status ${response.status}`);
+            }
+
+            const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+            let buffer = '';
+            while (true) {
+              const { value, done } = await reader.read();
+              if (done) {
+                break;
+              }
+              buffer += value.replace(/\r\n/g, '\n');
+              let boundary: number;
+              while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+                const event = this.parseEvent(buffer.substring(0, boundary));
+                buffer = buffer.substring(boundary + 2);
+                if (event.retry) {
+                  retryMs = event.retry;
+                }
+                if (event.id) {
+                  lastEventId = Number(event.id);
+                }
+                if (event.data) {
+                  subscriber.next(JSON.parse(event.data) as ChatMessage);
+                }
+              }
+            }
+          } catch (err) {
+            if (stopped) {
+              return;
+            }
+            console.error('Chat stream interrupted:', err);
+          }
+          if (!stopped) {
+            await new Promise(resolve => setTimeout(resolve, retryMs));
+          }
+        }
+      };
+
+      connect();
+      return () => {
+        stopped = true;
+        controller.abort();
+      };
+    });
+  }
+
+  private parseEvent(block: string): StreamEvent {
+    const event: StreamEvent = {};
+    const data: string[] = [];
+    for (const line of block.split('\n')) {
+      if (!line || line.startsWith(':')) {
+        continue; // Comment, e.g. heartbeat
+      }
+      const separator = line.indexOf(':');
+      const field = separator >= 0 ? line.substring(0, separator) : line;
+      let value = separator >= 0 ? line.substring(separator + 1) : '';
+      if (value.startsWith(' ')) {
+        value = value.substring(1);
+      }
+      if (field === 'id') {
+        event.id = value;
+      } else if (field === 'data') {
+        data.push(value);
+      } else if (field === 'retry') {
+        event.retry = Number(value);
+      }
+    }
+    if (data.length > 0) {
+      event.data = data.join('\n');
+    }
+    return event;
+  }
+}
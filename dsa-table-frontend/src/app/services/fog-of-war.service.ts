@@ -32,6 +32,47 @@ export class FogOfWarService {
     return areas;
   }
 
+  /**
+   * Load the revealed cells from the bitset sent by the backend: base64 of one bit per cell,
+   * bit `y * columns + x`, least significant bit first.
+   */
+  setFogBitmap(fog: string | undefined | null, columns: number): void {
+    this.revealedCells.clear();
+    if (!fog || columns <= 0) return;
+    const bytes = atob(fog);
+    for (let i = 0; i < bytes.length; i++) {
+      const byte = bytes.charCodeAt(i);
+      if (byte === 0) continue;
+      for (let bit = 0; bit < 8; bit++) {
+        if (byte & (1 << bit)) {
+          const index = i * 8 + bit;
+          this.revealedCells.add(this.getCellKey(index % columns, Math.floor(index / columns)));
+        }
+      }
+    }
+  }
+
+  /**
+   * Encode the revealed cells of a `columns` x `rows` grid as bitset for the backend (see setFogBitmap).
+   * Cells outside of the grid are left out.
+   */
+  getFogBitmap(columns: number, rows: number): string {
+    const bytes = new Uint8Array(Math.ceil(columns * rows / 8));
+    let length = 0;
+    this.revealedCells.forEach(key => {
+      const [x, y] = this.parseCellKey(key);
+      if (x < 0 || x >= columns || y < 0 || y >= rows) return;
+      const index = y * columns + x;
+      bytes[index >> 3] |= 1 << (index & 7);
+      length = Math.max(length, (index >> 3) + 1);
+    });
+    let binary = '';
+    for (let i = 0; i < length; i++) {
+      binary += String.fromCharCode(bytes[i]);
+    }
+    return btoa(binary);
+  }
+
   getRevealedCells(): Set<string> {
     return new Set(this.revealedCells);
   }
@@ -1,30 +1,49 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
-import { Observable, catchError, of, interval } from 'rxjs';
+import { Observable, Subject, catchError, of, interval } from 'rxjs';
 import { switchMap, startWith } from 'rxjs/operators';
-import { GameSession } from '../models/game-session.model';
+import { GameSession, SessionBootstrap, SessionChanges, SessionExpansion } from '../models/game-session.model';
 import { Character } from '../models/character.model';
-import { Battlemap } from '../models/battlemap.model';
+import { Battlemap, BattlemapToken, FogRectangle, TokenDelta } from '../models/battlemap.model';
 import { environment } from '../../environments/environment';
 
+/**
+ * Live battlemap channel of a session: token deltas of other clients arrive on `deltas`,
+ * `send` returns false while disconnected so callers can fall back to a full save.
+ */
+export interface BattlemapChannel {
+  deltas: Observable<TokenDelta>;
+  send(delta: TokenDelta): boolean;
+  isConnected(): boolean;
+  close(): void;
+}
+
 @Injectable({
   providedIn: 'root'
 })
 export class GameSessionService {
   private apiUrl = `${environment.apiUrl}/sessions`;
 
+  private readonly LIVE_RECONNECT_DELAY_MS = 3000;
+
   constructor(private http: HttpClient) {}
 
-  getAllSessions(gmId?: number, playerId?: number): Observable<GameSession[]> {
+  /**
+   * Sessions contain the game master and player count; players and battlemap only if expanded
+   */
+  getAllSessions(gmId?: number, playerId?: number, expand: SessionExpansion[] = []): Observable<GameSession[]> {
     let params = new HttpParams();
     if (gmId) params = params.set('gmId', gmId.toString());
     if (playerId) params = params.set('playerId', playerId.toString());
+    if (expand.length > 0) params = params.set('expand', expand.join(','));
     
     return this.http.get<GameSession[]>(this.apiUrl, { params });
   }
 
-  getSessionById(id: number): Observable<GameSession> {
-    return this.http.get<GameSession>(`${this.apiUrl}/${id}`);
+  getSessionById(id: number, expand: SessionExpansion[] = []): Observable<GameSession> {
+    let params = new HttpParams();
+    if (expand.length > 0) params = params.set('expand', expand.join(','));
+    return this.http.get<GameSession>(`${this.apiUrl}/${id}`, { params });
   }
 
   createSession(session: GameSession): Observable<GameSession> {
@@ -35,6 +54,26 @@ export class GameSessionService {
     return this.http.put<GameSession>(`${this.apiUrl}/${id}`, session);
   }
 
+  /**
+   * Load session, battlemap, characters, the own character and the latest chat messages at once
+   */
+  getBootstrap(sessionId: number, chatLimit?: number): Observable<SessionBootstrap> {
+    let params = new HttpParams();
+    if (chatLimit !== undefined) params = params.set('chatLimit', chatLimit.toString());
+    return this.http.get<SessionBootstrap>(`${this.apiUrl}/${sessionId}/bootstrap`, { params });
+  }
+
+  /**
+   * Long poll for changes of a session. Without cursor the server answers right away with a
+   * cursor and `resync`; with cursor it answers once something changed or after `waitSeconds`.
+   */
+  getChanges(sessionId: number, since?: string, waitSeconds?: number): Observable<SessionChanges> {
+    let params = new HttpParams();
+    if (since) params = params.set('since', since);
+    if (waitSeconds !== undefined) params = params.set('wait', waitSeconds.toString());
+    return this.http.get<SessionChanges>(`${this.apiUrl}/${sessionId}/changes`, { params });
+  }
+
   deleteSession(id: number): Observable<void> {
     return this.http.delete<void>(`${this.apiUrl}/${id}`);
   }
@@ -59,6 +98,26 @@ export class GameSessionService {
     return this.http.put<Battlemap>(`${this.apiUrl}/${sessionId}/battlemap`, battlemap);
   }
 
+  /**
+   * Change single tokens: only the given fields of every patch are written, tokens are identified by `tid`.
+   */
+  patchTokens(sessionId: number, patches: BattlemapToken[]): Observable<void> {
+    return this.http.patch<void>(`${this.apiUrl}/${sessionId}/battlemap/tokens`, patches);
+  }
+
+  revealFog(sessionId: number, rectangle: FogRectangle): Observable<void> {
+    return this.http.post<void>(`${this.apiUrl}/${sessionId}/battlemap/fog/reveal`, rectangle);
+  }
+
+  hideFog(sessionId: number, rectangle: FogRectangle): Observable<void> {
+    return this.http.post<void>(`${this.apiUrl}/${sessionId}/battlemap/fog/hide`, rectangle);
+  }
+
+  deleteTokens(sessionId: number, tokenIds: number[]): Observable<void> {
+    const params = new HttpParams({ fromObject: { tokenIds: tokenIds.map(String) } });
+    return this.http.delete<void>(`${this.apiUrl}/${sessionId}/battlemap/tokens`, { params });
+  }
+
   // Poll for battlemap updates every 2 seconds
   pollBattlemap(sessionId: number, intervalMs: number = 2000): Observable<Battlemap | null> {
     return interval(intervalMs).pipe(
@@ -66,6 +125,76 @@ export class GameSessionService {
       switchMap(() => this.getBattlemap(sessionId))
     );
   }
-}
 
+  /**
+   * Open the live battlemap WebSocket of a session. Browsers cannot set headers on a WebSocket
+   * handshake, so a single-use ticket is fetched first and passed as query parameter; every
+   * (re)connect needs a fresh one. Lost connections are re-opened, and a "reload" delta is
+   * emitted on reconnect so deltas missed in between are caught up.
+   */
+  connectBattlemap(sessionId: number): BattlemapChannel {
+    const deltas = new Subject<TokenDelta>();
+    let socket: WebSocket | null = null;
+    let closed = false;
+    let reconnecting = false;
+
+    const reconnect = (): void => {
+      reconnecting = true;
+      setTimeout(() => {
+        if (!closed) open();
+      }, this.LIVE_RECONNECT_DELAY_MS);
+    };
+
+    const open = (): void => {
+      this.http.post<{ ticket: string }>(`${this.apiUrl}/${sessionId}/battlemap/live/ticket`, {}).subscribe({
+        next: ({ ticket }) => {
+          if (!closed) connect(ticket);
+        },
+        error: error => {
+          console.error('Error fetching battlemap ticket:', error);
+          if (!closed) reconnect();
+        }
+      });
+    };
 
+    const connect = (ticket: string): void => {
+      const url = new URL(`${this.apiUrl}/${sessionId}/battlemap/live`, window.location.href);
+      url.protocol = url.protocol === 'https:' ? 'wss:' : 'ws:';
+      url.searchParams.set('ticket', ticket);
+      const current = new WebSocket(url.toString());
+      socket = current;
+      current.onopen = () => {
+        if (reconnecting) {
+          deltas.next({ op: 'reload' });
+        }
+      };
+      current.onmessage = event => {
+        try {
+          deltas.next(JSON.parse(event.data) as TokenDelta);
+        } catch (e) {
+          console.error('Invalid battlemap delta:', e);
+        }
+      };
+      current.onclose = () => {
+        if (closed || socket !== current) return;
+        reconnect();
+      };
+    };
+    open();
+
+    return {
+      deltas: deltas.asObservable(),
+      send: (delta: TokenDelta): boolean => {
+        if (!socket || socket.readyState !== WebSocket.OPEN) return false;
+        socket.send(JSON.stringify(delta));
+        return true;
+      },
+      isConnected: (): boolean => !!socket && socket.readyState === WebSocket.OPEN,
+      close: (): void => {
+        closed = true;
+        socket?.close();
+        deltas.complete();
+      }
+    };
+  }
+}
@@ -7,7 +7,11 @@ import { AuthService } from './auth.service';
 export interface SavedMap {
   id: number;
   name: string;
-  dataParam: string;
+  /** Only included when a single map is loaded via getMapById */
+  dataParam?: string;
+  dataHash: string;
+  dataSize: number;
+  thumbnailUrl: string;
   createdAt: string;
   updatedAt: string;
 }